@@ -1,19 +1,173 @@
 package com.sviat.gamerecommender.config;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.sviat.gamerecommender.service.AlsRecommender;
+import com.sviat.gamerecommender.service.AlsTrainer;
+import com.sviat.gamerecommender.service.CoOccurrenceRecommender;
+import com.sviat.gamerecommender.service.ContentSimilarityRecommender;
+import com.sviat.gamerecommender.service.DashboardSnapshotService;
+import com.sviat.gamerecommender.service.GameBrowseIndex;
 import com.sviat.gamerecommender.service.GameDatabase;
 import com.sviat.gamerecommender.service.JsonService;
+import com.sviat.gamerecommender.service.LinearMatchScorer;
+import com.sviat.gamerecommender.service.MappedUserStore;
+import com.sviat.gamerecommender.service.MatchScorerRegistry;
+import com.sviat.gamerecommender.service.PlayEventLog;
+import com.sviat.gamerecommender.service.PlayEventPipeline;
+import com.sviat.gamerecommender.service.ProfileRecommender;
+import com.sviat.gamerecommender.service.RandomWalkRecommender;
 import com.sviat.gamerecommender.service.RecommendationEngine;
+import com.sviat.gamerecommender.service.SavedSearchPercolator;
+import com.sviat.gamerecommender.service.SessionTransitionModel;
+import com.sviat.gamerecommender.service.TrendingService;
+import com.sviat.gamerecommender.service.UserDatabase;
+import com.sviat.gamerecommender.service.WeightedMatchScorer;
 
 @Configuration
 public class GameConfig {
     
     @Value("${game.data.path:data/games.json}")
     private String gameDataPath;
+
+    @Value("${recommendation.scorer.experiment:}")
+    private String scorerExperiment;
+
+    @Value("${recommendation.parallel.threshold:" + RecommendationEngine.DEFAULT_PARALLEL_THRESHOLD + "}")
+    private int parallelThreshold;
+
+    @Value("${recommendation.diversity.candidates:" + RecommendationEngine.DEFAULT_DIVERSITY_CANDIDATES + "}")
+    private int diversityCandidates;
+
+    @Value("${recommendation.batch.max-queries:" + RecommendationEngine.DEFAULT_MAX_BATCH_QUERIES + "}")
+    private int maxBatchQueries;
+
+    @Value("${recommendation.time-budget-millis:0}")
+    private long timeBudgetMillis;
+
+    @Value("${recommendation.related.neighbours:" + RecommendationEngine.DEFAULT_RELATED_NEIGHBOURS + "}")
+    private int relatedNeighbours;
+
+    @Value("${recommendation.lsh.bands:" + RecommendationEngine.DEFAULT_LSH_BANDS + "}")
+    private int lshBands;
+
+    @Value("${recommendation.lsh.rows:" + RecommendationEngine.DEFAULT_LSH_ROWS + "}")
+    private int lshRows;
+
+    @Value("${recommendation.cooccurrence.neighbours:" + CoOccurrenceRecommender.DEFAULT_MAX_NEIGHBOURS + "}")
+    private int coOccurrenceNeighbours;
+
+    @Value("${recommendation.als.factors:" + AlsTrainer.DEFAULT_FACTORS + "}")
+    private int alsFactors;
+
+    @Value("${recommendation.als.iterations:" + AlsTrainer.DEFAULT_ITERATIONS + "}")
+    private int alsIterations;
+
+    @Value("${recommendation.als.regularization:" + AlsTrainer.DEFAULT_REGULARIZATION + "}")
+    private double alsRegularization;
+
+    @Value("${recommendation.als.alpha:" + AlsTrainer.DEFAULT_ALPHA + "}")
+    private double alsAlpha;
+
+    @Value("${recommendation.als.checkpoint:}")
+    private String alsCheckpoint;
+
+    @Value("${recommendation.als.model:}")
+    private String alsModel;
+
+    @Value("${recommendation.als.retrain-minutes:" + AlsRecommender.DEFAULT_RETRAIN_MINUTES + "}")
+    private int alsRetrainMinutes;
+
+    @Value("${recommendation.users.store:}")
+    private String userStore;
+
+    @Value("${recommendation.profile.cache-size:" + ProfileRecommender.DEFAULT_CACHE_SIZE + "}")
+    private int profileCacheSize;
+
+    @Value("${recommendation.events.queue-capacity:" + PlayEventPipeline.DEFAULT_QUEUE_CAPACITY + "}")
+    private int eventQueueCapacity;
+
+    @Value("${recommendation.events.batch-size:" + PlayEventPipeline.DEFAULT_BATCH_SIZE + "}")
+    private int eventBatchSize;
+
+    @Value("${recommendation.events.log:}")
+    private String eventLog;
+
+    @Value("${recommendation.trending.half-life-minutes:" + TrendingService.DEFAULT_HALF_LIFE_MINUTES + "}")
+    private double trendingHalfLifeMinutes;
+
+    @Value("${recommendation.trending.refresh-seconds:" + TrendingService.DEFAULT_REFRESH_SECONDS + "}")
+    private int trendingRefreshSeconds;
+
+    @Value("${recommendation.trending.size:" + TrendingService.DEFAULT_SIZE + "}")
+    private int trendingSize;
+
+    @Value("${recommendation.session.half-life-minutes:" + SessionTransitionModel.DEFAULT_HALF_LIFE_MINUTES + "}")
+    private double sessionHalfLifeMinutes;
+
+    @Value("${recommendation.session.max-out-degree:" + SessionTransitionModel.DEFAULT_MAX_OUT_DEGREE + "}")
+    private int sessionMaxOutDegree;
+
+    @Value("${recommendation.walk.steps:" + RandomWalkRecommender.DEFAULT_STEPS + "}")
+    private int walkSteps;
+
+    @Value("${recommendation.walk.walkers:" + RandomWalkRecommender.DEFAULT_WALKERS + "}")
+    private int walkWalkers;
+
+    @Value("${recommendation.walk.restart-probability:" + RandomWalkRecommender.DEFAULT_RESTART_PROBABILITY + "}")
+    private double walkRestartProbability;
+
+    @Value("${recommendation.content.dimension:" + ContentSimilarityRecommender.DEFAULT_DIMENSION + "}")
+    private int contentDimension;
+
+    @Value("${recommendation.content.m:" + ContentSimilarityRecommender.DEFAULT_M + "}")
+    private int contentM;
+
+    @Value("${recommendation.content.ef-construction:" + ContentSimilarityRecommender.DEFAULT_EF_CONSTRUCTION + "}")
+    private int contentEfConstruction;
+
+    @Value("${recommendation.content.ef-search:" + ContentSimilarityRecommender.DEFAULT_EF_SEARCH + "}")
+    private int contentEfSearch;
+
+    @Value("${recommendation.content.index-file:}")
+    private String contentIndexFile;
     
+    @Value("${recommendation.saved-search.outbox:data/saved-search-outbox.jsonl}")
+    private String savedSearchOutbox;
+
+    @Value("${recommendation.saved-search.batch-size:" + SavedSearchPercolator.DEFAULT_BATCH_SIZE + "}")
+    private int savedSearchBatchSize;
+
+    @Value("${recommendation.saved-search.flush-seconds:" + SavedSearchPercolator.DEFAULT_FLUSH_SECONDS + "}")
+    private int savedSearchFlushSeconds;
+
+    @Value("${recommendation.saved-search.max-pending:" + SavedSearchPercolator.DEFAULT_MAX_PENDING + "}")
+    private int savedSearchMaxPending;
+
+    @Value("${recommendation.saved-search.store:}")
+    private String savedSearchStore;
+
+    @Value("${recommendation.browse.locale:en}")
+    private String browseLocale;
+
+    @Value("${recommendation.browse.page-size:" + GameBrowseIndex.DEFAULT_PAGE_SIZE + "}")
+    private int browsePageSize;
+
+    @Value("${recommendation.dashboard.row-size:" + DashboardSnapshotService.DEFAULT_ROW_SIZE + "}")
+    private int dashboardRowSize;
+
+    @Value("${recommendation.dashboard.refresh-seconds:" + DashboardSnapshotService.DEFAULT_REFRESH_SECONDS + "}")
+    private int dashboardRefreshSeconds;
+
     @Bean
     public JsonService jsonService() {
         return new JsonService();
@@ -29,7 +183,150 @@ public class GameConfig {
     }
     
     @Bean
-    public RecommendationEngine recommendationEngine(GameDatabase gameDatabase) {
-        return new RecommendationEngine(gameDatabase);
+    public MatchScorerRegistry matchScorerRegistry() {
+        MatchScorerRegistry registry = new MatchScorerRegistry(WeightedMatchScorer.DEFAULT);
+        registry.register(new LinearMatchScorer("linear", WeightedMatchScorer.PERFECT_MATCH_SCORE,
+                WeightedMatchScorer.GENRE_WEIGHT, WeightedMatchScorer.TAG_WEIGHT));
+        // e.g. recommendation.scorer.experiment=weighted:90,linear:10
+        registry.configureExperiment(scorerExperiment);
+        return registry;
+    }
+
+    @Bean
+    public RecommendationEngine recommendationEngine(GameDatabase gameDatabase, MatchScorerRegistry matchScorerRegistry) {
+        RecommendationEngine engine = new RecommendationEngine(gameDatabase, matchScorerRegistry.getDefaultScorer());
+        engine.setParallelThreshold(parallelThreshold);
+        engine.setRelatedNeighbours(relatedNeighbours);
+        engine.setLshParameters(lshBands, lshRows);
+        engine.setDiversityCandidates(diversityCandidates);
+        engine.setTimeBudget(Duration.ofMillis(timeBudgetMillis));
+        engine.setMaxBatchQueries(maxBatchQueries);
+        // Precompute related games so the first page view doesn't pay for it
+        engine.getRelatedGamesIndex();
+        return engine;
+    }
+
+    @Bean(destroyMethod = "close")
+    public UserDatabase userDatabase(GameDatabase gameDatabase) throws IOException {
+        UserDatabase userDatabase = new UserDatabase(gameDatabase);
+        if (!userStore.isEmpty()) {
+            userDatabase.attachStore(MappedUserStore.open(Path.of(userStore)));
+        }
+        return userDatabase;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CoOccurrenceRecommender coOccurrenceRecommender(GameDatabase gameDatabase, UserDatabase userDatabase) {
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(gameDatabase, userDatabase);
+        recommender.setMaxNeighbours(coOccurrenceNeighbours);
+        return recommender;
+    }
+
+    @Bean(destroyMethod = "close")
+    public AlsRecommender alsRecommender(GameDatabase gameDatabase, UserDatabase userDatabase) {
+        AlsTrainer trainer = new AlsTrainer(alsFactors, alsIterations, alsRegularization, alsAlpha);
+        AlsRecommender recommender = new AlsRecommender(gameDatabase, userDatabase, trainer);
+        if (!alsCheckpoint.isEmpty()) {
+            trainer.setCheckpoint(Path.of(alsCheckpoint));
+        }
+        if (!alsModel.isEmpty()) {
+            recommender.setModelFile(Path.of(alsModel));
+            // Serve the last finished model until the next training run
+            recommender.loadModel(Path.of(alsModel));
+        }
+        if (alsRetrainMinutes > 0) {
+            recommender.start(alsRetrainMinutes);
+        }
+        return recommender;
+    }
+
+    @Bean
+    public ProfileRecommender profileRecommender(GameDatabase gameDatabase, UserDatabase userDatabase,
+            MatchScorerRegistry matchScorerRegistry) {
+        return new ProfileRecommender(gameDatabase, userDatabase, matchScorerRegistry.getDefaultScorer(),
+                profileCacheSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PlayEventPipeline playEventPipeline(GameDatabase gameDatabase, UserDatabase userDatabase,
+            TrendingService trendingService) throws IOException {
+        PlayEventLog log = eventLog.isEmpty() ? null : new PlayEventLog(Path.of(eventLog));
+        PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, eventQueueCapacity,
+                eventBatchSize, log);
+        if (log != null) {
+            // Restore the plays ingested before the last shutdown
+            pipeline.replay(log.getFile());
+        }
+        pipeline.addListener(event -> trendingService.recordPlay(event.getGameId(), event.getTimestamp()));
+        pipeline.start();
+        return pipeline;
+    }
+
+    @Bean(destroyMethod = "close")
+    public TrendingService trendingService(GameDatabase gameDatabase) {
+        TrendingService trending = new TrendingService(gameDatabase, trendingHalfLifeMinutes, trendingSize);
+        trending.start(trendingRefreshSeconds);
+        return trending;
+    }
+
+    @Bean
+    public SessionTransitionModel sessionTransitionModel(GameDatabase gameDatabase) {
+        return new SessionTransitionModel(gameDatabase, sessionHalfLifeMinutes, sessionMaxOutDegree);
+    }
+
+    @Bean(destroyMethod = "close")
+    public RandomWalkRecommender randomWalkRecommender(GameDatabase gameDatabase, UserDatabase userDatabase) {
+        RandomWalkRecommender recommender = new RandomWalkRecommender(gameDatabase, userDatabase, walkSteps,
+                walkWalkers, walkRestartProbability);
+        // Build the graph so the first request doesn't pay for it
+        recommender.refreshGraph();
+        return recommender;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ContentSimilarityRecommender contentSimilarityRecommender(GameDatabase gameDatabase) {
+        ContentSimilarityRecommender recommender = new ContentSimilarityRecommender(gameDatabase, contentDimension,
+                contentM, contentEfConstruction, contentEfSearch,
+                contentIndexFile.isEmpty() ? null : Path.of(contentIndexFile));
+        // Build or map the index so the first request doesn't pay for it
+        recommender.refreshIndex();
+        return recommender;
+    }
+
+    @Bean(destroyMethod = "close")
+    public SavedSearchPercolator savedSearchPercolator(GameDatabase gameDatabase) throws IOException {
+        SavedSearchPercolator percolator = new SavedSearchPercolator(gameDatabase, Path.of(savedSearchOutbox),
+                savedSearchBatchSize);
+        percolator.setMaxPending(savedSearchMaxPending);
+        if (!savedSearchStore.isEmpty()) {
+            percolator.setStoreFile(Path.of(savedSearchStore));
+        }
+        gameDatabase.addListener(percolator::percolate);
+        percolator.start(savedSearchFlushSeconds);
+        return percolator;
+    }
+
+    @Bean
+    public GameBrowseIndex gameBrowseIndex(GameDatabase gameDatabase) {
+        return new GameBrowseIndex(gameDatabase, Locale.forLanguageTag(browseLocale), browsePageSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    public DashboardSnapshotService dashboardSnapshotService(GameDatabase gameDatabase,
+            RecommendationEngine recommendationEngine, MeterRegistry meterRegistry) {
+        DashboardSnapshotService dashboard = new DashboardSnapshotService(gameDatabase, recommendationEngine,
+                dashboardRowSize);
+        dashboard.start(dashboardRefreshSeconds);
+        Gauge.builder("dashboard.snapshot.build.duration", dashboard,
+                service -> service.getSnapshot().buildDuration() / 1e6)
+                .description("How long the last dashboard snapshot took to build")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.snapshot.age", dashboard,
+                service -> (System.currentTimeMillis() - service.getSnapshot().builtAt()) / 1000.0)
+                .description("Time since the last dashboard snapshot was built")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return dashboard;
     }
 }
@@ -0,0 +1,61 @@
+package com.sviat.gamerecommender.controller;
+
+import com.sviat.gamerecommender.dto.PlayEvent;
+import com.sviat.gamerecommender.service.PlayEventPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequestMapping("/events")
+public class EventController {
+
+    private final PlayEventPipeline playEventPipeline;
+
+    @Autowired
+    public EventController(PlayEventPipeline playEventPipeline) {
+        this.playEventPipeline = playEventPipeline;
+    }
+
+    /**
+     * Queue play events for ingestion
+     * 
+     * @param events the plays to record
+     * @return 202 with the number of accepted and rejected events, 400 if the
+     *         list has a missing entry, or 503 if the queue filled up before
+     *         every event was accepted
+     */
+    @PostMapping("/plays")
+    @ResponseBody
+    public ResponseEntity<Map<String, Integer>> ingestPlays(@RequestBody List<PlayEvent> events) {
+        if (events.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int accepted = 0;
+        int rejected = 0;
+        boolean queueFull = false;
+        for (PlayEvent event : events) {
+            try {
+                if (!playEventPipeline.submit(event)) {
+                    queueFull = true;
+                    break;
+                }
+                accepted++;
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+
+        Map<String, Integer> result = new HashMap<>();
+        result.put("accepted", accepted);
+        result.put("rejected", rejected);
+        HttpStatus status = queueFull ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(result);
+    }
+}
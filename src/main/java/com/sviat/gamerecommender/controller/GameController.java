@@ -1,40 +1,97 @@
 package com.sviat.gamerecommender.controller;
 
 import com.sviat.gamerecommender.model.Game;
-import com.sviat.gamerecommender.service.GameDatabase;
+import com.sviat.gamerecommender.service.GameBrowseIndex;
+import com.sviat.gamerecommender.service.GameBrowseIndex.BrowsePage;
+import com.sviat.gamerecommender.service.GameBrowseIndex.BrowseWindow;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/games")
 public class GameController {
 
-    private final GameDatabase gameDatabase;
+    private final GameBrowseIndex gameBrowseIndex;
 
     @Autowired
-    public GameController(GameDatabase gameDatabase) {
-        this.gameDatabase = gameDatabase;
+    public GameController(GameBrowseIndex gameBrowseIndex) {
+        this.gameBrowseIndex = gameBrowseIndex;
     }
 
     @GetMapping
-    public String browseGames(Model model) {
-        // Get all games for the browse page
-        List<Game> allGames = gameDatabase.getAllGames()
-        .stream()
-        .sorted(Comparator.comparing(Game::getTitle, String.CASE_INSENSITIVE_ORDER))
-        .collect(Collectors.toList());
+    public String browseGames(@RequestParam(defaultValue = "0") int page, Model model) {
+        // Get one page of the games in title order
+        BrowsePage browsePage = gameBrowseIndex.getPage(page);
         
         // Add data to the model
-        model.addAttribute("allGames", allGames);
-        model.addAttribute("totalGames", allGames.size());
+        model.addAttribute("allGames", browsePage.games());
+        model.addAttribute("totalGames", browsePage.totalGames());
+        model.addAttribute("page", browsePage.page());
+        model.addAttribute("totalPages", browsePage.totalPages());
         
         return "pages/games";
     }
+
+    /**
+     * Get one page of the games in title order
+     * 
+     * @param page the zero-based page number
+     * @return the page's games and the page count
+     */
+    @GetMapping("/api/page")
+    @ResponseBody
+    public Map<String, Object> getPage(@RequestParam(defaultValue = "0") int page) {
+        BrowsePage browsePage = gameBrowseIndex.getPage(page);
+        Map<String, Object> result = new HashMap<>();
+        result.put("games", toCards(browsePage.games()));
+        result.put("page", browsePage.page());
+        result.put("pageSize", browsePage.pageSize());
+        result.put("totalGames", browsePage.totalGames());
+        result.put("totalPages", browsePage.totalPages());
+        return result;
+    }
+
+    /**
+     * Get a window of the games in title order, for virtual scrolling
+     * 
+     * @param offset the position of the first game
+     * @param count  the number of games, at most GameBrowseIndex.MAX_PAGE_SIZE
+     * @return the window's games and the total number of games
+     */
+    @GetMapping("/api/window")
+    @ResponseBody
+    public Map<String, Object> getWindow(@RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + GameBrowseIndex.DEFAULT_PAGE_SIZE) int count) {
+        BrowseWindow window = gameBrowseIndex.getWindow(offset, count);
+        Map<String, Object> result = new HashMap<>();
+        result.put("games", toCards(window.games()));
+        result.put("offset", window.offset());
+        result.put("totalGames", window.totalGames());
+        return result;
+    }
+
+    // What a game card shows
+    private static List<Map<String, Object>> toCards(List<Game> games) {
+        List<Map<String, Object>> cards = new ArrayList<>(games.size());
+        for (Game game : games) {
+            Map<String, Object> card = new HashMap<>();
+            card.put("id", game.getId());
+            card.put("title", game.getTitle());
+            card.put("thumbnailUrl", game.getThumbnailUrl() != null ? game.getThumbnailUrl() : game.getImageUrl());
+            card.put("metacriticScore", game.getMetacriticScore());
+            card.put("genres", game.getGenres());
+            cards.add(card);
+        }
+        return cards;
+    }
 }
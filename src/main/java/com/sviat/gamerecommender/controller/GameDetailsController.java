@@ -3,6 +3,8 @@ package com.sviat.gamerecommender.controller;
 import com.sviat.gamerecommender.model.Game;
 import com.sviat.gamerecommender.service.GameDatabase;
 import com.sviat.gamerecommender.service.S3Service;
+import com.sviat.gamerecommender.service.SessionTransitionModel;
+import com.sviat.gamerecommender.service.TrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -10,8 +12,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.util.WebUtils;
 
+import jakarta.servlet.http.HttpSession;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,13 +28,22 @@ import java.util.Map;
 @RequestMapping("/api/games")
 public class GameDetailsController {
 
+    // Session attribute holding the ids of the games viewed, oldest first
+    private static final String RECENT_VIEWS = "recentGameViews";
+    private static final int RECENT_VIEWS_KEPT = 20;
+
     private final GameDatabase gameDatabase;
     private final S3Service s3Service;
+    private final TrendingService trendingService;
+    private final SessionTransitionModel sessionModel;
 
     @Autowired
-    public GameDetailsController(GameDatabase gameDatabase, S3Service s3Service) {
+    public GameDetailsController(GameDatabase gameDatabase, S3Service s3Service, TrendingService trendingService,
+            SessionTransitionModel sessionModel) {
         this.gameDatabase = gameDatabase;
         this.s3Service = s3Service;
+        this.trendingService = trendingService;
+        this.sessionModel = sessionModel;
     }
 
     /**
@@ -38,12 +54,14 @@ public class GameDetailsController {
      */
     @GetMapping("/{gameId}/details")
     @ResponseBody
-    public ResponseEntity<?> getGameDetails(@PathVariable String gameId) {
+    public ResponseEntity<?> getGameDetails(@PathVariable String gameId, HttpSession session) {
         // Find the game by ID
         Game game = gameDatabase.findGameById(gameId);
         if (game == null) {
             return ResponseEntity.notFound().build();
         }
+        trendingService.recordView(gameId);
+        recordSessionView(session, gameId);
 
         // Create response with game data and HTML content
         Map<String, Object> response = new HashMap<>();
@@ -66,5 +84,54 @@ public class GameDetailsController {
         response.put("releaseDate", game.getReleaseDate());
         
         return ResponseEntity.ok(response);
-    }    
+    }
+
+    /**
+     * Get the games most often opened next after the ones viewed in this session
+     * 
+     * @return list of suggested games
+     */
+    @GetMapping("/session/next")
+    @ResponseBody
+    public List<Map<String, String>> getNextGames(HttpSession session) {
+        List<String> recentViews;
+        synchronized (WebUtils.getSessionMutex(session)) {
+            recentViews = new ArrayList<>(recentViews(session));
+        }
+        List<Map<String, String>> result = new ArrayList<>();
+        for (Game game : sessionModel.suggestNext(recentViews, 10)) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("id", game.getId());
+            entry.put("title", game.getTitle());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private void recordSessionView(HttpSession session, String gameId) {
+        String previous;
+        synchronized (WebUtils.getSessionMutex(session)) {
+            List<String> views = recentViews(session);
+            previous = views.isEmpty() ? null : views.get(views.size() - 1);
+            if (gameId.equals(previous)) {
+                return;
+            }
+            views.remove(gameId);
+            views.add(gameId);
+            if (views.size() > RECENT_VIEWS_KEPT) {
+                views.remove(0);
+            }
+            // Re-set so a replicated session store sees the change
+            session.setAttribute(RECENT_VIEWS, views);
+        }
+        if (previous != null) {
+            sessionModel.recordTransition(previous, gameId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> recentViews(HttpSession session) {
+        Object views = session.getAttribute(RECENT_VIEWS);
+        return views != null ? (List<String>) views : new ArrayList<>();
+    }
 }
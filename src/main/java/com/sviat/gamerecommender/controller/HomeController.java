@@ -5,45 +5,39 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import com.sviat.gamerecommender.service.GameDatabase;
-import com.sviat.gamerecommender.service.RecommendationEngine;
+import com.sviat.gamerecommender.service.DashboardSnapshotService;
+import com.sviat.gamerecommender.service.DashboardSnapshotService.DashboardSnapshot;
+import com.sviat.gamerecommender.service.TrendingService;
 import com.sviat.gamerecommender.model.Game;
 
 import java.util.List;
-import java.util.Set;
 
 @Controller
 public class HomeController {
     
-    private final GameDatabase gameDatabase;
-    private final RecommendationEngine recommendationEngine;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final TrendingService trendingService;
     
     @Autowired
-    public HomeController(GameDatabase gameDatabase, RecommendationEngine recommendationEngine) {
-        this.gameDatabase = gameDatabase;
-        this.recommendationEngine = recommendationEngine;
+    public HomeController(DashboardSnapshotService dashboardSnapshotService, TrendingService trendingService) {
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.trendingService = trendingService;
     }
     
     @GetMapping("/")
     public String dashboard(Model model) {
-        // Get different game categories for the dashboard        
-        int totalGames = gameDatabase.getAllGames().size();
+        // Get the game categories for the dashboard, built once per catalog version
+        DashboardSnapshot snapshot = dashboardSnapshotService.getSnapshot();
         
-        // Best Rated Games (top 12)
-        List<Game> bestRatedGames = recommendationEngine.getRecommendationsByMetacriticScore(12);
-        
-        // New Releases (top 12)
-        List<Game> newReleases = recommendationEngine.getRecommendationsByReleaseDate(12);
-        
-        // Recommended for You (by popular genres - Action, RPG, Adventure)
-        Set<String> popularGenres = Set.of("Action", "RPG", "Adventure");
-        List<Game> recommendedGames = recommendationEngine.getRecommendationsByGenre(popularGenres, 12);
+        // Trending Now (decayed views and plays, empty until there is activity)
+        List<Game> trendingGames = trendingService.getTrending();
         
         // Add data to the model for Thymeleaf template
-        model.addAttribute("bestRatedGames", bestRatedGames);
-        model.addAttribute("newReleases", newReleases);
-        model.addAttribute("recommendedGames", recommendedGames);
-        model.addAttribute("totalGames", totalGames);
+        model.addAttribute("bestRatedGames", snapshot.bestRated());
+        model.addAttribute("newReleases", snapshot.newReleases());
+        model.addAttribute("trendingGames", trendingGames);
+        model.addAttribute("recommendedGames", snapshot.recommended());
+        model.addAttribute("totalGames", snapshot.totalGames());
         
         return "pages/dashboard";
     }
@@ -2,12 +2,26 @@ package com.sviat.gamerecommender.controller;
 
 import com.sviat.gamerecommender.dto.RecommendationRequest;
 import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.AlsRecommender;
+import com.sviat.gamerecommender.service.CoOccurrenceRecommender;
+import com.sviat.gamerecommender.service.ContentSimilarityRecommender;
+import com.sviat.gamerecommender.service.GameDatabase;
+import com.sviat.gamerecommender.service.MatchScorer;
+import com.sviat.gamerecommender.service.MatchScorerRegistry;
+import com.sviat.gamerecommender.service.PlayEventPipeline;
+import com.sviat.gamerecommender.service.ProfileRecommender;
+import com.sviat.gamerecommender.service.RandomWalkRecommender;
+import com.sviat.gamerecommender.service.RankingWeights;
 import com.sviat.gamerecommender.service.RecommendationEngine;
+import com.sviat.gamerecommender.service.UserDatabase;
+import com.sviat.gamerecommender.service.UserInteractionStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -19,11 +33,36 @@ import java.util.Set;
 @RequestMapping("/recommendations")
 public class RecommendationController {
 
+    // Most genres and most tags one query may filter by
+    static final int MAX_FILTER_TERMS = 100;
+
     private final RecommendationEngine recommendationEngine;
+    private final MatchScorerRegistry scorerRegistry;
+    private final CoOccurrenceRecommender coOccurrenceRecommender;
+    private final AlsRecommender alsRecommender;
+    private final ProfileRecommender profileRecommender;
+    private final PlayEventPipeline playEventPipeline;
+    private final RandomWalkRecommender randomWalkRecommender;
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private final ContentSimilarityRecommender contentSimilarityRecommender;
 
     @Autowired
-    public RecommendationController(RecommendationEngine recommendationEngine) {
+    public RecommendationController(RecommendationEngine recommendationEngine, MatchScorerRegistry scorerRegistry,
+            CoOccurrenceRecommender coOccurrenceRecommender, AlsRecommender alsRecommender,
+            ProfileRecommender profileRecommender, PlayEventPipeline playEventPipeline,
+            RandomWalkRecommender randomWalkRecommender, GameDatabase gameDatabase, UserDatabase userDatabase,
+            ContentSimilarityRecommender contentSimilarityRecommender) {
         this.recommendationEngine = recommendationEngine;
+        this.scorerRegistry = scorerRegistry;
+        this.coOccurrenceRecommender = coOccurrenceRecommender;
+        this.alsRecommender = alsRecommender;
+        this.profileRecommender = profileRecommender;
+        this.playEventPipeline = playEventPipeline;
+        this.randomWalkRecommender = randomWalkRecommender;
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        this.contentSimilarityRecommender = contentSimilarityRecommender;
     }
 
     @GetMapping
@@ -33,6 +72,7 @@ public class RecommendationController {
 
     @PostMapping("/results")
     public String getRecommendations(@RequestBody RecommendationRequest request, Model model) {
+        checkFilterTerms(request);
 
         // 1. Get genres from request (if any)
         Set<String> genres = request.getGenresAsSet();
@@ -47,27 +87,131 @@ public class RecommendationController {
             return "fragments/recommendation-results :: recommendationResults";
         }
 
-        // 4. Apply multi-filter recommendation logic
-        List<Game> recommendedGames = recommendationEngine.getMultiFilterRecommendations(
-                genres, tags, 15);
+        // 4. Pick the scorer: named in the request, else by experiment bucket
+        MatchScorer scorer = scorerRegistry.select(request.getScorer(), request.getExperimentKey());
+
+        // 5. Apply multi-filter recommendation logic, blended if weights were sent,
+        // re-ranked for variety if a diversity was sent, cut off at the time budget otherwise
+        List<Game> recommendedGames;
+        boolean partialResults = false;
+        if (request.hasRankingWeights()) {
+            recommendedGames = recommendationEngine.getBlendedRecommendations(genres, tags, rankingWeights(request),
+                    scorer, 15);
+        } else if (request.hasDiversity()) {
+            recommendedGames = recommendationEngine.getDiverseRecommendations(genres, tags, scorer,
+                    request.getDiversity(), 15);
+        } else {
+            Duration budget = recommendationEngine.boundedTimeBudget(request.getTimeBudgetMillis() != null
+                    ? Duration.ofMillis(request.getTimeBudgetMillis())
+                    : null);
+            RecommendationEngine.BoundedResult result = recommendationEngine.getMultiFilterRecommendations(genres,
+                    tags, scorer, 15, budget);
+            recommendedGames = result.games();
+            partialResults = result.partial();
+        }
 
-        // 5. Categorize games by match score using the existing calculateMatchScore
+        // 6. Categorize games by match score using the existing calculateMatchScore
         // method
         Map<String, List<Game>> categorizedGames = categorizeGamesByScore(
-                recommendedGames, genres, tags);
+                recommendedGames, genres, tags, scorer);
 
-        // 6. Add categorized games to the model
+        // 7. Add categorized games to the model
         model.addAttribute("perfectMatches", categorizedGames.get("perfectMatches"));
         model.addAttribute("goodMatches", categorizedGames.get("goodMatches"));
         model.addAttribute("otherMatches", categorizedGames.get("otherMatches"));
 
         // For backward compatibility
         model.addAttribute("recommendedGames", recommendedGames);
+        model.addAttribute("partialResults", partialResults);
 
         // Return only the fragment with game cards
         return "fragments/recommendation-results :: recommendationResults";
     }
 
+    /**
+     * Get one page of multi-filter recommendations
+     * 
+     * @param request the genres, tags and optional scorer to match
+     * @param cursor  the cursor returned with the previous page, or none for
+     *                the first page
+     * @param limit   the page size
+     * @return the page's games and the cursor of the next page, null on the
+     *         last page; 400 if the cursor is malformed or the catalog has
+     *         changed since it was issued
+     */
+    @PostMapping("/page")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getPagedRecommendations(@RequestBody RecommendationRequest request,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "15") int limit) {
+        checkFilterTerms(request);
+        MatchScorer scorer = scorerRegistry.select(request.getScorer(), request.getExperimentKey());
+        RecommendationEngine.RecommendationPage page;
+        try {
+            page = recommendationEngine.getMultiFilterRecommendationsPage(request.getGenresAsSet(),
+                    request.getTagsAsSet(), scorer, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("games", toIdAndTitle(page.games()));
+        result.put("nextCursor", page.nextCursor());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get multi-filter recommendations for many queries at once, evaluated in
+     * a single pass over the catalog
+     * 
+     * @param requests the queries, each with genres, tags and an optional scorer
+     * @param limit    the most games per query, at most the page size limit
+     * @return one list of games per query, in request order; 400 if the batch
+     *         holds more queries than configured or the limit is above the
+     *         page size limit
+     */
+    @PostMapping("/batch")
+    @ResponseBody
+    public List<List<Map<String, String>>> getBatchRecommendations(@RequestBody List<RecommendationRequest> requests,
+            @RequestParam(defaultValue = "15") int limit) {
+        List<RecommendationEngine.BatchQuery> queries = new ArrayList<>(requests.size());
+        for (RecommendationRequest request : requests) {
+            checkFilterTerms(request);
+            queries.add(new RecommendationEngine.BatchQuery(request.getGenresAsSet(), request.getTagsAsSet(),
+                    scorerRegistry.select(request.getScorer(), request.getExperimentKey())));
+        }
+        List<List<Map<String, String>>> results = new ArrayList<>(queries.size());
+        for (List<Game> games : recommendationEngine.getBatchRecommendations(queries, limit)) {
+            results.add(toIdAndTitle(games));
+        }
+        return results;
+    }
+
+    /**
+     * Answers requests with an unknown scorer, invalid weights or diversity,
+     * a bad cursor or too many filter terms with 400 rather than 500
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static void checkFilterTerms(RecommendationRequest request) {
+        int genres = request.getGenre() != null ? request.getGenre().size() : 0;
+        int tags = request.getTag() != null ? request.getTag().size() : 0;
+        if (genres > MAX_FILTER_TERMS || tags > MAX_FILTER_TERMS) {
+            throw new IllegalArgumentException(String.format(
+                    "At most %d genres and %d tags can be filtered by, got %d and %d",
+                    MAX_FILTER_TERMS, MAX_FILTER_TERMS, genres, tags));
+        }
+    }
+
+    private static RankingWeights rankingWeights(RecommendationRequest request) {
+        return RankingWeights.of(
+                request.getMatchWeight() != null ? request.getMatchWeight() : 0.0,
+                request.getMetacriticWeight() != null ? request.getMetacriticWeight() : 0.0,
+                request.getRecencyWeight() != null ? request.getRecencyWeight() : 0.0);
+    }
+
     /**
      * Categorizes games into different sections based on their match scores.
      * Uses the RecommendationEngine's calculateMatchScore method to evaluate each
@@ -76,9 +220,11 @@ public class RecommendationController {
      * @param games  List of games to categorize
      * @param genres Set of genres to match against
      * @param tags   Set of tags to match against
+     * @param scorer Scorer the games were ranked with
      * @return Map containing categorized game lists
      */
-    private Map<String, List<Game>> categorizeGamesByScore(List<Game> games, Set<String> genres, Set<String> tags) {
+    private Map<String, List<Game>> categorizeGamesByScore(List<Game> games, Set<String> genres, Set<String> tags,
+            MatchScorer scorer) {
         Map<String, List<Game>> result = new HashMap<>();
 
         List<Game> perfectMatches = new ArrayList<>();
@@ -91,7 +237,7 @@ public class RecommendationController {
 
         // Categorize by match score for all games
         for (Game game : games) {
-            int score = recommendationEngine.calculateMatchScore(game, genres, tags);
+            int score = recommendationEngine.calculateMatchScore(game, genres, tags, scorer);
 
             int category = score >= PERFECT_MATCH_THRESHOLD ? 1 : score >= GOOD_MATCH_THRESHOLD ? 2 : 3;
 
@@ -120,4 +266,110 @@ public class RecommendationController {
     public List<Map<String, String>> getRelatedGames(@PathVariable String gameId) {
         return recommendationEngine.getRelatedGames(gameId, 3);
     }
+
+    /**
+     * Get 3 games most often played by the players of this game
+     * 
+     * @param gameId the game to find co-played games for
+     * @return list of games players also played
+     */
+    @GetMapping("/{gameId}/also-played")
+    @ResponseBody
+    public List<Map<String, String>> getAlsoPlayedGames(@PathVariable String gameId) {
+        return coOccurrenceRecommender.getAlsoPlayedGames(gameId, 3);
+    }
+
+    /**
+     * Get games reached most often by random walks through shared developers,
+     * publishers, tags and players
+     * 
+     * @param gameId the game to find similar games for
+     * @return list of similar games
+     */
+    @GetMapping("/{gameId}/more-like-this")
+    @ResponseBody
+    public List<Map<String, String>> getMoreLikeThis(@PathVariable String gameId) {
+        return toIdAndTitle(randomWalkRecommender.getMoreLikeThis(gameId, 10));
+    }
+
+    /**
+     * Get games whose description and details read most like this game's
+     * 
+     * @param gameId the game to find similar games for
+     * @param exact  compare with every game instead of searching the index
+     * @return list of similar games
+     */
+    @GetMapping("/{gameId}/similar-content")
+    @ResponseBody
+    public List<Map<String, String>> getSimilarContent(@PathVariable String gameId,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        return toIdAndTitle(exact
+                ? contentSimilarityRecommender.getSimilarGamesExact(gameId, 10)
+                : contentSimilarityRecommender.getSimilarGames(gameId, 10));
+    }
+
+    /**
+     * Get personalised recommendations from the user's play history
+     * 
+     * @param userId the user to recommend games for
+     * @return list of recommended games
+     */
+    @GetMapping("/users/{userId}")
+    @ResponseBody
+    public List<Map<String, String>> getUserRecommendations(@PathVariable String userId) {
+        return toIdAndTitle(alsRecommender.getRecommendationsForUser(userId, 10));
+    }
+
+    /**
+     * Get recommendations matching the user's favourite genres, wishlist,
+     * platforms and price limit, excluding owned games
+     * 
+     * @param userId the user to recommend games for
+     * @return list of recommended games
+     */
+    @GetMapping("/users/{userId}/profile")
+    @ResponseBody
+    public List<Map<String, String>> getProfileRecommendations(@PathVariable String userId) {
+        return toIdAndTitle(profileRecommender.getRecommendationsForUser(userId, 10));
+    }
+
+    /**
+     * Get games related to everything the user played or owns, in one ranking
+     * 
+     * @param userId the user whose library seeds the recommendations
+     * @return list of recommended games
+     */
+    @GetMapping("/users/{userId}/because-you-played")
+    @ResponseBody
+    public List<Map<String, String>> getBecauseYouPlayed(@PathVariable String userId) {
+        int[] keys = userDatabase.getInteractionStore().gameKeysWithAny(userId,
+                UserInteractionStore.PLAYED | UserInteractionStore.OWNED);
+        List<String> seedIds = new ArrayList<>(keys.length);
+        for (int key : keys) {
+            seedIds.add(gameDatabase.gameIdForKey(key));
+        }
+        return toIdAndTitle(recommendationEngine.getRelatedToSeeds(seedIds, 10));
+    }
+
+    /**
+     * Get the games with the most players, including streamed play events
+     * 
+     * @return list of popular games
+     */
+    @GetMapping("/popular")
+    @ResponseBody
+    public List<Map<String, String>> getPopularGames() {
+        return toIdAndTitle(playEventPipeline.getPopularGames(10));
+    }
+
+    private static List<Map<String, String>> toIdAndTitle(List<Game> games) {
+        List<Map<String, String>> result = new ArrayList<>();
+        for (Game game : games) {
+            Map<String, String> gameMap = new HashMap<>();
+            gameMap.put("id", game.getId());
+            gameMap.put("title", game.getTitle());
+            result.add(gameMap);
+        }
+        return result;
+    }
 }
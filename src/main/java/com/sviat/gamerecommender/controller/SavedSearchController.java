@@ -0,0 +1,68 @@
+package com.sviat.gamerecommender.controller;
+
+import com.sviat.gamerecommender.dto.SavedSearchRequest;
+import com.sviat.gamerecommender.service.SavedSearchPercolator;
+import com.sviat.gamerecommender.service.SavedSearchPercolator.SavedSearch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Controller
+@RequestMapping("/saved-searches")
+public class SavedSearchController {
+
+    private final SavedSearchPercolator savedSearchPercolator;
+
+    @Autowired
+    public SavedSearchController(SavedSearchPercolator savedSearchPercolator) {
+        this.savedSearchPercolator = savedSearchPercolator;
+    }
+
+    /**
+     * Save a search to be told about new games matching it
+     * 
+     * @param request the user and the genres and tags every match must have
+     * @return 201 with the saved search, or 400 if it has no user or criteria
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<SavedSearch> saveSearch(@RequestBody SavedSearchRequest request) {
+        try {
+            SavedSearch search = savedSearchPercolator.save(request.getUserId(), request.getGenres(),
+                    request.getTags());
+            return ResponseEntity.status(HttpStatus.CREATED).body(search);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get the saved searches of a user
+     * 
+     * @param userId the user whose searches to list
+     * @return the user's saved searches, oldest first
+     */
+    @GetMapping("/users/{userId}")
+    @ResponseBody
+    public List<SavedSearch> getSearches(@PathVariable String userId) {
+        return savedSearchPercolator.getSearches(userId);
+    }
+
+    /**
+     * Delete a saved search
+     * 
+     * @param searchId the search to delete
+     * @return 204, or 404 if there was no such search
+     */
+    @DeleteMapping("/{searchId}")
+    @ResponseBody
+    public ResponseEntity<Void> deleteSearch(@PathVariable String searchId) {
+        return savedSearchPercolator.delete(searchId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.sviat.gamerecommender.dto;
+
+/**
+ * "User X played game Y for N hours", as posted to the event endpoint.
+ */
+public class PlayEvent {
+    private String userId;
+    private String gameId;
+    private int hours;
+    // Milliseconds since the epoch; filled in on arrival when absent
+    private long timestamp;
+
+    public PlayEvent() {
+    }
+
+    public PlayEvent(String userId, String gameId, int hours, long timestamp) {
+        this.userId = userId;
+        this.gameId = gameId;
+        this.hours = hours;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public int getHours() {
+        return hours;
+    }
+
+    public void setHours(int hours) {
+        this.hours = hours;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -8,6 +8,18 @@ import java.util.ArrayList;
 public class RecommendationRequest {
     private List<String> genre = new ArrayList<>();
     private List<String> tag = new ArrayList<>();
+    // Optional blended-ranking weights; when none is set, ranking is by match score
+    private Double matchWeight;
+    private Double metacriticWeight;
+    private Double recencyWeight;
+    // Optional scorer selection: an explicit scorer name, or a stable key for experiment bucketing
+    private String scorer;
+    private String experimentKey;
+    // Optional diversity in [0, 1]; above zero, results are re-ranked to spread across series and developers,
+    // and values outside the range are rejected
+    private Double diversity;
+    // Optional time budget in milliseconds, at most the server's; when it runs out, the best results found so far are returned
+    private Long timeBudgetMillis;
 
     // Getters and setters
     public List<String> getGenre() {
@@ -26,6 +38,70 @@ public class RecommendationRequest {
         this.tag = tag;
     }
 
+    public Double getMatchWeight() {
+        return matchWeight;
+    }
+
+    public void setMatchWeight(Double matchWeight) {
+        this.matchWeight = matchWeight;
+    }
+
+    public Double getMetacriticWeight() {
+        return metacriticWeight;
+    }
+
+    public void setMetacriticWeight(Double metacriticWeight) {
+        this.metacriticWeight = metacriticWeight;
+    }
+
+    public Double getRecencyWeight() {
+        return recencyWeight;
+    }
+
+    public void setRecencyWeight(Double recencyWeight) {
+        this.recencyWeight = recencyWeight;
+    }
+
+    public String getScorer() {
+        return scorer;
+    }
+
+    public void setScorer(String scorer) {
+        this.scorer = scorer;
+    }
+
+    public String getExperimentKey() {
+        return experimentKey;
+    }
+
+    public void setExperimentKey(String experimentKey) {
+        this.experimentKey = experimentKey;
+    }
+
+    public Double getDiversity() {
+        return diversity;
+    }
+
+    public void setDiversity(Double diversity) {
+        this.diversity = diversity;
+    }
+
+    public Long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public boolean hasDiversity() {
+        return diversity != null && diversity != 0;
+    }
+
+    public boolean hasRankingWeights() {
+        return matchWeight != null || metacriticWeight != null || recencyWeight != null;
+    }
+
     // Convert to Set for easier filtering
     public Set<String> getGenresAsSet() {
         return new HashSet<>(genre);
@@ -0,0 +1,38 @@
+package com.sviat.gamerecommender.dto;
+
+import java.util.Set;
+
+/**
+ * A saved search as posted by a user: games with all of these genres and
+ * tags should be reported to them when they are added.
+ */
+public class SavedSearchRequest {
+    private String userId;
+    private Set<String> genres;
+    private Set<String> tags;
+
+    // Getters and setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Set<String> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(Set<String> genres) {
+        this.genres = genres;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
+    }
+}
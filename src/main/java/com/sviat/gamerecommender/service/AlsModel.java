@@ -0,0 +1,243 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latent factors of a matrix-factorisation model: one row of {@code factors}
+ * floats per user and per game, stored in flat arrays. Row {@code r}
+ * occupies {@code [r * factors, (r + 1) * factors)}. Game rows follow the
+ * stable game keys the model was trained with, and the model keeps the id of
+ * every row so it stays usable after a restart reassigns keys.
+ *
+ * Models are checkpointed in a compact binary file, written to a temporary
+ * file and moved into place so a crash never leaves a torn checkpoint.
+ */
+public final class AlsModel {
+    private static final int MAGIC = 0x414C5331; // "ALS1"
+    private static final int IO_CHUNK = 1 << 16;
+
+    private final long version;
+    private final int factors;
+    private final int iterations;
+    private final String[] userIds;
+    private final String[] gameIds;
+    private final Map<String, Integer> userRows;
+    private final Map<String, Integer> gameRows;
+    private final float[] userFactors;
+    private final float[] gameFactors;
+
+    AlsModel(long version, int factors, int iterations, String[] userIds, String[] gameIds, float[] userFactors,
+            float[] gameFactors) {
+        this.version = version;
+        this.factors = factors;
+        this.iterations = iterations;
+        this.userIds = userIds;
+        this.gameIds = gameIds;
+        this.userFactors = userFactors;
+        this.gameFactors = gameFactors;
+        this.userRows = rowsById(userIds);
+        this.gameRows = rowsById(gameIds);
+    }
+
+    private static Map<String, Integer> rowsById(String[] ids) {
+        Map<String, Integer> rows = new HashMap<>(ids.length * 2);
+        for (int row = 0; row < ids.length; row++) {
+            rows.put(ids[row], row);
+        }
+        return rows;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getFactors() {
+        return factors;
+    }
+
+    /**
+     * @return the number of completed training iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int gameCount() {
+        return gameIds.length;
+    }
+
+    /**
+     * @return the factor row of the user, or -1 if the model has none
+     */
+    public int userRow(String userId) {
+        Integer row = userRows.get(userId);
+        return row != null ? row : -1;
+    }
+
+    /**
+     * @return the factor row of the game, or -1 if the model has none
+     */
+    public int gameRow(String gameId) {
+        Integer row = gameRows.get(gameId);
+        return row != null ? row : -1;
+    }
+
+    public String gameIdAt(int gameRow) {
+        return gameIds[gameRow];
+    }
+
+    String[] userIds() {
+        return userIds;
+    }
+
+    String[] gameIds() {
+        return gameIds;
+    }
+
+    float[] userFactors() {
+        return userFactors;
+    }
+
+    float[] gameFactors() {
+        return gameFactors;
+    }
+
+    /**
+     * @return the predicted preference of the user for the game
+     */
+    public float predict(int userRow, int gameRow) {
+        return dot(userFactors, userRow * factors, gameFactors, gameRow * factors, factors);
+    }
+
+    /**
+     * Scores every game for the user and keeps the best game rows in the heap,
+     * skipping rows rejected by the filter.
+     */
+    public void topK(int userRow, RowFilter filter, TopKHeap heap) {
+        int userOffset = userRow * factors;
+        for (int gameRow = 0; gameRow < gameIds.length; gameRow++) {
+            if (filter.accept(gameRow)) {
+                float score = dot(userFactors, userOffset, gameFactors, gameRow * factors, factors);
+                if (heap.accepts(gameRow, score)) {
+                    heap.offer(gameRow, score);
+                }
+            }
+        }
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        // Independent accumulators let the JIT keep several multiplies in flight
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Filter over game rows for {@link #topK}.
+     */
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean accept(int gameRow);
+    }
+
+    /**
+     * Writes the model to the file, replacing it atomically.
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), IO_CHUNK))) {
+            out.writeInt(MAGIC);
+            out.writeLong(version);
+            out.writeInt(factors);
+            out.writeInt(iterations);
+            out.writeInt(userIds.length);
+            out.writeInt(gameIds.length);
+            for (String userId : userIds) {
+                out.writeUTF(userId);
+            }
+            for (String gameId : gameIds) {
+                out.writeUTF(gameId);
+            }
+            writeFloats(out, userFactors);
+            writeFloats(out, gameFactors);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a model written by {@link #save}.
+     */
+    public static AlsModel load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), IO_CHUNK))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an ALS checkpoint: " + file);
+            }
+            long version = in.readLong();
+            int factors = in.readInt();
+            int iterations = in.readInt();
+            String[] userIds = new String[in.readInt()];
+            String[] gameIds = new String[in.readInt()];
+            for (int row = 0; row < userIds.length; row++) {
+                userIds[row] = in.readUTF();
+            }
+            for (int row = 0; row < gameIds.length; row++) {
+                gameIds[row] = in.readUTF();
+            }
+            float[] userFactors = readFloats(in, userIds.length * factors);
+            float[] gameFactors = readFloats(in, gameIds.length * factors);
+            return new AlsModel(version, factors, iterations, userIds, gameIds, userFactors, gameFactors);
+        }
+    }
+
+    private static void writeFloats(OutputStream out, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK);
+        for (int i = 0; i < values.length; ) {
+            int count = Math.min(values.length - i, IO_CHUNK / Float.BYTES);
+            buffer.clear();
+            buffer.asFloatBuffer().put(values, i, count);
+            out.write(buffer.array(), 0, count * Float.BYTES);
+            i += count;
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in, int length) throws IOException {
+        float[] values = new float[length];
+        byte[] bytes = new byte[IO_CHUNK];
+        for (int i = 0; i < length; ) {
+            int count = Math.min(length - i, IO_CHUNK / Float.BYTES);
+            in.readFully(bytes, 0, count * Float.BYTES);
+            ByteBuffer.wrap(bytes, 0, count * Float.BYTES).asFloatBuffer().get(values, i, count);
+            i += count;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,238 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Personalised recommendations from latent factors trained with
+ * {@link AlsTrainer} on the users' playtime.
+ *
+ * Training takes far longer than a request, so it never runs on the request
+ * path: {@link #start} retrains on a background thread whenever the user
+ * data has changed, and the previous model is served until the new one is
+ * ready. Each trained model is saved to the model file, which is kept apart
+ * from the trainer's per-iteration checkpoint so that a restart mid-training
+ * serves the last finished model rather than a half-trained one.
+ *
+ * Serving scores every game key with one dot product against the user's
+ * factors and keeps the top-K, skipping games the user already played or
+ * owns and games no longer in the catalog.
+ */
+public class AlsRecommender implements Closeable {
+    public static final int DEFAULT_RETRAIN_MINUTES = 60;
+
+    private static final Logger logger = LoggerFactory.getLogger(AlsRecommender.class);
+
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private final AlsTrainer trainer;
+    private Path modelFile;
+    // User database version of the last model trained by this process, -1 before the first
+    private long trainedVersion = -1;
+    // Volatile so close() need not wait for a training run holding the monitor
+    private volatile ScheduledExecutorService scheduler;
+    private volatile AlsModel model;
+    // Catalog ordinal of every game row of a model, for one catalog version
+    private volatile RowOrdinals rowOrdinals;
+
+    public AlsRecommender(GameDatabase gameDatabase, UserDatabase userDatabase, AlsTrainer trainer) {
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        this.trainer = trainer;
+    }
+
+    /**
+     * @param modelFile File every trained model is saved to, or null to keep
+     *                  models in memory only
+     */
+    public synchronized void setModelFile(Path modelFile) {
+        this.modelFile = modelFile;
+    }
+
+    /**
+     * Trains a model on the current user data, starts serving it and saves it
+     * to the model file.
+     */
+    public synchronized AlsModel train() {
+        long version = userDatabase.getVersion();
+        UserInteractionStore interactions = userDatabase.getInteractionStore();
+        String[] userIds = interactions.userIds().toArray(new String[0]);
+        int[][] playedKeys = new int[userIds.length][];
+        int interactionCount = 0;
+        for (int row = 0; row < userIds.length; row++) {
+            playedKeys[row] = interactions.gameKeys(userIds[row], UserInteractionStore.PLAYED);
+            interactionCount += playedKeys[row].length;
+        }
+
+        int[] rows = new int[interactionCount];
+        int[] keys = new int[interactionCount];
+        float[] playtime = new float[interactionCount];
+        int count = 0;
+        for (int row = 0; row < userIds.length; row++) {
+            int[] playtimes = interactions.playtimes(userIds[row], playedKeys[row]);
+            for (int i = 0; i < playtimes.length; i++) {
+                rows[count] = row;
+                keys[count] = playedKeys[row][i];
+                playtime[count] = playtimes[i];
+                count++;
+            }
+        }
+
+        String[] gameIds = new String[gameDatabase.gameKeyCount()];
+        for (int key = 0; key < gameIds.length; key++) {
+            gameIds[key] = gameDatabase.gameIdForKey(key);
+        }
+        InteractionMatrix plays = InteractionMatrix.fromTriples(userIds.length, gameIds.length,
+                rows, keys, playtime, count);
+        AlsModel trained = trainer.train(plays, userIds, gameIds, version);
+        model = trained;
+        trainedVersion = version;
+        if (modelFile != null) {
+            try {
+                trained.save(modelFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error saving ALS model " + modelFile, e);
+            }
+        }
+        return trained;
+    }
+
+    /**
+     * Trains a model unless this process already trained one on the current
+     * user data.
+     *
+     * @return true if a model was trained
+     */
+    public synchronized boolean trainIfStale() {
+        if (trainedVersion == userDatabase.getVersion()) {
+            return false;
+        }
+        train();
+        return true;
+    }
+
+    /**
+     * Trains now and then every {@code periodMinutes} on a background thread,
+     * whenever the user data has changed since the last training.
+     */
+    public synchronized void start(int periodMinutes) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "als-training");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (trainIfStale()) {
+                    logger.info("Trained ALS model for user data version {}", model.getVersion());
+                }
+            } catch (RuntimeException e) {
+                // An exception would cancel every later training run
+                logger.error("Error training ALS model", e);
+            }
+        }, 0, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts serving a model saved by an earlier training run, if the file
+     * exists.
+     *
+     * @return true if a model was loaded
+     */
+    public boolean loadModel(Path file) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            model = AlsModel.load(file);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading ALS model " + file, e);
+        }
+    }
+
+    /**
+     * @return the model being served, or null before the first training
+     */
+    public AlsModel getModel() {
+        return model;
+    }
+
+    /**
+     * Best-predicted games the user has neither played nor owns. Users unknown
+     * to the model (or before training) get no recommendations.
+     */
+    public List<Game> getRecommendationsForUser(String userId, int limit) {
+        AlsModel current = model;
+        if (current == null || userDatabase.findUserById(userId) == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int row = current.userRow(userId);
+        if (row < 0) {
+            return new ArrayList<>();
+        }
+
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        int[] ordinals = rowOrdinals(current, index);
+        UserInteractionStore interactions = userDatabase.getInteractionStore();
+        boolean[] excluded = new boolean[current.gameCount()];
+        for (int key : interactions.gameKeys(userId, UserInteractionStore.PLAYED)) {
+            exclude(current, excluded, gameDatabase.gameIdForKey(key));
+        }
+        for (int key : interactions.gameKeys(userId, UserInteractionStore.OWNED)) {
+            exclude(current, excluded, gameDatabase.gameIdForKey(key));
+        }
+
+        TopKHeap heap = new TopKHeap(limit);
+        current.topK(row, gameRow -> !excluded[gameRow] && ordinals[gameRow] >= 0, heap);
+        List<Game> recommendations = new ArrayList<>(heap.size());
+        for (int gameRow : heap.drainOrdinals()) {
+            recommendations.add(index.gameAt(ordinals[gameRow]));
+        }
+        return recommendations;
+    }
+
+    private static void exclude(AlsModel model, boolean[] excluded, String gameId) {
+        int gameRow = model.gameRow(gameId);
+        if (gameRow >= 0) {
+            excluded[gameRow] = true;
+        }
+    }
+
+    private int[] rowOrdinals(AlsModel model, CatalogIndex index) {
+        RowOrdinals current = rowOrdinals;
+        if (current != null && current.model == model && current.catalogVersion == index.getVersion()) {
+            return current.ordinals;
+        }
+        int[] ordinals = new int[model.gameCount()];
+        for (int gameRow = 0; gameRow < ordinals.length; gameRow++) {
+            ordinals[gameRow] = index.ordinalOf(model.gameIdAt(gameRow));
+        }
+        rowOrdinals = new RowOrdinals(model, index.getVersion(), ordinals);
+        return ordinals;
+    }
+
+    private record RowOrdinals(AlsModel model, long catalogVersion, int[] ordinals) {
+    }
+}
@@ -0,0 +1,302 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implicit-feedback alternating least squares (Hu, Koren and Volinsky).
+ *
+ * Every interaction is a preference of 1 with confidence
+ * {@code 1 + alpha * log(1 + playtime)}; unobserved pairs are preferences of 0
+ * with confidence 1. Each half-iteration fixes one side's factors and solves
+ * a {@code factors x factors} ridge regression per row of the other side,
+ * using the precomputed Gram matrix of the fixed side so that a row costs
+ * {@code O(nnz * factors^2 + factors^3)}.
+ *
+ * Rows are solved in parallel with fork-join. After every iteration the model
+ * can be checkpointed to disk; a later run with the same shape resumes from
+ * the checkpoint instead of starting over.
+ */
+public final class AlsTrainer {
+    public static final int DEFAULT_FACTORS = 32;
+    public static final int DEFAULT_ITERATIONS = 10;
+    public static final double DEFAULT_REGULARIZATION = 0.1;
+    public static final double DEFAULT_ALPHA = 10.0;
+
+    private static final Logger logger = LoggerFactory.getLogger(AlsTrainer.class);
+    // Rows per fork-join leaf; rows are cheap, so leaves batch many of them
+    private static final int ROWS_PER_TASK = 256;
+
+    private final int factors;
+    private final int iterations;
+    private final double regularization;
+    private final double alpha;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Path checkpoint;
+    private long seed = 42;
+
+    public AlsTrainer(int factors, int iterations, double regularization, double alpha) {
+        if (factors <= 0 || iterations < 0 || !(regularization > 0) || !(alpha >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid ALS parameters: factors=%d, iterations=%d, regularization=%s, alpha=%s",
+                    factors, iterations, regularization, alpha));
+        }
+        this.factors = factors;
+        this.iterations = iterations;
+        this.regularization = regularization;
+        this.alpha = alpha;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param checkpoint File to write after every iteration and resume from, or
+     *                   null to train in memory only
+     */
+    public void setCheckpoint(Path checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Trains factors for a user x game interaction matrix.
+     *
+     * @param plays   Playtime per user row and game column
+     * @param userIds Id of the user of every row
+     * @param gameIds Id of the game of every column
+     * @param version Version of the user data the interactions come from
+     */
+    public AlsModel train(InteractionMatrix plays, String[] userIds, String[] gameIds, long version) {
+        InteractionMatrix byGame = plays.transpose();
+        int users = plays.rows();
+        int games = plays.columns();
+
+        AlsModel resumed = resume(userIds, gameIds, version);
+        float[] userFactors = resumed != null ? resumed.userFactors() : new float[users * factors];
+        float[] gameFactors = resumed != null ? resumed.gameFactors() : initialFactors(games);
+        int completed = resumed != null ? resumed.getIterations() : 0;
+
+        for (int iteration = completed; iteration < iterations; iteration++) {
+            long start = System.nanoTime();
+            solve(plays, gameFactors, userFactors);
+            solve(byGame, userFactors, gameFactors);
+            AlsModel model = new AlsModel(version, factors, iteration + 1, userIds, gameIds, userFactors,
+                    gameFactors);
+            saveCheckpoint(model);
+            logger.info("ALS iteration {}/{} over {} interactions took {} ms", iteration + 1, iterations,
+                    plays.nonZeros(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return new AlsModel(version, factors, Math.max(completed, iterations), userIds, gameIds, userFactors,
+                gameFactors);
+    }
+
+    private AlsModel resume(String[] userIds, String[] gameIds, long version) {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return null;
+        }
+        try {
+            AlsModel model = AlsModel.load(checkpoint);
+            if (model.getVersion() == version && model.getFactors() == factors
+                    && Arrays.equals(model.userIds(), userIds) && Arrays.equals(model.gameIds(), gameIds)) {
+                logger.info("Resuming ALS training from {} after {} iterations", checkpoint, model.getIterations());
+                return model;
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable ALS checkpoint {}: {}", checkpoint, e.getMessage());
+        }
+        return null;
+    }
+
+    private void saveCheckpoint(AlsModel model) {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            model.save(checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing ALS checkpoint " + checkpoint, e);
+        }
+    }
+
+    private float[] initialFactors(int rows) {
+        Random random = new Random(seed);
+        float[] values = new float[rows * factors];
+        double scale = 0.1 / Math.sqrt(factors);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) (random.nextGaussian() * scale);
+        }
+        return values;
+    }
+
+    /**
+     * Recomputes every row of {@code solved} with {@code fixed} held constant.
+     */
+    private void solve(InteractionMatrix interactions, float[] fixed, float[] solved) {
+        double[] gram = pool.invoke(new GramTask(fixed, 0, fixed.length / factors));
+        pool.invoke(new SolveTask(interactions, fixed, solved, gram, 0, interactions.rows()));
+    }
+
+    /**
+     * Sums {@code y * y^T} over a range of factor rows (upper triangle only).
+     */
+    private final class GramTask extends RecursiveTask<double[]> {
+        private final float[] rows;
+        private final int from;
+        private final int to;
+
+        GramTask(float[] rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > ROWS_PER_TASK * 8) {
+                int middle = (from + to) >>> 1;
+                GramTask left = new GramTask(rows, from, middle);
+                left.fork();
+                double[] right = new GramTask(rows, middle, to).compute();
+                double[] sum = left.join();
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += right[i];
+                }
+                return sum;
+            }
+            double[] gram = new double[factors * factors];
+            for (int row = from; row < to; row++) {
+                int offset = row * factors;
+                for (int a = 0; a < factors; a++) {
+                    double value = rows[offset + a];
+                    for (int b = a; b < factors; b++) {
+                        gram[a * factors + b] += value * rows[offset + b];
+                    }
+                }
+            }
+            return gram;
+        }
+    }
+
+    private final class SolveTask extends RecursiveAction {
+        private final InteractionMatrix interactions;
+        private final float[] fixed;
+        private final float[] solved;
+        private final double[] gram;
+        private final int from;
+        private final int to;
+
+        SolveTask(InteractionMatrix interactions, float[] fixed, float[] solved, double[] gram, int from, int to) {
+            this.interactions = interactions;
+            this.fixed = fixed;
+            this.solved = solved;
+            this.gram = gram;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(interactions, fixed, solved, gram, from, middle),
+                        new SolveTask(interactions, fixed, solved, gram, middle, to));
+                return;
+            }
+            double[] matrix = new double[factors * factors];
+            double[] rhs = new double[factors];
+            for (int row = from; row < to; row++) {
+                solveRow(row, matrix, rhs);
+            }
+        }
+
+        private void solveRow(int row, double[] matrix, double[] rhs) {
+            int offset = row * factors;
+            int start = interactions.rowStart(row);
+            int end = interactions.rowEnd(row);
+            if (start == end) {
+                // No interactions: the regularised solution is the zero vector
+                for (int a = 0; a < factors; a++) {
+                    solved[offset + a] = 0;
+                }
+                return;
+            }
+
+            // matrix = gram + regularization * I + sum((c - 1) * y * y^T), rhs = sum(c * y)
+            System.arraycopy(gram, 0, matrix, 0, gram.length);
+            for (int a = 0; a < factors; a++) {
+                matrix[a * factors + a] += regularization;
+                rhs[a] = 0;
+            }
+            for (int entry = start; entry < end; entry++) {
+                double confidence = 1 + alpha * Math.log1p(interactions.valueAt(entry));
+                int fixedOffset = interactions.indexAt(entry) * factors;
+                for (int a = 0; a < factors; a++) {
+                    double value = fixed[fixedOffset + a];
+                    rhs[a] += confidence * value;
+                    double weighted = (confidence - 1) * value;
+                    for (int b = a; b < factors; b++) {
+                        matrix[a * factors + b] += weighted * fixed[fixedOffset + b];
+                    }
+                }
+            }
+            choleskySolve(matrix, rhs);
+            for (int a = 0; a < factors; a++) {
+                solved[offset + a] = (float) rhs[a];
+            }
+        }
+
+        /**
+         * Solves {@code matrix * x = rhs} in place for a symmetric positive
+         * definite matrix given by its upper triangle; x replaces rhs.
+         */
+        private void choleskySolve(double[] matrix, double[] rhs) {
+            int n = factors;
+            // Factor into U^T U, with U stored over the upper triangle
+            for (int i = 0; i < n; i++) {
+                double diagonal = matrix[i * n + i];
+                for (int k = 0; k < i; k++) {
+                    diagonal -= matrix[k * n + i] * matrix[k * n + i];
+                }
+                diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+                matrix[i * n + i] = diagonal;
+                for (int j = i + 1; j < n; j++) {
+                    double value = matrix[i * n + j];
+                    for (int k = 0; k < i; k++) {
+                        value -= matrix[k * n + i] * matrix[k * n + j];
+                    }
+                    matrix[i * n + j] = value / diagonal;
+                }
+            }
+            // Forward substitution with U^T, then back substitution with U
+            for (int i = 0; i < n; i++) {
+                double value = rhs[i];
+                for (int k = 0; k < i; k++) {
+                    value -= matrix[k * n + i] * rhs[k];
+                }
+                rhs[i] = value / matrix[i * n + i];
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                double value = rhs[i];
+                for (int k = i + 1; k < n; k++) {
+                    value -= matrix[i * n + k] * rhs[k];
+                }
+                rhs[i] = value / matrix[i * n + i];
+            }
+        }
+    }
+}
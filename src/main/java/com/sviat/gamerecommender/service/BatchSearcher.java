@@ -0,0 +1,87 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Top-K search for many queries in one pass over the catalog.
+ *
+ * Each game's genre and tag words are loaded once and scored against every
+ * query still running, so the column reads that dominate a dense scan are
+ * shared instead of repeated per query. Games with none of the terms of any
+ * query are skipped after one check against the union of the query masks.
+ *
+ * Every query keeps its own heap. Ordinals are visited in ascending
+ * (tie-break) order, so a query whose heap is full of games with its best
+ * possible score is finished: later games could only tie. The pass ends when
+ * every query is finished.
+ */
+final class BatchSearcher {
+
+    private BatchSearcher() {
+    }
+
+    /**
+     * Collects the best matches of {@code queries[i]} into {@code heaps[i]}.
+     */
+    static void search(CatalogIndex index, MatchQuery[] queries, TopKHeap[] heaps) {
+        int size = index.size();
+        int genreWords = index.genreWords();
+        int tagWords = index.tagWords();
+        long[] genreBits = index.genreBits();
+        long[] tagBits = index.tagBits();
+
+        // Queries still running, compacted as they finish
+        int[] active = new int[queries.length];
+        int activeCount = 0;
+        long[] genreUnion = new long[genreWords];
+        long[] tagUnion = new long[tagWords];
+        for (int i = 0; i < queries.length; i++) {
+            if (heaps[i].capacity() > 0 && !queries[i].isEmpty()) {
+                active[activeCount++] = i;
+                orInto(genreUnion, queries[i].genreMask());
+                orInto(tagUnion, queries[i].tagMask());
+            }
+        }
+
+        long[] genreRow = new long[genreWords];
+        long[] tagRow = new long[tagWords];
+        for (int ordinal = 0; ordinal < size && activeCount > 0; ordinal++) {
+            boolean candidate = false;
+            for (int word = 0; word < genreWords; word++) {
+                genreRow[word] = genreBits[word * size + ordinal];
+                candidate |= (genreRow[word] & genreUnion[word]) != 0;
+            }
+            for (int word = 0; word < tagWords; word++) {
+                tagRow[word] = tagBits[word * size + ordinal];
+                candidate |= (tagRow[word] & tagUnion[word]) != 0;
+            }
+            if (!candidate) {
+                continue;
+            }
+
+            for (int a = 0; a < activeCount; a++) {
+                int i = active[a];
+                MatchQuery query = queries[i];
+                int score = query.score(countMatches(genreRow, query.genreMask()),
+                        countMatches(tagRow, query.tagMask()));
+                TopKHeap heap = heaps[i];
+                if (score > 0 && heap.offer(ordinal, score)
+                        && heap.isFull() && heap.minScore() >= query.maxScore()) {
+                    active[a--] = active[--activeCount];
+                }
+            }
+        }
+    }
+
+    private static int countMatches(long[] row, long[] mask) {
+        int matches = 0;
+        for (int word = 0; word < mask.length; word++) {
+            matches += Long.bitCount(row[word] & mask[word]);
+        }
+        return matches;
+    }
+
+    private static void orInto(long[] union, long[] mask) {
+        for (int word = 0; word < mask.length; word++) {
+            union[word] |= mask[word];
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * Top-K over a weighted blend of match score, metacritic score and release
+ * recency, computed with Fagin's threshold algorithm.
+ *
+ * Three lists are read in lock-step with sorted access: the query's matches by
+ * match score (bucketed by score level from the posting lists), the catalog
+ * by metacritic score (ordinal order) and the catalog by release date. Each newly seen game
+ * is completed by random access to the other columns. The scan stops as soon
+ * as the K-th best blend beats the threshold built from the last value read
+ * on every list, because no unseen game can do better.
+ *
+ * Match counts are gathered from the query's posting lists and games already
+ * seen are tracked in hash maps, so the work before and during the scan is
+ * proportional to the matches and the depth reached, not to the catalog.
+ */
+final class BlendedRanker {
+    private static final int TAG_SHIFT = 16;
+    private static final int GENRE_HITS_MASK = (1 << TAG_SHIFT) - 1;
+
+    private BlendedRanker() {
+    }
+
+    static void rank(CatalogIndex index, MatchQuery query, RankingWeights weights, TopKHeap heap) {
+        if (heap.capacity() == 0 || query.isEmpty()) {
+            return;
+        }
+        int size = index.size();
+
+        // Genre hits in the low 16 bits, tag hits above, for every game in a posting list
+        IntIntHashMap hits = new IntIntHashMap();
+        for (int genreId : query.genreIds()) {
+            for (int ordinal : index.genrePostings(genreId)) {
+                hits.put(ordinal, hits.get(ordinal, 0) + 1, 0);
+            }
+        }
+        for (int tagId : query.tagIds()) {
+            for (int ordinal : index.tagPostings(tagId)) {
+                hits.put(ordinal, hits.get(ordinal, 0) + (1 << TAG_SHIFT), 0);
+            }
+        }
+        int maxScore = query.maxScore();
+        if (hits.isEmpty() || maxScore <= 0) {
+            return;
+        }
+
+        // Counting sort of the matches by score level gives the sorted match list;
+        // sorted keys keep ascending ordinals within a level
+        int[] candidates = hits.sortedKeys();
+        int[] levels = scoreLevels(query);
+        int[] bucketStarts = new int[levels.length + 1];
+        int matchCount = 0;
+        for (int ordinal : candidates) {
+            int gameHits = hits.get(ordinal, 0);
+            if (matchScore(gameHits, query) > 0) {
+                bucketStarts[levels[cell(gameHits, query)] + 1]++;
+                matchCount++;
+            }
+        }
+        if (matchCount == 0) {
+            return;
+        }
+        for (int bucket = 1; bucket < bucketStarts.length; bucket++) {
+            bucketStarts[bucket] += bucketStarts[bucket - 1];
+        }
+        int[] matchList = new int[matchCount];
+        for (int ordinal : candidates) {
+            int gameHits = hits.get(ordinal, 0);
+            if (matchScore(gameHits, query) > 0) {
+                matchList[bucketStarts[levels[cell(gameHits, query)]]++] = ordinal;
+            }
+        }
+
+        // Only games pulled from the sorted lists are tracked, not the whole catalog
+        int[] byReleaseDate = index.byReleaseDateDesc();
+        IntIntHashMap seen = new IntIntHashMap(Math.min(size, 3 * heap.capacity()));
+        for (int depth = 0; depth < matchCount; depth++) {
+            int matchOrdinal = matchList[depth];
+            double lastMatch = (double) matchScore(hits.get(matchOrdinal, 0), query) / maxScore;
+            visit(index, query, weights, hits, maxScore, seen, matchOrdinal, heap);
+
+            double lastMetacritic = 0.0;
+            double lastRecency = 0.0;
+            if (depth < size) {
+                lastMetacritic = index.metacriticScoreAt(depth) / 100.0;
+                visit(index, query, weights, hits, maxScore, seen, depth, heap);
+                int releaseOrdinal = byReleaseDate[depth];
+                lastRecency = index.recencyAt(releaseOrdinal);
+                visit(index, query, weights, hits, maxScore, seen, releaseOrdinal, heap);
+            }
+
+            double threshold = weights.getMatch() * lastMatch
+                    + weights.getMetacritic() * lastMetacritic
+                    + weights.getRecency() * lastRecency;
+            if (heap.isFull() && heap.minScore() > threshold) {
+                // The top-K is final: no unseen game can reach the threshold
+                break;
+            }
+        }
+    }
+
+    /**
+     * The blended score of one game, as used for ranking.
+     */
+    static double blend(CatalogIndex index, RankingWeights weights, int ordinal, int matchScore, int maxScore) {
+        return weights.getMatch() * matchScore / maxScore
+                + weights.getMetacritic() * index.metacriticScoreAt(ordinal) / 100.0
+                + weights.getRecency() * index.recencyAt(ordinal);
+    }
+
+    private static void visit(CatalogIndex index, MatchQuery query, RankingWeights weights, IntIntHashMap hits,
+            int maxScore, IntIntHashMap seen, int ordinal, TopKHeap heap) {
+        if (seen.put(ordinal, 1, 0) != 0) {
+            return;
+        }
+        int gameHits = hits.get(ordinal, 0);
+        if (gameHits == 0) {
+            return;
+        }
+        int score = matchScore(gameHits, query);
+        if (score > 0) {
+            heap.offer(ordinal, blend(index, weights, ordinal, score, maxScore));
+        }
+    }
+
+    /**
+     * Ranks the cells of the query's score table: level 0 holds the highest
+     * score, equal scores share a level.
+     */
+    private static int[] scoreLevels(MatchQuery query) {
+        int[] table = query.scoreTable();
+        int[] distinct = Arrays.stream(table).distinct().sorted().toArray();
+        int[] levels = new int[table.length];
+        for (int cell = 0; cell < table.length; cell++) {
+            levels[cell] = distinct.length - 1 - Arrays.binarySearch(distinct, table[cell]);
+        }
+        return levels;
+    }
+
+    private static int cell(int hits, MatchQuery query) {
+        return (hits & GENRE_HITS_MASK) * query.tagStride() + (hits >>> TAG_SHIFT);
+    }
+
+    private static int matchScore(int hits, MatchQuery query) {
+        return query.score(hits & GENRE_HITS_MASK, hits >>> TAG_SHIFT);
+    }
+}
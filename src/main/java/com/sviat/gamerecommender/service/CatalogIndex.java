@@ -0,0 +1,393 @@
+package com.sviat.gamerecommender.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Immutable, columnar snapshot of the game catalog for one catalog version.
+ *
+ * Games are assigned ordinals in ranking tie-break order (metacritic score
+ * descending, then catalog position), so walking ordinals in ascending order
+ * visits the best candidates first and doubles as the metacritic-sorted list.
+ * A second pre-sorted list orders ordinals by release date. Genres, tags and
+ * platforms are dictionary-encoded into bitmask columns and posting lists of
+ * ordinals; developers into an id column.
+ *
+ * Bitmask columns are laid out column-major: word {@code w} of game
+ * {@code ordinal} lives at index {@code w * size() + ordinal}.
+ */
+public final class CatalogIndex {
+    /** Marker in the release-day column for missing or unparseable dates. */
+    public static final int UNKNOWN_RELEASE_DAY = Integer.MIN_VALUE;
+    /** Marker in the price column for games without a price. */
+    public static final int UNKNOWN_PRICE = -1;
+    /** Marker in the developer column for games without a developer. */
+    public static final int NO_DEVELOPER = -1;
+
+    private final long version;
+    private final Game[] games;
+    private final Map<String, Integer> ordinalById;
+    private final int[] metacriticScores;
+    private final int[] releaseDays;
+    private final int[] priceCents;
+    private final int[] developerIds;
+    private final int[] byReleaseDateDesc;
+    private final int minReleaseDay;
+    private final int maxReleaseDay;
+
+    private final Map<String, Integer> genreIds;
+    private final Map<String, Integer> tagIds;
+    private final String[] genreNames;
+    private final String[] tagNames;
+    private final int genreWords;
+    private final int tagWords;
+    private final long[] genreBits;
+    private final long[] tagBits;
+    private final int[][] genrePostings;
+    private final int[][] tagPostings;
+    private final Map<String, Integer> platformIds;
+    private final int platformWords;
+    private final long[] platformBits;
+
+    private CatalogIndex(long version, Game[] games) {
+        this.version = version;
+        this.games = games;
+        int size = games.length;
+
+        this.ordinalById = new HashMap<>(size * 2);
+        this.metacriticScores = new int[size];
+        this.releaseDays = new int[size];
+        this.priceCents = new int[size];
+        this.developerIds = new int[size];
+        Map<String, Integer> developers = new HashMap<>();
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            ordinalById.putIfAbsent(games[ordinal].getId(), ordinal);
+            metacriticScores[ordinal] = games[ordinal].getMetacriticScore();
+            int day = parseReleaseDay(games[ordinal].getReleaseDate());
+            releaseDays[ordinal] = day;
+            priceCents[ordinal] = toCents(games[ordinal].getPrice());
+            String developer = games[ordinal].getDeveloper();
+            developerIds[ordinal] = developer != null
+                    ? developers.computeIfAbsent(developer, name -> developers.size())
+                    : NO_DEVELOPER;
+            if (day != UNKNOWN_RELEASE_DAY) {
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+        }
+        this.minReleaseDay = minDay;
+        this.maxReleaseDay = maxDay;
+        // Newest first; games without a release date go last
+        this.byReleaseDateDesc = IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer ordinal) -> releaseDays[ordinal]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        this.genreIds = buildDictionary(games, Game::getGenres);
+        this.tagIds = buildDictionary(games, Game::getTags);
+        this.genreNames = namesOf(genreIds);
+        this.tagNames = namesOf(tagIds);
+        this.genreWords = wordsFor(genreIds.size());
+        this.tagWords = wordsFor(tagIds.size());
+        this.genreBits = new long[genreWords * size];
+        this.tagBits = new long[tagWords * size];
+        this.genrePostings = new int[genreIds.size()][];
+        this.tagPostings = new int[tagIds.size()][];
+
+        fillTerms(Game::getGenres, genreIds, genreBits, genrePostings);
+        fillTerms(Game::getTags, tagIds, tagBits, tagPostings);
+
+        this.platformIds = buildDictionary(games, Game::getPlatforms);
+        this.platformWords = wordsFor(platformIds.size());
+        this.platformBits = new long[platformWords * size];
+        fillTerms(Game::getPlatforms, platformIds, platformBits, new int[platformIds.size()][]);
+    }
+
+    /**
+     * Builds a snapshot of the given games.
+     *
+     * @param version catalog version the snapshot belongs to
+     * @param games   games in catalog order
+     * @return the immutable index
+     */
+    public static CatalogIndex build(long version, List<Game> games) {
+        List<Game> ordered = new ArrayList<>(games);
+        // Stable sort keeps catalog order among games with equal scores
+        ordered.sort(Comparator.comparingInt(Game::getMetacriticScore).reversed());
+        return new CatalogIndex(version, ordered.toArray(new Game[0]));
+    }
+
+    private static Map<String, Integer> buildDictionary(Game[] games, Function<Game, Set<String>> field) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (Game game : games) {
+            for (String term : termsOf(game, field)) {
+                dictionary.putIfAbsent(term, dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private static String[] namesOf(Map<String, Integer> dictionary) {
+        String[] names = new String[dictionary.size()];
+        dictionary.forEach((term, id) -> names[id] = term);
+        return names;
+    }
+
+    private void fillTerms(Function<Game, Set<String>> field, Map<String, Integer> dictionary, long[] bits,
+            int[][] postings) {
+        int size = games.length;
+        int[] counts = new int[dictionary.size()];
+        for (Game game : games) {
+            for (String term : termsOf(game, field)) {
+                counts[dictionary.get(term)]++;
+            }
+        }
+        for (int term = 0; term < postings.length; term++) {
+            postings[term] = new int[counts[term]];
+        }
+
+        // Ordinals are visited in ascending order, so every posting list comes out sorted
+        Arrays.fill(counts, 0);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            for (String term : termsOf(games[ordinal], field)) {
+                int termId = dictionary.get(term);
+                bits[(termId >>> 6) * size + ordinal] |= 1L << termId;
+                postings[termId][counts[termId]++] = ordinal;
+            }
+        }
+    }
+
+    private static Set<String> termsOf(Game game, Function<Game, Set<String>> field) {
+        Set<String> terms = field.apply(game);
+        return terms != null ? terms : Set.of();
+    }
+
+    private static int toCents(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            return UNKNOWN_PRICE;
+        }
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP)
+                .min(BigDecimal.valueOf(Integer.MAX_VALUE)).intValue();
+    }
+
+    private static int parseReleaseDay(String releaseDate) {
+        if (releaseDate == null || releaseDate.isEmpty()) {
+            return UNKNOWN_RELEASE_DAY;
+        }
+        try {
+            return (int) LocalDate.parse(releaseDate).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_RELEASE_DAY;
+        }
+    }
+
+    private static int wordsFor(int terms) {
+        return Math.max(1, (terms + 63) >>> 6);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return games.length;
+    }
+
+    public Game gameAt(int ordinal) {
+        return games[ordinal];
+    }
+
+    /**
+     * @return the ordinal of the game with the given id, or -1 if it is not in
+     *         this snapshot
+     */
+    public int ordinalOf(String gameId) {
+        Integer ordinal = ordinalById.get(gameId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public int metacriticScoreAt(int ordinal) {
+        return metacriticScores[ordinal];
+    }
+
+    /**
+     * @return the release date as an epoch day, or {@link #UNKNOWN_RELEASE_DAY}
+     */
+    public int releaseDayAt(int ordinal) {
+        return releaseDays[ordinal];
+    }
+
+    /**
+     * Release recency scaled to [0, 1] across the catalog: 1 for the newest
+     * game, 0 for the oldest and for games without a release date.
+     */
+    public double recencyAt(int ordinal) {
+        int day = releaseDays[ordinal];
+        if (day == UNKNOWN_RELEASE_DAY) {
+            return 0.0;
+        }
+        if (maxReleaseDay == minReleaseDay) {
+            return 1.0;
+        }
+        return (double) (day - minReleaseDay) / (maxReleaseDay - minReleaseDay);
+    }
+
+    /**
+     * @return ordinals sorted by release date, newest first
+     */
+    int[] byReleaseDateDesc() {
+        return byReleaseDateDesc;
+    }
+
+    /**
+     * @return the price in cents, or {@link #UNKNOWN_PRICE}
+     */
+    public int priceCentsAt(int ordinal) {
+        return priceCents[ordinal];
+    }
+
+    /**
+     * @return the dictionary id of the game's developer, or {@link #NO_DEVELOPER}
+     */
+    public int developerIdAt(int ordinal) {
+        return developerIds[ordinal];
+    }
+
+    public int genreWords() {
+        return genreWords;
+    }
+
+    public int tagWords() {
+        return tagWords;
+    }
+
+    /**
+     * @return the genre bitmask column, see the class comment for its layout
+     */
+    long[] genreBits() {
+        return genreBits;
+    }
+
+    /**
+     * @return the tag bitmask column, see the class comment for its layout
+     */
+    long[] tagBits() {
+        return tagBits;
+    }
+
+    public int platformWords() {
+        return platformWords;
+    }
+
+    /**
+     * @return the platform bitmask column, laid out like the genre column
+     */
+    long[] platformBits() {
+        return platformBits;
+    }
+
+    /**
+     * @return the dictionary id of the platform, or -1 if no game has it
+     */
+    public int platformId(String platform) {
+        Integer id = platformIds.get(platform);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the dictionary id of the genre, or -1 if no game has it
+     */
+    public int genreId(String genre) {
+        Integer id = genreIds.get(genre);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the dictionary id of the tag, or -1 if no game has it
+     */
+    public int tagId(String tag) {
+        Integer id = tagIds.get(tag);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return ascending ordinals of the games having the genre
+     */
+    int[] genrePostings(int genreId) {
+        return genrePostings[genreId];
+    }
+
+    /**
+     * @return ascending ordinals of the games having the tag
+     */
+    int[] tagPostings(int tagId) {
+        return tagPostings[tagId];
+    }
+
+    /**
+     * @return the genres the game had when this snapshot was built
+     */
+    public Set<String> genresAt(int ordinal) {
+        return decodeTerms(genreBits, genreWords, genreNames, ordinal);
+    }
+
+    /**
+     * @return the tags the game had when this snapshot was built
+     */
+    public Set<String> tagsAt(int ordinal) {
+        return decodeTerms(tagBits, tagWords, tagNames, ordinal);
+    }
+
+    private Set<String> decodeTerms(long[] bits, int words, String[] names, int ordinal) {
+        Set<String> terms = new HashSet<>();
+        int size = games.length;
+        for (int word = 0; word < words; word++) {
+            long remaining = bits[word * size + ordinal];
+            while (remaining != 0) {
+                terms.add(names[(word << 6) + Long.numberOfTrailingZeros(remaining)]);
+                remaining &= remaining - 1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Counts how many of the query's genres the game at the ordinal has.
+     */
+    public int genreMatches(int ordinal, MatchQuery query) {
+        return countMatches(genreBits, genreWords, ordinal, query.genreMask());
+    }
+
+    /**
+     * Counts how many of the query's tags the game at the ordinal has.
+     */
+    public int tagMatches(int ordinal, MatchQuery query) {
+        return countMatches(tagBits, tagWords, ordinal, query.tagMask());
+    }
+
+    private int countMatches(long[] bits, int words, int ordinal, long[] mask) {
+        int size = games.length;
+        int matches = 0;
+        for (int word = 0; word < words; word++) {
+            matches += Long.bitCount(bits[word * size + ordinal] & mask[word]);
+        }
+        return matches;
+    }
+}
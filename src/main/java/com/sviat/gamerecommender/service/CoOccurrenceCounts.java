@@ -0,0 +1,106 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * Incrementally maintained co-play counts between game keys.
+ *
+ * Where {@link CoOccurrenceModel} is rebuilt from every history, these counts
+ * follow each change to a user's played games: a newly played game's pair
+ * count with each game the user already played goes up by one, and a game the
+ * user no longer plays takes its pairs back down. Neighbours are ranked on
+ * demand with the same cosine weight, {@code both / sqrt(playersA * playersB)},
+ * at a cost proportional to the game's number of co-played games.
+ */
+public final class CoOccurrenceCounts implements UserInteractionStore.PlayedGamesListener {
+    private final List<IntIntHashMap> rows = new ArrayList<>();
+    private int[] players = new int[16];
+
+    private IntIntHashMap row(int key) {
+        while (rows.size() <= key) {
+            rows.add(null);
+        }
+        IntIntHashMap row = rows.get(key);
+        if (row == null) {
+            row = new IntIntHashMap();
+            rows.set(key, row);
+        }
+        return row;
+    }
+
+    /**
+     * Applies the difference between a user's played games before and after a
+     * change. Pairs are counted once each, however many of their games changed.
+     */
+    @Override
+    public synchronized void playedGamesChanged(String userId, int[] before, int[] after) {
+        for (int removed : before) {
+            if (Arrays.binarySearch(after, removed) < 0) {
+                players[removed]--;
+                for (int other : before) {
+                    // A pair of two removed games is taken down by the smaller key only
+                    if (other != removed && (Arrays.binarySearch(after, other) >= 0 || other > removed)) {
+                        addPair(removed, other, -1);
+                    }
+                }
+            }
+        }
+        for (int added : after) {
+            if (Arrays.binarySearch(before, added) < 0) {
+                if (added >= players.length) {
+                    players = Arrays.copyOf(players, Math.max(added + 1, players.length * 2));
+                }
+                players[added]++;
+                for (int other : after) {
+                    if (other != added && (Arrays.binarySearch(before, other) >= 0 || other > added)) {
+                        addPair(added, other, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addPair(int key, int other, int delta) {
+        addCount(row(key), other, delta);
+        addCount(row(other), key, delta);
+    }
+
+    // Pairs whose count drops to zero are removed, so rows stay sparse
+    private static void addCount(IntIntHashMap row, int key, int delta) {
+        int count = row.get(key, 0) + delta;
+        if (count > 0) {
+            row.put(key, count, 0);
+        } else {
+            row.remove(key, 0);
+        }
+    }
+
+    public synchronized int playerCount(int key) {
+        return key < players.length ? players[key] : 0;
+    }
+
+    /**
+     * @return the number of users who played both games
+     */
+    public synchronized int count(int key, int other) {
+        IntIntHashMap row = key < rows.size() ? rows.get(key) : null;
+        return row != null ? row.get(other, 0) : 0;
+    }
+
+    /**
+     * Collects the game's strongest neighbours into the heap, with game keys
+     * in place of ordinals and cosine weights as scores.
+     */
+    public synchronized void neighbours(int key, TopKHeap heap) {
+        IntIntHashMap row = key < rows.size() ? rows.get(key) : null;
+        if (row == null) {
+            return;
+        }
+        double keyPlayers = players[key];
+        row.forEach((other, both) -> heap.offer(other, both / Math.sqrt(keyPlayers * players[other])));
+    }
+}
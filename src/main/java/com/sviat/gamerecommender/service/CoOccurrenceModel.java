@@ -0,0 +1,151 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Item-item "players who played X also played" model built from play
+ * histories.
+ *
+ * Rows are indexed by stable game keys (see {@link GameDatabase#gameKey}) and
+ * stored as a sparse matrix in CSR form: the neighbours of key {@code k} are
+ * {@code neighbours[offsets[k] .. offsets[k + 1])} with matching
+ * {@code weights}, best first. The weight of a pair is the cosine similarity
+ * of the two games' player sets, {@code together / sqrt(playersA * playersB)}.
+ *
+ * Rows are counted independently and in parallel by one task per
+ * common-pool worker. Each task allocates a dense counter array once and takes
+ * rows from a shared cursor until none are left: a row walks the histories of
+ * the game's players, accumulating into the counters, and keeps only the
+ * strongest neighbours.
+ */
+public final class CoOccurrenceModel {
+
+    private final long version;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] weights;
+    private final int[] players;
+
+    private CoOccurrenceModel(long version, int[] offsets, int[] neighbours, float[] weights, int[] players) {
+        this.version = version;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.weights = weights;
+        this.players = players;
+    }
+
+    /**
+     * Builds the model from play histories.
+     *
+     * @param version        Version of the user data the histories come from
+     * @param histories      Distinct game keys played by each user
+     * @param keyCount       Number of assigned game keys
+     * @param maxNeighbours  Number of neighbours kept per game
+     */
+    public static CoOccurrenceModel build(long version, List<int[]> histories, int keyCount, int maxNeighbours) {
+        // Inverted lists: the users who played each game
+        int[] players = new int[keyCount];
+        for (int[] history : histories) {
+            for (int key : history) {
+                players[key]++;
+            }
+        }
+        int[] userOffsets = new int[keyCount + 1];
+        for (int key = 0; key < keyCount; key++) {
+            userOffsets[key + 1] = userOffsets[key] + players[key];
+        }
+        int[] usersByGame = new int[userOffsets[keyCount]];
+        int[] fill = Arrays.copyOf(userOffsets, keyCount);
+        for (int user = 0; user < histories.size(); user++) {
+            for (int key : histories.get(user)) {
+                usersByGame[fill[key]++] = user;
+            }
+        }
+
+        int[][] rowNeighbours = new int[keyCount][];
+        float[][] rowWeights = new float[keyCount][];
+        int workers = Math.min(keyCount, ForkJoinPool.getCommonPoolParallelism());
+        // Rows are taken one at a time, so uneven rows still balance across workers
+        AtomicInteger nextKey = new AtomicInteger();
+        IntStream.range(0, workers).parallel().forEach(worker -> {
+            // Counters are zero again after every row; touched lists the non-zero ones
+            int[] together = new int[keyCount];
+            int[] touched = new int[keyCount];
+            for (int key = nextKey.getAndIncrement(); key < keyCount; key = nextKey.getAndIncrement()) {
+                int touchedCount = 0;
+                for (int i = userOffsets[key]; i < userOffsets[key + 1]; i++) {
+                    for (int other : histories.get(usersByGame[i])) {
+                        if (other != key && together[other]++ == 0) {
+                            touched[touchedCount++] = other;
+                        }
+                    }
+                }
+
+                TopKHeap heap = new TopKHeap(Math.min(maxNeighbours, touchedCount));
+                for (int i = 0; i < touchedCount; i++) {
+                    int other = touched[i];
+                    heap.offer(other, together[other] / Math.sqrt((double) players[key] * players[other]));
+                    together[other] = 0;
+                }
+                int[] keys = new int[heap.size()];
+                double[] scores = new double[heap.size()];
+                heap.drainInto(keys, scores);
+                float[] rowWeight = new float[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    rowWeight[i] = (float) scores[i];
+                }
+                rowNeighbours[key] = keys;
+                rowWeights[key] = rowWeight;
+            }
+        });
+
+        int[] offsets = new int[keyCount + 1];
+        for (int key = 0; key < keyCount; key++) {
+            offsets[key + 1] = offsets[key] + rowNeighbours[key].length;
+        }
+        int[] neighbours = new int[offsets[keyCount]];
+        float[] weights = new float[offsets[keyCount]];
+        for (int key = 0; key < keyCount; key++) {
+            System.arraycopy(rowNeighbours[key], 0, neighbours, offsets[key], rowNeighbours[key].length);
+            System.arraycopy(rowWeights[key], 0, weights, offsets[key], rowWeights[key].length);
+        }
+        return new CoOccurrenceModel(version, offsets, neighbours, weights, players);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of game keys the model has rows for
+     */
+    public int keyCount() {
+        return offsets.length - 1;
+    }
+
+    public int neighbourCount(int key) {
+        return key < keyCount() ? offsets[key + 1] - offsets[key] : 0;
+    }
+
+    /**
+     * @return the key of the i-th strongest neighbour of the game
+     */
+    public int neighbourAt(int key, int i) {
+        return neighbours[offsets[key] + i];
+    }
+
+    public float weightAt(int key, int i) {
+        return weights[offsets[key] + i];
+    }
+
+    /**
+     * @return how many users played the game
+     */
+    public int playerCount(int key) {
+        return key < keyCount() ? players[key] : 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves "players who played X also played" from {@link CoOccurrenceCounts}
+ * that follow every change to the users' played games, streamed plays
+ * included, so a request never waits for a rebuild. A full
+ * {@link CoOccurrenceModel} of the same weights is still available; after a
+ * user data change it is rebuilt in the background while the previous model
+ * is served.
+ */
+public class CoOccurrenceRecommender implements Closeable {
+    public static final int DEFAULT_MAX_NEIGHBOURS = 50;
+
+    private static final Logger logger = LoggerFactory.getLogger(CoOccurrenceRecommender.class);
+
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private volatile int maxNeighbours = DEFAULT_MAX_NEIGHBOURS;
+    private volatile CoOccurrenceModel model;
+    private final CoOccurrenceCounts counts = new CoOccurrenceCounts();
+    // Set while a rebuild is queued or running, so that callers queue at most one
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "cooccurrence-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CoOccurrenceRecommender(GameDatabase gameDatabase, UserDatabase userDatabase) {
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        userDatabase.getInteractionStore().addListener(counts);
+    }
+
+    public synchronized void setMaxNeighbours(int maxNeighbours) {
+        this.maxNeighbours = maxNeighbours;
+        this.model = null;
+    }
+
+    /**
+     * Returns the latest model. After a user data change it queues a rebuild
+     * and returns the previous model; only a missing model is built on the
+     * calling thread.
+     */
+    public CoOccurrenceModel getModel() {
+        CoOccurrenceModel current = model;
+        if (current == null) {
+            return refreshModel();
+        }
+        if (current.getVersion() != userDatabase.getVersion() && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuilder.execute(() -> {
+                    try {
+                        refreshModel();
+                    } catch (RuntimeException e) {
+                        logger.error("Error rebuilding the co-occurrence model", e);
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed; keep serving the last model
+                rebuilding.set(false);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Builds the model for the current user data now, unless the latest model
+     * already is.
+     */
+    public synchronized CoOccurrenceModel refreshModel() {
+        CoOccurrenceModel current = model;
+        long version = userDatabase.getVersion();
+        if (current == null || current.getVersion() != version) {
+            current = buildModel(version);
+            model = current;
+        }
+        return current;
+    }
+
+    private CoOccurrenceModel buildModel(long version) {
+        UserInteractionStore interactions = userDatabase.getInteractionStore();
+        // Every user with plays, including users only known from streamed plays
+        List<int[]> histories = new ArrayList<>();
+        for (String userId : interactions.userIds()) {
+            histories.add(interactions.gameKeys(userId, UserInteractionStore.PLAYED));
+        }
+        return CoOccurrenceModel.build(version, histories, gameDatabase.gameKeyCount(), maxNeighbours);
+    }
+
+    public CoOccurrenceCounts getCounts() {
+        return counts;
+    }
+
+    /**
+     * Games most often played by the players of the given game, strongest
+     * first, at most {@code maxNeighbours}. Games no longer in the catalog are
+     * skipped.
+     */
+    public List<Map<String, String>> getAlsoPlayedGames(String gameId, int limit) {
+        int key = gameDatabase.findGameKey(gameId);
+        if (key < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        int wanted = Math.min(limit, maxNeighbours);
+        // A few extra in case some neighbours left the catalog
+        TopKHeap heap = new TopKHeap(wanted + 16);
+        counts.neighbours(key, heap);
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        List<Map<String, String>> alsoPlayed = new ArrayList<>(Math.min(wanted, heap.size()));
+        for (int neighbour : heap.drainOrdinals()) {
+            int ordinal = index.ordinalOf(gameDatabase.gameIdForKey(neighbour));
+            if (ordinal >= 0 && alsoPlayed.size() < wanted) {
+                alsoPlayed.add(RelatedGamesIndex.summaryOf(index.gameAt(ordinal)));
+            }
+        }
+        return alsoPlayed;
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+}
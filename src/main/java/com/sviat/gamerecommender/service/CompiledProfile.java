@@ -0,0 +1,159 @@
+package com.sviat.gamerecommender.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.sviat.gamerecommender.model.User;
+
+/**
+ * A user's profile compiled against one {@link CatalogIndex}.
+ *
+ * Favourite genres, plus the tags of the games on the wishlist, become a
+ * {@link MatchQuery}. Preferred platforms, the price limit and owned games are
+ * checked per candidate against the index's platform and price columns and a
+ * sorted array of owned ordinals, so a profile costs memory and compile time
+ * in proportion to the user's own lists, not the catalog.
+ */
+public final class CompiledProfile {
+    private final CatalogIndex index;
+    private final long userVersion;
+    private final MatchQuery query;
+    private final int maxPriceCents;
+    // Platform ids the user accepts, as a bitset, or null to accept every platform
+    private final long[] platformMask;
+    private final int[] ownedOrdinals;
+
+    private CompiledProfile(CatalogIndex index, long userVersion, MatchQuery query, int maxPriceCents,
+            long[] platformMask, int[] ownedOrdinals) {
+        this.index = index;
+        this.userVersion = userVersion;
+        this.query = query;
+        this.maxPriceCents = maxPriceCents;
+        this.platformMask = platformMask;
+        this.ownedOrdinals = ownedOrdinals;
+    }
+
+    /**
+     * Compiles the profile of a user.
+     *
+     * @param userVersion Version of the user the profile is compiled from, so
+     *                    cached profiles can be checked for staleness
+     */
+    public static CompiledProfile compile(CatalogIndex index, User user, long userVersion, MatchScorer scorer) {
+        Set<String> genres = cleaned(user.getFavoriteGenres());
+        Set<String> tags = new HashSet<>();
+        if (user.getWishlist() != null) {
+            for (String gameId : user.getWishlist()) {
+                int ordinal = index.ordinalOf(gameId);
+                if (ordinal >= 0) {
+                    tags.addAll(index.tagsAt(ordinal));
+                }
+            }
+        }
+        tags.remove("");
+        MatchQuery query = MatchQuery.compile(index, genres, tags, scorer);
+        return new CompiledProfile(index, userVersion, query, maxPriceCents(user), platformMask(index, user),
+                ownedOrdinals(index, user));
+    }
+
+    private static int maxPriceCents(User user) {
+        if (user.getMaxPrice() == null) {
+            return Integer.MAX_VALUE;
+        }
+        return user.getMaxPrice().max(BigDecimal.ZERO).movePointRight(2)
+                .setScale(0, RoundingMode.DOWN).min(BigDecimal.valueOf(Integer.MAX_VALUE)).intValue();
+    }
+
+    private static long[] platformMask(CatalogIndex index, User user) {
+        Set<String> platforms = cleaned(user.getPreferredPlatforms());
+        if (platforms.isEmpty()) {
+            return null;
+        }
+        long[] mask = new long[index.platformWords()];
+        for (String platform : platforms) {
+            int id = index.platformId(platform);
+            if (id >= 0) {
+                mask[id >>> 6] |= 1L << id;
+            }
+        }
+        return mask;
+    }
+
+    private static int[] ownedOrdinals(CatalogIndex index, User user) {
+        if (user.getOwnedGames() == null) {
+            return new int[0];
+        }
+        return user.getOwnedGames().stream()
+                .mapToInt(index::ordinalOf)
+                .filter(ordinal -> ordinal >= 0)
+                .sorted()
+                .toArray();
+    }
+
+    private static boolean anyBit(long[] bits, int size, int ordinal, long[] mask) {
+        for (int word = 0; word < mask.length; word++) {
+            if ((bits[word * size + ordinal] & mask[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> cleaned(Set<String> terms) {
+        Set<String> cleaned = new HashSet<>();
+        if (terms != null) {
+            for (String term : terms) {
+                if (term != null && !term.isEmpty()) {
+                    cleaned.add(term);
+                }
+            }
+        }
+        return cleaned;
+    }
+
+    public CatalogIndex getIndex() {
+        return index;
+    }
+
+    public long getUserVersion() {
+        return userVersion;
+    }
+
+    public MatchQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return whether the game passes the platform, price and ownership filters
+     */
+    public boolean allows(int ordinal) {
+        // Games without a price are not filtered out by the price limit
+        if (index.priceCentsAt(ordinal) > maxPriceCents) {
+            return false;
+        }
+        if (platformMask != null && !anyBit(index.platformBits(), index.size(), ordinal, platformMask)) {
+            return false;
+        }
+        return Arrays.binarySearch(ownedOrdinals, ordinal) < 0;
+    }
+
+    /**
+     * Collects the best allowed matches into the heap. A profile without
+     * genres or wishlist tags falls back to the best-rated allowed games.
+     */
+    public void search(TopKHeap heap) {
+        if (!query.isEmpty()) {
+            MaxScoreSearcher.search(index, query, 0, index.size(), this::allows, heap);
+            return;
+        }
+        // Ordinals are in metacritic order, so the first allowed games are the best rated
+        for (int ordinal = 0; ordinal < index.size() && !heap.isFull(); ordinal++) {
+            if (allows(ordinal)) {
+                heap.offer(ordinal, 0);
+            }
+        }
+    }
+}
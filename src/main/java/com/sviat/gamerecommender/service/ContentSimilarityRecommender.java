@@ -0,0 +1,253 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * "Similar games" by text content, from TF-IDF vectors in an HNSW index.
+ *
+ * A game's text is its description, title, developer, publisher, genres and
+ * tags. Descriptions that are only a link to the details page add nothing,
+ * so they are skipped. Vectors are made by a {@link TextVectorizer} fitted on
+ * the catalog and indexed with {@link HnswIndex}, once per catalog version.
+ * After a change the index is rebuilt in the background while requests are
+ * served from the previous one.
+ *
+ * With an index file, every built index is saved there. At startup a saved
+ * index is mapped and served from the file when its fingerprint, a hash of
+ * the indexed texts and parameters, matches the catalog. Rebuilt indexes are
+ * served from the buffer they were built in, so a change doesn't map another
+ * copy of the file; the startup mapping goes away with its snapshot.
+ */
+public class ContentSimilarityRecommender implements Closeable {
+    public static final int DEFAULT_DIMENSION = 256;
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentSimilarityRecommender.class);
+    // Fixed so that rebuilding the same catalog gives the same graph
+    private static final long SEED = 0x5eed;
+
+    private final GameDatabase gameDatabase;
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final Path indexFile;
+    private volatile Snapshot snapshot;
+    // Set while a rebuild is queued or running, so that requests queue at most one
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "content-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param indexFile File to keep the index in, or null to keep it on the heap
+     */
+    public ContentSimilarityRecommender(GameDatabase gameDatabase, int dimension, int m, int efConstruction,
+            int efSearch, Path indexFile) {
+        if (dimension <= 0 || m < 2 || efConstruction <= 0 || efSearch <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid content index parameters: dimension=%d, m=%d, efConstruction=%d, efSearch=%d",
+                    dimension, m, efConstruction, efSearch));
+        }
+        this.gameDatabase = gameDatabase;
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * An index and the catalog ordinal of each of its nodes.
+     */
+    private record Snapshot(CatalogIndex catalog, HnswIndex index, int[] ordinals) {
+    }
+
+    /**
+     * Returns the latest index. After a catalog change it queues a rebuild and
+     * returns the previous index; only a missing index is built on the
+     * calling thread.
+     */
+    public HnswIndex getIndex() {
+        return snapshot().index();
+    }
+
+    /**
+     * Builds the index for the current catalog version now, unless the latest
+     * index already is.
+     */
+    public HnswIndex refreshIndex() {
+        return refreshSnapshot().index();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return refreshSnapshot();
+        }
+        if (current.catalog() != gameDatabase.getCatalogIndex() && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuilder.execute(() -> {
+                    try {
+                        refreshSnapshot();
+                    } catch (RuntimeException e) {
+                        logger.error("Error rebuilding the content index", e);
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed; keep searching the last index
+                rebuilding.set(false);
+            }
+        }
+        return current;
+    }
+
+    private synchronized Snapshot refreshSnapshot() {
+        CatalogIndex catalog = gameDatabase.getCatalogIndex();
+        Snapshot current = snapshot;
+        if (current == null || current.catalog() != catalog) {
+            current = buildSnapshot(catalog, current == null);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * @param startup whether a saved index may be mapped instead of building
+     */
+    private Snapshot buildSnapshot(CatalogIndex catalog, boolean startup) {
+        List<String> ids = new ArrayList<>(catalog.size());
+        List<String> texts = new ArrayList<>(catalog.size());
+        long fingerprint = 31L * dimension + m;
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            Game game = catalog.gameAt(ordinal);
+            ids.add(game.getId());
+            texts.add(textOf(game));
+            fingerprint = fingerprint * 31 + game.getId().hashCode();
+            fingerprint = fingerprint * 31 + texts.get(ordinal).hashCode();
+        }
+
+        HnswIndex index = indexFile != null && startup ? openSaved(fingerprint) : null;
+        if (index == null) {
+            TextVectorizer vectorizer = TextVectorizer.fit(texts, dimension);
+            List<float[]> vectors = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                vectors.add(vectorizer.vectorize(text));
+            }
+            index = HnswIndex.build(ids, vectors, m, efConstruction, SEED, fingerprint);
+            if (indexFile != null) {
+                try {
+                    index.save(indexFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error saving content index to " + indexFile, e);
+                }
+            }
+        }
+
+        int[] ordinals = new int[index.size()];
+        for (int node = 0; node < ordinals.length; node++) {
+            ordinals[node] = catalog.ordinalOf(index.idOf(node));
+        }
+        return new Snapshot(catalog, index, ordinals);
+    }
+
+    private HnswIndex openSaved(long fingerprint) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try {
+            HnswIndex saved = HnswIndex.open(indexFile);
+            return saved.getFingerprint() == fingerprint ? saved : null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable content index {}", indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the text a game is compared by
+     */
+    static String textOf(Game game) {
+        StringBuilder text = new StringBuilder();
+        String description = game.getDescription();
+        if (description != null && !description.startsWith("http://") && !description.startsWith("https://")) {
+            text.append(description).append('\n');
+        }
+        text.append(game.getTitle()).append('\n');
+        if (game.getDeveloper() != null) {
+            text.append(game.getDeveloper()).append('\n');
+        }
+        if (game.getPublisher() != null) {
+            text.append(game.getPublisher()).append('\n');
+        }
+        if (game.getGenres() != null) {
+            text.append(String.join(" ", game.getGenres())).append('\n');
+        }
+        if (game.getTags() != null) {
+            text.append(String.join(" ", game.getTags()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Games whose text is most similar to the given game's, found with the
+     * approximate index. The game itself is left out.
+     */
+    public List<Game> getSimilarGames(String gameId, int limit) {
+        return similarGames(gameId, limit, false);
+    }
+
+    /**
+     * Same as {@link #getSimilarGames}, but compares the game with every
+     * other game, for checking the recall of the index.
+     */
+    public List<Game> getSimilarGamesExact(String gameId, int limit) {
+        return similarGames(gameId, limit, true);
+    }
+
+    private List<Game> similarGames(String gameId, int limit, boolean exact) {
+        Snapshot current = snapshot();
+        HnswIndex index = current.index();
+        int node = index.nodeOf(gameId);
+        List<Game> games = new ArrayList<>();
+        if (node < 0 || limit <= 0) {
+            return games;
+        }
+
+        // One extra, since the game finds itself
+        float[] query = index.vectorOf(node);
+        TopKHeap heap = exact ? index.exactSearch(query, limit + 1) : index.search(query, limit + 1, efSearch);
+        for (int similar : heap.drainOrdinals()) {
+            if (similar != node && games.size() < limit) {
+                games.add(current.catalog().gameAt(current.ordinals()[similar]));
+            }
+        }
+        return games;
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+}
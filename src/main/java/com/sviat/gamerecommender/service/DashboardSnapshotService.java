@@ -0,0 +1,151 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * The dashboard's catalog rows (best rated, new releases and recommended
+ * genres), built once per catalog version instead of on every page load.
+ *
+ * Rows are built into an immutable snapshot and published through a volatile
+ * field, so a request reads the whole dashboard with one volatile read and
+ * never waits for a build. A background thread rebuilds the snapshot when the
+ * catalog version has moved on: soon after games are added or updated, and
+ * on a periodic check that also catches reloads and deletions. A burst of
+ * changes, such as a bulk import, queues at most one rebuild at a time. Each
+ * snapshot records when it was built and how long the build took.
+ */
+public class DashboardSnapshotService implements Closeable {
+    public static final int DEFAULT_ROW_SIZE = 12;
+    public static final int DEFAULT_REFRESH_SECONDS = 30;
+    // Genres of the "Recommended for You" row
+    static final Set<String> RECOMMENDED_GENRES = Set.of("Action", "RPG", "Adventure");
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    private final GameDatabase gameDatabase;
+    private final RecommendationEngine recommendationEngine;
+    private final int rowSize;
+    private final LongSupplier clock;
+    private volatile DashboardSnapshot snapshot;
+    // Set while a rebuild is queued, so that further changes don't queue more
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public DashboardSnapshotService(GameDatabase gameDatabase, RecommendationEngine recommendationEngine,
+            int rowSize) {
+        this(gameDatabase, recommendationEngine, rowSize, System::currentTimeMillis);
+    }
+
+    DashboardSnapshotService(GameDatabase gameDatabase, RecommendationEngine recommendationEngine, int rowSize,
+            LongSupplier clock) {
+        if (rowSize < 0) {
+            throw new IllegalArgumentException("Dashboard row size must not be negative: " + rowSize);
+        }
+        this.gameDatabase = gameDatabase;
+        this.recommendationEngine = recommendationEngine;
+        this.rowSize = rowSize;
+        this.clock = clock;
+    }
+
+    /**
+     * The dashboard rows of one catalog version.
+     *
+     * @param builtAt       When the build finished, in milliseconds since the epoch
+     * @param buildDuration How long the build took, in nanoseconds
+     */
+    public record DashboardSnapshot(long catalogVersion, int totalGames, List<Game> bestRated,
+            List<Game> newReleases, List<Game> recommended, long builtAt, long buildDuration) {
+    }
+
+    /**
+     * @return the latest snapshot, built on the calling thread only if there
+     *         is none yet
+     */
+    public DashboardSnapshot getSnapshot() {
+        DashboardSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * Rebuilds the snapshot if the catalog has changed since it was built.
+     *
+     * @return the current snapshot
+     */
+    public synchronized DashboardSnapshot refresh() {
+        // Read the version first, so a change during the build triggers another one
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        long version = index.getVersion();
+        DashboardSnapshot current = snapshot;
+        if (current != null && current.catalogVersion() == version) {
+            return current;
+        }
+
+        long start = System.nanoTime();
+        List<Game> bestRated = recommendationEngine.getRecommendationsByMetacriticScore(rowSize);
+        List<Game> newReleases = recommendationEngine.getRecommendationsByReleaseDate(rowSize);
+        List<Game> recommended = recommendationEngine.getRecommendationsByGenre(RECOMMENDED_GENRES, rowSize);
+        current = new DashboardSnapshot(version, index.size(), Collections.unmodifiableList(bestRated),
+                Collections.unmodifiableList(newReleases), Collections.unmodifiableList(recommended),
+                clock.getAsLong(), System.nanoTime() - start);
+        snapshot = current;
+        logger.debug("Built dashboard snapshot for catalog version {} in {} us", version,
+                current.buildDuration() / 1000);
+        return current;
+    }
+
+    /**
+     * Builds the first snapshot now, then rebuilds in the background after
+     * every game change and every {@code periodSeconds} if the catalog moved on.
+     */
+    public synchronized void start(int periodSeconds) {
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "dashboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService executor = scheduler;
+        Runnable refreshTask = () -> {
+            // Cleared before the build, so a change during it queues another
+            refreshPending.set(false);
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // An exception would cancel every later refresh
+                logger.error("Error refreshing the dashboard snapshot", e);
+            }
+        };
+        executor.scheduleWithFixedDelay(refreshTask, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        gameDatabase.addListener(game -> {
+            if (!refreshPending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(refreshTask);
+            } catch (RejectedExecutionException e) {
+                // Closed; the last snapshot stays in place
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Anytime top-K search that stops at a deadline.
+ *
+ * The ordinal range is searched in slices, lowest ordinals first. Ordinals
+ * follow the catalog order, best metacritic score first, so the games seen
+ * before a cut-off are the ones most likely to rank well. The clock is read
+ * once per slice; if it has passed the deadline, the heap holds the best
+ * top-K of the slices searched so far.
+ *
+ * The search also stops early, and complete, once the heap is full of games
+ * with the query's best possible score: later ordinals could only tie them,
+ * and ties go to the lower ordinal.
+ */
+final class DeadlineSearcher {
+    /** Ordinals searched between clock reads. */
+    static final int SLICE_SIZE = 4 * DenseScanner.BLOCK_SIZE;
+
+    private DeadlineSearcher() {
+    }
+
+    /**
+     * Collects the best matches into the heap until done or past the deadline.
+     *
+     * @param deadline Clock reading, in nanoseconds, at which to stop
+     * @return true if the whole catalog was searched, false if cut off
+     */
+    static boolean search(CatalogIndex index, MatchQuery query, ScoringKernel kernel, long deadline,
+            LongSupplier nanoClock, int sliceSize, TopKHeap heap) {
+        boolean dense = DenseScanner.prefersDenseScan(index, query);
+        for (int from = 0; from < index.size(); from += sliceSize) {
+            if (heap.isFull() && heap.minScore() >= query.maxScore()) {
+                return true;
+            }
+            if (from > 0 && nanoClock.getAsLong() - deadline >= 0) {
+                return false;
+            }
+            ParallelSearcher.searchRange(index, query, kernel, dense, from, Math.min(index.size(), from + sliceSize),
+                    heap);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Top-K search that scores every game in a range with a {@link ScoringKernel},
+ * block by block, and feeds the matches into a heap.
+ */
+final class DenseScanner {
+    static final int BLOCK_SIZE = 1024;
+
+    private DenseScanner() {
+    }
+
+    /**
+     * Collects the best matches with ordinals in {@code [from, to)} into the heap.
+     */
+    static void search(CatalogIndex index, MatchQuery query, ScoringKernel kernel, int from, int to,
+            TopKHeap heap) {
+        if (heap.capacity() == 0 || query.isEmpty() || from >= to) {
+            return;
+        }
+        int[] scores = new int[Math.min(BLOCK_SIZE, to - from)];
+        for (int blockStart = from; blockStart < to; blockStart += BLOCK_SIZE) {
+            int blockEnd = Math.min(blockStart + BLOCK_SIZE, to);
+            kernel.score(index, query, blockStart, blockEnd, scores);
+            for (int ordinal = blockStart; ordinal < blockEnd; ordinal++) {
+                int score = scores[ordinal - blockStart];
+                if (score > 0) {
+                    heap.offer(ordinal, score);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a dense scan is likely cheaper than posting-list traversal: the
+     * query has several terms (so MaxScore cannot stop at the first postings)
+     * and its posting lists together cover at least half of the catalog.
+     */
+    static boolean prefersDenseScan(CatalogIndex index, MatchQuery query) {
+        int terms = query.genreIds().length + query.tagIds().length;
+        if (terms < 2) {
+            return false;
+        }
+        long postings = 0;
+        for (int genreId : query.genreIds()) {
+            postings += index.genrePostings(genreId).length;
+        }
+        for (int tagId : query.tagIds()) {
+            postings += index.tagPostings(tagId).length;
+        }
+        return postings * 2 >= index.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Maximal marginal relevance (MMR) re-ranking of a top-N candidate list.
+ *
+ * Picks are made one at a time: each time, the candidate maximising
+ * {@code lambda * relevance - (1 - lambda) * maxSimilarity} is moved to the
+ * front, where {@code maxSimilarity} is its highest similarity to any game
+ * already picked. That array is updated with the new pick only, so picking K
+ * of N candidates costs O(N * K) similarities.
+ *
+ * Similarity is the Jaccard index of the games' genres, tags and developer,
+ * computed from the bitmask columns with popcounts. The scratch arrays are
+ * kept between calls, so re-ranking allocates nothing once they are large
+ * enough; instances are therefore not thread-safe.
+ */
+final class DiversityReranker {
+    private double[] maxSimilarity = new double[0];
+    private int[] termCounts = new int[0];
+
+    /**
+     * Reorders the first {@code count} candidates in place so that the first
+     * {@code min(k, count)} are the MMR picks in pick order.
+     *
+     * @param ordinals  Candidate ordinals, best first
+     * @param relevance Relevance of each candidate in [0, 1], reordered alongside
+     * @param lambda    Weight of relevance against diversity, in [0, 1]
+     * @return the number of picks
+     */
+    int rerank(CatalogIndex index, int[] ordinals, double[] relevance, int count, double lambda, int k) {
+        if (maxSimilarity.length < count) {
+            maxSimilarity = new double[count];
+            termCounts = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            maxSimilarity[i] = 0;
+            termCounts[i] = termCount(index, ordinals[i]);
+        }
+
+        int picks = Math.min(k, count);
+        for (int picked = 0; picked < picks; picked++) {
+            // Earlier candidates win ties, so lambda = 1 keeps the input order
+            int best = picked;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = picked; i < count; i++) {
+                double score = lambda * relevance[i] - (1 - lambda) * maxSimilarity[i];
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            swap(ordinals, relevance, picked, best);
+
+            int pick = ordinals[picked];
+            int pickTerms = termCounts[picked];
+            for (int i = picked + 1; i < count; i++) {
+                double similarity = similarity(index, pick, pickTerms, ordinals[i], termCounts[i]);
+                if (similarity > maxSimilarity[i]) {
+                    maxSimilarity[i] = similarity;
+                }
+            }
+        }
+        return picks;
+    }
+
+    private void swap(int[] ordinals, double[] relevance, int a, int b) {
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+        double score = relevance[a];
+        relevance[a] = relevance[b];
+        relevance[b] = score;
+        score = maxSimilarity[a];
+        maxSimilarity[a] = maxSimilarity[b];
+        maxSimilarity[b] = score;
+        int terms = termCounts[a];
+        termCounts[a] = termCounts[b];
+        termCounts[b] = terms;
+    }
+
+    /**
+     * @return the number of genres, tags and developers of the game
+     */
+    static int termCount(CatalogIndex index, int ordinal) {
+        int size = index.size();
+        long[] genreBits = index.genreBits();
+        long[] tagBits = index.tagBits();
+        int count = index.developerIdAt(ordinal) != CatalogIndex.NO_DEVELOPER ? 1 : 0;
+        for (int word = 0; word < index.genreWords(); word++) {
+            count += Long.bitCount(genreBits[word * size + ordinal]);
+        }
+        for (int word = 0; word < index.tagWords(); word++) {
+            count += Long.bitCount(tagBits[word * size + ordinal]);
+        }
+        return count;
+    }
+
+    /**
+     * Jaccard similarity of two games' genres, tags and developer.
+     */
+    static double similarity(CatalogIndex index, int a, int aTerms, int b, int bTerms) {
+        int size = index.size();
+        long[] genreBits = index.genreBits();
+        long[] tagBits = index.tagBits();
+        int developer = index.developerIdAt(a);
+        int shared = developer != CatalogIndex.NO_DEVELOPER && developer == index.developerIdAt(b) ? 1 : 0;
+        for (int word = 0; word < index.genreWords(); word++) {
+            shared += Long.bitCount(genreBits[word * size + a] & genreBits[word * size + b]);
+        }
+        for (int word = 0; word < index.tagWords(); word++) {
+            shared += Long.bitCount(tagBits[word * size + a] & tagBits[word * size + b]);
+        }
+        int union = aTerms + bTerms - shared;
+        return union > 0 ? (double) shared / union : 0;
+    }
+}
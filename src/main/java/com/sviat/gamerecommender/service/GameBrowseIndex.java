@@ -0,0 +1,147 @@
+package com.sviat.gamerecommender.service;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * The catalog in title order, for browsing it a page at a time.
+ *
+ * Titles are compared with a {@link Collator} for the configured locale at
+ * secondary strength, so case is ignored but accents are not, and letters
+ * sort the way readers of that locale expect. Each title is turned into a
+ * {@link CollationKey} once and the keys are sorted, which is far cheaper
+ * than collating pairs of strings during the sort. The order is built once
+ * per catalog version; a page is then a slice of it.
+ */
+public class GameBrowseIndex {
+    public static final int DEFAULT_PAGE_SIZE = 48;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final GameDatabase gameDatabase;
+    private final Locale locale;
+    private final int pageSize;
+    private volatile TitleOrder titleOrder;
+
+    public GameBrowseIndex(GameDatabase gameDatabase, Locale locale, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Browse page size must be between 1 and " + MAX_PAGE_SIZE + ": "
+                    + pageSize);
+        }
+        this.gameDatabase = gameDatabase;
+        this.locale = locale;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Catalog ordinals sorted by title, then by ordinal.
+     */
+    private record TitleOrder(CatalogIndex catalog, int[] ordinals) {
+    }
+
+    /**
+     * One page of the title order.
+     *
+     * @param page Zero-based page number, after clamping to the last page
+     */
+    public record BrowsePage(List<Game> games, int page, int pageSize, int totalGames, int totalPages) {
+    }
+
+    /**
+     * A window of the title order, with the total taken from the same catalog
+     * version.
+     *
+     * @param offset Position of the first game, after clamping to zero
+     */
+    public record BrowseWindow(List<Game> games, int offset, int totalGames) {
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    private TitleOrder titleOrder() {
+        CatalogIndex catalog = gameDatabase.getCatalogIndex();
+        TitleOrder current = titleOrder;
+        if (current != null && current.catalog() == catalog) {
+            return current;
+        }
+        synchronized (this) {
+            current = titleOrder;
+            if (current == null || current.catalog() != catalog) {
+                current = new TitleOrder(catalog, sortByTitle(catalog, locale));
+                titleOrder = current;
+            }
+            return current;
+        }
+    }
+
+    static int[] sortByTitle(CatalogIndex catalog, Locale locale) {
+        Collator collator = Collator.getInstance(locale);
+        collator.setStrength(Collator.SECONDARY);
+        CollationKey[] keys = new CollationKey[catalog.size()];
+        Integer[] order = new Integer[catalog.size()];
+        for (int ordinal = 0; ordinal < keys.length; ordinal++) {
+            String title = catalog.gameAt(ordinal).getTitle();
+            keys[ordinal] = collator.getCollationKey(title != null ? title : "");
+            order[ordinal] = ordinal;
+        }
+        Arrays.sort(order, Comparator.<Integer, CollationKey>comparing(ordinal -> keys[ordinal])
+                .thenComparing(Comparator.naturalOrder()));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the number of games in the catalog
+     */
+    public int size() {
+        return titleOrder().ordinals().length;
+    }
+
+    /**
+     * Games {@code [offset, offset + count)} of the title order, for virtual
+     * scrolling. Offsets past the end give an empty list.
+     */
+    public List<Game> getRange(int offset, int count) {
+        TitleOrder order = titleOrder();
+        return slice(order, offset, count);
+    }
+
+    /**
+     * Same as {@link #getRange}, together with the number of games in the
+     * catalog version the window was cut from.
+     */
+    public BrowseWindow getWindow(int offset, int count) {
+        TitleOrder order = titleOrder();
+        return new BrowseWindow(slice(order, offset, count), Math.max(0, offset), order.ordinals().length);
+    }
+
+    /**
+     * @param page Zero-based page number; pages past the end show the last page
+     */
+    public BrowsePage getPage(int page) {
+        TitleOrder order = titleOrder();
+        int totalGames = order.ordinals().length;
+        int totalPages = Math.max(1, (totalGames + pageSize - 1) / pageSize);
+        int clamped = Math.min(Math.max(page, 0), totalPages - 1);
+        return new BrowsePage(slice(order, clamped * pageSize, pageSize), clamped, pageSize, totalGames,
+                totalPages);
+    }
+
+    private static List<Game> slice(TitleOrder order, int offset, int count) {
+        int[] ordinals = order.ordinals();
+        int from = Math.max(0, offset);
+        int to = (int) Math.min(ordinals.length, (long) from + Math.max(0, Math.min(count, MAX_PAGE_SIZE)));
+        List<Game> games = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            games.add(order.catalog().gameAt(ordinals[i]));
+        }
+        return games;
+    }
+}
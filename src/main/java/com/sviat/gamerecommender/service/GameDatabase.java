@@ -1,52 +1,156 @@
 package com.sviat.gamerecommender.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.sviat.gamerecommender.model.Game;
 
+/**
+ * The game catalog. Changes and the catalog version bump happen under the
+ * same monitor as {@link #getCatalogIndex()}, so an index or a copy of the
+ * games is never taken from a list that is half-way through a change.
+ * Listeners are called after the change, outside the monitor.
+ */
 public class GameDatabase {
     private List<Game> games;
     private final JsonService jsonService;
+    // Bumped on every catalog change; snapshots are rebuilt lazily per version
+    private volatile long catalogVersion;
+    private CatalogIndex catalogIndex;
+    // Stable int keys for game ids; never reused, unlike catalog ordinals
+    private final Map<String, Integer> gameKeys = new HashMap<>();
+    private final List<String> gameIdsByKey = new ArrayList<>();
+    private final List<Consumer<Game>> listeners = new CopyOnWriteArrayList<>();
 
     public GameDatabase(JsonService jsonService) {
         this.games = new ArrayList<>();
         this.jsonService = jsonService;
     }
-    
+
     // Data loading and saving
     public void loadGamesFromFile(String filePath) {
-        games = jsonService.loadFromFile(filePath, new TypeReference<List<Game>>() {});
+        List<Game> loaded = jsonService.loadFromFile(filePath, new TypeReference<List<Game>>() {});
+        synchronized (this) {
+            games = loaded;
+            catalogVersion++;
+        }
     }
 
-    public void saveGamesToFile(String filePath) {
+    public synchronized void saveGamesToFile(String filePath) {
         jsonService.saveToFile(filePath, games);
     }
 
     // CRUD operations
     public void addGame(Game game) {
-        games.add(game);
+        synchronized (this) {
+            games.add(game);
+            catalogVersion++;
+        }
+        notifyListeners(game);
     }
 
     public void updateGame(Game game) {
-        int index = games.indexOf(game);
-        if (index != -1) {
+        synchronized (this) {
+            int index = games.indexOf(game);
+            if (index == -1) {
+                return;
+            }
             games.set(index, game);
+            catalogVersion++;
         }
+        notifyListeners(game);
     }
 
-    public void deleteGame(Game game) {
-        games.remove(game);
+    public synchronized void deleteGame(Game game) {
+        if (games.remove(game)) {
+            catalogVersion++;
+        }
     }
 
+    /**
+     * Registers a listener called with every added or updated game, on the
+     * thread that made the change. Loading a file does not call it.
+     */
+    public void addListener(Consumer<Game> listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(Game game) {
+        for (Consumer<Game> listener : listeners) {
+            listener.accept(game);
+        }
+    }
+
+    /**
+     * @return the live list of games; use {@link #copyOfGames()} where games
+     *         may change while it is read
+     */
     public List<Game> getAllGames() {
         return games;
     }
 
-    public Game findGameById(String gameId) {
+    /**
+     * @return a copy of the games, taken while no change is in progress
+     */
+    public synchronized List<Game> copyOfGames() {
+        return new ArrayList<>(games);
+    }
+
+    public synchronized Game findGameById(String gameId) {
         return games.stream()
                 .filter(game -> game.getId().equals(gameId))
                 .findFirst()
                 .orElse(null);
     }
-}
\ No newline at end of file
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Returns the columnar index for the current catalog version, building it
+     * on first use after a change.
+     */
+    public synchronized CatalogIndex getCatalogIndex() {
+        long version = catalogVersion;
+        if (catalogIndex == null || catalogIndex.getVersion() != version) {
+            catalogIndex = CatalogIndex.build(version, games);
+        }
+        return catalogIndex;
+    }
+
+    /**
+     * Returns the stable key of a game id, assigning the next free key on first
+     * use. Keys survive catalog changes, so models built from user data can be
+     * indexed by them.
+     */
+    public synchronized int gameKey(String gameId) {
+        Integer key = gameKeys.get(gameId);
+        if (key == null) {
+            key = gameIdsByKey.size();
+            gameKeys.put(gameId, key);
+            gameIdsByKey.add(gameId);
+        }
+        return key;
+    }
+
+    /**
+     * @return the stable key of the game id, or -1 if none was assigned
+     */
+    public synchronized int findGameKey(String gameId) {
+        Integer key = gameKeys.get(gameId);
+        return key != null ? key : -1;
+    }
+
+    public synchronized String gameIdForKey(int key) {
+        return gameIdsByKey.get(key);
+    }
+
+    public synchronized int gameKeyCount() {
+        return gameIdsByKey.size();
+    }
+}
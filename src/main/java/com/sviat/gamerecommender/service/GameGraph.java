@@ -0,0 +1,141 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Immutable bipartite graph between the games of one catalog version and
+ * the things they are linked by: developers, publishers, tags and the users
+ * who played or own them.
+ *
+ * Games are nodes {@code 0..gameCount-1}, numbered by catalog ordinal; the
+ * other nodes follow. Adjacency is stored in CSR form: the neighbours of node
+ * {@code n} are {@code adjacency[offsets[n] .. offsets[n + 1])}. Every edge
+ * joins a game to a non-game node, so walks alternate between the two sides.
+ * Genres are left out on purpose; the graph is meant to link games across
+ * them.
+ */
+public final class GameGraph {
+    private final CatalogIndex catalog;
+    private final long userVersion;
+    private final int gameCount;
+    private final int[] offsets;
+    private final int[] adjacency;
+
+    private GameGraph(CatalogIndex catalog, long userVersion, int[] offsets, int[] adjacency) {
+        this.catalog = catalog;
+        this.userVersion = userVersion;
+        this.gameCount = catalog.size();
+        this.offsets = offsets;
+        this.adjacency = adjacency;
+    }
+
+    /**
+     * Builds the graph of a catalog version and the current user interactions.
+     */
+    public static GameGraph build(CatalogIndex catalog, GameDatabase gameDatabase, UserDatabase userDatabase) {
+        long userVersion = userDatabase.getVersion();
+        int gameCount = catalog.size();
+        Map<String, Integer> nodes = new HashMap<>();
+        // Edges as (game, other node) pairs, two ints per edge
+        int[] edges = new int[64];
+        int edgeInts = 0;
+        for (int ordinal = 0; ordinal < gameCount; ordinal++) {
+            Game game = catalog.gameAt(ordinal);
+            List<String> links = new ArrayList<>();
+            if (game.getDeveloper() != null) {
+                links.add("developer:" + game.getDeveloper());
+            }
+            if (game.getPublisher() != null) {
+                links.add("publisher:" + game.getPublisher());
+            }
+            for (String tag : catalog.tagsAt(ordinal)) {
+                links.add("tag:" + tag);
+            }
+            for (String link : links) {
+                edges = ensureCapacity(edges, edgeInts + 2);
+                edges[edgeInts++] = ordinal;
+                edges[edgeInts++] = node(nodes, link, gameCount);
+            }
+        }
+
+        UserInteractionStore interactions = userDatabase.getInteractionStore();
+        for (String userId : interactions.userIds()) {
+            int userNode = -1;
+            for (int key : interactions.gameKeysWithAny(userId,
+                    UserInteractionStore.PLAYED | UserInteractionStore.OWNED)) {
+                int ordinal = catalog.ordinalOf(gameDatabase.gameIdForKey(key));
+                if (ordinal >= 0) {
+                    if (userNode < 0) {
+                        userNode = node(nodes, "user:" + userId, gameCount);
+                    }
+                    edges = ensureCapacity(edges, edgeInts + 2);
+                    edges[edgeInts++] = ordinal;
+                    edges[edgeInts++] = userNode;
+                }
+            }
+        }
+
+        int nodeCount = gameCount + nodes.size();
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeInts; i++) {
+            offsets[edges[i] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] adjacency = new int[offsets[nodeCount]];
+        int[] fill = new int[nodeCount];
+        for (int i = 0; i < edgeInts; i += 2) {
+            int game = edges[i];
+            int other = edges[i + 1];
+            adjacency[offsets[game] + fill[game]++] = other;
+            adjacency[offsets[other] + fill[other]++] = game;
+        }
+        return new GameGraph(catalog, userVersion, offsets, adjacency);
+    }
+
+    private static int[] ensureCapacity(int[] array, int length) {
+        return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+    private static int node(Map<String, Integer> nodes, String name, int gameCount) {
+        return nodes.computeIfAbsent(name, n -> gameCount + nodes.size());
+    }
+
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+
+    public long getUserVersion() {
+        return userVersion;
+    }
+
+    public int gameCount() {
+        return gameCount;
+    }
+
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int edgeCount() {
+        return adjacency.length / 2;
+    }
+
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * @return the {@code i}-th neighbour of the node
+     */
+    public int neighbour(int node, int i) {
+        return adjacency[offsets[node] + i];
+    }
+}
@@ -0,0 +1,90 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.PriorityQueue;
+
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * Search over a hierarchical navigable small world graph of unit vectors,
+ * shared by the in-memory graph under construction and the stored index.
+ *
+ * Similarity is the dot product, which for unit vectors is the cosine. A
+ * search descends greedily from the entry point through the upper levels,
+ * then runs a beam search of width {@code ef} on level 0.
+ */
+abstract class HnswGraph {
+
+    abstract int size();
+
+    abstract int dimension();
+
+    abstract int entryPoint();
+
+    abstract int maxLevel();
+
+    abstract int degree(int node, int level);
+
+    abstract int neighbour(int node, int level, int i);
+
+    abstract float similarity(float[] query, int node);
+
+    private record Candidate(int node, float similarity) {
+    }
+
+    /**
+     * @return the {@code k} nodes most similar to the query, found with a
+     *         beam of width {@code max(ef, k)}
+     */
+    TopKHeap search(float[] query, int k, int ef) {
+        if (size() == 0 || k <= 0) {
+            return new TopKHeap(0);
+        }
+        int entry = entryPoint();
+        for (int level = maxLevel(); level > 0; level--) {
+            entry = searchLayer(query, entry, 1, level).drainOrdinals()[0];
+        }
+        TopKHeap beam = searchLayer(query, entry, Math.max(ef, k), 0);
+        TopKHeap top = new TopKHeap(k);
+        int[] nodes = new int[beam.size()];
+        double[] similarities = new double[beam.size()];
+        int count = beam.drainInto(nodes, similarities);
+        for (int i = 0; i < count; i++) {
+            top.offer(nodes[i], similarities[i]);
+        }
+        return top;
+    }
+
+    /**
+     * Beam search on one level from a single entry node. The visited set grows
+     * with the nodes the beam reaches, not with the size of the graph.
+     */
+    TopKHeap searchLayer(float[] query, int entry, int ef, int level) {
+        IntIntHashMap visited = new IntIntHashMap(ef);
+        // Best candidate first
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+                (a, b) -> Float.compare(b.similarity(), a.similarity()));
+        TopKHeap results = new TopKHeap(ef);
+
+        float entrySimilarity = similarity(query, entry);
+        visited.put(entry, 1, 0);
+        candidates.add(new Candidate(entry, entrySimilarity));
+        results.offer(entry, entrySimilarity);
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.isFull() && closest.similarity() < results.minScore()) {
+                break;
+            }
+            for (int i = 0; i < degree(closest.node(), level); i++) {
+                int node = neighbour(closest.node(), level, i);
+                if (visited.put(node, 1, 0) != 0) {
+                    continue;
+                }
+                float nodeSimilarity = similarity(query, node);
+                if (results.offer(node, nodeSimilarity)) {
+                    candidates.add(new Candidate(node, nodeSimilarity));
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,419 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate nearest-neighbour index over unit vectors (HNSW).
+ *
+ * Every node links to up to {@code 2m} neighbours on level 0 and {@code m}
+ * on each higher level it reaches; a node reaches level {@code l} with
+ * probability {@code m^-l}. The built index lives in one buffer with the
+ * same layout as its file:
+ *
+ * <pre>
+ * header  magic, format, count, dimension, m, entry point, max level, link ints,
+ *         fingerprint (long)
+ * levels  int per node: the highest level of the node
+ * offsets int per node: where the node's link lists start
+ * links   per node and level: a count, then 2m (level 0) or m slots
+ * vectors count * dimension floats
+ * ids     per node: byte length and UTF-8 bytes
+ * </pre>
+ *
+ * so {@link #open} maps a saved index and searches it in place, without
+ * reading it onto the heap. Indexes are limited to 2 GB, the size of one
+ * mapping. {@link #exactSearch} scans every vector, for checking recall.
+ */
+public final class HnswIndex extends HnswGraph {
+    private static final int MAGIC = 0x484e5357;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    // Levels above this are vanishingly rare and only waste link slots
+    private static final int MAX_LEVEL = 16;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int dimension;
+    private final int m;
+    private final int entryPoint;
+    private final int maxLevel;
+    private final long fingerprint;
+    private final IntBuffer levels;
+    private final IntBuffer linkOffsets;
+    private final IntBuffer links;
+    private final FloatBuffer vectors;
+    private final String[] ids;
+    private final Map<String, Integer> nodesById = new HashMap<>();
+
+    private HnswIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not an HNSW index of format " + FORMAT_VERSION);
+        }
+        this.count = buffer.getInt(8);
+        this.dimension = buffer.getInt(12);
+        this.m = buffer.getInt(16);
+        this.entryPoint = buffer.getInt(20);
+        this.maxLevel = buffer.getInt(24);
+        int linkInts = buffer.getInt(28);
+        this.fingerprint = buffer.getLong(32);
+
+        int position = HEADER_BYTES;
+        this.levels = buffer.slice(position, count * 4).asIntBuffer();
+        position += count * 4;
+        this.linkOffsets = buffer.slice(position, count * 4).asIntBuffer();
+        position += count * 4;
+        this.links = buffer.slice(position, linkInts * 4).asIntBuffer();
+        position += linkInts * 4;
+        this.vectors = buffer.slice(position, count * dimension * 4).asFloatBuffer();
+        position += count * dimension * 4;
+
+        this.ids = new String[count];
+        for (int node = 0; node < count; node++) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            buffer.get(position + 4, bytes);
+            position += 4 + length;
+            ids[node] = new String(bytes, StandardCharsets.UTF_8);
+            nodesById.put(ids[node], node);
+        }
+    }
+
+    /**
+     * Builds an index over unit vectors. The same inputs and seed always give
+     * the same index.
+     *
+     * @param ids            Id of each vector, unique
+     * @param vectors        Unit vectors, all of the same dimension
+     * @param m              Links per node and level, doubled on level 0
+     * @param efConstruction Beam width used to find the links of a new node
+     * @param fingerprint    Stored with the index, for callers to tell which
+     *                       data it was built from
+     */
+    public static HnswIndex build(List<String> ids, List<float[]> vectors, int m, int efConstruction, long seed,
+            long fingerprint) {
+        if (ids.size() != vectors.size() || m < 2 || efConstruction <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid HNSW parameters: ids=%d, vectors=%d, m=%d, efConstruction=%d",
+                    ids.size(), vectors.size(), m, efConstruction));
+        }
+        int dimension = vectors.isEmpty() ? 0 : vectors.get(0).length;
+        Builder builder = new Builder(vectors, dimension, m);
+        SplittableRandom random = new SplittableRandom(seed);
+        double levelMultiplier = 1 / Math.log(m);
+        for (int node = 0; node < vectors.size(); node++) {
+            if (vectors.get(node).length != dimension) {
+                throw new IllegalArgumentException("Vector " + node + " has dimension "
+                        + vectors.get(node).length + " instead of " + dimension);
+            }
+            int level = (int) Math.min(MAX_LEVEL, -Math.log(1 - random.nextDouble()) * levelMultiplier);
+            builder.insert(node, level, efConstruction);
+        }
+        try {
+            return new HnswIndex(builder.serialize(ids, fingerprint));
+        } catch (IOException e) {
+            throw new IllegalStateException("Built an unreadable index", e);
+        }
+    }
+
+    /**
+     * Maps a saved index read-only.
+     */
+    public static HnswIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("HNSW index too large to map: " + file);
+            }
+            return new HnswIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the index to a file, replacing it atomically.
+     */
+    public void save(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = buffer.duplicate().clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    public int m() {
+        return m;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    int maxLevel() {
+        return maxLevel;
+    }
+
+    public String idOf(int node) {
+        return ids[node];
+    }
+
+    /**
+     * @return the node of the id, or -1 if it is not indexed
+     */
+    public int nodeOf(String id) {
+        Integer node = nodesById.get(id);
+        return node != null ? node : -1;
+    }
+
+    public float[] vectorOf(int node) {
+        float[] vector = new float[dimension];
+        vectors.get(node * dimension, vector);
+        return vector;
+    }
+
+    private int linkBase(int node, int level) {
+        return linkOffsets.get(node) + (level == 0 ? 0 : 2 * m + 1 + (level - 1) * (m + 1));
+    }
+
+    @Override
+    int degree(int node, int level) {
+        return level <= levels.get(node) ? links.get(linkBase(node, level)) : 0;
+    }
+
+    @Override
+    int neighbour(int node, int level, int i) {
+        return links.get(linkBase(node, level) + 1 + i);
+    }
+
+    @Override
+    float similarity(float[] query, int node) {
+        int base = node * dimension;
+        float dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * vectors.get(base + i);
+        }
+        return dot;
+    }
+
+    /**
+     * @return the {@code k} nodes most similar to the query, approximately,
+     *         searching with a beam of width {@code ef}
+     */
+    public TopKHeap search(float[] query, int k, int ef) {
+        return super.search(query, k, ef);
+    }
+
+    /**
+     * @return the {@code k} nodes most similar to the query, by comparing it
+     *         with every vector
+     */
+    public TopKHeap exactSearch(float[] query, int k) {
+        TopKHeap heap = new TopKHeap(Math.max(0, k));
+        for (int node = 0; node < count; node++) {
+            heap.offer(node, similarity(query, node));
+        }
+        return heap;
+    }
+
+    /**
+     * The graph under construction, with links in per-node arrays.
+     */
+    private static final class Builder extends HnswGraph {
+        private final List<float[]> vectors;
+        private final int dimension;
+        private final int m;
+        // links[node][level][0] is the link count, followed by the links
+        private final int[][][] links;
+        private int entryPoint = -1;
+        private int maxLevel = -1;
+
+        Builder(List<float[]> vectors, int dimension, int m) {
+            this.vectors = vectors;
+            this.dimension = dimension;
+            this.m = m;
+            this.links = new int[vectors.size()][][];
+        }
+
+        void insert(int node, int level, int efConstruction) {
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[capacity(l) + 1];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            float[] vector = vectors.get(node);
+            int entry = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                entry = searchLayer(vector, entry, 1, l).drainOrdinals()[0];
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                TopKHeap found = searchLayer(vector, entry, efConstruction, l);
+                int[] nearest = found.drainOrdinals();
+                entry = nearest[0];
+                int linkCount = Math.min(capacity(l), nearest.length);
+                links[node][l][0] = linkCount;
+                System.arraycopy(nearest, 0, links[node][l], 1, linkCount);
+                for (int i = 0; i < linkCount; i++) {
+                    link(nearest[i], node, l);
+                }
+            }
+            if (level > maxLevel) {
+                entryPoint = node;
+                maxLevel = level;
+            }
+        }
+
+        private int capacity(int level) {
+            return level == 0 ? 2 * m : m;
+        }
+
+        /**
+         * Adds a back link, keeping the most similar links when the list is full.
+         */
+        private void link(int from, int to, int level) {
+            int[] list = links[from][level];
+            int linkCount = list[0];
+            if (linkCount < list.length - 1) {
+                list[1 + linkCount] = to;
+                list[0] = linkCount + 1;
+                return;
+            }
+            float[] vector = vectors.get(from);
+            TopKHeap kept = new TopKHeap(linkCount);
+            for (int i = 1; i <= linkCount; i++) {
+                kept.offer(list[i], similarity(vector, list[i]));
+            }
+            kept.offer(to, similarity(vector, to));
+            int[] best = kept.drainOrdinals();
+            System.arraycopy(best, 0, list, 1, best.length);
+        }
+
+        @Override
+        int size() {
+            return vectors.size();
+        }
+
+        @Override
+        int dimension() {
+            return dimension;
+        }
+
+        @Override
+        int entryPoint() {
+            return entryPoint;
+        }
+
+        @Override
+        int maxLevel() {
+            return maxLevel;
+        }
+
+        @Override
+        int degree(int node, int level) {
+            return level < links[node].length ? links[node][level][0] : 0;
+        }
+
+        @Override
+        int neighbour(int node, int level, int i) {
+            return links[node][level][1 + i];
+        }
+
+        @Override
+        float similarity(float[] query, int node) {
+            float[] vector = vectors.get(node);
+            float dot = 0;
+            for (int i = 0; i < dimension; i++) {
+                dot += query[i] * vector[i];
+            }
+            return dot;
+        }
+
+        ByteBuffer serialize(List<String> ids, long fingerprint) {
+            int count = vectors.size();
+            int[] offsets = new int[count];
+            int linkInts = 0;
+            for (int node = 0; node < count; node++) {
+                offsets[node] = linkInts;
+                for (int[] list : links[node]) {
+                    linkInts += list.length;
+                }
+            }
+            byte[][] idBytes = new byte[count][];
+            long idLength = 0;
+            for (int node = 0; node < count; node++) {
+                idBytes[node] = ids.get(node).getBytes(StandardCharsets.UTF_8);
+                idLength += 4 + idBytes[node].length;
+            }
+            long length = HEADER_BYTES + 4L * (2L * count + linkInts + (long) count * dimension) + idLength;
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("HNSW index would exceed 2 GB: " + length + " bytes");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(dimension).putInt(m)
+                    .putInt(Math.max(entryPoint, 0)).putInt(Math.max(maxLevel, 0)).putInt(linkInts).putLong(fingerprint);
+            for (int node = 0; node < count; node++) {
+                buffer.putInt(links[node].length - 1);
+            }
+            for (int offset : offsets) {
+                buffer.putInt(offset);
+            }
+            for (int node = 0; node < count; node++) {
+                for (int[] list : links[node]) {
+                    for (int value : list) {
+                        buffer.putInt(value);
+                    }
+                }
+            }
+            for (float[] vector : vectors) {
+                for (float value : vector) {
+                    buffer.putFloat(value);
+                }
+            }
+            for (byte[] bytes : idBytes) {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            return buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+
+/**
+ * Sparse user x game matrix of interaction strengths (e.g. playtime hours) in
+ * CSR form: the entries of row {@code r} are
+ * {@code [rowStart(r), rowEnd(r))}, with ascending column indices.
+ */
+public final class InteractionMatrix {
+    private final int rows;
+    private final int columns;
+    private final int[] offsets;
+    private final int[] indices;
+    private final float[] values;
+
+    private InteractionMatrix(int rows, int columns, int[] offsets, int[] indices, float[] values) {
+        this.rows = rows;
+        this.columns = columns;
+        this.offsets = offsets;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Builds a matrix from (row, column, value) triples. Triples may come in any
+     * order; values of repeated cells are summed.
+     */
+    public static InteractionMatrix fromTriples(int rows, int columns, int[] rowIndices, int[] columnIndices,
+            float[] cellValues, int count) {
+        int[] offsets = new int[rows + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[rowIndices[i] + 1]++;
+        }
+        for (int row = 0; row < rows; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        int[] indices = new int[count];
+        float[] values = new float[count];
+        int[] fill = Arrays.copyOf(offsets, rows);
+        for (int i = 0; i < count; i++) {
+            int position = fill[rowIndices[i]]++;
+            indices[position] = columnIndices[i];
+            values[position] = cellValues[i];
+        }
+
+        // Sort each row by column and merge repeated cells in place
+        int[] merged = new int[rows + 1];
+        int write = 0;
+        for (int row = 0; row < rows; row++) {
+            int start = offsets[row];
+            int end = offsets[row + 1];
+            sortRow(indices, values, start, end);
+            merged[row] = write;
+            for (int i = start; i < end; i++) {
+                if (write > merged[row] && indices[write - 1] == indices[i]) {
+                    values[write - 1] += values[i];
+                } else {
+                    indices[write] = indices[i];
+                    values[write] = values[i];
+                    write++;
+                }
+            }
+        }
+        merged[rows] = write;
+        return new InteractionMatrix(rows, columns, merged,
+                Arrays.copyOf(indices, write), Arrays.copyOf(values, write));
+    }
+
+    private static void sortRow(int[] indices, float[] values, int start, int end) {
+        // Rows are short, insertion sort keeps values paired with their columns
+        for (int i = start + 1; i < end; i++) {
+            int index = indices[i];
+            float value = values[i];
+            int j = i - 1;
+            while (j >= start && indices[j] > index) {
+                indices[j + 1] = indices[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            indices[j + 1] = index;
+            values[j + 1] = value;
+        }
+    }
+
+    /**
+     * @return the game x user view of the same interactions
+     */
+    public InteractionMatrix transpose() {
+        int[] counts = new int[columns + 1];
+        for (int i = 0; i < indices.length; i++) {
+            counts[indices[i] + 1]++;
+        }
+        for (int column = 0; column < columns; column++) {
+            counts[column + 1] += counts[column];
+        }
+        int[] transposedIndices = new int[indices.length];
+        float[] transposedValues = new float[values.length];
+        int[] fill = Arrays.copyOf(counts, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                int position = fill[indices[i]]++;
+                transposedIndices[position] = row;
+                transposedValues[position] = values[i];
+            }
+        }
+        return new InteractionMatrix(columns, rows, counts, transposedIndices, transposedValues);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    public int nonZeros() {
+        return indices.length;
+    }
+
+    public int rowStart(int row) {
+        return offsets[row];
+    }
+
+    public int rowEnd(int row) {
+        return offsets[row + 1];
+    }
+
+    public int indexAt(int entry) {
+        return indices[entry];
+    }
+
+    public float valueAt(int entry) {
+        return values[entry];
+    }
+}
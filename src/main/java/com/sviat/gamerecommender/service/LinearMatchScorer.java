@@ -0,0 +1,40 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Proportional match scoring without a perfect-match bonus: each criteria
+ * group contributes {@code weight * maxGroupScore * matchRatio}. Useful as an
+ * experiment arm against {@link WeightedMatchScorer}.
+ */
+public final class LinearMatchScorer implements MatchScorer {
+    private final String name;
+    private final int maxGroupScore;
+    private final double genreWeight;
+    private final double tagWeight;
+
+    public LinearMatchScorer(String name, int maxGroupScore, double genreWeight, double tagWeight) {
+        if (maxGroupScore < 0 || genreWeight < 0 || tagWeight < 0) {
+            throw new IllegalArgumentException("Scorer '" + name + "' needs non-negative weights");
+        }
+        this.name = name;
+        this.maxGroupScore = maxGroupScore;
+        this.genreWeight = genreWeight;
+        this.tagWeight = tagWeight;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int score(int genreMatches, int genreCount, int tagMatches, int tagCount) {
+        double score = 0.0;
+        if (genreCount > 0) {
+            score += genreWeight * maxGroupScore * genreMatches / genreCount;
+        }
+        if (tagCount > 0) {
+            score += tagWeight * maxGroupScore * tagMatches / tagCount;
+        }
+        return (int) Math.round(score);
+    }
+}
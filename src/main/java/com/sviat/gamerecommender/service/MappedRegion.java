@@ -0,0 +1,119 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A file mapped into memory as a list of fixed-size chunks, addressed with
+ * {@code long} offsets so it can grow past the 2 GB limit of one
+ * {@link MappedByteBuffer}. Chunks are mapped on first access; writing past
+ * the end of the file extends it.
+ *
+ * Ints and longs must be aligned to their size so they never straddle a
+ * chunk; byte ranges may. Not thread-safe.
+ */
+final class MappedRegion implements Closeable {
+    private final FileChannel channel;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * @param chunkSize Bytes per mapping, a power of two of at least 64
+     */
+    MappedRegion(Path file, int chunkSize) throws IOException {
+        if (Integer.bitCount(chunkSize) != 1 || chunkSize < 64) {
+            throw new IllegalArgumentException("Chunk size must be a power of two of at least 64: " + chunkSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+    }
+
+    private MappedByteBuffer chunk(long offset) {
+        int index = (int) (offset >>> chunkShift);
+        while (chunks.size() <= index) {
+            chunks.add(null);
+        }
+        MappedByteBuffer chunk = chunks.get(index);
+        if (chunk == null) {
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, (long) index << chunkShift, chunkMask + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error mapping chunk " + index, e);
+            }
+            chunks.set(index, chunk);
+        }
+        return chunk;
+    }
+
+    int getInt(long offset) {
+        return chunk(offset).getInt((int) (offset & chunkMask));
+    }
+
+    void putInt(long offset, int value) {
+        chunk(offset).putInt((int) (offset & chunkMask), value);
+    }
+
+    long getLong(long offset) {
+        return chunk(offset).getLong((int) (offset & chunkMask));
+    }
+
+    void putLong(long offset, long value) {
+        chunk(offset).putLong((int) (offset & chunkMask), value);
+    }
+
+    double getDouble(long offset) {
+        return chunk(offset).getDouble((int) (offset & chunkMask));
+    }
+
+    void putDouble(long offset, double value) {
+        chunk(offset).putDouble((int) (offset & chunkMask), value);
+    }
+
+    void getBytes(long offset, byte[] bytes) {
+        int done = 0;
+        while (done < bytes.length) {
+            long position = offset + done;
+            int inChunk = (int) Math.min(bytes.length - done, chunkMask + 1 - (position & chunkMask));
+            chunk(position).get((int) (position & chunkMask), bytes, done, inChunk);
+            done += inChunk;
+        }
+    }
+
+    void putBytes(long offset, byte[] bytes) {
+        int done = 0;
+        while (done < bytes.length) {
+            long position = offset + done;
+            int inChunk = (int) Math.min(bytes.length - done, chunkMask + 1 - (position & chunkMask));
+            chunk(position).put((int) (position & chunkMask), bytes, done, inChunk);
+            done += inChunk;
+        }
+    }
+
+    /**
+     * Writes every mapped chunk back to the file.
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                chunk.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,675 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * User profiles kept off-heap in memory-mapped files, so millions of users
+ * cost the heap little more than their ids and reopening the store only scans
+ * the record headers and strings.
+ *
+ * A directory holds three files:
+ * <ul>
+ * <li>{@code profiles.bin}: a header, then one fixed 64-byte record per user
+ * with the scalar fields and the position of the user's lists</li>
+ * <li>{@code lists.bin}: per user, the games as (string ref, packed flags and
+ * playtime) pairs, then the favourite genre and preferred platform string
+ * refs</li>
+ * <li>{@code strings.bin}: length-prefixed UTF-8 user ids, game ids, genres
+ * and platforms, referenced by their position divided by four</li>
+ * </ul>
+ * The heap holds the user id to record map and the dictionary of game ids,
+ * genres and platforms, which users share; everything else is read from the
+ * mapped files on each call. Games are flagged like in
+ * {@link UserInteractionStore}. Username and email are not stored.
+ * <p>
+ * An update rewrites the user's lists in place when they still fit and
+ * appends them otherwise, abandoning the old slot. A deleted record keeps its
+ * slot for the next user that reuses the record, but its user id string is
+ * abandoned, as are strings no longer referenced. Between compactions the
+ * files therefore grow with every update that does not fit. The abandoned
+ * bytes are counted in {@link #wastedBytes()}, and {@link #compact()}, which
+ * writes call once they are more than half of the data, slides the live lists
+ * and strings down over them. The files keep their largest size; compaction
+ * only makes the space below it reusable.
+ * <p>
+ * Writes are not crash-safe. Changes go to the mapped pages, which the
+ * operating system writes back in any order until {@link #flush()} forces
+ * them, and {@link #put} rewrites a live record's fields and, when they fit,
+ * its lists in place. A crash mid-write or mid-compaction can therefore leave
+ * a torn record or a live record pointing at half-rewritten lists; treat the
+ * files as a cache that is rebuilt from the source of the profiles after a
+ * crash.
+ */
+public final class MappedUserStore implements Closeable {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+    /** Wasted bytes below which writes never compact the store. */
+    static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    private static final int MAGIC = 0x55505232; // "UPR2"
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 64;
+    private static final int NO_PRICE = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    // Set in the length prefix of user id strings, which are not in the dictionary
+    private static final int USER_ID_STRING = 1 << 31;
+
+    // Header fields of profiles.bin
+    private static final long HEADER_MAGIC = 0;
+    private static final long HEADER_RECORDS = 4;
+    private static final long HEADER_LISTS_END = 8;
+    private static final long HEADER_STRINGS_END = 16;
+    private static final long HEADER_WASTED_LIST_BYTES = 24;
+    private static final long HEADER_WASTED_STRING_BYTES = 32;
+
+    // Record fields, relative to the start of a record
+    private static final int LIVE = 0;
+    private static final int USER_ID = 4;
+    private static final int LIST_OFFSET = 8;
+    private static final int GAME_COUNT = 16;
+    private static final int GENRE_COUNT = 20;
+    private static final int PLATFORM_COUNT = 24;
+    private static final int LIST_CAPACITY = 28;
+    private static final int MAX_PRICE_CENTS = 32;
+    private static final int TOTAL_GAMES_PLAYED = 36;
+    private static final int LAST_ACTIVE_DAY = 40;
+    private static final int AVERAGE_PLAYTIME = 48;
+
+    // Values of LIVE
+    private static final int DELETED = 0;
+    private static final int PROFILE = 1;
+    // Only known from streamed plays; has games but no profile
+    private static final int PLAYS_ONLY = 2;
+
+    private final MappedRegion profiles;
+    private final MappedRegion lists;
+    private final MappedRegion strings;
+    private final Map<String, Integer> recordsByUser = new HashMap<>();
+    private final Deque<Integer> freeRecords = new ArrayDeque<>();
+    // Refs of the game ids, genres and platforms stored so far
+    private final Map<String, Integer> sharedRefs = new HashMap<>();
+    // Game key of each game id ref looked up so far
+    private final IntIntHashMap gameKeysByRef = new IntIntHashMap();
+    private ToIntFunction<String> gameKeys;
+    private int recordCount;
+    private long listsEnd;
+    private long stringsEnd;
+    private long wastedListBytes;
+    private long wastedStringBytes;
+
+    private MappedUserStore(Path directory, int chunkSize) throws IOException {
+        Files.createDirectories(directory);
+        boolean exists = Files.exists(directory.resolve("profiles.bin"));
+        this.profiles = new MappedRegion(directory.resolve("profiles.bin"), chunkSize);
+        this.lists = new MappedRegion(directory.resolve("lists.bin"), chunkSize);
+        this.strings = new MappedRegion(directory.resolve("strings.bin"), chunkSize);
+        if (!exists) {
+            profiles.putInt(HEADER_MAGIC, MAGIC);
+            writeHeader();
+            return;
+        }
+        if (profiles.getInt(HEADER_MAGIC) != MAGIC) {
+            close();
+            throw new IOException("Not a user profile store: " + directory);
+        }
+        recordCount = profiles.getInt(HEADER_RECORDS);
+        listsEnd = profiles.getLong(HEADER_LISTS_END);
+        stringsEnd = profiles.getLong(HEADER_STRINGS_END);
+        wastedListBytes = profiles.getLong(HEADER_WASTED_LIST_BYTES);
+        wastedStringBytes = profiles.getLong(HEADER_WASTED_STRING_BYTES);
+        loadSharedStrings();
+        for (int record = 0; record < recordCount; record++) {
+            long base = recordOffset(record);
+            if (profiles.getInt(base + LIVE) != DELETED) {
+                recordsByUser.put(readString(profiles.getInt(base + USER_ID)), record);
+            } else {
+                freeRecords.add(record);
+            }
+        }
+    }
+
+    /**
+     * Opens the store in the directory, creating it if it does not exist.
+     */
+    public static MappedUserStore open(Path directory) throws IOException {
+        return new MappedUserStore(directory, DEFAULT_CHUNK_SIZE);
+    }
+
+    static MappedUserStore open(Path directory, int chunkSize) throws IOException {
+        return new MappedUserStore(directory, chunkSize);
+    }
+
+    private void loadSharedStrings() {
+        long offset = 0;
+        while (offset < stringsEnd) {
+            int prefix = strings.getInt(offset);
+            if ((prefix & USER_ID_STRING) == 0) {
+                sharedRefs.put(readString(refOf(offset)), refOf(offset));
+            }
+            offset += stringBytes(prefix & ~USER_ID_STRING);
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 3) & ~3L;
+    }
+
+    private static long stringBytes(int length) {
+        return align(4L + length);
+    }
+
+    private static int refOf(long stringOffset) {
+        return (int) (stringOffset >>> 2);
+    }
+
+    private static long offsetOf(int ref) {
+        return (long) ref << 2;
+    }
+
+    private static long recordOffset(int record) {
+        return HEADER_BYTES + (long) record * RECORD_BYTES;
+    }
+
+    private void writeHeader() {
+        profiles.putInt(HEADER_RECORDS, recordCount);
+        profiles.putLong(HEADER_LISTS_END, listsEnd);
+        profiles.putLong(HEADER_STRINGS_END, stringsEnd);
+        profiles.putLong(HEADER_WASTED_LIST_BYTES, wastedListBytes);
+        profiles.putLong(HEADER_WASTED_STRING_BYTES, wastedStringBytes);
+    }
+
+    private String readString(int ref) {
+        long offset = offsetOf(ref);
+        byte[] bytes = new byte[strings.getInt(offset) & ~USER_ID_STRING];
+        strings.getBytes(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int appendString(String value, int flags) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.putInt(stringsEnd, bytes.length | flags);
+        strings.putBytes(stringsEnd + 4, bytes);
+        int ref = refOf(stringsEnd);
+        stringsEnd += stringBytes(bytes.length);
+        return ref;
+    }
+
+    private int intern(String value) {
+        Integer ref = sharedRefs.get(value);
+        if (ref == null) {
+            ref = appendString(value, 0);
+            sharedRefs.put(value, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Stores the user, replacing any earlier profile or streamed plays with
+     * the same id.
+     */
+    public synchronized void put(User user) {
+        IntIntHashMap games = new IntIntHashMap();
+        if (user.getPlayedGames() != null) {
+            for (Map.Entry<Game, Integer> played : user.getPlayedGames().entrySet()) {
+                int ref = intern(played.getKey().getId());
+                int playtime = played.getValue() != null ? played.getValue() : 0;
+                games.put(ref, UserInteractionStore.addPlaytime(games.get(ref, 0), playtime), 0);
+            }
+        }
+        addFlag(games, user.getOwnedGames(), UserInteractionStore.OWNED);
+        addFlag(games, user.getWishlist(), UserInteractionStore.WISHLISTED);
+        int[] genres = internAll(user.getFavoriteGenres());
+        int[] platforms = internAll(user.getPreferredPlatforms());
+        int[] list = new int[2 * games.size() + genres.length + platforms.length];
+        int[] position = { 0 };
+        games.forEach((ref, packed) -> {
+            list[position[0]++] = ref;
+            list[position[0]++] = packed;
+        });
+        System.arraycopy(genres, 0, list, position[0], genres.length);
+        System.arraycopy(platforms, 0, list, position[0] + genres.length, platforms.length);
+
+        long base = recordOffset(recordOf(user.getId()));
+        writeList(reserveList(base, list.length), list);
+        profiles.putInt(base + GAME_COUNT, games.size());
+        profiles.putInt(base + GENRE_COUNT, genres.length);
+        profiles.putInt(base + PLATFORM_COUNT, platforms.length);
+        profiles.putInt(base + MAX_PRICE_CENTS, toCents(user.getMaxPrice()));
+        profiles.putInt(base + TOTAL_GAMES_PLAYED, user.getTotalGamesPlayed());
+        profiles.putInt(base + LAST_ACTIVE_DAY, user.getLastActiveDate() != null
+                ? (int) user.getLastActiveDate().toEpochDay() : NO_DATE);
+        profiles.putDouble(base + AVERAGE_PLAYTIME, user.getAveragePlaytime());
+        profiles.putInt(base + LIVE, PROFILE);
+        writeHeader();
+        compactIfWasteful();
+    }
+
+    /**
+     * @return the user's record, taking a deleted or new one for an unknown
+     *         user, which is left with no lists or profile fields
+     */
+    private int recordOf(String userId) {
+        Integer existing = recordsByUser.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        int record;
+        long base;
+        if (!freeRecords.isEmpty()) {
+            record = freeRecords.poll();
+            base = recordOffset(record);
+            // The deleted user's list slot is in use again
+            wastedListBytes -= 4L * profiles.getInt(base + LIST_CAPACITY);
+        } else {
+            record = recordCount++;
+            base = recordOffset(record);
+            profiles.putLong(base + LIST_OFFSET, 0);
+            profiles.putInt(base + LIST_CAPACITY, 0);
+        }
+        profiles.putInt(base + USER_ID, appendString(userId, USER_ID_STRING));
+        profiles.putInt(base + GAME_COUNT, 0);
+        profiles.putInt(base + GENRE_COUNT, 0);
+        profiles.putInt(base + PLATFORM_COUNT, 0);
+        profiles.putInt(base + MAX_PRICE_CENTS, NO_PRICE);
+        profiles.putInt(base + TOTAL_GAMES_PLAYED, 0);
+        profiles.putInt(base + LAST_ACTIVE_DAY, NO_DATE);
+        profiles.putDouble(base + AVERAGE_PLAYTIME, 0);
+        profiles.putInt(base + LIVE, PLAYS_ONLY);
+        recordsByUser.put(userId, record);
+        return record;
+    }
+
+    /**
+     * @return where the record's lists of {@code listInts} ints go: its own
+     *         slot when they fit, otherwise a new slot at the end of the file
+     */
+    private long reserveList(long base, int listInts) {
+        int capacity = profiles.getInt(base + LIST_CAPACITY);
+        if (capacity >= listInts) {
+            return profiles.getLong(base + LIST_OFFSET);
+        }
+        wastedListBytes += 4L * capacity;
+        long offset = listsEnd;
+        listsEnd += 4L * listInts;
+        profiles.putLong(base + LIST_OFFSET, offset);
+        profiles.putInt(base + LIST_CAPACITY, listInts);
+        return offset;
+    }
+
+    private void writeList(long offset, int[] list) {
+        for (int i = 0; i < list.length; i++) {
+            lists.putInt(offset + 4L * i, list[i]);
+        }
+    }
+
+    private int[] readList(long base) {
+        int[] list = new int[2 * profiles.getInt(base + GAME_COUNT) + profiles.getInt(base + GENRE_COUNT)
+                + profiles.getInt(base + PLATFORM_COUNT)];
+        long offset = profiles.getLong(base + LIST_OFFSET);
+        for (int i = 0; i < list.length; i++) {
+            list[i] = lists.getInt(offset + 4L * i);
+        }
+        return list;
+    }
+
+    private void addFlag(IntIntHashMap games, Set<String> gameIds, int flag) {
+        if (gameIds == null) {
+            return;
+        }
+        for (String gameId : gameIds) {
+            int ref = intern(gameId);
+            games.put(ref, games.get(ref, 0) | flag, 0);
+        }
+    }
+
+    private int[] internAll(Set<String> values) {
+        if (values == null) {
+            return new int[0];
+        }
+        return values.stream().mapToInt(this::intern).toArray();
+    }
+
+    private static int toCents(BigDecimal price) {
+        if (price == null) {
+            return NO_PRICE;
+        }
+        return price.max(BigDecimal.ZERO).movePointRight(2).setScale(0, RoundingMode.DOWN)
+                .min(BigDecimal.valueOf(Integer.MAX_VALUE)).intValue();
+    }
+
+    /**
+     * Adds playtime to a game of the user and marks it played, recording the
+     * user without a profile if it is not stored yet.
+     *
+     * @return whether the game was not played before
+     */
+    public synchronized boolean recordPlay(String userId, String gameId, int hours) {
+        long base = recordOffset(recordOf(userId));
+        int ref = intern(gameId);
+        int gameCount = profiles.getInt(base + GAME_COUNT);
+        long position = profiles.getLong(base + LIST_OFFSET);
+        for (int i = 0; i < gameCount; i++, position += 8) {
+            if (lists.getInt(position) == ref) {
+                int packed = lists.getInt(position + 4);
+                lists.putInt(position + 4, UserInteractionStore.addPlaytime(packed, hours));
+                return (packed & UserInteractionStore.PLAYED) == 0;
+            }
+        }
+        int[] list = readList(base);
+        int[] grown = new int[list.length + 2];
+        System.arraycopy(list, 0, grown, 0, 2 * gameCount);
+        grown[2 * gameCount] = ref;
+        grown[2 * gameCount + 1] = UserInteractionStore.addPlaytime(0, hours);
+        System.arraycopy(list, 2 * gameCount, grown, 2 * gameCount + 2, list.length - 2 * gameCount);
+        writeList(reserveList(base, grown.length), grown);
+        profiles.putInt(base + GAME_COUNT, gameCount + 1);
+        writeHeader();
+        compactIfWasteful();
+        return true;
+    }
+
+    /**
+     * Removes the user's profile and games.
+     *
+     * @return whether the user was stored
+     */
+    public synchronized boolean delete(String userId) {
+        Integer record = recordsByUser.remove(userId);
+        if (record == null) {
+            return false;
+        }
+        long base = recordOffset(record);
+        profiles.putInt(base + LIVE, DELETED);
+        wastedListBytes += 4L * profiles.getInt(base + LIST_CAPACITY);
+        wastedStringBytes += stringBytes(strings.getInt(offsetOf(profiles.getInt(base + USER_ID))) & ~USER_ID_STRING);
+        freeRecords.add(record);
+        writeHeader();
+        compactIfWasteful();
+        return true;
+    }
+
+    /**
+     * @return whether the user has a profile or streamed plays
+     */
+    public synchronized boolean contains(String userId) {
+        return recordsByUser.containsKey(userId);
+    }
+
+    /**
+     * @return whether a profile was stored for the user with {@link #put}
+     */
+    public synchronized boolean hasProfile(String userId) {
+        Integer record = recordsByUser.get(userId);
+        return record != null && profiles.getInt(recordOffset(record) + LIVE) == PROFILE;
+    }
+
+    /**
+     * @return the ids of every stored user, including users only known from
+     *         streamed plays, in record order
+     */
+    public synchronized List<String> userIds() {
+        return recordsByUser.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * @return the ids of the users with a profile, in record order
+     */
+    public synchronized List<String> profileUserIds() {
+        return recordsByUser.entrySet().stream()
+                .filter(user -> profiles.getInt(recordOffset(user.getValue()) + LIVE) == PROFILE)
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * @return the number of stored users, including users only known from
+     *         streamed plays
+     */
+    public synchronized int size() {
+        return recordsByUser.size();
+    }
+
+    /**
+     * Reads the user's profile back. Played games are resolved against the
+     * game database's catalog index, and games no longer in it are left out.
+     *
+     * @return the user, or null if no profile is stored
+     */
+    public synchronized User get(String userId, GameDatabase gameDatabase) {
+        Integer record = recordsByUser.get(userId);
+        if (record == null || profiles.getInt(recordOffset(record) + LIVE) != PROFILE) {
+            return null;
+        }
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        long base = recordOffset(record);
+        long position = profiles.getLong(base + LIST_OFFSET);
+        Map<Game, Integer> played = new HashMap<>();
+        Set<String> owned = new HashSet<>();
+        Set<String> wishlist = new HashSet<>();
+        for (int i = profiles.getInt(base + GAME_COUNT); i > 0; i--, position += 8) {
+            String gameId = readString(lists.getInt(position));
+            int packed = lists.getInt(position + 4);
+            if ((packed & UserInteractionStore.PLAYED) != 0) {
+                int ordinal = index.ordinalOf(gameId);
+                if (ordinal >= 0) {
+                    played.put(index.gameAt(ordinal), UserInteractionStore.playtimeOf(packed));
+                }
+            }
+            if ((packed & UserInteractionStore.OWNED) != 0) {
+                owned.add(gameId);
+            }
+            if ((packed & UserInteractionStore.WISHLISTED) != 0) {
+                wishlist.add(gameId);
+            }
+        }
+        Set<String> genres = new HashSet<>();
+        for (int i = profiles.getInt(base + GENRE_COUNT); i > 0; i--, position += 4) {
+            genres.add(readString(lists.getInt(position)));
+        }
+        Set<String> platforms = new HashSet<>();
+        for (int i = profiles.getInt(base + PLATFORM_COUNT); i > 0; i--, position += 4) {
+            platforms.add(readString(lists.getInt(position)));
+        }
+
+        int priceCents = profiles.getInt(base + MAX_PRICE_CENTS);
+        int lastActiveDay = profiles.getInt(base + LAST_ACTIVE_DAY);
+        return User.builder()
+                .id(userId)
+                .favoriteGenres(genres)
+                .preferredPlatforms(platforms)
+                .maxPrice(priceCents == NO_PRICE ? null : BigDecimal.valueOf(priceCents, 2))
+                .ownedGames(owned)
+                .playedGames(played)
+                .averagePlaytime(profiles.getDouble(base + AVERAGE_PLAYTIME))
+                .totalGamesPlayed(profiles.getInt(base + TOTAL_GAMES_PLAYED))
+                .lastActiveDate(lastActiveDay == NO_DATE ? null : LocalDate.ofEpochDay(lastActiveDay))
+                .wishlist(wishlist)
+                .build();
+    }
+
+    /**
+     * Sets how {@link #games} turns game ids into game keys. Keys are cached
+     * per game id until the next compaction.
+     */
+    public synchronized void setGameKeys(ToIntFunction<String> gameKeys) {
+        this.gameKeys = gameKeys;
+        gameKeysByRef.clear();
+    }
+
+    /**
+     * @return the user's games keyed by game key, with the packed flags and
+     *         playtime as values, or null if the user is not stored
+     */
+    public synchronized IntIntHashMap games(String userId) {
+        if (gameKeys == null) {
+            throw new IllegalStateException("No game keys set");
+        }
+        Integer record = recordsByUser.get(userId);
+        if (record == null) {
+            return null;
+        }
+        long base = recordOffset(record);
+        int gameCount = profiles.getInt(base + GAME_COUNT);
+        IntIntHashMap games = new IntIntHashMap(gameCount);
+        long position = profiles.getLong(base + LIST_OFFSET);
+        for (int i = 0; i < gameCount; i++, position += 8) {
+            int ref = lists.getInt(position);
+            int key = gameKeysByRef.get(ref, -1);
+            if (key < 0) {
+                key = gameKeys.applyAsInt(readString(ref));
+                gameKeysByRef.put(ref, key, -1);
+            }
+            games.put(key, lists.getInt(position + 4), 0);
+        }
+        return games;
+    }
+
+    /**
+     * @return the packed flags and playtime of the user's game, or 0
+     */
+    synchronized int packed(String userId, String gameId) {
+        Integer record = recordsByUser.get(userId);
+        Integer ref = sharedRefs.get(gameId);
+        if (record == null || ref == null) {
+            return 0;
+        }
+        long base = recordOffset(record);
+        long position = profiles.getLong(base + LIST_OFFSET);
+        for (int i = profiles.getInt(base + GAME_COUNT); i > 0; i--, position += 8) {
+            if (lists.getInt(position) == ref) {
+                return lists.getInt(position + 4);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return whether the user has every flag in {@code flags} for the game,
+     *         read straight from the mapped lists
+     */
+    public boolean has(String userId, String gameId, int flags) {
+        return (packed(userId, gameId) & flags) == flags;
+    }
+
+    /**
+     * @return the bytes of abandoned lists and strings that the next
+     *         {@link #compact()} makes reusable
+     */
+    public synchronized long wastedBytes() {
+        return wastedListBytes + wastedStringBytes;
+    }
+
+    private void compactIfWasteful() {
+        long wasted = wastedListBytes + wastedStringBytes;
+        if (wasted > MIN_COMPACT_BYTES && wasted > (listsEnd + stringsEnd) / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Slides the live lists and the strings still referenced down over the
+     * abandoned ones, so that later writes reuse the space. Takes time
+     * proportional to the data in the store.
+     */
+    public synchronized void compact() {
+        // Live records in list order, so no list is overwritten before it moves
+        Integer[] live = recordsByUser.values().toArray(new Integer[0]);
+        Arrays.sort(live, Comparator.comparingLong(record -> profiles.getLong(recordOffset(record) + LIST_OFFSET)));
+
+        IntIntHashMap newRefs = new IntIntHashMap();
+        for (int record : live) {
+            long base = recordOffset(record);
+            newRefs.put(profiles.getInt(base + USER_ID), 0, 0);
+            int[] list = readList(base);
+            int gameInts = 2 * profiles.getInt(base + GAME_COUNT);
+            for (int i = 0; i < list.length; i += i < gameInts ? 2 : 1) {
+                newRefs.put(list[i], 0, 0);
+            }
+        }
+        long stringsCursor = 0;
+        sharedRefs.clear();
+        for (long offset = 0; offset < stringsEnd;) {
+            int prefix = strings.getInt(offset);
+            long size = stringBytes(prefix & ~USER_ID_STRING);
+            if (newRefs.containsKey(refOf(offset))) {
+                String value = readString(refOf(offset));
+                if (stringsCursor != offset) {
+                    byte[] bytes = new byte[(int) size];
+                    strings.getBytes(offset, bytes);
+                    strings.putBytes(stringsCursor, bytes);
+                }
+                newRefs.put(refOf(offset), refOf(stringsCursor), 0);
+                if ((prefix & USER_ID_STRING) == 0) {
+                    sharedRefs.put(value, refOf(stringsCursor));
+                }
+                stringsCursor += size;
+            }
+            offset += size;
+        }
+
+        long listsCursor = 0;
+        for (int record : live) {
+            long base = recordOffset(record);
+            int[] list = readList(base);
+            int gameInts = 2 * profiles.getInt(base + GAME_COUNT);
+            for (int i = 0; i < list.length; i += i < gameInts ? 2 : 1) {
+                list[i] = newRefs.get(list[i], 0);
+            }
+            writeList(listsCursor, list);
+            profiles.putInt(base + USER_ID, newRefs.get(profiles.getInt(base + USER_ID), 0));
+            profiles.putLong(base + LIST_OFFSET, listsCursor);
+            profiles.putInt(base + LIST_CAPACITY, list.length);
+            listsCursor += 4L * list.length;
+        }
+        for (int record : freeRecords) {
+            profiles.putLong(recordOffset(record) + LIST_OFFSET, 0);
+            profiles.putInt(recordOffset(record) + LIST_CAPACITY, 0);
+        }
+        listsEnd = listsCursor;
+        stringsEnd = stringsCursor;
+        wastedListBytes = 0;
+        wastedStringBytes = 0;
+        gameKeysByRef.clear();
+        writeHeader();
+    }
+
+    /**
+     * Writes all changes through to the files.
+     */
+    public synchronized void flush() {
+        profiles.force();
+        lists.force();
+        strings.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        profiles.close();
+        lists.close();
+        strings.close();
+    }
+}
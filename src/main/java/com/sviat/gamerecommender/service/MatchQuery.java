@@ -0,0 +1,149 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * A genre/tag query compiled against one {@link CatalogIndex}.
+ *
+ * Criteria counts include terms unknown to the catalog (they still lower the
+ * match ratio), while the masks and term ids only cover known terms.
+ *
+ * The query's {@link MatchScorer} is tabulated for every (genre matches, tag
+ * matches) pair at compile time, so scoring a game is a table lookup. A game
+ * can only match known terms, so the table is sized by the known term counts
+ * and stays small however many unknown terms a request sends.
+ */
+public final class MatchQuery {
+    private final int genreCount;
+    private final int tagCount;
+    private final long[] genreMask;
+    private final long[] tagMask;
+    private final int[] genreIds;
+    private final int[] tagIds;
+    private final MatchScorer scorer;
+    // scoreTable[genreMatches * (tagIds.length + 1) + tagMatches]
+    private final int[] scoreTable;
+
+    private MatchQuery(int genreCount, int tagCount, long[] genreMask, long[] tagMask, int[] genreIds, int[] tagIds,
+            MatchScorer scorer) {
+        this.genreCount = genreCount;
+        this.tagCount = tagCount;
+        this.genreMask = genreMask;
+        this.tagMask = tagMask;
+        this.genreIds = genreIds;
+        this.tagIds = tagIds;
+        this.scorer = scorer;
+        int tagStride = tagIds.length + 1;
+        this.scoreTable = new int[(genreIds.length + 1) * tagStride];
+        for (int genreMatches = 0; genreMatches <= genreIds.length; genreMatches++) {
+            for (int tagMatches = 0; tagMatches <= tagIds.length; tagMatches++) {
+                scoreTable[genreMatches * tagStride + tagMatches] =
+                        scorer.score(genreMatches, genreCount, tagMatches, tagCount);
+            }
+        }
+    }
+
+    /**
+     * Compiles cleaned (non-null, no empty strings) criteria against the index.
+     */
+    public static MatchQuery compile(CatalogIndex index, Set<String> genres, Set<String> tags, MatchScorer scorer) {
+        long[] genreMask = new long[index.genreWords()];
+        long[] tagMask = new long[index.tagWords()];
+        int[] genreIds = collectIds(index, genres, true, genreMask);
+        int[] tagIds = collectIds(index, tags, false, tagMask);
+        return new MatchQuery(genres.size(), tags.size(), genreMask, tagMask, genreIds, tagIds, scorer);
+    }
+
+    /**
+     * Compiles a "games like this one" query from the genres and tags the game
+     * at the ordinal has in the index.
+     */
+    public static MatchQuery similarTo(CatalogIndex index, int ordinal, MatchScorer scorer) {
+        Set<String> genres = index.genresAt(ordinal);
+        Set<String> tags = index.tagsAt(ordinal);
+        genres.remove("");
+        tags.remove("");
+        return compile(index, genres, tags, scorer);
+    }
+
+    private static int[] collectIds(CatalogIndex index, Set<String> terms, boolean genres, long[] mask) {
+        int[] ids = new int[terms.size()];
+        int known = 0;
+        for (String term : terms) {
+            int id = genres ? index.genreId(term) : index.tagId(term);
+            if (id >= 0) {
+                mask[id >>> 6] |= 1L << id;
+                ids[known++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, known);
+    }
+
+    public boolean isEmpty() {
+        return genreCount == 0 && tagCount == 0;
+    }
+
+    public int genreCount() {
+        return genreCount;
+    }
+
+    public int tagCount() {
+        return tagCount;
+    }
+
+    public MatchScorer scorer() {
+        return scorer;
+    }
+
+    /**
+     * @return the score of a game with the given match counts, at most the
+     *         known term counts
+     */
+    public int score(int genreMatches, int tagMatches) {
+        return scoreTable[genreMatches * (tagIds.length + 1) + tagMatches];
+    }
+
+    /**
+     * @return the score of a game matching every criterion known to the catalog
+     */
+    public int maxScore() {
+        return scoreTable[scoreTable.length - 1];
+    }
+
+    /**
+     * @return the score table, indexed by {@code genreMatches * tagStride() + tagMatches}
+     */
+    int[] scoreTable() {
+        return scoreTable;
+    }
+
+    /**
+     * @return the row length of the score table
+     */
+    int tagStride() {
+        return tagIds.length + 1;
+    }
+
+    long[] genreMask() {
+        return genreMask;
+    }
+
+    long[] tagMask() {
+        return tagMask;
+    }
+
+    /**
+     * @return dictionary ids of the query genres known to the catalog
+     */
+    int[] genreIds() {
+        return genreIds;
+    }
+
+    /**
+     * @return dictionary ids of the query tags known to the catalog
+     */
+    int[] tagIds() {
+        return tagIds;
+    }
+}
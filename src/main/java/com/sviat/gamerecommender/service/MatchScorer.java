@@ -0,0 +1,31 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Scoring function SPI for genre/tag matching.
+ *
+ * A scorer maps match counts to an integer score. Queries never call it in
+ * the hot loop: {@link MatchQuery} tabulates every (genre matches, tag
+ * matches) pair once per query, and searches then score games with a plain
+ * array lookup over the bitmask columns. That keeps the scan loop free of
+ * virtual calls and allocation no matter how many scorers are in use.
+ *
+ * Implementations must be non-decreasing in both match counts, because
+ * top-K pruning bounds unseen games by the score of their best possible
+ * counts, and must return 0 when nothing matches.
+ */
+public interface MatchScorer {
+
+    /**
+     * @return the name used to select this scorer per request or experiment
+     */
+    String name();
+
+    /**
+     * @param genreMatches Number of query genres the game has
+     * @param genreCount   Number of genres in the query
+     * @param tagMatches   Number of query tags the game has
+     * @param tagCount     Number of tags in the query
+     * @return the match score
+     */
+    int score(int genreMatches, int genreCount, int tagMatches, int tagCount);
+}
@@ -0,0 +1,99 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named {@link MatchScorer}s selectable per request or by experiment bucket.
+ *
+ * An experiment splits traffic into 100 buckets; a stable key such as a user
+ * or session id always lands in the same bucket, and each bucket is assigned
+ * a scorer by an allocation spec like {@code "weighted:90,linear:10"}.
+ */
+public class MatchScorerRegistry {
+    private static final int BUCKETS = 100;
+
+    private final Map<String, MatchScorer> scorers = new ConcurrentHashMap<>();
+    private final MatchScorer defaultScorer;
+    private volatile MatchScorer[] experimentBuckets;
+
+    public MatchScorerRegistry(MatchScorer defaultScorer) {
+        this.defaultScorer = defaultScorer;
+        register(defaultScorer);
+    }
+
+    public void register(MatchScorer scorer) {
+        scorers.put(scorer.name(), scorer);
+    }
+
+    public MatchScorer getDefaultScorer() {
+        return defaultScorer;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no scorer has the name
+     */
+    public MatchScorer getScorer(String name) {
+        MatchScorer scorer = scorers.get(name);
+        if (scorer == null) {
+            throw new IllegalArgumentException("Unknown match scorer: " + name);
+        }
+        return scorer;
+    }
+
+    /**
+     * Assigns scorers to experiment buckets from a spec such as
+     * {@code "weighted:90,linear:10"}. Shares must add up to 100; an empty
+     * spec ends the experiment.
+     */
+    public void configureExperiment(String allocation) {
+        if (allocation == null || allocation.isBlank()) {
+            experimentBuckets = null;
+            return;
+        }
+        MatchScorer[] buckets = new MatchScorer[BUCKETS];
+        int filled = 0;
+        for (String arm : allocation.split(",")) {
+            String[] parts = arm.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid experiment arm '" + arm + "', expected name:share");
+            }
+            MatchScorer scorer = getScorer(parts[0].trim());
+            int share = Integer.parseInt(parts[1].trim());
+            if (share < 0 || filled + share > BUCKETS) {
+                throw new IllegalArgumentException("Experiment shares must add up to " + BUCKETS + ": " + allocation);
+            }
+            Arrays.fill(buckets, filled, filled + share, scorer);
+            filled += share;
+        }
+        if (filled != BUCKETS) {
+            throw new IllegalArgumentException("Experiment shares must add up to " + BUCKETS + ": " + allocation);
+        }
+        experimentBuckets = buckets;
+    }
+
+    /**
+     * Picks the scorer for a request: an explicitly named scorer wins, then the
+     * experiment bucket of the key, then the default scorer.
+     *
+     * @param scorerName    Optional scorer name
+     * @param experimentKey Optional stable key (user or session id)
+     */
+    public MatchScorer select(String scorerName, String experimentKey) {
+        if (scorerName != null && !scorerName.isEmpty()) {
+            return getScorer(scorerName);
+        }
+        MatchScorer[] buckets = experimentBuckets;
+        if (buckets != null && experimentKey != null && !experimentKey.isEmpty()) {
+            return buckets[bucketOf(experimentKey)];
+        }
+        return defaultScorer;
+    }
+
+    static int bucketOf(String experimentKey) {
+        // Spread the string hash so neighbouring ids land in different buckets
+        int hash = experimentKey.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), BUCKETS);
+    }
+}
@@ -0,0 +1,140 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Document-at-a-time top-K search over genre/tag posting lists with MaxScore
+ * pruning.
+ *
+ * Query terms are ordered by their upper-bound contribution. Once the heap is
+ * full, the longest prefix of cheap terms whose combined best score cannot
+ * beat the heap minimum becomes "non-essential": games that only appear in
+ * those posting lists are never visited. Candidates from the remaining
+ * "essential" lists are scored exactly from the bitmask columns.
+ *
+ * Ordinals are visited in ascending (tie-break) order, so a candidate whose
+ * score merely equals the heap minimum can never displace it. For a single
+ * broad term like "Action" every match has the same score, and the search
+ * stops after the first {@code k} postings.
+ */
+final class MaxScoreSearcher {
+
+    private MaxScoreSearcher() {
+    }
+
+    /**
+     * Collects the best matches with ordinals in {@code [from, to)} into the heap.
+     */
+    static void search(CatalogIndex index, MatchQuery query, int from, int to, TopKHeap heap) {
+        search(index, query, from, to, null, heap);
+    }
+
+    /**
+     * Like {@link #search(CatalogIndex, MatchQuery, int, int, TopKHeap)}, but
+     * only offers the games {@code allowed} accepts by ordinal, or every game
+     * if it is null. The filter runs before a candidate is scored.
+     */
+    static void search(CatalogIndex index, MatchQuery query, int from, int to, IntPredicate allowed,
+            TopKHeap heap) {
+        if (heap.capacity() == 0 || query.isEmpty()) {
+            return;
+        }
+
+        int[] genreIds = query.genreIds();
+        int[] tagIds = query.tagIds();
+        int termCount = genreIds.length + tagIds.length;
+        if (termCount == 0) {
+            return;
+        }
+
+        // Order terms by upper-bound contribution, cheapest first
+        double genreBound = genreIds.length == 0 ? 0
+                : (double) query.score(genreIds.length, 0) / genreIds.length;
+        double tagBound = tagIds.length == 0 ? 0
+                : (double) query.score(0, tagIds.length) / tagIds.length;
+        boolean tagsFirst = tagBound <= genreBound;
+
+        int[][] postings = new int[termCount][];
+        boolean[] isGenre = new boolean[termCount];
+        int next = 0;
+        if (tagsFirst) {
+            next = addTerms(index, tagIds, false, postings, isGenre, next);
+            addTerms(index, genreIds, true, postings, isGenre, next);
+        } else {
+            next = addTerms(index, genreIds, true, postings, isGenre, next);
+            addTerms(index, tagIds, false, postings, isGenre, next);
+        }
+
+        // prefixBound[p] is the best score of a game matching only terms [0, p)
+        int[] prefixBound = new int[termCount + 1];
+        int prefixGenres = 0;
+        int prefixTags = 0;
+        for (int p = 0; p <= termCount; p++) {
+            prefixBound[p] = query.score(prefixGenres, prefixTags);
+            if (p < termCount) {
+                if (isGenre[p]) {
+                    prefixGenres++;
+                } else {
+                    prefixTags++;
+                }
+            }
+        }
+
+        int[] cursors = new int[termCount];
+        for (int t = 0; t < termCount; t++) {
+            cursors[t] = lowerBound(postings[t], from);
+        }
+
+        int firstEssential = 0;
+        while (true) {
+            // Next candidate is the smallest ordinal across the essential lists
+            int ordinal = to;
+            for (int t = firstEssential; t < termCount; t++) {
+                int cursor = cursors[t];
+                if (cursor < postings[t].length && postings[t][cursor] < ordinal) {
+                    ordinal = postings[t][cursor];
+                }
+            }
+            if (ordinal >= to) {
+                break;
+            }
+            for (int t = firstEssential; t < termCount; t++) {
+                int cursor = cursors[t];
+                if (cursor < postings[t].length && postings[t][cursor] == ordinal) {
+                    cursors[t] = cursor + 1;
+                }
+            }
+
+            if (allowed != null && !allowed.test(ordinal)) {
+                continue;
+            }
+            int score = query.score(index.genreMatches(ordinal, query), index.tagMatches(ordinal, query));
+            if (score > 0 && heap.offer(ordinal, score) && heap.isFull()) {
+                double threshold = heap.minScore();
+                while (firstEssential < termCount && prefixBound[firstEssential + 1] <= threshold) {
+                    firstEssential++;
+                }
+                if (firstEssential == termCount) {
+                    // No unseen game can beat the current top-K
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int addTerms(CatalogIndex index, int[] termIds, boolean genres,
+            int[][] postings, boolean[] isGenre, int next) {
+        for (int termId : termIds) {
+            postings[next] = genres ? index.genrePostings(termId) : index.tagPostings(termId);
+            isGenre[next] = genres;
+            next++;
+        }
+        return next;
+    }
+
+    private static int lowerBound(int[] postings, int ordinal) {
+        int position = Arrays.binarySearch(postings, ordinal);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,187 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate "games like this one" search with MinHash signatures and
+ * locality-sensitive hashing, for catalogs too large to score exhaustively.
+ *
+ * Every game's feature set (its genres, tags and developer) is summarised by
+ * {@code bands * rows} MinHash values. Two games agree on one value with a
+ * probability equal to the Jaccard similarity of their feature sets. The
+ * signature is cut into bands of {@code rows} values and each band is hashed
+ * into a bucket, so games sharing any whole band become candidates. More bands
+ * raise recall, more rows per band shrink the buckets and lower latency.
+ *
+ * Candidates are ranked exactly with the query's score table, so results are
+ * always correctly ordered; only games missed by every band are lost.
+ *
+ * Each band is one sorted array of {@code bucket << 32 | ordinal} entries, so
+ * a bucket is found with a binary search.
+ */
+public final class MinHashIndex {
+    private static final long GENRE_FEATURE = 0L;
+    private static final long TAG_FEATURE = 1L << 32;
+    private static final long DEVELOPER_FEATURE = 2L << 32;
+
+    private final CatalogIndex catalog;
+    private final int bands;
+    private final int rows;
+    private final long[] hashSeeds;
+    // Value h of ordinal o lives at o * bands * rows + h
+    private final int[] signatures;
+    private final boolean[] hasFeatures;
+    private final long[][] bandEntries;
+
+    private MinHashIndex(CatalogIndex catalog, int bands, int rows) {
+        this.catalog = catalog;
+        this.bands = bands;
+        this.rows = rows;
+        int hashes = bands * rows;
+        this.hashSeeds = new long[hashes];
+        for (int h = 0; h < hashes; h++) {
+            hashSeeds[h] = mix(0x9E3779B97F4A7C15L * (h + 1));
+        }
+        this.signatures = new int[catalog.size() * hashes];
+        this.hasFeatures = new boolean[catalog.size()];
+        this.bandEntries = new long[bands][];
+    }
+
+    /**
+     * Computes the signatures and bands of a catalog version in parallel.
+     */
+    public static MinHashIndex build(CatalogIndex catalog, int bands, int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("LSH bands and rows must be positive: " + bands + "x" + rows);
+        }
+        MinHashIndex index = new MinHashIndex(catalog, bands, rows);
+        IntStream.range(0, catalog.size()).parallel().forEach(index::computeSignature);
+        IntStream.range(0, bands).parallel().forEach(index::buildBand);
+        return index;
+    }
+
+    private void computeSignature(int ordinal) {
+        int hashes = bands * rows;
+        int base = ordinal * hashes;
+        Arrays.fill(signatures, base, base + hashes, Integer.MAX_VALUE);
+
+        int size = catalog.size();
+        boolean any = addTerms(catalog.genreBits(), catalog.genreWords(), size, ordinal, GENRE_FEATURE, base);
+        any |= addTerms(catalog.tagBits(), catalog.tagWords(), size, ordinal, TAG_FEATURE, base);
+        String developer = catalog.gameAt(ordinal).getDeveloper();
+        if (developer != null && !developer.isEmpty()) {
+            addFeature(DEVELOPER_FEATURE | (developer.hashCode() & 0xFFFFFFFFL), base);
+        }
+        // Developer alone never yields a match score, so such games stay out of the buckets
+        hasFeatures[ordinal] = any;
+    }
+
+    private boolean addTerms(long[] bits, int words, int size, int ordinal, long kind, int base) {
+        boolean any = false;
+        for (int word = 0; word < words; word++) {
+            long remaining = bits[word * size + ordinal];
+            while (remaining != 0) {
+                addFeature(kind | ((word << 6) + Long.numberOfTrailingZeros(remaining)), base);
+                remaining &= remaining - 1;
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    private void addFeature(long feature, int base) {
+        for (int h = 0; h < hashSeeds.length; h++) {
+            int value = (int) (mix(feature ^ hashSeeds[h]) >>> 33);
+            if (value < signatures[base + h]) {
+                signatures[base + h] = value;
+            }
+        }
+    }
+
+    private void buildBand(int band) {
+        int size = catalog.size();
+        long[] entries = new long[size];
+        int count = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (hasFeatures[ordinal]) {
+                entries[count++] = (long) bucketOf(ordinal, band) << 32 | ordinal;
+            }
+        }
+        entries = Arrays.copyOf(entries, count);
+        Arrays.sort(entries);
+        bandEntries[band] = entries;
+    }
+
+    private int bucketOf(int ordinal, int band) {
+        int offset = ordinal * bands * rows + band * rows;
+        long hash = band;
+        for (int row = 0; row < rows; row++) {
+            hash = mix(hash * 31 + signatures[offset + row]);
+        }
+        return (int) hash;
+    }
+
+    /**
+     * @return ascending ordinals of the games sharing a band with the game,
+     *         the game itself excluded
+     */
+    public int[] candidates(int ordinal) {
+        if (!hasFeatures[ordinal]) {
+            return new int[0];
+        }
+        int[] candidates = new int[16];
+        int count = 0;
+        for (int band = 0; band < bands; band++) {
+            long[] entries = bandEntries[band];
+            long bucket = bucketOf(ordinal, band);
+            int position = Arrays.binarySearch(entries, bucket << 32);
+            for (int i = position >= 0 ? position : -position - 1;
+                    i < entries.length && entries[i] >> 32 == bucket; i++) {
+                int candidate = (int) entries[i];
+                if (candidate != ordinal) {
+                    if (count == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, count * 2);
+                    }
+                    candidates[count++] = candidate;
+                }
+            }
+        }
+        return Arrays.stream(candidates, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Scores the candidates of the game exactly and keeps the best in the heap.
+     */
+    public void search(int ordinal, MatchQuery query, TopKHeap heap) {
+        for (int candidate : candidates(ordinal)) {
+            int score = query.score(catalog.genreMatches(candidate, query), catalog.tagMatches(candidate, query));
+            if (score > 0) {
+                heap.offer(candidate, score);
+            }
+        }
+    }
+
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+
+    public long getVersion() {
+        return catalog.getVersion();
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sviat.gamerecommender.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last game of a result page: the catalog version the page
+ * was computed for, and the game's score and ordinal. Handed to clients as
+ * an opaque URL-safe string; the next page starts right after it.
+ */
+public record PageCursor(long catalogVersion, int score, int ordinal) {
+    private static final int BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES)
+                .putLong(catalogVersion)
+                .putInt(score)
+                .putInt(ordinal);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string is not an encoded cursor
+     */
+    public static PageCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page cursor: " + cursor, e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        PageCursor decoded = bytes.length == BYTES
+                ? new PageCursor(buffer.getLong(), buffer.getInt(), buffer.getInt())
+                : null;
+        if (decoded == null || decoded.ordinal() < 0) {
+            throw new IllegalArgumentException("Malformed page cursor: " + cursor);
+        }
+        return decoded;
+    }
+}
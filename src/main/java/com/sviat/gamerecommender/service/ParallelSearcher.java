@@ -0,0 +1,106 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join top-K search for large catalogs.
+ *
+ * The ordinal range is split into chunks; each chunk runs the sequential
+ * search (MaxScore or dense scan) into its own heap, and heaps are merged on
+ * the way back up. Chunk heaps keep the catalog tie-break order, so the merged
+ * result is identical to a sequential search.
+ */
+final class ParallelSearcher {
+    /** Smallest chunk worth a fork; below this the split overhead dominates. */
+    static final int MIN_CHUNK_SIZE = 8192;
+
+    private ParallelSearcher() {
+    }
+
+    /**
+     * Whether a query is big enough to parallelise: the catalog and the
+     * query's candidate postings must both reach the threshold.
+     */
+    static boolean shouldParallelize(CatalogIndex index, MatchQuery query, int threshold) {
+        if (index.size() < threshold || index.size() < 2 * MIN_CHUNK_SIZE) {
+            return false;
+        }
+        long candidates = 0;
+        for (int genreId : query.genreIds()) {
+            candidates += index.genrePostings(genreId).length;
+        }
+        for (int tagId : query.tagIds()) {
+            candidates += index.tagPostings(tagId).length;
+        }
+        return candidates >= threshold;
+    }
+
+    static TopKHeap search(ForkJoinPool pool, CatalogIndex index, MatchQuery query, ScoringKernel kernel,
+            int limit) {
+        return search(pool, index, query, kernel, new TopKHeap(limit));
+    }
+
+    /**
+     * Like {@link #search(ForkJoinPool, CatalogIndex, MatchQuery, ScoringKernel, int)},
+     * with every chunk heap an empty copy of {@code template}, so a bounded
+     * heap keeps its bound.
+     */
+    static TopKHeap search(ForkJoinPool pool, CatalogIndex index, MatchQuery query, ScoringKernel kernel,
+            TopKHeap template) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, index.size() / (pool.getParallelism() * 4));
+        boolean dense = DenseScanner.prefersDenseScan(index, query);
+        return pool.invoke(new ChunkTask(index, query, kernel, dense, template, chunkSize, 0, index.size()));
+    }
+
+    /**
+     * Sequential search of one ordinal range, used by every chunk.
+     */
+    static void searchRange(CatalogIndex index, MatchQuery query, ScoringKernel kernel, boolean dense,
+            int from, int to, TopKHeap heap) {
+        if (dense) {
+            DenseScanner.search(index, query, kernel, from, to, heap);
+        } else {
+            MaxScoreSearcher.search(index, query, from, to, heap);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<TopKHeap> {
+        private final CatalogIndex index;
+        private final MatchQuery query;
+        private final ScoringKernel kernel;
+        private final boolean dense;
+        private final TopKHeap template;
+        private final int chunkSize;
+        private final int from;
+        private final int to;
+
+        ChunkTask(CatalogIndex index, MatchQuery query, ScoringKernel kernel, boolean dense, TopKHeap template,
+                int chunkSize, int from, int to) {
+            this.index = index;
+            this.query = query;
+            this.kernel = kernel;
+            this.dense = dense;
+            this.template = template;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= chunkSize) {
+                TopKHeap heap = template.emptyCopy();
+                searchRange(index, query, kernel, dense, from, to, heap);
+                return heap;
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(index, query, kernel, dense, template, chunkSize, from, middle);
+            ChunkTask right = new ChunkTask(index, query, kernel, dense, template, chunkSize, middle, to);
+            left.fork();
+            TopKHeap merged = right.compute();
+            merged.addAll(left.join());
+            return merged;
+        }
+    }
+}
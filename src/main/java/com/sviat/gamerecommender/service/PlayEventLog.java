@@ -0,0 +1,127 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.sviat.gamerecommender.dto.PlayEvent;
+
+/**
+ * Append-only binary log of play events, so ingested plays survive a
+ * restart. Each record is the timestamp, user id, game id and hours. A record
+ * cut short by a crash is ignored on replay and cut off when the log is
+ * reopened, so later records stay readable.
+ */
+public final class PlayEventLog implements Closeable {
+    /** Longest id, in modified UTF-8 bytes, that a record can hold. */
+    public static final int MAX_ID_BYTES = 0xFFFF;
+
+    private final Path file;
+    private final DataOutputStream out;
+
+    public PlayEventLog(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (Files.exists(file)) {
+            long complete = scan(file, event -> {
+            });
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                if (channel.size() > complete) {
+                    channel.truncate(complete);
+                }
+            }
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Appends a batch of events and flushes it to the file.
+     */
+    public void append(List<PlayEvent> events) throws IOException {
+        for (PlayEvent event : events) {
+            out.writeLong(event.getTimestamp());
+            out.writeUTF(event.getUserId());
+            out.writeUTF(event.getGameId());
+            out.writeInt(event.getHours());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads every complete event of a log, oldest first.
+     *
+     * @return the number of events read
+     */
+    public static long replay(Path file, Consumer<PlayEvent> consumer) throws IOException {
+        long[] count = { 0 };
+        scan(file, event -> {
+            consumer.accept(event);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * @return the length in bytes of the complete records
+     */
+    private static long scan(Path file, Consumer<PlayEvent> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long length = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                PlayEvent event;
+                try {
+                    long timestamp = in.readLong();
+                    String userId = in.readUTF();
+                    String gameId = in.readUTF();
+                    event = new PlayEvent(userId, gameId, in.readInt(), timestamp);
+                } catch (EOFException e) {
+                    return length;
+                }
+                consumer.accept(event);
+                length += 8 + 2 + utfLength(event.getUserId()) + 2 + utfLength(event.getGameId()) + 4;
+            }
+        }
+    }
+
+    /**
+     * @return whether the id fits in a record
+     */
+    public static boolean fitsRecord(String id) {
+        return utfLength(id) <= MAX_ID_BYTES;
+    }
+
+    // Bytes written by DataOutputStream.writeUTF after the length prefix
+    private static int utfLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,274 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.dto.PlayEvent;
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Streams "user X played game Y for N hours" events into the user
+ * interaction store and popularity counters.
+ *
+ * Producers offer events to a bounded queue and are turned away when it is
+ * full. A single consumer thread drains up to a batch of events at a time,
+ * appends the batch to the event log, coalesces it per user and game, and
+ * applies each user's plays once. Because only the consumer writes, the
+ * counters are updated in place without a full recomputation. The
+ * interaction store tells its listeners about each newly played game as the
+ * batch is applied, so the "also played" counts follow in place too. Each
+ * applied batch then bumps the user database version once, so the models
+ * rebuilt in the background from play histories (ALS, the game graph) and
+ * the cached profiles of its users pick the plays up.
+ *
+ * Counters are seeded from the user database when the pipeline is created.
+ * A later profile update through {@link UserDatabase} replaces that user's
+ * interactions, including streamed plays.
+ */
+public class PlayEventPipeline implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    // How often an idle consumer checks whether it should stop
+    private static final long POLL_MILLIS = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayEventPipeline.class);
+
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private final UserInteractionStore interactions;
+    private final PopularityCounter popularity = new PopularityCounter();
+    private final BlockingQueue<PlayEvent> queue;
+    private final int batchSize;
+    private final PlayEventLog log;
+    private final Thread consumer;
+    private final List<Consumer<PlayEvent>> listeners = new CopyOnWriteArrayList<>();
+    // Guards submitted and applied, so callers can wait for the queue to drain
+    private final Object progress = new Object();
+    private long submitted;
+    private long applied;
+    private volatile boolean running;
+
+    /**
+     * @param log Log to append every batch to, or null to keep events in memory only
+     */
+    public PlayEventPipeline(GameDatabase gameDatabase, UserDatabase userDatabase, int queueCapacity,
+            int batchSize, PlayEventLog log) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid pipeline parameters: queueCapacity=%d, batchSize=%d", queueCapacity, batchSize));
+        }
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        this.interactions = userDatabase.getInteractionStore();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.log = log;
+        this.consumer = new Thread(this::consume, "play-event-consumer");
+        this.consumer.setDaemon(true);
+
+        for (String userId : userDatabase.getUserIds()) {
+            int[] keys = interactions.gameKeys(userId, UserInteractionStore.PLAYED);
+            int[] playtimes = interactions.playtimes(userId, keys);
+            for (int i = 0; i < keys.length; i++) {
+                popularity.recordPlay(keys[i], playtimes[i], true);
+            }
+        }
+    }
+
+    /**
+     * Applies the events of an earlier run's log, before the consumer starts.
+     *
+     * @return the number of events replayed
+     */
+    public long replay(Path file) throws IOException {
+        List<PlayEvent> events = new ArrayList<>();
+        long count = PlayEventLog.replay(file, events::add);
+        for (int from = 0; from < events.size(); from += batchSize) {
+            apply(events.subList(from, Math.min(events.size(), from + batchSize)));
+        }
+        return count;
+    }
+
+    /**
+     * Registers a listener the consumer thread calls with every applied event.
+     */
+    public void addListener(Consumer<PlayEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void start() {
+        running = true;
+        consumer.start();
+    }
+
+    /**
+     * Queues an event without blocking. Events without a timestamp are
+     * stamped with the current time.
+     *
+     * @return false if the queue is full and the event was dropped
+     * @throws IllegalArgumentException if the event is missing, has no user,
+     *                                  names a game not in the catalog, has an
+     *                                  id too long for the log or has negative
+     *                                  hours
+     */
+    public boolean submit(PlayEvent event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Missing play event");
+        }
+        if (event.getUserId() == null || event.getUserId().isEmpty() || !PlayEventLog.fitsRecord(event.getUserId())
+                || event.getGameId() == null || !PlayEventLog.fitsRecord(event.getGameId())
+                || gameDatabase.getCatalogIndex().ordinalOf(event.getGameId()) < 0
+                || event.getHours() < 0) {
+            throw new IllegalArgumentException("Invalid play event for user " + event.getUserId()
+                    + " and game " + event.getGameId());
+        }
+        if (event.getTimestamp() == 0) {
+            event.setTimestamp(System.currentTimeMillis());
+        }
+        synchronized (progress) {
+            if (!queue.offer(event)) {
+                return false;
+            }
+            submitted++;
+        }
+        return true;
+    }
+
+    private void consume() {
+        List<PlayEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PlayEvent first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<PlayEvent> batch) {
+        try {
+            if (log != null) {
+                log.append(batch);
+            }
+        } catch (IOException e) {
+            logger.error("Error appending {} play events to {}", batch.size(), log.getFile(), e);
+        }
+        try {
+            apply(batch);
+            for (Consumer<PlayEvent> listener : listeners) {
+                batch.forEach(listener);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error applying {} play events", batch.size(), e);
+        }
+        synchronized (progress) {
+            applied += batch.size();
+            progress.notifyAll();
+        }
+    }
+
+    private void apply(List<PlayEvent> batch) {
+        // Coalesce per user, then per game, keeping arrival order
+        Map<String, Map<String, Integer>> hoursByUser = new LinkedHashMap<>();
+        for (PlayEvent event : batch) {
+            hoursByUser.computeIfAbsent(event.getUserId(), id -> new LinkedHashMap<>())
+                    .merge(event.getGameId(), event.getHours(),
+                            (a, b) -> (int) Math.min((long) a + b, Integer.MAX_VALUE));
+        }
+
+        for (Map.Entry<String, Map<String, Integer>> user : hoursByUser.entrySet()) {
+            String userId = user.getKey();
+            for (Map.Entry<String, Integer> game : user.getValue().entrySet()) {
+                int key = gameDatabase.gameKey(game.getKey());
+                boolean newPlayer = !interactions.hasPlayed(userId, game.getKey());
+                interactions.recordPlay(userId, game.getKey(), game.getValue());
+                popularity.recordPlay(key, game.getValue(), newPlayer);
+            }
+        }
+        // One version bump per batch rather than per play
+        userDatabase.markChanged(hoursByUser.keySet());
+    }
+
+    /**
+     * Waits until every event submitted so far has been applied.
+     *
+     * @return false if the timeout passed first
+     */
+    public boolean awaitApplied(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (progress) {
+            long target = submitted;
+            while (applied < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    public PopularityCounter getPopularity() {
+        return popularity;
+    }
+
+    /**
+     * @return the catalog games with the most players, most first
+     */
+    public List<Game> getPopularGames(int limit) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        List<Game> popular = new ArrayList<>();
+        if (limit <= 0) {
+            return popular;
+        }
+        // Ask for a few extra keys in case some games left the catalog
+        for (int key : popularity.topGames(limit + 16)) {
+            int ordinal = index.ordinalOf(gameDatabase.gameIdForKey(key));
+            if (ordinal >= 0 && popular.size() < limit) {
+                popular.add(index.gameAt(ordinal));
+            }
+        }
+        return popular;
+    }
+
+    /**
+     * Stops the consumer after it has applied the queued events, and closes
+     * the log.
+     */
+    @Override
+    public void close() throws IOException {
+        // Not interrupted: an interrupt would close the log's channel mid-write
+        running = false;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (log != null) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+
+/**
+ * Running totals of players and playtime per game key, updated as plays
+ * arrive.
+ */
+public final class PopularityCounter {
+    private int[] players = new int[16];
+    private long[] hours = new long[16];
+
+    private void ensureKey(int key) {
+        if (key >= players.length) {
+            int length = Math.max(key + 1, players.length * 2);
+            players = Arrays.copyOf(players, length);
+            hours = Arrays.copyOf(hours, length);
+        }
+    }
+
+    /**
+     * Records playtime of a game.
+     *
+     * @param newPlayer Whether this is the user's first play of the game
+     */
+    public synchronized void recordPlay(int key, int playHours, boolean newPlayer) {
+        ensureKey(key);
+        if (newPlayer) {
+            players[key]++;
+        }
+        hours[key] += Math.max(playHours, 0);
+    }
+
+    public synchronized int playersOf(int key) {
+        return key < players.length ? players[key] : 0;
+    }
+
+    public synchronized long hoursOf(int key) {
+        return key < hours.length ? hours[key] : 0;
+    }
+
+    /**
+     * @return the keys of the games with the most players, most first; ties
+     *         go to the lower key
+     */
+    public synchronized int[] topGames(int limit) {
+        TopKHeap heap = new TopKHeap(Math.max(limit, 0));
+        for (int key = 0; key < players.length; key++) {
+            if (players[key] > 0) {
+                heap.offer(key, players[key]);
+            }
+        }
+        return heap.drainOrdinals();
+    }
+}
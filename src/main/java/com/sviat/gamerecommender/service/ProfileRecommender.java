@@ -0,0 +1,96 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+/**
+ * Recommendations from a user's favourite genres, preferred platforms, price
+ * limit, owned games and wishlist.
+ *
+ * Profiles are compiled once into a {@link CompiledProfile} and kept in a
+ * least-recently-used cache, so repeated requests only run the search. A
+ * cached profile is recompiled when the catalog or the user changes.
+ */
+public class ProfileRecommender {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private final MatchScorer scorer;
+    private final Map<String, CompiledProfile> profiles;
+
+    public ProfileRecommender(GameDatabase gameDatabase, UserDatabase userDatabase, MatchScorer scorer) {
+        this(gameDatabase, userDatabase, scorer, DEFAULT_CACHE_SIZE);
+    }
+
+    public ProfileRecommender(GameDatabase gameDatabase, UserDatabase userDatabase, MatchScorer scorer,
+            int cacheSize) {
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        this.scorer = scorer;
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledProfile> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Best matches for the user's profile, excluding owned games. Unknown users
+     * get no recommendations.
+     */
+    public List<Game> getRecommendationsForUser(String userId, int limit) {
+        CompiledProfile profile = getProfile(userId);
+        if (profile == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        TopKHeap heap = new TopKHeap(limit);
+        profile.search(heap);
+        CatalogIndex index = profile.getIndex();
+        List<Game> recommendations = new ArrayList<>(heap.size());
+        for (int ordinal : heap.drainOrdinals()) {
+            recommendations.add(index.gameAt(ordinal));
+        }
+        return recommendations;
+    }
+
+    /**
+     * Returns the compiled profile of the user, compiling it if it is missing
+     * or stale.
+     */
+    public CompiledProfile getProfile(String userId) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        long userVersion = userDatabase.getUserVersion(userId);
+        synchronized (profiles) {
+            CompiledProfile cached = profiles.get(userId);
+            if (cached != null && cached.getIndex() == index && cached.getUserVersion() == userVersion) {
+                return cached;
+            }
+        }
+
+        User user = userDatabase.findUserById(userId);
+        if (user == null) {
+            return null;
+        }
+        CompiledProfile compiled = CompiledProfile.compile(index, user, userVersion, scorer);
+        synchronized (profiles) {
+            profiles.put(userId, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * @return the number of cached profiles
+     */
+    public int cachedProfiles() {
+        synchronized (profiles) {
+            return profiles.size();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * "More like this" from random walks with restart over a {@link GameGraph}.
+ *
+ * A walk starts at the query game, hops to a random developer, publisher,
+ * tag or player of it, and from there to a random game linked to that node,
+ * which is counted as a visit. After each such step it jumps back to the
+ * query game with the restart probability. The games visited most often are
+ * recommended. Since walks follow players and shared tags rather than
+ * genres, results can cross genre boundaries.
+ *
+ * Each request has a fixed budget of steps, split between walkers that run
+ * in parallel with their own random streams and sparse visit counts, so
+ * latency and memory are bounded by the budget rather than the size of the
+ * graph. When the catalog or the user data changes, the graph is rebuilt on
+ * a background thread and the previous graph is walked until it is ready;
+ * only the very first graph is built on the calling thread.
+ */
+public class RandomWalkRecommender implements Closeable {
+    public static final int DEFAULT_STEPS = 10_000;
+    public static final int DEFAULT_WALKERS = 4;
+    public static final double DEFAULT_RESTART_PROBABILITY = 0.3;
+
+    private static final Logger logger = LoggerFactory.getLogger(RandomWalkRecommender.class);
+
+    private final GameDatabase gameDatabase;
+    private final UserDatabase userDatabase;
+    private final int steps;
+    private final int walkers;
+    private final double restartProbability;
+    private volatile GameGraph graph;
+    // Set while a rebuild is queued or running, so that requests queue at most one
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "game-graph-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RandomWalkRecommender(GameDatabase gameDatabase, UserDatabase userDatabase, int steps, int walkers,
+            double restartProbability) {
+        if (steps <= 0 || walkers <= 0 || !(restartProbability > 0 && restartProbability <= 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid random walk parameters: steps=%d, walkers=%d, restartProbability=%s",
+                    steps, walkers, restartProbability));
+        }
+        this.gameDatabase = gameDatabase;
+        this.userDatabase = userDatabase;
+        this.steps = steps;
+        this.walkers = walkers;
+        this.restartProbability = restartProbability;
+    }
+
+    /**
+     * Returns the latest graph. After a catalog or user change it queues a
+     * rebuild and returns the previous graph; only a missing graph is built
+     * on the calling thread.
+     */
+    public GameGraph getGraph() {
+        GameGraph current = graph;
+        if (current == null) {
+            return refreshGraph();
+        }
+        if (!isCurrent(current) && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuilder.execute(() -> {
+                    try {
+                        refreshGraph();
+                    } catch (RuntimeException e) {
+                        logger.error("Error rebuilding the game graph", e);
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed; keep walking the last graph
+                rebuilding.set(false);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Builds the graph for the current catalog and user data now, unless the
+     * latest graph already is.
+     */
+    public synchronized GameGraph refreshGraph() {
+        GameGraph current = graph;
+        if (current == null || !isCurrent(current)) {
+            current = GameGraph.build(gameDatabase.getCatalogIndex(), gameDatabase, userDatabase);
+            graph = current;
+        }
+        return current;
+    }
+
+    private boolean isCurrent(GameGraph current) {
+        return current.getCatalog() == gameDatabase.getCatalogIndex()
+                && current.getUserVersion() == userDatabase.getVersion();
+    }
+
+    /**
+     * Games visited most often by walks from the given game, most first. The
+     * game itself is left out.
+     */
+    public List<Game> getMoreLikeThis(String gameId, int limit) {
+        return getMoreLikeThis(gameId, limit, ThreadLocalRandom.current().nextLong());
+    }
+
+    List<Game> getMoreLikeThis(String gameId, int limit, long seed) {
+        GameGraph current = getGraph();
+        int query = current.getCatalog().ordinalOf(gameId);
+        List<Game> games = new ArrayList<>();
+        if (query < 0 || limit <= 0) {
+            return games;
+        }
+
+        IntIntHashMap visits = visitCounts(current, query, seed);
+        TopKHeap heap = new TopKHeap(limit);
+        visits.forEach((ordinal, count) -> {
+            if (ordinal != query) {
+                heap.offer(ordinal, count);
+            }
+        });
+        for (int ordinal : heap.drainOrdinals()) {
+            games.add(current.getCatalog().gameAt(ordinal));
+        }
+        return games;
+    }
+
+    /**
+     * Runs the request's walkers in parallel and sums their visit counts,
+     * keyed by the ordinal of every visited game. The same seed always gives
+     * the same counts.
+     */
+    IntIntHashMap visitCounts(GameGraph graph, int query, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[walkers];
+        for (int w = 0; w < walkers; w++) {
+            randoms[w] = root.split();
+        }
+        List<IntIntHashMap> counts = IntStream.range(0, walkers).parallel()
+                .mapToObj(w -> walk(graph, query, steps / walkers + (w < steps % walkers ? 1 : 0), randoms[w]))
+                .toList();
+        IntIntHashMap visits = counts.get(0);
+        for (int w = 1; w < counts.size(); w++) {
+            counts.get(w).forEach((ordinal, count) -> visits.put(ordinal, visits.get(ordinal, 0) + count, 0));
+        }
+        return visits;
+    }
+
+    private IntIntHashMap walk(GameGraph graph, int query, int steps, SplittableRandom random) {
+        // A walker visits at most one game per step
+        IntIntHashMap visits = new IntIntHashMap(Math.min(steps, graph.gameCount()));
+        int game = query;
+        for (int step = 0; step < steps; step++) {
+            int degree = graph.degree(game);
+            if (degree == 0) {
+                // Only the query game can be isolated; nothing is reachable
+                break;
+            }
+            int link = graph.neighbour(game, random.nextInt(degree));
+            game = graph.neighbour(link, random.nextInt(graph.degree(link)));
+            visits.put(game, visits.get(game, 0) + 1, 0);
+            if (random.nextDouble() < restartProbability) {
+                game = query;
+            }
+        }
+        return visits;
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Weights of a blended ranking: {@code match * matchScore + metacritic *
+ * metacriticScore + recency * recency}, with every attribute normalised to
+ * [0, 1]. Weights must be non-negative so the blend stays monotone, which the
+ * threshold algorithm relies on.
+ */
+public final class RankingWeights {
+    public static final RankingWeights MATCH_ONLY = new RankingWeights(1.0, 0.0, 0.0);
+
+    private final double match;
+    private final double metacritic;
+    private final double recency;
+
+    private RankingWeights(double match, double metacritic, double recency) {
+        this.match = match;
+        this.metacritic = metacritic;
+        this.recency = recency;
+    }
+
+    public static RankingWeights of(double match, double metacritic, double recency) {
+        if (!(match >= 0) || !(metacritic >= 0) || !(recency >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Ranking weights must be non-negative: match=%s, metacritic=%s, recency=%s",
+                    match, metacritic, recency));
+        }
+        return new RankingWeights(match, metacritic, recency);
+    }
+
+    public double getMatch() {
+        return match;
+    }
+
+    public double getMetacritic() {
+        return metacritic;
+    }
+
+    public double getRecency() {
+        return recency;
+    }
+}
@@ -1,23 +1,114 @@
 package com.sviat.gamerecommender.service;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 
 import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.util.IntIntHashMap;
 
 public class RecommendationEngine {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+    public static final int DEFAULT_RELATED_NEIGHBOURS = 10;
+    public static final int DEFAULT_LSH_BANDS = 32;
+    public static final int DEFAULT_LSH_ROWS = 3;
+    public static final int DEFAULT_DIVERSITY_CANDIDATES = 50;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_BATCH_QUERIES = 100;
+    // Score-array marker for the seeds of a multi-seed query
+    private static final int SEED = -1;
+
     private final GameDatabase gameDatabase;
+    private final MatchScorer defaultScorer;
+    private final ScoringKernel scoringKernel = ScoringKernels.best();
+    // Catalog size and candidate count from which a query is split across cores
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    // Length of the precomputed related-games lists
+    private int relatedNeighbours = DEFAULT_RELATED_NEIGHBOURS;
+    private volatile RelatedGamesIndex relatedGamesIndex;
+    // MinHash signature layout for approximate related games
+    private int lshBands = DEFAULT_LSH_BANDS;
+    private int lshRows = DEFAULT_LSH_ROWS;
+    private volatile MinHashIndex minHashIndex;
+    // Number of top matches the diversity re-ranking picks from
+    private int diversityCandidates = DEFAULT_DIVERSITY_CANDIDATES;
+    private final ThreadLocal<DiversityReranker> diversityRerankers = ThreadLocal.withInitial(DiversityReranker::new);
+    // Default time budget of a bounded multi-filter query; zero means unbounded
+    private Duration timeBudget = Duration.ZERO;
+    // Most queries one batch may hold
+    private int maxBatchQueries = DEFAULT_MAX_BATCH_QUERIES;
 
     public RecommendationEngine(GameDatabase gameDatabase) {
+        this(gameDatabase, WeightedMatchScorer.DEFAULT);
+    }
+
+    public RecommendationEngine(GameDatabase gameDatabase, MatchScorer defaultScorer) {
         this.gameDatabase = gameDatabase;
+        this.defaultScorer = defaultScorer;
+    }
+
+    public MatchScorer getDefaultScorer() {
+        return defaultScorer;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void setRelatedNeighbours(int relatedNeighbours) {
+        this.relatedNeighbours = relatedNeighbours;
+    }
+
+    public void setDiversityCandidates(int diversityCandidates) {
+        this.diversityCandidates = diversityCandidates;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * The budget of a query whose client asked for one: the configured budget
+     * is an upper bound, so a client can only shorten it. Missing, zero or
+     * negative requests get the configured budget.
+     *
+     * @param requested Budget the client asked for, or null
+     */
+    public Duration boundedTimeBudget(Duration requested) {
+        Duration limit = timeBudget;
+        if (requested == null || requested.isZero() || requested.isNegative()) {
+            return limit;
+        }
+        if (limit.isZero() || limit.isNegative()) {
+            return requested;
+        }
+        return requested.compareTo(limit) < 0 ? requested : limit;
+    }
+
+    public void setMaxBatchQueries(int maxBatchQueries) {
+        this.maxBatchQueries = maxBatchQueries;
+    }
+
+    public synchronized void setLshParameters(int bands, int rows) {
+        this.lshBands = bands;
+        this.lshRows = rows;
+        this.minHashIndex = null;
     }
 
     public List<Game> getRecommendationsByGenre(Set<String> genres, int limit) {
@@ -27,7 +118,7 @@ public class RecommendationEngine {
                         .count())
                 .reversed();
 
-        return gameDatabase.getAllGames().stream()
+        return gameDatabase.copyOfGames().stream()
                 // keep only games that match at least one genre
                 .filter(g -> !java.util.Collections.disjoint(g.getGenres(), genres))
                 // sort by number of matching genres (desc)
@@ -37,7 +128,7 @@ public class RecommendationEngine {
     }
 
     public List<Game> getRecommendationsByMetacriticScore(int limit) {
-        return gameDatabase.getAllGames().stream()
+        return gameDatabase.copyOfGames().stream()
                 // sort by metacritic score (desc)
                 .sorted(Comparator.comparingInt(Game::getMetacriticScore).reversed())
                 .limit(limit)
@@ -45,7 +136,7 @@ public class RecommendationEngine {
     }
 
     public List<Game> getRecommendationsByDeveloper(String developer, int limit) {
-        return gameDatabase.getAllGames().stream()
+        return gameDatabase.copyOfGames().stream()
                 // keep only games by the specified developer
                 .filter(g -> g.getDeveloper().equals(developer))
                 // sort by metacritic score (desc)
@@ -55,7 +146,7 @@ public class RecommendationEngine {
     }
 
     public List<Game> getRecommendationsByPlatform(String platform, int limit) {
-        return gameDatabase.getAllGames().stream()
+        return gameDatabase.copyOfGames().stream()
                 // keep only games by the specified platform
                 .filter(g -> g.getPlatforms().contains(platform))
                 // sort by metacritic score (desc)
@@ -78,7 +169,7 @@ public class RecommendationEngine {
             }
         };
 
-        return gameDatabase.getAllGames().stream()
+        return gameDatabase.copyOfGames().stream()
                 // Filter out games with null or empty release dates
                 .filter(game -> game.getReleaseDate() != null && !game.getReleaseDate().isEmpty())
                 // Sort by parsed release date (descending order)
@@ -95,72 +186,303 @@ public class RecommendationEngine {
      * matches
      * 3. Sort by match score (descending) and then by metacritic score (descending)
      * 4. Limit to the requested number of results
+     *
+     * Runs as a MaxScore top-K search over the catalog index, so games that can
+     * no longer reach the top results are skipped without being scored. Dense
+     * queries are instead scanned with the (SIMD when available) scoring kernel.
      */
     public List<Game> getMultiFilterRecommendations(Set<String> genres, Set<String> tags, int limit) {
-        // Prepare filters, handling null cases
-        final Set<String> effectiveGenres = (genres != null) ? genres : Set.of();
-        final Set<String> effectiveTags = (tags != null) ? tags : Set.of();
+        return getMultiFilterRecommendations(genres, tags, defaultScorer, limit);
+    }
 
-        // Remove any empty strings from the filter sets
-        final Set<String> cleanGenres = effectiveGenres.stream()
-                .filter(genre -> !genre.isEmpty())
-                .collect(Collectors.toSet());
-        final Set<String> cleanTags = effectiveTags.stream()
-                .filter(tag -> !tag.isEmpty())
-                .collect(Collectors.toSet());
+    /**
+     * Multi-filter recommendations ranked with the given scorer instead of the
+     * engine's default one.
+     */
+    public List<Game> getMultiFilterRecommendations(Set<String> genres, Set<String> tags, MatchScorer scorer,
+            int limit) {
+        // Prepare filters, handling null cases and removing empty strings
+        final Set<String> cleanGenres = cleanCriteria(genres);
+        final Set<String> cleanTags = cleanCriteria(tags);
 
         // If no criteria provided, return empty collection
         if (cleanGenres.isEmpty() && cleanTags.isEmpty()) {
             return List.of(); // Return empty list when no search criteria provided
         }
 
-        // Get all games
-        List<Game> allGames = new ArrayList<>(gameDatabase.getAllGames());
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery query = MatchQuery.compile(index, cleanGenres, cleanTags, scorer);
+        return toGames(index, searchTopK(index, query, limit).drainOrdinals());
+    }
 
-        // Create a comparator that sorts by match quality
-        Comparator<Game> byMatchQuality = (game1, game2) -> {
-            // Calculate match scores for both games
-            int score1 = calculateMatchScore(game1, cleanGenres, cleanTags);
-            int score2 = calculateMatchScore(game2, cleanGenres, cleanTags);
+    public List<Game> getDiverseRecommendations(Set<String> genres, Set<String> tags, double diversity,
+            int limit) {
+        return getDiverseRecommendations(genres, tags, defaultScorer, diversity, limit);
+    }
 
-            // First sort by match score (descending)
-            int scoreComparison = Integer.compare(score2, score1);
-            if (scoreComparison != 0) {
-                return scoreComparison;
-            }
+    /**
+     * Multi-filter recommendations re-ranked for diversity, so that the
+     * results are not all from one series or developer. The top matches are
+     * re-ranked with maximal marginal relevance (see {@link DiversityReranker}),
+     * trading normalised match score against similarity to the games already
+     * picked.
+     *
+     * @param diversity 0 keeps the multi-filter order; 1 ranks by
+     *                  dissimilarity alone
+     */
+    public List<Game> getDiverseRecommendations(Set<String> genres, Set<String> tags, MatchScorer scorer,
+            double diversity, int limit) {
+        if (diversity < 0 || diversity > 1) {
+            throw new IllegalArgumentException("Diversity must be between 0 and 1: " + diversity);
+        }
+        final Set<String> cleanGenres = cleanCriteria(genres);
+        final Set<String> cleanTags = cleanCriteria(tags);
+        if (cleanGenres.isEmpty() && cleanTags.isEmpty() || limit <= 0) {
+            return List.of();
+        }
 
-            // If match scores are equal, sort by metacritic score (descending)
-            return Integer.compare(game2.getMetacriticScore(), game1.getMetacriticScore());
-        };
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery query = MatchQuery.compile(index, cleanGenres, cleanTags, scorer);
+        TopKHeap candidates = searchTopK(index, query, Math.max(limit, diversityCandidates));
+        int[] ordinals = new int[candidates.size()];
+        double[] relevance = new double[candidates.size()];
+        int count = candidates.drainInto(ordinals, relevance);
+        for (int i = 0; i < count; i++) {
+            relevance[i] /= Math.max(1, query.maxScore());
+        }
+        int picks = diversityRerankers.get().rerank(index, ordinals, relevance, count, 1 - diversity, limit);
+        return toGames(index, Arrays.copyOf(ordinals, picks));
+    }
 
-        // Filter games that match any criteria using score-based filtering
-        List<Game> matchingGames = allGames.stream()
-                .filter(game -> calculateMatchScore(game, cleanGenres, cleanTags) > 0)
-                .collect(Collectors.toList());
+    /**
+     * One query of a batch: genre and tag criteria and the scorer to rank by.
+     */
+    public record BatchQuery(Set<String> genres, Set<String> tags, MatchScorer scorer) {
+    }
+
+    /**
+     * Multi-filter recommendations for many queries at once, in one pass
+     * over the catalog (see {@link BatchSearcher}) instead of one per query.
+     * Each result is the same as a separate
+     * {@link #getMultiFilterRecommendations(Set, Set, MatchScorer, int)} call.
+     *
+     * @param limit Most games per query, at most {@link #MAX_PAGE_SIZE}
+     * @return one list per query, in query order
+     * @throws IllegalArgumentException if there are more queries than the
+     *                                  configured batch maximum, or the limit
+     *                                  is above {@link #MAX_PAGE_SIZE}
+     */
+    public List<List<Game>> getBatchRecommendations(List<BatchQuery> queries, int limit) {
+        if (queries.size() > maxBatchQueries) {
+            throw new IllegalArgumentException("A batch holds at most " + maxBatchQueries + " queries, got "
+                    + queries.size());
+        }
+        if (limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("A batch returns at most " + MAX_PAGE_SIZE + " games per query, got "
+                    + limit);
+        }
+        int pageSize = Math.max(0, limit);
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery[] compiled = new MatchQuery[queries.size()];
+        TopKHeap[] heaps = new TopKHeap[queries.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            BatchQuery query = queries.get(i);
+            MatchScorer scorer = query.scorer() != null ? query.scorer() : defaultScorer;
+            compiled[i] = MatchQuery.compile(index, cleanCriteria(query.genres()), cleanCriteria(query.tags()),
+                    scorer);
+            heaps[i] = new TopKHeap(pageSize);
+        }
+        BatchSearcher.search(index, compiled, heaps);
+
+        List<List<Game>> results = new ArrayList<>(heaps.length);
+        for (TopKHeap heap : heaps) {
+            results.add(toGames(index, heap.drainOrdinals()));
+        }
+        return results;
+    }
+
+    /**
+     * Recommendations found within a time budget, and whether the search was
+     * cut off before it covered the whole catalog.
+     */
+    public record BoundedResult(List<Game> games, boolean partial) {
+    }
+
+    /**
+     * Multi-filter recommendations within a time budget. The catalog is
+     * searched best metacritic score first (see {@link DeadlineSearcher});
+     * when a tenth of the budget is left, the search stops and the best
+     * games found so far are returned, flagged as partial. Bounded queries
+     * run on the calling thread only.
+     *
+     * @param budget Time allowed for the query; zero or negative means no limit
+     */
+    public BoundedResult getMultiFilterRecommendations(Set<String> genres, Set<String> tags, MatchScorer scorer,
+            int limit, Duration budget) {
+        return getMultiFilterRecommendations(genres, tags, scorer, limit, budget, System::nanoTime,
+                DeadlineSearcher.SLICE_SIZE);
+    }
+
+    BoundedResult getMultiFilterRecommendations(Set<String> genres, Set<String> tags, MatchScorer scorer,
+            int limit, Duration budget, LongSupplier nanoClock, int sliceSize) {
+        long start = nanoClock.getAsLong();
+        final Set<String> cleanGenres = cleanCriteria(genres);
+        final Set<String> cleanTags = cleanCriteria(tags);
+        if (cleanGenres.isEmpty() && cleanTags.isEmpty()) {
+            return new BoundedResult(List.of(), false);
+        }
+
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery query = MatchQuery.compile(index, cleanGenres, cleanTags, scorer);
+        if (budget.isZero() || budget.isNegative()) {
+            return new BoundedResult(toGames(index, searchTopK(index, query, limit).drainOrdinals()), false);
+        }
+        // Leave a tenth of the budget for building the response
+        long deadline = start + budget.toNanos() - budget.toNanos() / 10;
+        TopKHeap topK = new TopKHeap(limit);
+        boolean complete = DeadlineSearcher.search(index, query, scoringKernel, deadline, nanoClock, sliceSize,
+                topK);
+        return new BoundedResult(toGames(index, topK.drainOrdinals()), !complete);
+    }
+
+    /**
+     * One page of multi-filter recommendations and the cursor of the next
+     * page, or null if this is the last one.
+     */
+    public record RecommendationPage(List<Game> games, String nextCursor) {
+    }
+
+    /**
+     * Multi-filter recommendations one page at a time. A page resumes after
+     * the last game of the previous one, named by its cursor, with a top-K
+     * search that only admits games ranked after it (see
+     * {@link TopKHeap#after}). No earlier page is sorted or kept, but the
+     * games ranked before the cursor are still scored and then rejected, and
+     * the heap's threshold stays below the cursor's score, so later pages
+     * prune less than the first. A page costs up to scoring every game
+     * matching a criterion once: bounded by the query's postings whatever
+     * the page number, but more than the first page.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the
+     *               first page
+     * @param limit  Page size, capped at {@link #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the cursor is malformed or was made
+     *                                  for an older catalog version
+     */
+    public RecommendationPage getMultiFilterRecommendationsPage(Set<String> genres, Set<String> tags,
+            MatchScorer scorer, String cursor, int limit) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+        if (after != null && after.catalogVersion() != index.getVersion()) {
+            throw new IllegalArgumentException("Cursor is for catalog version " + after.catalogVersion()
+                    + ", current version is " + index.getVersion());
+        }
+        final Set<String> cleanGenres = cleanCriteria(genres);
+        final Set<String> cleanTags = cleanCriteria(tags);
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        if (cleanGenres.isEmpty() && cleanTags.isEmpty() || pageSize <= 0) {
+            return new RecommendationPage(List.of(), null);
+        }
+
+        MatchQuery query = MatchQuery.compile(index, cleanGenres, cleanTags, scorer);
+        TopKHeap topK = searchTopK(index, query, after != null
+                ? TopKHeap.after(pageSize, after.ordinal(), after.score())
+                : new TopKHeap(pageSize));
+        int[] ordinals = new int[topK.size()];
+        double[] scores = new double[topK.size()];
+        int count = topK.drainInto(ordinals, scores);
+        // A short page is the last one
+        String nextCursor = count == pageSize
+                ? new PageCursor(index.getVersion(), (int) scores[count - 1], ordinals[count - 1]).encode()
+                : null;
+        return new RecommendationPage(toGames(index, ordinals), nextCursor);
+    }
 
-        // If no matches found, return empty collection
-        if (matchingGames.isEmpty()) {
+    /**
+     * Top-K search shared by the multi-filter queries: walks the posting lists
+     * of the query terms with MaxScore pruning, or scans the bitmask columns
+     * when the query covers most of the catalog. Large queries are split
+     * across cores; small ones stay on the calling thread.
+     */
+    TopKHeap searchTopK(CatalogIndex index, MatchQuery query, int limit) {
+        return searchTopK(index, query, new TopKHeap(limit));
+    }
+
+    /**
+     * Like {@link #searchTopK(CatalogIndex, MatchQuery, int)}, into an empty
+     * heap that may carry a page bound.
+     */
+    TopKHeap searchTopK(CatalogIndex index, MatchQuery query, TopKHeap topK) {
+        if (ParallelSearcher.shouldParallelize(index, query, parallelThreshold)) {
+            return ParallelSearcher.search(ForkJoinPool.commonPool(), index, query, scoringKernel, topK);
+        }
+        ParallelSearcher.searchRange(index, query, scoringKernel,
+                DenseScanner.prefersDenseScan(index, query), 0, index.size(), topK);
+        return topK;
+    }
+
+    /**
+     * Blended recommendation method: keeps the same candidates as
+     * getMultiFilterRecommendations (games matching at least one criterion) but
+     * ranks them by a weighted blend of normalised match score, metacritic
+     * score and release recency. Equal blends fall back to the catalog
+     * tie-break order (metacritic score, then catalog position).
+     *
+     * Uses the threshold algorithm, so scanning stops as soon as the top
+     * results are final instead of blending every candidate.
+     *
+     * @param genres  Set of genres to match
+     * @param tags    Set of tags to match
+     * @param weights Weights of the blended attributes
+     * @param limit   Maximum number of games to return
+     * @return Games ordered by blended score (descending)
+     */
+    public List<Game> getBlendedRecommendations(Set<String> genres, Set<String> tags, RankingWeights weights,
+            int limit) {
+        return getBlendedRecommendations(genres, tags, weights, defaultScorer, limit);
+    }
+
+    /**
+     * Blended recommendations whose match attribute comes from the given scorer.
+     */
+    public List<Game> getBlendedRecommendations(Set<String> genres, Set<String> tags, RankingWeights weights,
+            MatchScorer scorer, int limit) {
+        final Set<String> cleanGenres = cleanCriteria(genres);
+        final Set<String> cleanTags = cleanCriteria(tags);
+        if (cleanGenres.isEmpty() && cleanTags.isEmpty()) {
             return List.of();
         }
 
-        // Sort by match quality
-        return matchingGames.stream()
-                .sorted(byMatchQuality)
-                .limit(limit)
-                .collect(Collectors.toList());
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery query = MatchQuery.compile(index, cleanGenres, cleanTags, scorer);
+        TopKHeap topK = new TopKHeap(limit);
+        BlendedRanker.rank(index, query, weights, topK);
+
+        return toGames(index, topK.drainOrdinals());
+    }
+
+    private static Set<String> cleanCriteria(Set<String> criteria) {
+        if (criteria == null) {
+            return Set.of();
+        }
+        return criteria.stream()
+                .filter(criterion -> !criterion.isEmpty())
+                .collect(Collectors.toSet());
     }
 
-    // Constants for scoring algorithm
-    private static final int PERFECT_MATCH_SCORE = 100;
-    private static final int PARTIAL_MATCH_BASE_SCORE = 60;
-    private static final double GENRE_WEIGHT = 2.0; // Genres weighted more than tags
-    private static final double TAG_WEIGHT = 1.0;
+    private static List<Game> toGames(CatalogIndex index, int[] ordinals) {
+        List<Game> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(index.gameAt(ordinal));
+        }
+        return result;
+    }
 
     /**
      * Calculates a match score for a game based on how well it matches the provided
-     * criteria.
+     * criteria, using the engine's default scorer.
      * The score is higher for games that match more criteria.
-     * Genres are weighted slightly more than tags in the scoring algorithm.
+     * Genres are weighted slightly more than tags in the default scoring algorithm.
      * 
      * @param game   The game to evaluate
      * @param genres Set of genres to match
@@ -168,32 +490,157 @@ public class RecommendationEngine {
      * @return A score representing how well the game matches the criteria
      */
     public int calculateMatchScore(Game game, Set<String> genres, Set<String> tags) {
-        double score = 0.0;
+        return calculateMatchScore(game, genres, tags, defaultScorer);
+    }
 
-        // Calculate genre match score (how many genres match)
+    /**
+     * Calculates a match score for a game with the given scorer.
+     */
+    public int calculateMatchScore(Game game, Set<String> genres, Set<String> tags, MatchScorer scorer) {
+        int genreMatches = 0;
         if (!genres.isEmpty()) {
-            long genreMatches = game.getGenres().stream()
+            genreMatches = (int) game.getGenres().stream()
                     .filter(genres::contains)
                     .count();
-
-            double matchRatio = (double) genreMatches / genres.size();
-            score += GENRE_WEIGHT * (matchRatio == 1.0 ? PERFECT_MATCH_SCORE : PARTIAL_MATCH_BASE_SCORE * matchRatio);
         }
 
-        // Calculate tag match score (how many tags match)
+        int tagMatches = 0;
         if (!tags.isEmpty()) {
-            long tagMatches = game.getTags().stream()
+            tagMatches = (int) game.getTags().stream()
                     .filter(tags::contains)
                     .count();
-
-            double matchRatio = (double) tagMatches / tags.size();
-            score += TAG_WEIGHT * (matchRatio == 1.0 ? PERFECT_MATCH_SCORE : PARTIAL_MATCH_BASE_SCORE * matchRatio);
         }
 
-        return (int) Math.round(score);
+        return scorer.score(genreMatches, genres.size(), tagMatches, tags.size());
+    }
+
+    /**
+     * Returns the neighbour lists for the current catalog version, rebuilding
+     * them from the previous version when the catalog has changed.
+     */
+    public RelatedGamesIndex getRelatedGamesIndex() {
+        RelatedGamesIndex related = relatedGamesIndex;
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        if (related != null && related.getVersion() == index.getVersion()) {
+            return related;
+        }
+        synchronized (this) {
+            related = relatedGamesIndex;
+            if (related == null || related.getVersion() != index.getVersion()) {
+                related = RelatedGamesIndex.build(index, defaultScorer, relatedNeighbours, related);
+                relatedGamesIndex = related;
+            }
+            return related;
+        }
     }
 
     public List<Map<String, String>> getRelatedGames(String gameId, int limit) {
+        if (limit > relatedNeighbours) {
+            return queryRelatedGames(gameId, limit);
+        }
+        RelatedGamesIndex related = getRelatedGamesIndex();
+        int ordinal = related.getCatalog().ordinalOf(gameId);
+        if (ordinal < 0) {
+            return queryRelatedGames(gameId, limit);
+        }
+
+        int count = Math.min(limit, related.neighbourCount(ordinal));
+        List<Map<String, String>> relatedGames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            relatedGames.add(related.summaryAt(related.neighbourAt(ordinal, i)));
+        }
+        return relatedGames;
+    }
+
+    /**
+     * "Because you played": games related to any of the seed games, ranked by
+     * the sum of their related-games scores over all seeds. Seeds are never
+     * returned.
+     *
+     * Scores accumulate in a map sized by the seeds' neighbour lists, so the
+     * cost and memory are proportional to those lists rather than the
+     * catalog. Seeds not in the catalog are ignored.
+     */
+    public List<Game> getRelatedToSeeds(Collection<String> seedIds, int limit) {
+        RelatedGamesIndex related = getRelatedGamesIndex();
+        CatalogIndex index = related.getCatalog();
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Seeds are marked with SEED so that neighbour scores skip them
+        IntIntHashMap scores = new IntIntHashMap(
+                Math.min(index.size(), seedIds.size() * (related.getNeighboursPerGame() + 1)));
+        int[] seeds = new int[seedIds.size()];
+        int seedCount = 0;
+        for (String seedId : seedIds) {
+            int ordinal = index.ordinalOf(seedId);
+            if (ordinal >= 0 && scores.put(ordinal, SEED, 0) != SEED) {
+                seeds[seedCount++] = ordinal;
+            }
+        }
+        for (int s = 0; s < seedCount; s++) {
+            int seed = seeds[s];
+            for (int i = 0; i < related.neighbourCount(seed); i++) {
+                int ordinal = related.neighbourAt(seed, i);
+                int score = related.neighbourScoreAt(seed, i);
+                int current = scores.get(ordinal, 0);
+                if (score > 0 && current != SEED) {
+                    scores.put(ordinal, current + score, 0);
+                }
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(limit);
+        scores.forEach((ordinal, score) -> {
+            if (score != SEED) {
+                heap.offer(ordinal, score);
+            }
+        });
+        return toGames(index, heap.drainOrdinals());
+    }
+
+    /**
+     * Returns the MinHash index for the current catalog version, building it
+     * when the catalog has changed.
+     */
+    public MinHashIndex getMinHashIndex() {
+        MinHashIndex lsh = minHashIndex;
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        if (lsh != null && lsh.getVersion() == index.getVersion()) {
+            return lsh;
+        }
+        synchronized (this) {
+            lsh = minHashIndex;
+            if (lsh == null || lsh.getVersion() != index.getVersion()) {
+                lsh = MinHashIndex.build(index, lshBands, lshRows);
+                minHashIndex = lsh;
+            }
+            return lsh;
+        }
+    }
+
+    /**
+     * Approximate related games: only games sharing a MinHash band with the
+     * game are scored, so some exact matches may be missed.
+     */
+    public List<Game> getApproximateRelatedGames(String gameId, int limit) {
+        MinHashIndex lsh = getMinHashIndex();
+        CatalogIndex index = lsh.getCatalog();
+        int ordinal = index.ordinalOf(gameId);
+        if (ordinal < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        TopKHeap heap = new TopKHeap(limit);
+        lsh.search(ordinal, MatchQuery.similarTo(index, ordinal, defaultScorer), heap);
+        return toGames(index, heap.drainOrdinals());
+    }
+
+    /**
+     * Related games computed with a full query, for limits beyond the
+     * precomputed lists.
+     */
+    private List<Map<String, String>> queryRelatedGames(String gameId, int limit) {
         Game game = gameDatabase.findGameById(gameId);
 
         // Get related games and remove the game itself from the list
@@ -0,0 +1,253 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Precomputed "related games" lists for one catalog version.
+ *
+ * For every game, the top-N games of a multi-filter query on its own genres
+ * and tags (itself excluded) are stored as ordinals in one flat array, so
+ * serving related games is an array lookup. Lists are computed in parallel.
+ *
+ * When built from the previous version's index, only games whose list can
+ * change are recomputed: added or changed games, and every game sharing a
+ * genre or tag with an added, changed or removed game. The other lists are
+ * remapped to the new ordinals.
+ */
+public final class RelatedGamesIndex {
+    private final CatalogIndex catalog;
+    private final MatchScorer scorer;
+    private final int neighboursPerGame;
+    // Neighbour i of ordinal o lives at o * neighboursPerGame + i
+    private final int[] neighbours;
+    private final int[] scores;
+    private final int[] counts;
+    private final Map<String, String>[] summaries;
+    private final int recomputedGames;
+
+    @SuppressWarnings("unchecked")
+    private RelatedGamesIndex(CatalogIndex catalog, MatchScorer scorer, int neighboursPerGame, int recomputedGames,
+            int[] neighbours, int[] scores, int[] counts) {
+        this.catalog = catalog;
+        this.scorer = scorer;
+        this.neighboursPerGame = neighboursPerGame;
+        this.recomputedGames = recomputedGames;
+        this.neighbours = neighbours;
+        this.scores = scores;
+        this.counts = counts;
+        this.summaries = new Map[catalog.size()];
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            summaries[ordinal] = summaryOf(catalog.gameAt(ordinal));
+        }
+    }
+
+    /**
+     * @return an immutable id/title map of the game, as returned to the page
+     */
+    static Map<String, String> summaryOf(Game game) {
+        Map<String, String> summary = new HashMap<>();
+        summary.put("id", game.getId());
+        summary.put("title", game.getTitle());
+        return Collections.unmodifiableMap(summary);
+    }
+
+    /**
+     * Builds the lists for a catalog version, reusing the previous index where
+     * possible.
+     *
+     * @param catalog           Snapshot to build for
+     * @param scorer            Scorer ranking the neighbours
+     * @param neighboursPerGame Number of neighbours kept per game
+     * @param previous          Index of an earlier version, or null for a full build
+     */
+    public static RelatedGamesIndex build(CatalogIndex catalog, MatchScorer scorer, int neighboursPerGame,
+            RelatedGamesIndex previous) {
+        int size = catalog.size();
+        boolean[] recompute = new boolean[size];
+        boolean reusable = previous != null && previous.scorer == scorer
+                && previous.neighboursPerGame == neighboursPerGame;
+        if (reusable) {
+            markAffectedGames(catalog, previous.catalog, recompute);
+        } else {
+            Arrays.fill(recompute, true);
+        }
+
+        int[] neighbours = new int[size * neighboursPerGame];
+        int[] scores = new int[size * neighboursPerGame];
+        int[] counts = new int[size];
+        IntStream.range(0, size).parallel().forEach(ordinal -> {
+            if (recompute[ordinal] || !remap(catalog, previous, ordinal, neighbours, scores, counts)) {
+                recompute[ordinal] = true;
+                computeNeighbours(catalog, scorer, neighboursPerGame, ordinal, neighbours, scores, counts);
+            }
+        });
+
+        int recomputed = 0;
+        for (boolean flag : recompute) {
+            recomputed += flag ? 1 : 0;
+        }
+        return new RelatedGamesIndex(catalog, scorer, neighboursPerGame, recomputed, neighbours, scores, counts);
+    }
+
+    private static void computeNeighbours(CatalogIndex catalog, MatchScorer scorer, int neighboursPerGame,
+            int ordinal, int[] neighbours, int[] scores, int[] counts) {
+        MatchQuery query = MatchQuery.similarTo(catalog, ordinal, scorer);
+
+        // One extra slot because the game itself is usually its best match
+        TopKHeap heap = new TopKHeap(neighboursPerGame + 1);
+        MaxScoreSearcher.search(catalog, query, 0, catalog.size(), heap);
+        int[] ordinals = new int[heap.size()];
+        double[] heapScores = new double[heap.size()];
+        int found = heap.drainInto(ordinals, heapScores);
+
+        String gameId = catalog.gameAt(ordinal).getId();
+        int base = ordinal * neighboursPerGame;
+        int count = 0;
+        for (int i = 0; i < found && count < neighboursPerGame; i++) {
+            if (!catalog.gameAt(ordinals[i]).getId().equals(gameId)) {
+                neighbours[base + count] = ordinals[i];
+                scores[base + count] = (int) heapScores[i];
+                count++;
+            }
+        }
+        counts[ordinal] = count;
+    }
+
+    /**
+     * Copies the previous list of an unaffected game, translated to the new
+     * ordinals.
+     *
+     * @return false if the list could not be remapped and must be recomputed
+     */
+    private static boolean remap(CatalogIndex catalog, RelatedGamesIndex previous, int ordinal,
+            int[] neighbours, int[] scores, int[] counts) {
+        int previousOrdinal = previous.catalog.ordinalOf(catalog.gameAt(ordinal).getId());
+        if (previousOrdinal < 0) {
+            return false;
+        }
+        int count = previous.counts[previousOrdinal];
+        int base = ordinal * previous.neighboursPerGame;
+        int previousBase = previousOrdinal * previous.neighboursPerGame;
+        for (int i = 0; i < count; i++) {
+            String neighbourId = previous.catalog.gameAt(previous.neighbours[previousBase + i]).getId();
+            int neighbour = catalog.ordinalOf(neighbourId);
+            if (neighbour < 0) {
+                return false;
+            }
+            neighbours[base + i] = neighbour;
+            scores[base + i] = previous.scores[previousBase + i];
+        }
+        counts[ordinal] = count;
+        return true;
+    }
+
+    /**
+     * Flags the games whose lists may differ from the previous version.
+     */
+    private static void markAffectedGames(CatalogIndex catalog, CatalogIndex previous, boolean[] recompute) {
+        Set<String> changedGenres = new HashSet<>();
+        Set<String> changedTags = new HashSet<>();
+
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            int previousOrdinal = previous.ordinalOf(catalog.gameAt(ordinal).getId());
+            Set<String> genres = catalog.genresAt(ordinal);
+            Set<String> tags = catalog.tagsAt(ordinal);
+            if (previousOrdinal < 0) {
+                recompute[ordinal] = true;
+                changedGenres.addAll(genres);
+                changedTags.addAll(tags);
+                continue;
+            }
+            Set<String> previousGenres = previous.genresAt(previousOrdinal);
+            Set<String> previousTags = previous.tagsAt(previousOrdinal);
+            if (!genres.equals(previousGenres) || !tags.equals(previousTags)
+                    || catalog.metacriticScoreAt(ordinal) != previous.metacriticScoreAt(previousOrdinal)) {
+                recompute[ordinal] = true;
+                changedGenres.addAll(genres);
+                changedGenres.addAll(previousGenres);
+                changedTags.addAll(tags);
+                changedTags.addAll(previousTags);
+            }
+        }
+        for (int previousOrdinal = 0; previousOrdinal < previous.size(); previousOrdinal++) {
+            if (catalog.ordinalOf(previous.gameAt(previousOrdinal).getId()) < 0) {
+                changedGenres.addAll(previous.genresAt(previousOrdinal));
+                changedTags.addAll(previous.tagsAt(previousOrdinal));
+            }
+        }
+
+        // Any game sharing a changed term may gain or lose a neighbour
+        for (String genre : changedGenres) {
+            int genreId = catalog.genreId(genre);
+            if (genreId >= 0) {
+                for (int ordinal : catalog.genrePostings(genreId)) {
+                    recompute[ordinal] = true;
+                }
+            }
+        }
+        for (String tag : changedTags) {
+            int tagId = catalog.tagId(tag);
+            if (tagId >= 0) {
+                for (int ordinal : catalog.tagPostings(tagId)) {
+                    recompute[ordinal] = true;
+                }
+            }
+        }
+    }
+
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+
+    public long getVersion() {
+        return catalog.getVersion();
+    }
+
+    public MatchScorer getScorer() {
+        return scorer;
+    }
+
+    public int getNeighboursPerGame() {
+        return neighboursPerGame;
+    }
+
+    /**
+     * @return how many lists were computed rather than reused in this build
+     */
+    public int getRecomputedGames() {
+        return recomputedGames;
+    }
+
+    public int neighbourCount(int ordinal) {
+        return counts[ordinal];
+    }
+
+    /**
+     * @return the ordinal of the i-th best neighbour of the game
+     */
+    public int neighbourAt(int ordinal, int i) {
+        return neighbours[ordinal * neighboursPerGame + i];
+    }
+
+    /**
+     * @return the match score of the i-th best neighbour of the game
+     */
+    public int neighbourScoreAt(int ordinal, int i) {
+        return scores[ordinal * neighboursPerGame + i];
+    }
+
+    /**
+     * @return an immutable id/title map of the game, shared across requests
+     */
+    public Map<String, String> summaryAt(int ordinal) {
+        return summaries[ordinal];
+    }
+}
@@ -0,0 +1,495 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Tells users when a new or updated game matches one of their saved
+ * searches.
+ *
+ * A saved search requires every one of its genres and tags. Instead of
+ * re-running every search against the catalog on each change, searches are
+ * indexed by one required term each, the one fewest catalog games have; a
+ * changed game is then checked only against the searches filed under its own
+ * genres and tags. Checking a game costs the number of those searches, not
+ * the number of searches times the catalog size.
+ *
+ * Matches are queued and appended to an outbox file as JSON lines, one batch
+ * at a time, on the background flush thread: as soon as the queue reaches the
+ * batch size, and periodically for a partial batch. The queue holds at most
+ * {@code maxPending} matches; while it is full, for instance because the
+ * outbox cannot be written, new matches are dropped. Each search reports a
+ * game once, however often the game is updated; a dropped match does not
+ * count, so the game is reported again on its next update.
+ *
+ * With a store file, the searches and the games each has reported are saved
+ * there as JSON whenever a search is saved or deleted and after every flush,
+ * and read back by {@link #setStoreFile}. Queued matches are not saved, so
+ * the ones not yet flushed are lost in a crash.
+ */
+public class SavedSearchPercolator implements Closeable {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_FLUSH_SECONDS = 30;
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(SavedSearchPercolator.class);
+
+    private final GameDatabase gameDatabase;
+    private final Path outbox;
+    private final int batchSize;
+    private final LongSupplier clock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Guarded by this
+    private final Map<String, SavedSearch> searches = new LinkedHashMap<>();
+    private final Map<String, List<SavedSearch>> searchesByTerm = new HashMap<>();
+    // The term each search is filed under, which depends on the catalog when it was saved
+    private final Map<String, String> anchorTerms = new HashMap<>();
+    private final Map<String, Set<String>> reportedGames = new HashMap<>();
+    private long nextId = 1;
+    // Bumped on every change to the searches or the reported games
+    private long stateVersion;
+    // Guarded by itself; flushing is serialised by flushLock so batches keep their order
+    private final List<Match> pending = new ArrayList<>();
+    private final Object flushLock = new Object();
+    private int maxPending = DEFAULT_MAX_PENDING;
+    // Set while a flush of a full batch is queued, so that matches queue at most one
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile ScheduledExecutorService scheduler;
+    // Store writes are serialised by stateLock, which is taken before this
+    private final Object stateLock = new Object();
+    private Path storeFile;
+    private long writtenVersion;
+
+    public SavedSearchPercolator(GameDatabase gameDatabase, Path outbox, int batchSize) {
+        this(gameDatabase, outbox, batchSize, System::currentTimeMillis);
+    }
+
+    SavedSearchPercolator(GameDatabase gameDatabase, Path outbox, int batchSize, LongSupplier clock) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Saved search batch size must be positive: " + batchSize);
+        }
+        this.gameDatabase = gameDatabase;
+        this.outbox = outbox;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * A user's standing search for games with all of the given genres and tags.
+     */
+    public record SavedSearch(String id, String userId, Set<String> genres, Set<String> tags) {
+    }
+
+    /**
+     * A saved search as kept in the store file, with the games it has reported.
+     */
+    record StoredSearch(String id, String userId, Set<String> genres, Set<String> tags,
+            Set<String> reportedGames) {
+    }
+
+    /**
+     * The contents of the store file.
+     */
+    record StoredState(long nextId, List<StoredSearch> searches) {
+    }
+
+    /**
+     * Sets the most matches queued for the outbox; while the queue is full,
+     * new matches are dropped.
+     */
+    public void setMaxPending(int maxPending) {
+        if (maxPending < batchSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Saved search queue (%d) must hold at least one batch (%d)", maxPending, batchSize));
+        }
+        synchronized (pending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    /**
+     * Restores the searches saved in the file, if it exists, and saves every
+     * later change there.
+     */
+    public void setStoreFile(Path file) throws IOException {
+        synchronized (stateLock) {
+            if (Files.exists(file)) {
+                StoredState state = objectMapper.readValue(file.toFile(), StoredState.class);
+                synchronized (this) {
+                    for (StoredSearch stored : state.searches()) {
+                        SavedSearch search = new SavedSearch(stored.id(), stored.userId(), stored.genres(),
+                                stored.tags());
+                        fileSearch(search);
+                        reportedGames.put(search.id(), new HashSet<>(stored.reportedGames()));
+                    }
+                    nextId = Math.max(nextId, state.nextId());
+                    writtenVersion = stateVersion;
+                }
+            }
+            storeFile = file;
+        }
+    }
+
+    /**
+     * One outbox line: a game that matched a saved search.
+     */
+    public record Match(String searchId, String userId, String gameId, String title, long matchedAt) {
+    }
+
+    /**
+     * Saves a search. Blank genres and tags are ignored.
+     *
+     * @throws IllegalArgumentException if there is no user or no genre or tag
+     *                                  left to require
+     */
+    public SavedSearch save(String userId, Set<String> genres, Set<String> tags) {
+        Set<String> cleanGenres = clean(genres);
+        Set<String> cleanTags = clean(tags);
+        if (userId == null || userId.isEmpty() || cleanGenres.isEmpty() && cleanTags.isEmpty()) {
+            throw new IllegalArgumentException("A saved search needs a user and at least one genre or tag");
+        }
+        SavedSearch search;
+        synchronized (this) {
+            search = new SavedSearch(Long.toString(nextId++), userId, cleanGenres, cleanTags);
+            fileSearch(search);
+        }
+        saveState();
+        return search;
+    }
+
+    // Guarded by this
+    private void fileSearch(SavedSearch search) {
+        String anchor = anchorTerm(search);
+        searches.put(search.id(), search);
+        anchorTerms.put(search.id(), anchor);
+        searchesByTerm.computeIfAbsent(anchor, term -> new ArrayList<>()).add(search);
+        stateVersion++;
+    }
+
+    /**
+     * @return false if there was no search with the id
+     */
+    public boolean delete(String searchId) {
+        synchronized (this) {
+            SavedSearch search = searches.remove(searchId);
+            if (search == null) {
+                return false;
+            }
+            String term = anchorTerms.remove(searchId);
+            List<SavedSearch> filed = searchesByTerm.get(term);
+            filed.remove(search);
+            if (filed.isEmpty()) {
+                searchesByTerm.remove(term);
+            }
+            reportedGames.remove(searchId);
+            stateVersion++;
+        }
+        saveState();
+        return true;
+    }
+
+    private void saveState() {
+        try {
+            writeState();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving saved searches to " + storeFile, e);
+        }
+    }
+
+    /**
+     * Writes the searches and their reported games to the store file,
+     * replacing it atomically, unless it is already up to date.
+     */
+    private void writeState() throws IOException {
+        synchronized (stateLock) {
+            if (storeFile == null) {
+                return;
+            }
+            StoredState state;
+            long version;
+            synchronized (this) {
+                if (stateVersion == writtenVersion) {
+                    return;
+                }
+                List<StoredSearch> stored = new ArrayList<>(searches.size());
+                for (SavedSearch search : searches.values()) {
+                    stored.add(new StoredSearch(search.id(), search.userId(), search.genres(), search.tags(),
+                            new HashSet<>(reportedGames.getOrDefault(search.id(), Set.of()))));
+                }
+                state = new StoredState(nextId, stored);
+                version = stateVersion;
+            }
+            if (storeFile.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(storeFile.toAbsolutePath().getParent());
+            }
+            Path temporary = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+            objectMapper.writeValue(temporary.toFile(), state);
+            Files.move(temporary, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writtenVersion = version;
+        }
+    }
+
+    public synchronized List<SavedSearch> getSearches(String userId) {
+        return searches.values().stream()
+                .filter(search -> search.userId().equals(userId))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized int size() {
+        return searches.size();
+    }
+
+    /**
+     * Files a search under its rarest required term in the current catalog.
+     * Any required term would find every match; the rarest one keeps the
+     * lists that popular genres and tags pull in short. Terms no game has
+     * yet count as rarest.
+     */
+    private String anchorTerm(SavedSearch search) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        String anchor = null;
+        int anchorCount = Integer.MAX_VALUE;
+        for (String genre : new TreeSet<>(search.genres())) {
+            int genreId = index.genreId(genre);
+            int count = genreId >= 0 ? index.genrePostings(genreId).length : 0;
+            if (count < anchorCount) {
+                anchor = genreTerm(genre);
+                anchorCount = count;
+            }
+        }
+        for (String tag : new TreeSet<>(search.tags())) {
+            int tagId = index.tagId(tag);
+            int count = tagId >= 0 ? index.tagPostings(tagId).length : 0;
+            if (count < anchorCount) {
+                anchor = tagTerm(tag);
+                anchorCount = count;
+            }
+        }
+        return anchor;
+    }
+
+    private static String genreTerm(String genre) {
+        return "genre:" + genre;
+    }
+
+    private static String tagTerm(String tag) {
+        return "tag:" + tag;
+    }
+
+    private static Set<String> clean(Set<String> terms) {
+        if (terms == null) {
+            return Set.of();
+        }
+        return terms.stream()
+                .filter(term -> term != null && !term.trim().isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Checks an added or updated game against the saved searches filed under
+     * its genres and tags, and queues the new matches. A full batch is handed
+     * to the flush thread, so the caller never writes the outbox. Registered
+     * as a {@link GameDatabase} listener.
+     */
+    public void percolate(Game game) {
+        List<Match> matches = new ArrayList<>();
+        Set<String> genres = game.getGenres() != null ? game.getGenres() : Set.of();
+        Set<String> tags = game.getTags() != null ? game.getTags() : Set.of();
+        long now = clock.getAsLong();
+        synchronized (this) {
+            for (String genre : genres) {
+                collectMatches(game, genres, tags, searchesByTerm.get(genreTerm(genre)), now, matches);
+            }
+            for (String tag : tags) {
+                collectMatches(game, genres, tags, searchesByTerm.get(tagTerm(tag)), now, matches);
+            }
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        boolean full;
+        List<Match> dropped;
+        synchronized (pending) {
+            int accepted = Math.min(matches.size(), Math.max(0, maxPending - pending.size()));
+            pending.addAll(matches.subList(0, accepted));
+            dropped = matches.subList(accepted, matches.size());
+            full = pending.size() >= batchSize;
+        }
+        if (!dropped.isEmpty()) {
+            unreport(dropped);
+            logger.warn("Saved search queue is full; dropped {} matches of game {}", dropped.size(), game.getId());
+        }
+        if (full) {
+            queueFlush();
+        }
+    }
+
+    private void queueFlush() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null || !flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            current.execute(() -> {
+                flushQueued.set(false);
+                scheduledFlush();
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed; close() flushes what is queued
+            flushQueued.set(false);
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // An exception would cancel every later flush
+            logger.error("Error flushing saved search matches", e);
+        }
+    }
+
+    // Each search is filed under one term, so no search is seen twice for a game
+    private void collectMatches(Game game, Set<String> genres, Set<String> tags, List<SavedSearch> candidates,
+            long now, List<Match> matches) {
+        if (candidates == null) {
+            return;
+        }
+        for (SavedSearch search : candidates) {
+            if (genres.containsAll(search.genres()) && tags.containsAll(search.tags())
+                    && reportedGames.computeIfAbsent(search.id(), id -> new HashSet<>()).add(game.getId())) {
+                matches.add(new Match(search.id(), search.userId(), game.getId(), game.getTitle(), now));
+                stateVersion++;
+            }
+        }
+    }
+
+    /**
+     * Forgets that dropped matches were reported, so their searches report
+     * the games again on a later update.
+     */
+    private synchronized void unreport(List<Match> dropped) {
+        for (Match match : dropped) {
+            Set<String> reported = reportedGames.get(match.searchId());
+            if (reported != null && reported.remove(match.gameId())) {
+                stateVersion++;
+            }
+        }
+    }
+
+    /**
+     * @return the matches queued for the next flush
+     */
+    public List<Match> getPending() {
+        synchronized (pending) {
+            return Collections.unmodifiableList(new ArrayList<>(pending));
+        }
+    }
+
+    /**
+     * Appends the queued matches to the outbox as one batch, then saves the
+     * reported games. A batch that cannot be written is queued again ahead of
+     * newer matches, keeping at most {@code maxPending}.
+     *
+     * @return the number of matches written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<Match> batch;
+            synchronized (pending) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                if (outbox.getParent() != null) {
+                    Files.createDirectories(outbox.getParent());
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(outbox, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Match match : batch) {
+                        writer.write(objectMapper.writeValueAsString(match));
+                        writer.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Error writing {} saved search matches to {}", batch.size(), outbox, e);
+                List<Match> dropped;
+                synchronized (pending) {
+                    pending.addAll(0, batch);
+                    List<Match> newest = pending.subList(Math.min(maxPending, pending.size()), pending.size());
+                    dropped = new ArrayList<>(newest);
+                    newest.clear();
+                }
+                if (!dropped.isEmpty()) {
+                    unreport(dropped);
+                    logger.warn("Saved search queue is full; dropped the {} newest matches", dropped.size());
+                }
+                return 0;
+            }
+            try {
+                writeState();
+            } catch (IOException e) {
+                logger.warn("Error saving saved searches to {}", storeFile, e);
+            }
+            return batch.size();
+        }
+    }
+
+    /**
+     * Flushes every {@code periodSeconds} on a background thread.
+     */
+    public synchronized void start(int periodSeconds) {
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "saved-search-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::scheduledFlush, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        scheduler = started;
+    }
+
+    /**
+     * Stops the periodic flush and writes out what is still queued.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,40 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Portable scoring kernel: per-game popcounts over the bitmask columns
+ * followed by a score-table lookup.
+ */
+public final class ScalarScoringKernel implements ScoringKernel {
+    public static final ScalarScoringKernel INSTANCE = new ScalarScoringKernel();
+
+    private ScalarScoringKernel() {
+    }
+
+    @Override
+    public void score(CatalogIndex index, MatchQuery query, int from, int to, int[] scores) {
+        int size = index.size();
+        long[] genreBits = index.genreBits();
+        long[] tagBits = index.tagBits();
+        long[] genreMask = query.genreMask();
+        long[] tagMask = query.tagMask();
+        int[] table = query.scoreTable();
+        int tagStride = query.tagStride();
+
+        for (int ordinal = from; ordinal < to; ordinal++) {
+            int genreMatches = 0;
+            for (int word = 0; word < genreMask.length; word++) {
+                genreMatches += Long.bitCount(genreBits[word * size + ordinal] & genreMask[word]);
+            }
+            int tagMatches = 0;
+            for (int word = 0; word < tagMask.length; word++) {
+                tagMatches += Long.bitCount(tagBits[word * size + ordinal] & tagMask[word]);
+            }
+            scores[ordinal - from] = table[genreMatches * tagStride + tagMatches];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,23 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Dense scoring backend: scores every game in an ordinal range against a
+ * query in one pass over the bitmask columns.
+ *
+ * Dense scans suit queries whose candidates cover much of the catalog, where
+ * posting-list pruning has little to skip. Use {@link ScoringKernels#best()}
+ * to get the fastest kernel available in the running JVM.
+ */
+public interface ScoringKernel {
+
+    /**
+     * Scores games {@code [from, to)}, writing the score of ordinal {@code o}
+     * to {@code scores[o - from]}.
+     */
+    void score(CatalogIndex index, MatchQuery query, int from, int to, int[] scores);
+
+    /**
+     * @return a short name for logs and benchmarks
+     */
+    String name();
+}
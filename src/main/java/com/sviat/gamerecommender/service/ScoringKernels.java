@@ -0,0 +1,44 @@
+package com.sviat.gamerecommender.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the scoring kernel for the running JVM: the SIMD kernel when the
+ * {@code jdk.incubator.vector} module is enabled (for example with
+ * {@code --add-modules jdk.incubator.vector}), the scalar one otherwise.
+ */
+public final class ScoringKernels {
+    private static final Logger logger = LoggerFactory.getLogger(ScoringKernels.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.sviat.gamerecommender.service.VectorScoringKernel";
+
+    private static final ScoringKernel BEST = detect();
+
+    private ScoringKernels() {
+    }
+
+    public static ScoringKernel best() {
+        return BEST;
+    }
+
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    private static ScoringKernel detect() {
+        if (!isVectorApiAvailable()) {
+            logger.info("Module {} not enabled, using the scalar scoring kernel", VECTOR_MODULE);
+            return ScalarScoringKernel.INSTANCE;
+        }
+        try {
+            // Loaded reflectively so this class never links against the incubator module
+            ScoringKernel kernel = (ScoringKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            logger.info("Using the {} scoring kernel", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Vector scoring kernel unavailable, using the scalar one", e);
+            return ScalarScoringKernel.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * First-order Markov model of which game a user opens after another within a
+ * session, serving "next game" suggestions.
+ *
+ * Each source game has a row of at most {@code maxOutDegree} (target, weight)
+ * pairs in parallel primitive arrays. Weights decay exponentially with a
+ * forward-decay landmark, like {@link TrendingService}: a transition at time
+ * {@code t} adds {@code exp((t - landmark) / tau)}, so rows never need to be
+ * rescaled to stay comparable. When a row is full, a new target replaces the
+ * weakest one. Suggestions combine the rows of the last few views of the
+ * session, so their cost is bounded by the out-degree, not the catalog.
+ */
+public class SessionTransitionModel {
+    public static final double DEFAULT_HALF_LIFE_MINUTES = 24 * 60;
+    public static final int DEFAULT_MAX_OUT_DEGREE = 50;
+    /** Number of most recent views of a session that suggestions draw on. */
+    public static final int SESSION_HISTORY = 3;
+
+    // Landmark age, in units of tau, after which all rows are rescaled
+    private static final double REBASE_AFTER = 200;
+
+    private final GameDatabase gameDatabase;
+    private final double tauMillis;
+    private final int maxOutDegree;
+    private final LongSupplier clock;
+    private final List<Row> rows = new ArrayList<>();
+    private long landmark;
+
+    public SessionTransitionModel(GameDatabase gameDatabase, double halfLifeMinutes, int maxOutDegree) {
+        this(gameDatabase, halfLifeMinutes, maxOutDegree, System::currentTimeMillis);
+    }
+
+    SessionTransitionModel(GameDatabase gameDatabase, double halfLifeMinutes, int maxOutDegree, LongSupplier clock) {
+        if (!(halfLifeMinutes > 0) || maxOutDegree <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid session model parameters: halfLifeMinutes=%s, maxOutDegree=%d",
+                    halfLifeMinutes, maxOutDegree));
+        }
+        this.gameDatabase = gameDatabase;
+        this.tauMillis = halfLifeMinutes * 60_000 / Math.log(2);
+        this.maxOutDegree = maxOutDegree;
+        this.clock = clock;
+        this.landmark = clock.getAsLong();
+    }
+
+    /**
+     * Outgoing transitions of one game; weights are relative to the landmark.
+     */
+    private static final class Row {
+        int[] targets = new int[4];
+        double[] weights = new double[4];
+        int size;
+    }
+
+    /**
+     * Records that a session opened {@code to} right after {@code from}.
+     */
+    public void recordTransition(String from, String to) {
+        if (from.equals(to)) {
+            return;
+        }
+        int source = gameDatabase.gameKey(from);
+        int target = gameDatabase.gameKey(to);
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (now - landmark > REBASE_AFTER * tauMillis) {
+                rebase(now);
+            }
+            add(row(source), target, Math.exp((now - landmark) / tauMillis));
+        }
+    }
+
+    private Row row(int key) {
+        while (rows.size() <= key) {
+            rows.add(null);
+        }
+        Row row = rows.get(key);
+        if (row == null) {
+            row = new Row();
+            rows.set(key, row);
+        }
+        return row;
+    }
+
+    private void add(Row row, int target, double weight) {
+        int weakest = -1;
+        for (int i = 0; i < row.size; i++) {
+            if (row.targets[i] == target) {
+                row.weights[i] += weight;
+                return;
+            }
+            if (weakest < 0 || row.weights[i] < row.weights[weakest]) {
+                weakest = i;
+            }
+        }
+        if (row.size < maxOutDegree) {
+            if (row.size == row.targets.length) {
+                int length = Math.min(maxOutDegree, row.size * 2);
+                row.targets = Arrays.copyOf(row.targets, length);
+                row.weights = Arrays.copyOf(row.weights, length);
+            }
+            row.targets[row.size] = target;
+            row.weights[row.size] = weight;
+            row.size++;
+        } else {
+            // Full: the newcomer takes over the weakest slot
+            row.targets[weakest] = target;
+            row.weights[weakest] = weight;
+        }
+    }
+
+    private void rebase(long now) {
+        double scale = Math.exp((landmark - now) / tauMillis);
+        for (Row row : rows) {
+            for (int i = 0; row != null && i < row.size; i++) {
+                row.weights[i] *= scale;
+            }
+        }
+        landmark = now;
+    }
+
+    /**
+     * @return the decayed weight of the transition as of now
+     */
+    public synchronized double weightOf(String from, String to) {
+        int source = gameDatabase.findGameKey(from);
+        int target = gameDatabase.findGameKey(to);
+        Row row = source >= 0 && source < rows.size() ? rows.get(source) : null;
+        for (int i = 0; row != null && i < row.size; i++) {
+            if (row.targets[i] == target) {
+                return row.weights[i] * Math.exp((landmark - clock.getAsLong()) / tauMillis);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Suggests games to open next. The last {@link #SESSION_HISTORY} views
+     * vote through their transitions, each view counting half as much as the
+     * one after it. Games already viewed in the session are left out.
+     *
+     * @param recentViews Game ids viewed in the session, oldest first
+     */
+    public List<Game> suggestNext(List<String> recentViews, int limit) {
+        List<Game> suggestions = new ArrayList<>();
+        if (recentViews.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+        Set<Integer> viewed = new HashSet<>();
+        for (String gameId : recentViews) {
+            viewed.add(gameDatabase.findGameKey(gameId));
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        synchronized (this) {
+            double vote = 1;
+            for (int i = recentViews.size() - 1; i >= Math.max(0, recentViews.size() - SESSION_HISTORY); i--) {
+                int source = gameDatabase.findGameKey(recentViews.get(i));
+                Row row = source >= 0 && source < rows.size() ? rows.get(source) : null;
+                for (int j = 0; row != null && j < row.size; j++) {
+                    if (!viewed.contains(row.targets[j])) {
+                        scores.merge(row.targets[j], vote * row.weights[j], Double::sum);
+                    }
+                }
+                vote /= 2;
+            }
+        }
+
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        TopKHeap heap = new TopKHeap(limit);
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            int ordinal = index.ordinalOf(gameDatabase.gameIdForKey(score.getKey()));
+            if (ordinal >= 0) {
+                heap.offer(ordinal, score.getValue());
+            }
+        }
+        for (int ordinal : heap.drainOrdinals()) {
+            suggestions.add(index.gameAt(ordinal));
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,115 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns free text into fixed-size TF-IDF vectors without a vocabulary.
+ *
+ * Features are the words of the text and the character trigrams of each
+ * word. Each feature is hashed to one of {@code dimension} buckets with a
+ * hashed sign, so collisions tend to cancel out rather than add up. Feature
+ * counts are damped with {@code 1 + ln(count)}, weighted by the inverse
+ * document frequency of their bucket over the corpus the vectoriser was
+ * fitted on, and the vector is scaled to unit length, so the dot product of
+ * two vectors is their cosine similarity.
+ */
+public final class TextVectorizer {
+    private final int dimension;
+    private final float[] idf;
+
+    private TextVectorizer(int dimension, float[] idf) {
+        this.dimension = dimension;
+        this.idf = idf;
+    }
+
+    /**
+     * Computes the bucket document frequencies of a corpus.
+     */
+    public static TextVectorizer fit(List<String> documents, int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+        }
+        int[] documentFrequency = new int[dimension];
+        for (String document : documents) {
+            Set<Integer> buckets = new HashSet<>();
+            for (String feature : features(document).keySet()) {
+                buckets.add(bucket(hash(feature), dimension));
+            }
+            for (int bucket : buckets) {
+                documentFrequency[bucket]++;
+            }
+        }
+        float[] idf = new float[dimension];
+        for (int bucket = 0; bucket < dimension; bucket++) {
+            idf[bucket] = (float) (Math.log((1.0 + documents.size()) / (1.0 + documentFrequency[bucket])) + 1);
+        }
+        return new TextVectorizer(dimension, idf);
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * @return the unit-length vector of the text, or all zeros if it has no words
+     */
+    public float[] vectorize(String text) {
+        float[] vector = new float[dimension];
+        for (Map.Entry<String, Integer> feature : features(text).entrySet()) {
+            int hash = hash(feature.getKey());
+            int bucket = bucket(hash, dimension);
+            float sign = (hash & 0x8000_0000) != 0 ? -1 : 1;
+            vector[bucket] += sign * (float) (1 + Math.log(feature.getValue())) * idf[bucket];
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimension; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static Map<String, Integer> features(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (text == null) {
+            return counts;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            counts.merge("w:" + word, 1, Integer::sum);
+            // Pad so that prefixes and suffixes get trigrams of their own
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                counts.merge("t:" + padded.substring(i, i + 3), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    // String.hashCode with a murmur3 finalizer, so nearby strings land far apart
+    private static int hash(String feature) {
+        int h = feature.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85eb_ca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2_ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int bucket(int hash, int dimension) {
+        return (hash & 0x7fff_ffff) % dimension;
+    }
+}
@@ -0,0 +1,205 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * Bounded min-heap that keeps the best {@code k} (ordinal, score) pairs.
+ *
+ * Higher scores rank first; equal scores are broken by the lower ordinal,
+ * which matches the catalog's tie-break order. The root is always the worst
+ * retained entry, so it doubles as the admission threshold for pruning.
+ * Backed by primitive arrays and allocation-free after construction.
+ *
+ * A heap made with {@link #after} only admits entries ranked after a given
+ * (score, ordinal) pair, so a search can resume where a previous page ended.
+ */
+public final class TopKHeap {
+    private final int capacity;
+    private final int[] ordinals;
+    private final double[] scores;
+    // Entries must rank after (afterOrdinal, afterScore); the defaults admit everything
+    private final int afterOrdinal;
+    private final double afterScore;
+    private int size;
+
+    public TopKHeap(int capacity) {
+        this(capacity, -1, Double.POSITIVE_INFINITY);
+    }
+
+    private TopKHeap(int capacity, int afterOrdinal, double afterScore) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Top-K capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ordinals = new int[capacity];
+        this.scores = new double[capacity];
+        this.afterOrdinal = afterOrdinal;
+        this.afterScore = afterScore;
+    }
+
+    /**
+     * @return a heap that only admits entries ranked after the given entry:
+     *         lower scores, or equal scores with higher ordinals
+     */
+    public static TopKHeap after(int capacity, int ordinal, double score) {
+        return new TopKHeap(capacity, ordinal, score);
+    }
+
+    /**
+     * @return an empty heap with the same capacity and admission bound
+     */
+    public TopKHeap emptyCopy() {
+        return new TopKHeap(capacity, afterOrdinal, afterScore);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return the score of the worst retained entry; only meaningful when the
+     *         heap is full
+     */
+    public double minScore() {
+        return scores[0];
+    }
+
+    /**
+     * @return the ordinal of the worst retained entry; only meaningful when the
+     *         heap is full
+     */
+    public int minOrdinal() {
+        return ordinals[0];
+    }
+
+    /**
+     * @return whether an entry with this score and ordinal would be retained
+     */
+    public boolean accepts(int ordinal, double score) {
+        if (capacity == 0 || !isBetter(afterOrdinal, afterScore, ordinal, score)) {
+            return false;
+        }
+        return size < capacity || isBetter(ordinal, score, ordinals[0], scores[0]);
+    }
+
+    /**
+     * Offers an entry, evicting the worst one when the heap is full.
+     *
+     * @return true if the entry was retained
+     */
+    public boolean offer(int ordinal, double score) {
+        if (!isBetter(afterOrdinal, afterScore, ordinal, score)) {
+            return false;
+        }
+        if (size < capacity) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (capacity == 0 || !isBetter(ordinal, score, ordinals[0], scores[0])) {
+            return false;
+        }
+        ordinals[0] = ordinal;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Offers every entry of another heap into this one.
+     */
+    public void addAll(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Removes all entries and returns the ordinals best-first.
+     */
+    public int[] drainOrdinals() {
+        int[] result = new int[size];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = ordinals[0];
+            removeRoot();
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries, writing ordinals and scores best-first into the
+     * given arrays.
+     *
+     * @return the number of entries written
+     */
+    public int drainInto(int[] ordinalsOut, double[] scoresOut) {
+        int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            ordinalsOut[i] = ordinals[0];
+            scoresOut[i] = scores[0];
+            removeRoot();
+        }
+        return count;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void removeRoot() {
+        size--;
+        if (size > 0) {
+            ordinals[0] = ordinals[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+    }
+
+    private static boolean isBetter(int ordinal, double score, int otherOrdinal, double otherScore) {
+        return score > otherScore || (score == otherScore && ordinal < otherOrdinal);
+    }
+
+    private void siftUp(int index) {
+        int ordinal = ordinals[index];
+        double score = scores[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBetter(ordinals[parent], scores[parent], ordinal, score)) {
+                break;
+            }
+            ordinals[index] = ordinals[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index) {
+        int ordinal = ordinals[index];
+        double score = scores[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && isBetter(ordinals[child], scores[child], ordinals[right], scores[right])) {
+                child = right;
+            }
+            if (!isBetter(ordinal, score, ordinals[child], scores[child])) {
+                break;
+            }
+            ordinals[index] = ordinals[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+}
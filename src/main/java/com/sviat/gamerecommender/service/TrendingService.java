@@ -0,0 +1,171 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * "Trending now": games ranked by exponentially time-decayed views and plays.
+ *
+ * Uses forward decay: an event at time {@code t} adds
+ * {@code weight * exp((t - landmark) / tau)} to its game's counter, so every
+ * counter only ever grows and ranking needs no per-game timestamps. Counters
+ * are {@link DoubleAdder}s, which stripe concurrent writes across cells, in a
+ * concurrent map keyed by game id.
+ *
+ * A background refresh ranks the counters into an immutable top-K list and
+ * publishes it through a volatile field, so readers never lock. The refresh
+ * also moves the landmark forward before the weights grow too large; events
+ * racing that swap may be lost, which trending can afford.
+ */
+public class TrendingService implements Closeable {
+    public static final double DEFAULT_HALF_LIFE_MINUTES = 360;
+    public static final int DEFAULT_REFRESH_SECONDS = 60;
+    public static final int DEFAULT_SIZE = 12;
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    static final double VIEW_WEIGHT = 1;
+    static final double PLAY_WEIGHT = 5;
+    // Landmark age, in units of tau, after which the counters are rebased
+    private static final double REBASE_AFTER = 200;
+
+    private final GameDatabase gameDatabase;
+    private final double tauMillis;
+    private final int size;
+    private final LongSupplier clock;
+    // Replaced as a whole on rebase, so writers never pair a landmark with the wrong counters
+    private volatile Counters counters;
+    private volatile List<Game> trending = Collections.emptyList();
+    private ScheduledExecutorService scheduler;
+
+    public TrendingService(GameDatabase gameDatabase, double halfLifeMinutes, int size) {
+        this(gameDatabase, halfLifeMinutes, size, System::currentTimeMillis);
+    }
+
+    TrendingService(GameDatabase gameDatabase, double halfLifeMinutes, int size, LongSupplier clock) {
+        if (!(halfLifeMinutes > 0) || size < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid trending parameters: halfLifeMinutes=%s, size=%d", halfLifeMinutes, size));
+        }
+        this.gameDatabase = gameDatabase;
+        this.tauMillis = halfLifeMinutes * 60_000 / Math.log(2);
+        this.size = size;
+        this.clock = clock;
+        this.counters = new Counters(clock.getAsLong(), new ConcurrentHashMap<>());
+    }
+
+    private record Counters(long landmark, Map<String, DoubleAdder> byGame) {
+    }
+
+    public void recordView(String gameId) {
+        record(gameId, VIEW_WEIGHT, clock.getAsLong());
+    }
+
+    /**
+     * @param timestamp When the play happened, in milliseconds since the epoch;
+     *                  future timestamps count as now
+     */
+    public void recordPlay(String gameId, long timestamp) {
+        record(gameId, PLAY_WEIGHT, Math.min(timestamp, clock.getAsLong()));
+    }
+
+    private void record(String gameId, double weight, long timestamp) {
+        Counters current = counters;
+        double decayed = weight * Math.exp((timestamp - current.landmark()) / tauMillis);
+        current.byGame().computeIfAbsent(gameId, id -> new DoubleAdder()).add(decayed);
+    }
+
+    /**
+     * @return the game's decayed score as of now
+     */
+    public double scoreOf(String gameId) {
+        Counters current = counters;
+        DoubleAdder counter = current.byGame().get(gameId);
+        return counter != null ? counter.sum() * Math.exp((current.landmark() - clock.getAsLong()) / tauMillis) : 0;
+    }
+
+    /**
+     * Ranks the counters and publishes a new trending list.
+     */
+    public synchronized void refresh() {
+        long now = clock.getAsLong();
+        if (now - counters.landmark() > REBASE_AFTER * tauMillis) {
+            rebase(now);
+        }
+
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        TopKHeap heap = new TopKHeap(size);
+        for (Map.Entry<String, DoubleAdder> entry : counters.byGame().entrySet()) {
+            int ordinal = index.ordinalOf(entry.getKey());
+            double score = entry.getValue().sum();
+            if (ordinal >= 0 && score > 0) {
+                heap.offer(ordinal, score);
+            }
+        }
+        List<Game> games = new ArrayList<>(heap.size());
+        for (int ordinal : heap.drainOrdinals()) {
+            games.add(index.gameAt(ordinal));
+        }
+        trending = Collections.unmodifiableList(games);
+    }
+
+    private void rebase(long now) {
+        Counters current = counters;
+        double scale = Math.exp((current.landmark() - now) / tauMillis);
+        Map<String, DoubleAdder> rebased = new ConcurrentHashMap<>();
+        for (Map.Entry<String, DoubleAdder> entry : current.byGame().entrySet()) {
+            DoubleAdder counter = new DoubleAdder();
+            counter.add(entry.getValue().sum() * scale);
+            rebased.put(entry.getKey(), counter);
+        }
+        counters = new Counters(now, rebased);
+    }
+
+    /**
+     * @return the trending games as of the last refresh, best first
+     */
+    public List<Game> getTrending() {
+        return trending;
+    }
+
+    /**
+     * Refreshes now and then every {@code periodSeconds} on a background thread.
+     */
+    public synchronized void start(int periodSeconds) {
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "trending-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // An exception would cancel every later refresh
+                logger.error("Error refreshing trending games", e);
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
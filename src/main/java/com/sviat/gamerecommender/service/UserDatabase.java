@@ -0,0 +1,169 @@
+package com.sviat.gamerecommender.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sviat.gamerecommender.model.User;
+
+public class UserDatabase implements Closeable {
+    private final List<User> users;
+    private final Map<String, User> usersById;
+    // Database version at which each user was last added or updated
+    private final Map<String, Long> userVersions;
+    // Compact copy of every user's games, kept in step with usersById
+    private final UserInteractionStore interactions;
+    private final GameDatabase gameDatabase;
+    // Optional off-heap store that holds every profile in place of users and usersById
+    private MappedUserStore store;
+    // Bumped on every change; models built from play histories are rebuilt per version
+    private volatile long version;
+
+    public UserDatabase(GameDatabase gameDatabase) {
+        this.users = new ArrayList<>();
+        this.usersById = new HashMap<>();
+        this.userVersions = new HashMap<>();
+        this.interactions = new UserInteractionStore(gameDatabase);
+        this.gameDatabase = gameDatabase;
+    }
+
+    /**
+     * Keeps the users in the store from now on, so that they survive a
+     * restart and cost the heap only their ids. Users already in the store
+     * are served from it as they are read, not loaded up front.
+     *
+     * @throws IllegalStateException if users were added already
+     */
+    public synchronized void attachStore(MappedUserStore store) {
+        if (!users.isEmpty()) {
+            throw new IllegalStateException("Attach the store before adding users");
+        }
+        interactions.attachStore(store);
+        this.store = store;
+    }
+
+    private boolean exists(String userId) {
+        return store != null ? store.hasProfile(userId) : usersById.containsKey(userId);
+    }
+
+    // CRUD operations
+
+    /**
+     * @throws IllegalArgumentException if a user with the same id exists
+     */
+    public synchronized void addUser(User user) {
+        if (exists(user.getId())) {
+            throw new IllegalArgumentException("Duplicate user id: " + user.getId());
+        }
+        if (store == null) {
+            users.add(user);
+            usersById.put(user.getId(), user);
+        }
+        interactions.putUser(user);
+        userVersions.put(user.getId(), ++version);
+    }
+
+    /**
+     * Replaces the user with the same id, if there is one.
+     */
+    public synchronized void updateUser(User user) {
+        if (!exists(user.getId())) {
+            return;
+        }
+        if (store == null) {
+            users.set(users.indexOf(usersById.get(user.getId())), user);
+            usersById.put(user.getId(), user);
+        }
+        interactions.putUser(user);
+        userVersions.put(user.getId(), ++version);
+    }
+
+    /**
+     * Removes the user with the same id, if there is one.
+     */
+    public synchronized void deleteUser(User user) {
+        if (!exists(user.getId())) {
+            return;
+        }
+        if (store == null) {
+            users.remove(usersById.remove(user.getId()));
+        }
+        interactions.removeUser(user.getId());
+        userVersions.put(user.getId(), ++version);
+    }
+
+    /**
+     * Records that the users' interactions changed outside this database, as
+     * streamed plays do, so that models built per version are rebuilt.
+     */
+    public synchronized void markChanged(Collection<String> userIds) {
+        long changed = ++version;
+        for (String userId : userIds) {
+            userVersions.put(userId, changed);
+        }
+    }
+
+    /**
+     * @return a copy of the users, safe to iterate while users change; read
+     *         back from the store when one is attached
+     */
+    public synchronized List<User> getAllUsers() {
+        if (store != null) {
+            return store.profileUserIds().stream().map(userId -> store.get(userId, gameDatabase)).toList();
+        }
+        return new ArrayList<>(users);
+    }
+
+    /**
+     * @return the user ids, in the order users were added or, with a store
+     *         attached, in record order
+     */
+    public synchronized List<String> getUserIds() {
+        return store != null ? store.profileUserIds() : users.stream().map(User::getId).toList();
+    }
+
+    public synchronized User findUserById(String userId) {
+        return store != null ? store.get(userId, gameDatabase) : usersById.get(userId);
+    }
+
+    /**
+     * @return the played, owned and wishlisted games of every user, keyed by
+     *         game key
+     */
+    public UserInteractionStore getInteractionStore() {
+        return interactions;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the database version at which the user id last changed, 0 for
+     *         users restored from the store and unchanged since, or -1 if it
+     *         never existed
+     */
+    public synchronized long getUserVersion(String userId) {
+        Long userVersion = userVersions.get(userId);
+        if (userVersion != null) {
+            return userVersion;
+        }
+        return store != null && store.contains(userId) ? 0 : -1;
+    }
+
+    /**
+     * Flushes and closes the attached store, if any.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.flush();
+            store.close();
+            store = null;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.sviat.gamerecommender.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+/**
+ * Compact per-user record of played, owned and wishlisted games.
+ *
+ * Each user's games are held in one {@link IntIntHashMap} from stable game key
+ * (see {@link GameDatabase#gameKey}) to a packed int: the low bits are the
+ * {@link #PLAYED}, {@link #OWNED} and {@link #WISHLISTED} flags and the rest
+ * is the playtime in hours. Membership checks are a single probe, and a user
+ * costs two int arrays instead of a map of boxed entries keyed by games.
+ *
+ * With a {@link MappedUserStore} attached, the games are kept in the store's
+ * mapped files instead and read back into a map per call, so the heap holds
+ * no per-user state.
+ *
+ * Listeners are told about every change to a user's played games, so that
+ * counts derived from them can follow incrementally instead of being rebuilt.
+ */
+public final class UserInteractionStore {
+    public static final int PLAYED = 1;
+    public static final int OWNED = 1 << 1;
+    public static final int WISHLISTED = 1 << 2;
+
+    private static final int FLAG_BITS = 3;
+    static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+    /** Largest playtime that fits next to the flags; longer playtimes are capped. */
+    public static final int MAX_PLAYTIME = Integer.MAX_VALUE >>> FLAG_BITS;
+
+    private final GameDatabase gameDatabase;
+    private final Map<String, IntIntHashMap> interactions = new LinkedHashMap<>();
+    // When attached, holds every user's games in place of interactions
+    private MappedUserStore store;
+    // Guarded by this
+    private final List<PlayedGamesListener> listeners = new ArrayList<>();
+
+    public UserInteractionStore(GameDatabase gameDatabase) {
+        this.gameDatabase = gameDatabase;
+    }
+
+    /**
+     * Told about each change to a user's played games. Called while the store
+     * is locked, so a listener must not call back into the store.
+     */
+    public interface PlayedGamesListener {
+        /**
+         * @param before Keys of the games the user played before the change, ascending
+         * @param after  Keys of the games the user plays after it, ascending
+         */
+        void playedGamesChanged(String userId, int[] before, int[] after);
+    }
+
+    /**
+     * Registers a listener, first telling it about every user's current played
+     * games, so that it misses no change.
+     */
+    public synchronized void addListener(PlayedGamesListener listener) {
+        for (String userId : userIds()) {
+            listener.playedGamesChanged(userId, new int[0], keysOf(gamesOf(userId), PLAYED, true));
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Keeps every user's games in the store from now on, starting with the
+     * users already in it, who are reported to the listeners.
+     *
+     * @throws IllegalStateException if games were recorded on the heap already
+     */
+    public synchronized void attachStore(MappedUserStore store) {
+        if (!interactions.isEmpty()) {
+            throw new IllegalStateException("Attach the store before recording games");
+        }
+        store.setGameKeys(gameDatabase::gameKey);
+        this.store = store;
+        for (String userId : store.userIds()) {
+            notifyListeners(userId, null, store.games(userId));
+        }
+    }
+
+    /**
+     * @return the user's games, or null for unknown users; a copy read from
+     *         the store when one is attached
+     */
+    private IntIntHashMap gamesOf(String userId) {
+        return store != null ? store.games(userId) : interactions.get(userId);
+    }
+
+    private void notifyListeners(String userId, IntIntHashMap before, IntIntHashMap after) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        int[] playedBefore = before != null ? keysOf(before, PLAYED, true) : new int[0];
+        int[] playedAfter = after != null ? keysOf(after, PLAYED, true) : new int[0];
+        if (!Arrays.equals(playedBefore, playedAfter)) {
+            for (PlayedGamesListener listener : listeners) {
+                listener.playedGamesChanged(userId, playedBefore, playedAfter);
+            }
+        }
+    }
+
+    static int pack(long playtime, int flags) {
+        return (int) Math.min(Math.max(playtime, 0), MAX_PLAYTIME) << FLAG_BITS | flags;
+    }
+
+    /**
+     * Replaces everything recorded for the user with the user's played, owned
+     * and wishlisted games.
+     */
+    public synchronized void putUser(User user) {
+        if (store != null) {
+            IntIntHashMap before = listeners.isEmpty() ? null : store.games(user.getId());
+            store.put(user);
+            notifyListeners(user.getId(), before, listeners.isEmpty() ? null : store.games(user.getId()));
+            return;
+        }
+        Map<Game, Integer> played = user.getPlayedGames();
+        IntIntHashMap games = new IntIntHashMap(played != null ? played.size() : 0);
+        if (played != null) {
+            for (Map.Entry<Game, Integer> entry : played.entrySet()) {
+                int playtime = entry.getValue() != null ? entry.getValue() : 0;
+                addPlaytime(games, gameDatabase.gameKey(entry.getKey().getId()), playtime);
+            }
+        }
+        addFlag(games, user.getOwnedGames(), OWNED);
+        addFlag(games, user.getWishlist(), WISHLISTED);
+        notifyListeners(user.getId(), interactions.put(user.getId(), games), games);
+    }
+
+    private void addFlag(IntIntHashMap games, Iterable<String> gameIds, int flag) {
+        if (gameIds == null) {
+            return;
+        }
+        for (String gameId : gameIds) {
+            int key = gameDatabase.gameKey(gameId);
+            games.put(key, games.get(key, 0) | flag, 0);
+        }
+    }
+
+    public synchronized void removeUser(String userId) {
+        if (store != null) {
+            IntIntHashMap removed = listeners.isEmpty() ? null : store.games(userId);
+            if (store.delete(userId)) {
+                notifyListeners(userId, removed, null);
+            }
+            return;
+        }
+        IntIntHashMap removed = interactions.remove(userId);
+        if (removed != null) {
+            notifyListeners(userId, removed, null);
+        }
+    }
+
+    /**
+     * Adds playtime to a game of the user and marks it played, recording the
+     * user if it was not known yet.
+     */
+    public synchronized void recordPlay(String userId, String gameId, int hours) {
+        int key = gameDatabase.gameKey(gameId);
+        boolean newlyPlayed;
+        if (store != null) {
+            newlyPlayed = store.recordPlay(userId, gameId, hours);
+        } else {
+            IntIntHashMap games = interactions.computeIfAbsent(userId, id -> new IntIntHashMap());
+            newlyPlayed = (games.get(key, 0) & PLAYED) == 0;
+            addPlaytime(games, key, hours);
+        }
+        if (!newlyPlayed || listeners.isEmpty()) {
+            return;
+        }
+        int[] after = keysOf(gamesOf(userId), PLAYED, true);
+        int[] before = new int[after.length - 1];
+        int at = Arrays.binarySearch(after, key);
+        System.arraycopy(after, 0, before, 0, at);
+        System.arraycopy(after, at + 1, before, at, before.length - at);
+        for (PlayedGamesListener listener : listeners) {
+            listener.playedGamesChanged(userId, before, after);
+        }
+    }
+
+    private static void addPlaytime(IntIntHashMap games, int key, int hours) {
+        games.put(key, addPlaytime(games.get(key, 0), hours), 0);
+    }
+
+    /**
+     * @return the packed game with the hours added and marked played
+     */
+    static int addPlaytime(int packed, int hours) {
+        return pack((long) playtimeOf(packed) + Math.max(hours, 0), packed & FLAG_MASK | PLAYED);
+    }
+
+    static int playtimeOf(int packed) {
+        return packed >>> FLAG_BITS;
+    }
+
+    private int packedOf(String userId, String gameId) {
+        if (store != null) {
+            return store.packed(userId, gameId);
+        }
+        IntIntHashMap games = interactions.get(userId);
+        int key = gameDatabase.findGameKey(gameId);
+        return games != null && key >= 0 ? games.get(key, 0) : 0;
+    }
+
+    /**
+     * @return whether the user has every flag in {@code flags} for the game
+     */
+    public synchronized boolean has(String userId, String gameId, int flags) {
+        return (packedOf(userId, gameId) & flags) == flags;
+    }
+
+    public boolean hasPlayed(String userId, String gameId) {
+        return has(userId, gameId, PLAYED);
+    }
+
+    public boolean owns(String userId, String gameId) {
+        return has(userId, gameId, OWNED);
+    }
+
+    public boolean hasWishlisted(String userId, String gameId) {
+        return has(userId, gameId, WISHLISTED);
+    }
+
+    /**
+     * @return the user's playtime of the game in hours, or 0
+     */
+    public synchronized int playtime(String userId, String gameId) {
+        return playtimeOf(packedOf(userId, gameId));
+    }
+
+    /**
+     * @return the keys of the games the user has all of {@code flags} for, in
+     *         ascending order
+     */
+    public int[] gameKeys(String userId, int flags) {
+        return gameKeys(userId, flags, true);
+    }
+
+    /**
+     * @return the keys of the games the user has any of {@code flags} for, in
+     *         ascending order
+     */
+    public int[] gameKeysWithAny(String userId, int flags) {
+        return gameKeys(userId, flags, false);
+    }
+
+    private synchronized int[] gameKeys(String userId, int flags, boolean all) {
+        IntIntHashMap games = gamesOf(userId);
+        return games != null ? keysOf(games, flags, all) : new int[0];
+    }
+
+    private static int[] keysOf(IntIntHashMap games, int flags, boolean all) {
+        int[] keys = games.sortedKeys();
+        int count = 0;
+        for (int key : keys) {
+            int matched = games.get(key, 0) & flags;
+            if (all ? matched == flags : matched != 0) {
+                keys[count++] = key;
+            }
+        }
+        return count == keys.length ? keys : Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * @return the user's playtime of each of the given game keys, in hours
+     */
+    public synchronized int[] playtimes(String userId, int[] keys) {
+        IntIntHashMap games = gamesOf(userId);
+        int[] playtimes = new int[keys.length];
+        for (int i = 0; games != null && i < keys.length; i++) {
+            playtimes[i] = playtimeOf(games.get(keys[i], 0));
+        }
+        return playtimes;
+    }
+
+    /**
+     * @return the ids of every user with recorded games, including users only
+     *         known from streamed plays, in the order they were first recorded
+     *         or, with a store attached, in record order
+     */
+    public synchronized List<String> userIds() {
+        return store != null ? store.userIds() : new ArrayList<>(interactions.keySet());
+    }
+
+    public synchronized int userCount() {
+        return store != null ? store.size() : interactions.size();
+    }
+
+    /**
+     * @return the approximate heap size of the user's games in bytes, or 0 for
+     *         unknown users and when a store holds the games
+     */
+    public synchronized long footprintBytes(String userId) {
+        IntIntHashMap games = interactions.get(userId);
+        return games != null ? games.footprintBytes() : 0;
+    }
+
+    /**
+     * @return the approximate heap size of all users' games in bytes, not
+     *         counting the user ids
+     */
+    public synchronized long footprintBytes() {
+        long total = 0;
+        for (IntIntHashMap games : interactions.values()) {
+            total += games.footprintBytes();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sviat.gamerecommender.service;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD scoring kernel built on the incubating Vector API.
+ *
+ * Because the bitmask columns are column-major, one vector load picks up the
+ * same mask word for several consecutive games. Match counts are computed
+ * with a lane-wise popcount and turned into score-table cells, so a whole
+ * vector of games is counted per step; the cells are then resolved with one
+ * table lookup each. The last partial vector is loaded and stored under a
+ * lane mask, so a range of any length allocates nothing.
+ *
+ * Only loaded through {@link ScoringKernels} when the
+ * {@code jdk.incubator.vector} module is enabled.
+ */
+public final class VectorScoringKernel implements ScoringKernel {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // Int species with as many lanes as LONGS, for narrowing the cells
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    @Override
+    public void score(CatalogIndex index, MatchQuery query, int from, int to, int[] scores) {
+        int size = index.size();
+        long[] genreBits = index.genreBits();
+        long[] tagBits = index.tagBits();
+        long[] genreMask = query.genreMask();
+        long[] tagMask = query.tagMask();
+        int[] table = query.scoreTable();
+        int tagStride = query.tagStride();
+
+        int lanes = LONGS.length();
+        int ordinal = from;
+        for (; ordinal + lanes <= to; ordinal += lanes) {
+            LongVector cells = countMatches(genreBits, genreMask, size, ordinal, null).mul(tagStride)
+                    .add(countMatches(tagBits, tagMask, size, ordinal, null));
+            ((IntVector) cells.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(scores, ordinal - from);
+            lookUp(table, scores, ordinal - from, lanes);
+        }
+
+        // The last partial vector, with the lanes past the range masked off
+        if (ordinal < to) {
+            VectorMask<Long> inRange = LONGS.indexInRange(ordinal, to);
+            LongVector cells = countMatches(genreBits, genreMask, size, ordinal, inRange).mul(tagStride)
+                    .add(countMatches(tagBits, tagMask, size, ordinal, inRange));
+            ((IntVector) cells.convertShape(VectorOperators.L2I, INTS, 0))
+                    .intoArray(scores, ordinal - from, INTS.indexInRange(0, to - ordinal));
+            lookUp(table, scores, ordinal - from, to - ordinal);
+        }
+    }
+
+    /**
+     * Replaces the cells written at {@code offset} with the scores they point
+     * at. A lane-wise lookup rather than a vector gather: C2 on JDK 21.0.1 can
+     * miscompile the gather once the scoring loop is OSR-compiled.
+     */
+    private static void lookUp(int[] table, int[] scores, int offset, int count) {
+        for (int lane = offset; lane < offset + count; lane++) {
+            scores[lane] = table[scores[lane]];
+        }
+    }
+
+    /**
+     * @param inRange Lanes to load, or null to load them all
+     */
+    private static LongVector countMatches(long[] bits, long[] mask, int size, int ordinal,
+            VectorMask<Long> inRange) {
+        LongVector matches = LongVector.zero(LONGS);
+        for (int word = 0; word < mask.length; word++) {
+            if (mask[word] != 0) {
+                LongVector column = inRange == null ? LongVector.fromArray(LONGS, bits, word * size + ordinal)
+                        : LongVector.fromArray(LONGS, bits, word * size + ordinal, inRange);
+                matches = matches.add(column.and(mask[word]).lanewise(VectorOperators.BIT_COUNT));
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + LONGS.vectorBitSize();
+    }
+}
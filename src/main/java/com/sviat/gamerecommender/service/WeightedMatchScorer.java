@@ -0,0 +1,77 @@
+package com.sviat.gamerecommender.service;
+
+/**
+ * The original match scoring: each criteria group (genres, tags) scores
+ * {@code perfectMatchScore} when fully matched and {@code partialMatchBaseScore
+ * * matchRatio} otherwise, weighted per group. Genres are weighted more than
+ * tags by default.
+ */
+public final class WeightedMatchScorer implements MatchScorer {
+    public static final int PERFECT_MATCH_SCORE = 100;
+    public static final int PARTIAL_MATCH_BASE_SCORE = 60;
+    public static final double GENRE_WEIGHT = 2.0;
+    public static final double TAG_WEIGHT = 1.0;
+
+    public static final WeightedMatchScorer DEFAULT = new WeightedMatchScorer("weighted",
+            PERFECT_MATCH_SCORE, PARTIAL_MATCH_BASE_SCORE, GENRE_WEIGHT, TAG_WEIGHT);
+
+    private final String name;
+    private final int perfectMatchScore;
+    private final int partialMatchBaseScore;
+    private final double genreWeight;
+    private final double tagWeight;
+
+    public WeightedMatchScorer(String name, int perfectMatchScore, int partialMatchBaseScore,
+            double genreWeight, double tagWeight) {
+        if (partialMatchBaseScore > perfectMatchScore || partialMatchBaseScore < 0 || genreWeight < 0
+                || tagWeight < 0) {
+            throw new IllegalArgumentException("Scorer '" + name
+                    + "' needs 0 <= partial <= perfect and non-negative weights");
+        }
+        this.name = name;
+        this.perfectMatchScore = perfectMatchScore;
+        this.partialMatchBaseScore = partialMatchBaseScore;
+        this.genreWeight = genreWeight;
+        this.tagWeight = tagWeight;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int score(int genreMatches, int genreCount, int tagMatches, int tagCount) {
+        double score = 0.0;
+
+        // Calculate genre match score (how many genres match)
+        if (genreCount > 0) {
+            double matchRatio = (double) genreMatches / genreCount;
+            score += genreWeight * (matchRatio == 1.0 ? perfectMatchScore : partialMatchBaseScore * matchRatio);
+        }
+
+        // Calculate tag match score (how many tags match)
+        if (tagCount > 0) {
+            double matchRatio = (double) tagMatches / tagCount;
+            score += tagWeight * (matchRatio == 1.0 ? perfectMatchScore : partialMatchBaseScore * matchRatio);
+        }
+
+        return (int) Math.round(score);
+    }
+
+    public int getPerfectMatchScore() {
+        return perfectMatchScore;
+    }
+
+    public int getPartialMatchBaseScore() {
+        return partialMatchBaseScore;
+    }
+
+    public double getGenreWeight() {
+        return genreWeight;
+    }
+
+    public double getTagWeight() {
+        return tagWeight;
+    }
+}
@@ -0,0 +1,200 @@
+package com.sviat.gamerecommender.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative {@code int} keys to {@code int}
+ * values, without boxing.
+ *
+ * Keys and values live in two parallel arrays probed linearly; removal shifts
+ * the following entries back, so there are no tombstones. The table is a power
+ * of two and at most three quarters full. Not thread-safe.
+ */
+public final class IntIntHashMap {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 4;
+    // Object header and fields of the map, and header of each array
+    private static final int MAP_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Number of entries the map holds without resizing
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static void checkKey(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key >= 0 && keys[slotOf(key)] == key;
+    }
+
+    /**
+     * @return the value of the key, or {@code defaultValue} if it is absent
+     */
+    public int get(int key, int defaultValue) {
+        if (key < 0) {
+            return defaultValue;
+        }
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @return the previous value of the key, or {@code defaultValue} if it was
+     *         absent
+     */
+    public int put(int key, int value, int defaultValue) {
+        checkKey(key);
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            rehash(keys.length << 1);
+            slot = slotOf(key);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return defaultValue;
+    }
+
+    /**
+     * @return the removed value, or {@code defaultValue} if the key was absent
+     */
+    public int remove(int key, int defaultValue) {
+        if (key < 0) {
+            return defaultValue;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return defaultValue;
+        }
+        int removed = values[slot];
+        size--;
+
+        // Shift back every following entry of the cluster whose home slot it no longer reaches
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    /**
+     * @return the keys in ascending order
+     */
+    public int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int count = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                sorted[count++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Calls the consumer once per entry, in no particular order.
+     */
+    public void forEach(IntIntConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return the approximate heap size of the map in bytes
+     */
+    public long footprintBytes() {
+        return MAP_BYTES + 2L * (ARRAY_HEADER_BYTES + 4L * keys.length);
+    }
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
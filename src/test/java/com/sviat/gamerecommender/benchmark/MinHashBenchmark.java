@@ -0,0 +1,123 @@
+package com.sviat.gamerecommender.benchmark;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.GameDatabase;
+import com.sviat.gamerecommender.service.JsonService;
+import com.sviat.gamerecommender.service.RecommendationEngine;
+
+/**
+ * Compares approximate related games from the MinHash index against the exact
+ * multi-filter query, and reports the recall of each LSH layout against the
+ * full calculateMatchScore ranking.
+ *
+ * Recall counts an approximate result as a hit when it scores at least as
+ * high as the exact K-th result, so games tied at the cut-off are not held
+ * against the index.
+ *
+ * Run with: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:$(dependency classpath)
+ * com.sviat.gamerecommender.benchmark.MinHashBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MinHashBenchmark {
+    private static final int LIMIT = 10;
+    private static final int RECALL_SAMPLES = 200;
+
+    @Param({ "200000" })
+    private int catalogSize;
+
+    // bands x rows
+    @Param({ "8x4", "16x4", "32x3" })
+    private String layout;
+
+    private List<Game> games;
+    private RecommendationEngine engine;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        games = SyntheticCatalog.games(catalogSize, 7);
+        GameDatabase database = new GameDatabase(new JsonService());
+        games.forEach(database::addGame);
+        engine = new RecommendationEngine(database);
+        String[] parts = layout.split("x");
+        engine.setLshParameters(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+
+        long start = System.nanoTime();
+        engine.getMinHashIndex();
+        System.out.printf("%nLSH %s built in %d ms, recall@%d = %.3f%n", layout,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), LIMIT, recall());
+    }
+
+    private double recall() {
+        double total = 0;
+        for (int i = 0; i < RECALL_SAMPLES; i++) {
+            Game seed = games.get(i * (games.size() / RECALL_SAMPLES));
+            int[] exact = games.stream()
+                    .filter(game -> game != seed)
+                    .mapToInt(game -> engine.calculateMatchScore(game, seed.getGenres(), seed.getTags()))
+                    .filter(score -> score > 0)
+                    .boxed()
+                    .sorted(Comparator.reverseOrder())
+                    .limit(LIMIT)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            if (exact.length == 0) {
+                total += 1;
+                continue;
+            }
+            int cutOff = exact[exact.length - 1];
+            long hits = engine.getApproximateRelatedGames(seed.getId(), LIMIT).stream()
+                    .filter(game -> engine.calculateMatchScore(game, seed.getGenres(), seed.getTags()) >= cutOff)
+                    .count();
+            total += (double) hits / exact.length;
+        }
+        return total / RECALL_SAMPLES;
+    }
+
+    private Game nextSeed() {
+        next = (next + 7919) % games.size();
+        return games.get(next);
+    }
+
+    @Benchmark
+    public List<Game> exactRelated() {
+        Game seed = nextSeed();
+        return engine.getMultiFilterRecommendations(seed.getGenres(), seed.getTags(), LIMIT + 1);
+    }
+
+    @Benchmark
+    public List<Game> approximateRelated() {
+        return engine.getApproximateRelatedGames(nextSeed().getId(), LIMIT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MinHashBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package com.sviat.gamerecommender.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.CatalogIndex;
+import com.sviat.gamerecommender.service.GameDatabase;
+import com.sviat.gamerecommender.service.JsonService;
+import com.sviat.gamerecommender.service.MatchQuery;
+import com.sviat.gamerecommender.service.RecommendationEngine;
+import com.sviat.gamerecommender.service.ScalarScoringKernel;
+import com.sviat.gamerecommender.service.ScoringKernel;
+import com.sviat.gamerecommender.service.VectorScoringKernel;
+import com.sviat.gamerecommender.service.WeightedMatchScorer;
+
+/**
+ * Compares scoring the whole catalog with calculateMatchScore against the
+ * scalar and SIMD kernels.
+ *
+ * Run with: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:$(dependency classpath)
+ * com.sviat.gamerecommender.benchmark.ScoringBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ScoringBenchmark {
+
+    @Param({ "10000", "200000" })
+    private int catalogSize;
+
+    private List<Game> games;
+    private RecommendationEngine engine;
+    private CatalogIndex index;
+    private MatchQuery query;
+    private Set<String> genres;
+    private Set<String> tags;
+    private int[] scores;
+    private ScoringKernel vectorKernel;
+
+    @Setup
+    public void setUp() {
+        games = SyntheticCatalog.games(catalogSize, 7);
+        GameDatabase database = new GameDatabase(new JsonService());
+        games.forEach(database::addGame);
+        engine = new RecommendationEngine(database);
+        index = database.getCatalogIndex();
+
+        Random random = new Random(11);
+        genres = SyntheticCatalog.terms(random, "Genre ", SyntheticCatalog.GENRES, 2);
+        tags = SyntheticCatalog.terms(random, "Tag ", SyntheticCatalog.TAGS, 3);
+        query = MatchQuery.compile(index, genres, tags, WeightedMatchScorer.DEFAULT);
+        scores = new int[catalogSize];
+        vectorKernel = new VectorScoringKernel();
+    }
+
+    @Benchmark
+    public int calculateMatchScore() {
+        int sum = 0;
+        for (Game game : games) {
+            sum += engine.calculateMatchScore(game, genres, tags);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] scalarKernel() {
+        ScalarScoringKernel.INSTANCE.score(index, query, 0, catalogSize, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public int[] vectorKernel() {
+        vectorKernel.score(index, query, 0, catalogSize, scores);
+        return scores;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScoringBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
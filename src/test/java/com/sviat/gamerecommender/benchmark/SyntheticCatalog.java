@@ -0,0 +1,56 @@
+package com.sviat.gamerecommender.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Generates large, reproducible catalogs for benchmarks and recall checks.
+ * Genre and tag popularity is skewed so that a few terms are very broad, like
+ * "Action" in the real catalog.
+ */
+public final class SyntheticCatalog {
+    public static final int GENRES = 24;
+    public static final int TAGS = 120;
+    public static final int DEVELOPERS = 500;
+
+    private SyntheticCatalog() {
+    }
+
+    public static List<Game> games(int count, long seed) {
+        Random random = new Random(seed);
+        List<Game> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            games.add(Game.builder()
+                    .id("synthetic-" + i)
+                    .title("Synthetic Game " + i)
+                    .developer("Studio " + skewed(random, DEVELOPERS))
+                    .publisher("Publisher " + skewed(random, DEVELOPERS / 5))
+                    .genres(terms(random, "Genre ", GENRES, 1 + random.nextInt(3)))
+                    .tags(terms(random, "Tag ", TAGS, 2 + random.nextInt(6)))
+                    .metacriticScore(40 + random.nextInt(60))
+                    .releaseDate(String.format("%d-%02d-%02d", 1995 + random.nextInt(30), 1 + random.nextInt(12),
+                            1 + random.nextInt(28)))
+                    .build());
+        }
+        return games;
+    }
+
+    public static Set<String> terms(Random random, String prefix, int vocabulary, int count) {
+        Set<String> terms = new HashSet<>();
+        while (terms.size() < count) {
+            terms.add(prefix + skewed(random, vocabulary));
+        }
+        return terms;
+    }
+
+    private static int skewed(Random random, int bound) {
+        // Squaring a uniform sample favours low ids
+        double sample = random.nextDouble();
+        return (int) (sample * sample * bound);
+    }
+}
@@ -0,0 +1,164 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+public class AlsTrainerTest extends BaseServiceTest {
+    private List<Game> games;
+    private UserDatabase userDatabase;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        userDatabase = new UserDatabase(gameDatabase);
+
+        // Two taste clusters: games 0-9 and games 10-19
+        Random random = new Random(3);
+        for (int u = 0; u < 200; u++) {
+            int cluster = u % 2 == 0 ? 0 : 10;
+            Map<Game, Integer> played = new HashMap<>();
+            for (int g = 0; g < 5; g++) {
+                played.put(games.get(cluster + random.nextInt(10)), 1 + random.nextInt(50));
+            }
+            userDatabase.addUser(User.builder().id("user-" + u).playedGames(played).build());
+        }
+    }
+
+    @Test
+    void recommendsGamesFromTheUsersCluster() {
+        // Few factors and strong regularisation model the clusters rather than single users
+        AlsRecommender recommender = new AlsRecommender(gameDatabase, userDatabase, new AlsTrainer(4, 10, 5.0, 10));
+
+        Map<Game, Integer> played = new HashMap<>();
+        played.put(games.get(0), 30);
+        played.put(games.get(1), 12);
+        userDatabase.addUser(User.builder().id("newcomer").playedGames(played).build());
+        recommender.train();
+
+        List<Game> recommendations = recommender.getRecommendationsForUser("newcomer", 5);
+        assertEquals(5, recommendations.size());
+        Set<Game> cluster = Set.copyOf(games.subList(2, 10));
+        assertTrue(cluster.containsAll(recommendations),
+                "Expected games 2-9, got " + recommendations.stream().map(games::indexOf).toList());
+    }
+
+    @Test
+    void resumingFromCheckpointMatchesUninterruptedTraining(@TempDir Path directory) throws IOException {
+        AlsTrainer uninterrupted = new AlsTrainer(8, 4, 0.1, 10);
+        AlsModel expected = new AlsRecommender(gameDatabase, userDatabase, uninterrupted).train();
+
+        Path checkpoint = directory.resolve("als.bin");
+        AlsTrainer firstHalf = new AlsTrainer(8, 2, 0.1, 10);
+        firstHalf.setCheckpoint(checkpoint);
+        new AlsRecommender(gameDatabase, userDatabase, firstHalf).train();
+        assertEquals(2, AlsModel.load(checkpoint).getIterations());
+
+        AlsTrainer secondHalf = new AlsTrainer(8, 4, 0.1, 10);
+        secondHalf.setCheckpoint(checkpoint);
+        AlsModel resumed = new AlsRecommender(gameDatabase, userDatabase, secondHalf).train();
+
+        assertEquals(4, resumed.getIterations());
+        assertArrayEquals(expected.userFactors(), resumed.userFactors());
+        assertArrayEquals(expected.gameFactors(), resumed.gameFactors());
+    }
+
+    @Test
+    void loadedModelServesTheSameRecommendations(@TempDir Path directory) throws IOException {
+        AlsRecommender trained = new AlsRecommender(gameDatabase, userDatabase, new AlsTrainer(8, 5, 0.1, 10));
+        Path file = directory.resolve("model.bin");
+        trained.train().save(file);
+
+        AlsRecommender loaded = new AlsRecommender(gameDatabase, userDatabase, new AlsTrainer(8, 5, 0.1, 10));
+        assertTrue(loaded.loadModel(file));
+        assertEquals(trained.getRecommendationsForUser("user-7", 5), loaded.getRecommendationsForUser("user-7", 5));
+    }
+
+    @Test
+    void retrainsOnlyAfterUserChangesAndSavesFinishedModelsApart(@TempDir Path directory) throws IOException {
+        AlsTrainer trainer = new AlsTrainer(8, 3, 0.1, 10);
+        Path checkpoint = directory.resolve("als.checkpoint");
+        trainer.setCheckpoint(checkpoint);
+        AlsRecommender recommender = new AlsRecommender(gameDatabase, userDatabase, trainer);
+        Path modelFile = directory.resolve("als.model");
+        recommender.setModelFile(modelFile);
+
+        assertTrue(recommender.trainIfStale());
+        assertFalse(recommender.trainIfStale());
+        assertEquals(userDatabase.getVersion(), AlsModel.load(modelFile).getVersion());
+
+        userDatabase.addUser(User.builder().id("late").playedGames(Map.of(games.get(3), 5)).build());
+        assertTrue(recommender.trainIfStale());
+        AlsModel saved = AlsModel.load(modelFile);
+        assertEquals(userDatabase.getVersion(), saved.getVersion());
+        assertEquals(3, saved.getIterations());
+        assertArrayEquals(recommender.getModel().userFactors(), saved.userFactors());
+    }
+
+    @Test
+    void unknownUsersGetNoRecommendations() {
+        AlsRecommender recommender = new AlsRecommender(gameDatabase, userDatabase, new AlsTrainer(8, 1, 0.1, 10));
+        assertTrue(recommender.getRecommendationsForUser("user-1", 5).isEmpty());
+        recommender.train();
+        assertTrue(recommender.getRecommendationsForUser("missing", 5).isEmpty());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AlsTrainer(0, 10, 0.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AlsTrainer(8, 10, 0.0, 10));
+    }
+
+    @Test
+    @Tag("manual")
+    void trainsTenMillionInteractions() {
+        int users = 500_000;
+        int gameCount = 50_000;
+        int perUser = 20;
+        Random random = new Random(1);
+        int[] rows = new int[users * perUser];
+        int[] columns = new int[rows.length];
+        float[] playtime = new float[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i / perUser;
+            double sample = random.nextDouble();
+            columns[i] = (int) (sample * sample * gameCount);
+            playtime[i] = 1 + random.nextInt(100);
+        }
+        InteractionMatrix plays = InteractionMatrix.fromTriples(users, gameCount, rows, columns, playtime,
+                rows.length);
+        String[] userIds = new String[users];
+        String[] gameIds = new String[gameCount];
+        for (int u = 0; u < users; u++) {
+            userIds[u] = "user-" + u;
+        }
+        for (int g = 0; g < gameCount; g++) {
+            gameIds[g] = "game-" + g;
+        }
+
+        long start = System.nanoTime();
+        new AlsTrainer(AlsTrainer.DEFAULT_FACTORS, AlsTrainer.DEFAULT_ITERATIONS, 0.1, 10)
+                .train(plays, userIds, gameIds, 1);
+        System.out.printf("Trained %d interactions in %d s%n", plays.nonZeros(),
+                (System.nanoTime() - start) / 1_000_000_000);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.benchmark.SyntheticCatalog;
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.RecommendationEngine.BatchQuery;
+
+/**
+ * Verifies that a batch gives every query the same result as running it alone.
+ */
+public class BatchSearcherTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+    }
+
+    @Test
+    void batchMatchesSeparateQueries() {
+        SyntheticCatalog.games(20_000, 13).forEach(gameDatabase::addGame);
+        MatchScorer linear = new LinearMatchScorer("linear", WeightedMatchScorer.PERFECT_MATCH_SCORE,
+                WeightedMatchScorer.GENRE_WEIGHT, WeightedMatchScorer.TAG_WEIGHT);
+        Random random = new Random(29);
+        List<BatchQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Set<String> genres = SyntheticCatalog.terms(random, "Genre ", SyntheticCatalog.GENRES, random.nextInt(3));
+            Set<String> tags = SyntheticCatalog.terms(random, "Tag ", SyntheticCatalog.TAGS, random.nextInt(4));
+            queries.add(new BatchQuery(genres, tags, i % 2 == 0 ? WeightedMatchScorer.DEFAULT : linear));
+        }
+        queries.add(new BatchQuery(Set.of("Unknown Genre"), null, null));
+        queries.add(new BatchQuery(Set.of(), Set.of(""), null));
+
+        List<List<Game>> batch = recommendationEngine.getBatchRecommendations(queries, 12);
+        assertEquals(queries.size(), batch.size());
+        for (int i = 0; i < queries.size(); i++) {
+            BatchQuery query = queries.get(i);
+            MatchScorer scorer = query.scorer() != null ? query.scorer() : recommendationEngine.getDefaultScorer();
+            assertEquals(recommendationEngine.getMultiFilterRecommendations(query.genres(), query.tags(), scorer, 12),
+                    batch.get(i), "Query " + i);
+        }
+    }
+
+    @Test
+    void batchMatchesSeparateQueriesOnTheBundledCatalog() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        List<BatchQuery> queries = List.of(
+                new BatchQuery(Set.of("Action"), Set.of(), null),
+                new BatchQuery(Set.of("Action", "RPG"), Set.of("Open World"), null),
+                new BatchQuery(Set.of(), Set.of("Atmospheric", "Story-Rich"), null));
+        List<List<Game>> batch = recommendationEngine.getBatchRecommendations(queries, 8);
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(recommendationEngine.getMultiFilterRecommendations(queries.get(i).genres(),
+                    queries.get(i).tags(), 8), batch.get(i));
+        }
+    }
+
+    @Test
+    void batchSizeAndLimitAreBounded() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        recommendationEngine.setMaxBatchQueries(2);
+        BatchQuery action = new BatchQuery(Set.of("Action"), Set.of(), null);
+        assertThrows(IllegalArgumentException.class,
+                () -> recommendationEngine.getBatchRecommendations(List.of(action, action, action), 5));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> recommendationEngine.getBatchRecommendations(List.of(action), 100_000_000));
+        List<List<Game>> batch = recommendationEngine.getBatchRecommendations(List.of(action),
+                RecommendationEngine.MAX_PAGE_SIZE);
+        assertEquals(recommendationEngine.getMultiFilterRecommendations(Set.of("Action"), Set.of(),
+                RecommendationEngine.MAX_PAGE_SIZE), batch.get(0));
+    }
+}
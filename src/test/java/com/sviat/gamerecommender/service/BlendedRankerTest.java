@@ -0,0 +1,80 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Verifies that the threshold algorithm returns the same top-K as blending
+ * every candidate and sorting.
+ */
+public class BlendedRankerTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    static Stream<Arguments> blendedQueries() {
+        return Stream.of(
+                Arguments.of(Set.of("Action"), Set.of(), RankingWeights.of(1.0, 0.5, 0.5), 5),
+                Arguments.of(Set.of("Action", "RPG"), Set.of("Open World"), RankingWeights.of(0.6, 0.3, 0.1), 10),
+                Arguments.of(Set.of(), Set.of("Atmospheric", "Story-Rich"), RankingWeights.of(0.2, 0.0, 0.8), 8),
+                Arguments.of(Set.of("Shooter"), Set.of("FPS"), RankingWeights.of(0.0, 1.0, 0.0), 6),
+                Arguments.of(Set.of("Adventure", "Horror"), Set.of(), RankingWeights.MATCH_ONLY, 50));
+    }
+
+    @ParameterizedTest
+    @MethodSource("blendedQueries")
+    void thresholdAlgorithmMatchesFullBlend(Set<String> genres, Set<String> tags, RankingWeights weights,
+            int limit) {
+        assertEquals(fullBlend(genres, tags, weights, limit),
+                recommendationEngine.getBlendedRecommendations(genres, tags, weights, limit).stream()
+                        .map(Game::getTitle)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void matchOnlyWeightsKeepMultiFilterOrder() {
+        Set<String> genres = Set.of("Action", "Adventure");
+        Set<String> tags = Set.of("Exploration");
+        assertEquals(recommendationEngine.getMultiFilterRecommendations(genres, tags, 12),
+                recommendationEngine.getBlendedRecommendations(genres, tags, RankingWeights.MATCH_ONLY, 12));
+    }
+
+    @Test
+    void negativeWeightsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RankingWeights.of(1.0, -0.5, 0.0));
+    }
+
+    private List<String> fullBlend(Set<String> genres, Set<String> tags, RankingWeights weights, int limit) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        int maxScore = WeightedMatchScorer.DEFAULT.score(genres.size(), genres.size(), tags.size(), tags.size());
+        Comparator<Integer> byBlend = Comparator.comparingDouble((Integer ordinal) -> BlendedRanker.blend(index,
+                weights, ordinal, recommendationEngine.calculateMatchScore(index.gameAt(ordinal), genres, tags),
+                maxScore)).reversed();
+        return IntStream.range(0, index.size())
+                .boxed()
+                .filter(ordinal -> recommendationEngine.calculateMatchScore(index.gameAt(ordinal), genres, tags) > 0)
+                .sorted(byBlend.thenComparing(Comparator.naturalOrder()))
+                .limit(limit)
+                .map(ordinal -> index.gameAt(ordinal).getTitle())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+public class CoOccurrenceModelTest extends BaseServiceTest {
+    private UserDatabase userDatabase;
+    private CoOccurrenceRecommender recommender;
+    private List<Game> games;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        userDatabase = new UserDatabase(gameDatabase);
+        recommender = new CoOccurrenceRecommender(gameDatabase, userDatabase);
+    }
+
+    @Test
+    void weightsMatchBruteForceCosine() {
+        Random random = new Random(5);
+        for (int u = 0; u < 300; u++) {
+            List<Game> played = new ArrayList<>();
+            for (int g = 0; g < 2 + random.nextInt(8); g++) {
+                played.add(games.get(random.nextInt(40)));
+            }
+            userDatabase.addUser(user("user-" + u, played));
+        }
+
+        CoOccurrenceModel model = recommender.refreshModel();
+        List<User> users = userDatabase.getAllUsers();
+        for (Game game : games.subList(0, 40)) {
+            int key = gameDatabase.findGameKey(game.getId());
+            float previous = Float.MAX_VALUE;
+            for (int i = 0; i < model.neighbourCount(key); i++) {
+                Game other = gameById(gameDatabase.gameIdForKey(model.neighbourAt(key, i)));
+                double expected = together(users, game, other)
+                        / Math.sqrt((double) together(users, game, game) * together(users, other, other));
+                assertEquals(expected, model.weightAt(key, i), 1e-6);
+                assertTrue(model.weightAt(key, i) <= previous);
+                previous = model.weightAt(key, i);
+            }
+        }
+    }
+
+    @Test
+    void alsoPlayedReturnsStrongestCoPlayedGames() {
+        Game portal = games.get(0);
+        Game strong = games.get(1);
+        Game weak = games.get(2);
+        userDatabase.addUser(user("a", List.of(portal, strong)));
+        userDatabase.addUser(user("b", List.of(portal, strong)));
+        userDatabase.addUser(user("c", List.of(portal, weak)));
+        userDatabase.addUser(user("d", List.of(weak, games.get(3))));
+
+        List<Map<String, String>> alsoPlayed = recommender.getAlsoPlayedGames(portal.getId(), 3);
+
+        assertEquals(List.of(strong.getId(), weak.getId()),
+                alsoPlayed.stream().map(game -> game.get("id")).toList());
+        assertTrue(recommender.getAlsoPlayedGames("missing", 3).isEmpty());
+    }
+
+    @Test
+    void modelIsRebuiltInTheBackgroundWhenUsersChange() throws InterruptedException {
+        userDatabase.addUser(user("a", List.of(games.get(0), games.get(1))));
+        CoOccurrenceModel first = recommender.getModel();
+        assertSame(first, recommender.getModel());
+
+        CoOccurrenceModel served;
+        // Holding the monitor keeps the background rebuild from finishing
+        synchronized (recommender) {
+            userDatabase.addUser(user("b", List.of(games.get(0), games.get(2))));
+            served = recommender.getModel();
+        }
+        assertSame(first, served);
+        for (int i = 0; i < 200 && recommender.getModel() == first; i++) {
+            Thread.sleep(10);
+        }
+        CoOccurrenceModel second = recommender.getModel();
+        assertNotSame(first, second);
+        assertEquals(2, second.neighbourCount(gameDatabase.findGameKey(games.get(0).getId())));
+        recommender.close();
+    }
+
+    @Test
+    void countsFollowEveryChangeLikeARecount() {
+        Random random = new Random(11);
+        List<User> added = new ArrayList<>();
+        for (int u = 0; u < 100; u++) {
+            List<Game> played = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(6); g++) {
+                played.add(games.get(random.nextInt(20)));
+            }
+            User user = user("user-" + u, played);
+            userDatabase.addUser(user);
+            added.add(user);
+        }
+        for (int u = 0; u < 100; u += 3) {
+            userDatabase.deleteUser(added.get(u));
+        }
+        UserInteractionStore store = userDatabase.getInteractionStore();
+        for (int i = 0; i < 200; i++) {
+            store.recordPlay("user-" + random.nextInt(120), games.get(random.nextInt(20)).getId(), 1);
+        }
+
+        CoOccurrenceCounts counts = recommender.getCounts();
+        for (Game game : games.subList(0, 20)) {
+            int key = gameDatabase.findGameKey(game.getId());
+            for (Game other : games.subList(0, 20)) {
+                int otherKey = gameDatabase.findGameKey(other.getId());
+                int both = 0;
+                for (String userId : store.userIds()) {
+                    if (store.hasPlayed(userId, game.getId()) && store.hasPlayed(userId, other.getId())) {
+                        both++;
+                    }
+                }
+                if (key == otherKey) {
+                    assertEquals(both, counts.playerCount(key), game.getTitle());
+                } else {
+                    assertEquals(both, counts.count(key, otherKey), game.getTitle() + "/" + other.getTitle());
+                }
+            }
+        }
+    }
+
+    private Game gameById(String id) {
+        return games.stream().filter(game -> game.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    private static int together(List<User> users, Game first, Game second) {
+        int count = 0;
+        for (User user : users) {
+            if (user.getPlayedGames().containsKey(first) && user.getPlayedGames().containsKey(second)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static User user(String id, List<Game> played) {
+        Map<Game, Integer> playtime = new HashMap<>();
+        played.forEach(game -> playtime.put(game, 10));
+        return User.builder().id(id).playedGames(playtime).build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class ContentSimilarityRecommenderTest extends BaseServiceTest {
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    @Test
+    void vectorsAreUnitLengthAndCloserForSharedWords() {
+        List<String> corpus = List.of("space shooter with lasers", "farming life simulation",
+                "space trading simulation", "puzzle platformer");
+        TextVectorizer vectorizer = TextVectorizer.fit(corpus, 1024);
+        float[] shooter = vectorizer.vectorize(corpus.get(0));
+        float[] trading = vectorizer.vectorize(corpus.get(2));
+        float[] puzzle = vectorizer.vectorize(corpus.get(3));
+
+        assertEquals(1.0, dot(shooter, shooter), 1e-5);
+        assertTrue(dot(shooter, trading) > dot(shooter, puzzle));
+        assertEquals(0.0, dot(vectorizer.vectorize("  "), shooter));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    @Test
+    void textSkipsDescriptionLinks() {
+        Game linked = Game.builder().id("g").title("Star Farm").description("https://example.com/g/details.html")
+                .developer("Dev").genres(Set.of("Simulation")).tags(Set.of("Cozy")).build();
+        String text = ContentSimilarityRecommender.textOf(linked);
+        assertFalse(text.contains("example.com"));
+        assertTrue(text.contains("Star Farm") && text.contains("Dev") && text.contains("Cozy"));
+
+        Game described = Game.builder().id("h").title("Star Farm").description("Grow crops in orbit").build();
+        assertTrue(ContentSimilarityRecommender.textOf(described).contains("Grow crops in orbit"));
+    }
+
+    @Test
+    void approximateResultsMatchExactSearch() {
+        ContentSimilarityRecommender recommender = new ContentSimilarityRecommender(gameDatabase, 256, 8, 100, 64,
+                null);
+        int matches = 0;
+        int total = 0;
+        for (Game game : gameDatabase.getAllGames()) {
+            List<Game> exact = recommender.getSimilarGamesExact(game.getId(), 5);
+            List<Game> approximate = recommender.getSimilarGames(game.getId(), 5);
+            assertFalse(approximate.contains(game));
+            assertEquals(5, approximate.size());
+            matches += (int) approximate.stream().filter(exact::contains).count();
+            total += exact.size();
+        }
+        assertTrue(matches >= total * 0.95, "recall " + matches + "/" + total);
+        assertTrue(recommender.getSimilarGames("missing", 5).isEmpty());
+    }
+
+    @Test
+    void savedIndexIsReusedUntilTheCatalogChanges() throws Exception {
+        Path file = tempDir.resolve("content.hnsw");
+        ContentSimilarityRecommender first = new ContentSimilarityRecommender(gameDatabase, 64, 8, 50, 32, file);
+        String gameId = gameDatabase.getAllGames().get(0).getId();
+        List<Game> similar = first.getSimilarGames(gameId, 5);
+        assertTrue(Files.exists(file));
+        FileTime written = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, written);
+
+        // A restart with the same catalog maps the saved file instead of rebuilding
+        ContentSimilarityRecommender second = new ContentSimilarityRecommender(gameDatabase, 64, 8, 50, 32, file);
+        assertEquals(similar, second.getSimilarGames(gameId, 5));
+        assertEquals(written, Files.getLastModifiedTime(file));
+
+        gameDatabase.addGame(Game.builder().id("content-new").title("Content New")
+                .genres(Set.of("Puzzle")).tags(Set.of("Relaxing")).build());
+        assertEquals(gameDatabase.getAllGames().size(), second.refreshIndex().size());
+        assertNotEquals(written, Files.getLastModifiedTime(file));
+    }
+
+    @Test
+    void changesAreServedFromThePreviousIndexUntilTheRebuildIsDone() throws InterruptedException {
+        ContentSimilarityRecommender recommender = new ContentSimilarityRecommender(gameDatabase, 64, 8, 50, 32,
+                null);
+        HnswIndex first = recommender.getIndex();
+
+        HnswIndex served;
+        // Holding the monitor keeps the background rebuild from finishing
+        synchronized (recommender) {
+            gameDatabase.addGame(Game.builder().id("content-new").title("Content New")
+                    .genres(Set.of("Puzzle")).tags(Set.of("Relaxing")).build());
+            served = recommender.getIndex();
+        }
+        assertSame(first, served);
+        for (int i = 0; i < 200 && recommender.getIndex() == first; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(first.size() + 1, recommender.getIndex().size());
+        assertEquals(1, recommender.getSimilarGames("content-new", 1).size());
+        recommender.close();
+    }
+}
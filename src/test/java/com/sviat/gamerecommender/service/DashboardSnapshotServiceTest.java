@@ -0,0 +1,105 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.DashboardSnapshotService.DashboardSnapshot;
+
+public class DashboardSnapshotServiceTest extends BaseServiceTest {
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private RecommendationEngine recommendationEngine;
+    private DashboardSnapshotService dashboard;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        dashboard = new DashboardSnapshotService(gameDatabase, recommendationEngine, 12, now::get);
+    }
+
+    @Test
+    void snapshotHoldsTheDashboardRows() {
+        DashboardSnapshot snapshot = dashboard.getSnapshot();
+        assertEquals(recommendationEngine.getRecommendationsByMetacriticScore(12), snapshot.bestRated());
+        assertEquals(recommendationEngine.getRecommendationsByReleaseDate(12), snapshot.newReleases());
+        assertEquals(recommendationEngine.getRecommendationsByGenre(DashboardSnapshotService.RECOMMENDED_GENRES, 12),
+                snapshot.recommended());
+        assertEquals(gameDatabase.getAllGames().size(), snapshot.totalGames());
+        assertEquals(now.get(), snapshot.builtAt());
+        assertTrue(snapshot.buildDuration() >= 0);
+    }
+
+    @Test
+    void snapshotIsRebuiltOnlyAfterACatalogChange() {
+        DashboardSnapshot first = dashboard.getSnapshot();
+        now.addAndGet(60_000);
+        assertSame(first, dashboard.refresh());
+        assertSame(first, dashboard.getSnapshot());
+
+        gameDatabase.addGame(Game.builder().id("dashboard-new").title("Dashboard New").metacriticScore(100)
+                .releaseDate("2099-01-01").genres(Set.of("Action")).build());
+        // Readers keep the old snapshot until the refresh has run
+        assertSame(first, dashboard.getSnapshot());
+        DashboardSnapshot second = dashboard.refresh();
+        assertEquals("dashboard-new", second.bestRated().get(0).getId());
+        assertEquals("dashboard-new", second.newReleases().get(0).getId());
+        assertEquals(first.totalGames() + 1, second.totalGames());
+        assertEquals(now.get(), second.builtAt());
+        assertSame(second, dashboard.getSnapshot());
+    }
+
+    @Test
+    void backgroundRefreshFollowsGameChanges() throws InterruptedException {
+        dashboard.start(3600);
+        try {
+            DashboardSnapshot first = dashboard.getSnapshot();
+            gameDatabase.addGame(Game.builder().id("dashboard-bg").title("Dashboard Background")
+                    .metacriticScore(100).genres(Set.of("RPG")).build());
+            for (int i = 0; i < 200 && dashboard.getSnapshot() == first; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(first.catalogVersion() + 1, dashboard.getSnapshot().catalogVersion());
+        } finally {
+            dashboard.close();
+        }
+    }
+
+    @Test
+    void bulkImportQueuesAtMostOneRebuildAtATime() throws InterruptedException {
+        AtomicInteger builds = new AtomicInteger();
+        DashboardSnapshotService counted = new DashboardSnapshotService(gameDatabase, recommendationEngine, 12,
+                () -> {
+                    builds.incrementAndGet();
+                    return now.get();
+                });
+        counted.start(3600);
+        try {
+            // Holding the service's monitor stalls the first rebuild until the import is done
+            synchronized (counted) {
+                for (int i = 0; i < 500; i++) {
+                    gameDatabase.addGame(Game.builder().id("bulk-" + i).title("Bulk " + i)
+                            .genres(Set.of("Action")).build());
+                }
+            }
+            long version = gameDatabase.getCatalogVersion();
+            for (int i = 0; i < 200 && counted.getSnapshot().catalogVersion() != version; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(version, counted.getSnapshot().catalogVersion());
+            assertEquals(gameDatabase.getAllGames().size(), counted.getSnapshot().totalGames());
+            // The first build, the stalled rebuild and at most one queued behind it
+            assertTrue(builds.get() <= 3, "builds: " + builds.get());
+        } finally {
+            counted.close();
+        }
+    }
+}
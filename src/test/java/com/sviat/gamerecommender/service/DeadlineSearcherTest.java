@@ -0,0 +1,95 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.benchmark.SyntheticCatalog;
+import com.sviat.gamerecommender.model.Game;
+
+public class DeadlineSearcherTest extends BaseServiceTest {
+    private static final long MILLI = 1_000_000;
+    private static final int SLICE = 1000;
+
+    private RecommendationEngine recommendationEngine;
+    // Every read advances the clock by a millisecond
+    private final AtomicLong nanos = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        SyntheticCatalog.games(20_000, 13).forEach(gameDatabase::addGame);
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+    }
+
+    private RecommendationEngine.BoundedResult search(Set<String> genres, Set<String> tags, int limit,
+            Duration budget) {
+        return recommendationEngine.getMultiFilterRecommendations(genres, tags, WeightedMatchScorer.DEFAULT, limit,
+                budget, () -> nanos.addAndGet(MILLI), SLICE);
+    }
+
+    @Test
+    void ampleBudgetGivesTheFullResult() {
+        Set<String> genres = Set.of("Genre 1", "Genre 2");
+        Set<String> tags = Set.of("Tag 3", "Tag 7");
+        RecommendationEngine.BoundedResult result = search(genres, tags, 20, Duration.ofHours(1));
+        assertFalse(result.partial());
+        assertEquals(recommendationEngine.getMultiFilterRecommendations(genres, tags, 20), result.games());
+
+        RecommendationEngine.BoundedResult unbounded = search(genres, tags, 20, Duration.ZERO);
+        assertFalse(unbounded.partial());
+        assertEquals(result.games(), unbounded.games());
+    }
+
+    @Test
+    void cutOffReturnsTheBestOfTheSlicesSearched() {
+        Set<String> genres = Set.of("Genre 1", "Genre 2", "Genre 4");
+        Set<String> tags = Set.of("Tag 3", "Tag 7", "Tag 9");
+        // 10 ms less a tenth in reserve ends at 10 ms; the clock reads 2..9 ms before slices 1..8
+        RecommendationEngine.BoundedResult result = search(genres, tags, 10, Duration.ofMillis(10));
+        assertTrue(result.partial());
+
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        TopKHeap prefix = new TopKHeap(10);
+        MaxScoreSearcher.search(index, MatchQuery.compile(index, genres, tags, WeightedMatchScorer.DEFAULT), 0,
+                9 * SLICE, prefix);
+        List<Game> expected = new ArrayList<>();
+        for (int ordinal : prefix.drainOrdinals()) {
+            expected.add(index.gameAt(ordinal));
+        }
+        assertEquals(10, expected.size());
+        assertEquals(expected, result.games());
+    }
+
+    @Test
+    void fullHeapOfBestScoresCompletesBeforeTheDeadline() {
+        // Every match of a single genre has the best possible score
+        RecommendationEngine.BoundedResult result = search(Set.of("Genre 5"), Set.of(), 5, Duration.ofNanos(1));
+        assertFalse(result.partial());
+        assertEquals(recommendationEngine.getMultiFilterRecommendations(Set.of("Genre 5"), Set.of(), 5),
+                result.games());
+    }
+
+    @Test
+    void requestedBudgetCanOnlyShortenTheConfiguredOne() {
+        recommendationEngine.setTimeBudget(Duration.ofMillis(200));
+        assertEquals(Duration.ofMillis(50), recommendationEngine.boundedTimeBudget(Duration.ofMillis(50)));
+        assertEquals(Duration.ofMillis(200), recommendationEngine.boundedTimeBudget(Duration.ofDays(1)));
+        assertEquals(Duration.ofMillis(200), recommendationEngine.boundedTimeBudget(Duration.ZERO));
+        assertEquals(Duration.ofMillis(200), recommendationEngine.boundedTimeBudget(Duration.ofMillis(-1)));
+        assertEquals(Duration.ofMillis(200), recommendationEngine.boundedTimeBudget(null));
+
+        // Without a configured budget a client may still ask for one
+        recommendationEngine.setTimeBudget(Duration.ZERO);
+        assertEquals(Duration.ofMillis(50), recommendationEngine.boundedTimeBudget(Duration.ofMillis(50)));
+        assertEquals(Duration.ZERO, recommendationEngine.boundedTimeBudget(Duration.ofMillis(-1)));
+    }
+}
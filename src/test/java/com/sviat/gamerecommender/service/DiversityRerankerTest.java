@@ -0,0 +1,121 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Verifies the incremental MMR re-ranking against picking by brute force.
+ */
+public class DiversityRerankerTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    @Test
+    void zeroDiversityKeepsMultiFilterOrder() {
+        Set<String> genres = Set.of("Action", "Adventure");
+        Set<String> tags = Set.of("Open World");
+        assertEquals(recommendationEngine.getMultiFilterRecommendations(genres, tags, 10),
+                recommendationEngine.getDiverseRecommendations(genres, tags, 0.0, 10));
+    }
+
+    @Test
+    void diversityLowersSimilarityBetweenResults() {
+        Set<String> genres = Set.of("Action", "RPG");
+        Set<String> tags = Set.of("Open World", "Story-Rich");
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        double plain = averageSimilarity(index, recommendationEngine.getMultiFilterRecommendations(genres, tags, 10));
+        double diverse = averageSimilarity(index,
+                recommendationEngine.getDiverseRecommendations(genres, tags, 0.7, 10));
+        assertTrue(diverse < plain, diverse + " >= " + plain);
+    }
+
+    @Test
+    void incrementalRerankMatchesBruteForce() {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        int count = Math.min(40, index.size());
+        double lambda = 0.5;
+        int[] ordinals = new int[count];
+        double[] relevance = new double[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = i;
+            relevance[i] = 1 - (double) i / count;
+        }
+
+        List<Integer> expected = bruteForce(index, ordinals.clone(), relevance.clone(), lambda, 15);
+        int picks = new DiversityReranker().rerank(index, ordinals, relevance, count, lambda, 15);
+        assertEquals(15, picks);
+        List<Integer> actual = new ArrayList<>();
+        for (int i = 0; i < picks; i++) {
+            actual.add(ordinals[i]);
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void diversityOutsideUnitRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> recommendationEngine.getDiverseRecommendations(Set.of("Action"), Set.of(), 1.5, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> recommendationEngine.getDiverseRecommendations(Set.of("Action"), Set.of(), -0.1, 10));
+    }
+
+    private static List<Integer> bruteForce(CatalogIndex index, int[] ordinals, double[] relevance, double lambda,
+            int k) {
+        List<Integer> picked = new ArrayList<>();
+        boolean[] used = new boolean[ordinals.length];
+        while (picked.size() < k) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < ordinals.length; i++) {
+                if (used[i]) {
+                    continue;
+                }
+                double maxSimilarity = 0;
+                for (int other : picked) {
+                    maxSimilarity = Math.max(maxSimilarity, similarity(index, ordinals[i], other));
+                }
+                double score = lambda * relevance[i] - (1 - lambda) * maxSimilarity;
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            used[best] = true;
+            picked.add(ordinals[best]);
+        }
+        return picked;
+    }
+
+    private static double similarity(CatalogIndex index, int a, int b) {
+        return DiversityReranker.similarity(index, a, DiversityReranker.termCount(index, a), b,
+                DiversityReranker.termCount(index, b));
+    }
+
+    private static double averageSimilarity(CatalogIndex index, List<Game> games) {
+        double total = 0;
+        int pairs = 0;
+        for (int i = 0; i < games.size(); i++) {
+            for (int j = i + 1; j < games.size(); j++) {
+                total += similarity(index, index.ordinalOf(games.get(i).getId()),
+                        index.ordinalOf(games.get(j).getId()));
+                pairs++;
+            }
+        }
+        return pairs > 0 ? total / pairs : 0;
+    }
+}
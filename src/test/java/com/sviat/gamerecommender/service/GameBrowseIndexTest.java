@@ -0,0 +1,81 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class GameBrowseIndexTest extends BaseServiceTest {
+
+    private void addGames(String... titles) {
+        for (int i = 0; i < titles.length; i++) {
+            gameDatabase.addGame(Game.builder().id("browse-" + i).title(titles[i]).build());
+        }
+    }
+
+    private static List<String> titles(List<Game> games) {
+        return games.stream().map(Game::getTitle).collect(Collectors.toList());
+    }
+
+    @Test
+    void titlesSortByLocaleIgnoringCase() {
+        addGames("zelda", "Ökonomie", "Apple", "apple", "Oregon", "Éclair", "Echo");
+        GameBrowseIndex index = new GameBrowseIndex(gameDatabase, Locale.GERMAN, 10);
+        // Case ties keep catalog order; accented letters sort next to their base letter
+        assertEquals(List.of("Apple", "apple", "Echo", "Éclair", "Ökonomie", "Oregon", "zelda"),
+                titles(index.getPage(0).games()));
+    }
+
+    @Test
+    void pagesAndWindowsSliceTheTitleOrder() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        GameBrowseIndex index = new GameBrowseIndex(gameDatabase, Locale.ENGLISH, 7);
+        List<Game> all = index.getRange(0, GameBrowseIndex.MAX_PAGE_SIZE);
+        assertEquals(Math.min(GameBrowseIndex.MAX_PAGE_SIZE, gameDatabase.getAllGames().size()), all.size());
+
+        List<Game> paged = new ArrayList<>();
+        GameBrowseIndex.BrowsePage first = index.getPage(0);
+        for (int page = 0; page < first.totalPages(); page++) {
+            GameBrowseIndex.BrowsePage browsePage = index.getPage(page);
+            assertTrue(browsePage.games().size() <= 7);
+            paged.addAll(browsePage.games());
+        }
+        assertEquals(gameDatabase.getAllGames().size(), paged.size());
+        assertEquals(all.subList(0, Math.min(all.size(), paged.size())),
+                paged.subList(0, Math.min(all.size(), paged.size())));
+        assertEquals(paged.subList(10, 15), index.getRange(10, 5));
+        GameBrowseIndex.BrowseWindow window = index.getWindow(-5, 3);
+        assertEquals(paged.subList(0, 3), window.games());
+        assertEquals(0, window.offset());
+        assertEquals(paged.size(), window.totalGames());
+
+        // Out-of-range pages clamp; windows past the end are empty
+        assertEquals(first.totalPages() - 1, index.getPage(Integer.MAX_VALUE).page());
+        assertEquals(0, index.getPage(-3).page());
+        assertTrue(index.getRange(paged.size(), 5).isEmpty());
+    }
+
+    @Test
+    void orderIsRebuiltWhenTheCatalogChanges() {
+        addGames("Beta", "Delta");
+        GameBrowseIndex index = new GameBrowseIndex(gameDatabase, Locale.ENGLISH, 10);
+        assertEquals(List.of("Beta", "Delta"), titles(index.getPage(0).games()));
+        gameDatabase.addGame(Game.builder().id("browse-new").title("alpha").build());
+        assertEquals(List.of("alpha", "Beta", "Delta"), titles(index.getPage(0).games()));
+        assertEquals(3, index.size());
+        assertEquals(3, index.getWindow(0, 10).totalGames());
+    }
+
+    @Test
+    void invalidPageSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new GameBrowseIndex(gameDatabase, Locale.ENGLISH, 0));
+    }
+}
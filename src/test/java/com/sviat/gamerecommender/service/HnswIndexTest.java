@@ -0,0 +1,109 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies the recall of the HNSW index against exact search, and that a
+ * saved index answers the same from its mapped file.
+ */
+public class HnswIndexTest {
+    private static final int DIMENSION = 24;
+
+    @TempDir
+    Path tempDir;
+
+    private static List<float[]> randomUnitVectors(int count, long seed) {
+        Random random = new Random(seed);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSION];
+            double norm = 0;
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] = (float) random.nextGaussian();
+                norm += vector[d] * vector[d];
+            }
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] /= (float) Math.sqrt(norm);
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("game-" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    void approximateSearchHasHighRecall() {
+        List<float[]> vectors = randomUnitVectors(2000, 1);
+        HnswIndex index = HnswIndex.build(ids(2000), vectors, 12, 100, 7, 0);
+        int found = 0;
+        int expected = 0;
+        for (float[] query : randomUnitVectors(50, 2)) {
+            Set<Integer> exact = new HashSet<>();
+            for (int node : index.exactSearch(query, 10).drainOrdinals()) {
+                exact.add(node);
+            }
+            for (int node : index.search(query, 10, 80).drainOrdinals()) {
+                found += exact.contains(node) ? 1 : 0;
+            }
+            expected += exact.size();
+        }
+        assertTrue(found >= expected * 0.9, "recall " + found + "/" + expected);
+    }
+
+    @Test
+    void savedIndexIsSearchedFromTheMappedFile() throws IOException {
+        List<float[]> vectors = randomUnitVectors(300, 3);
+        HnswIndex built = HnswIndex.build(ids(300), vectors, 8, 50, 11, 42);
+        Path file = tempDir.resolve("content.hnsw");
+        built.save(file);
+        HnswIndex opened = HnswIndex.open(file);
+
+        assertEquals(300, opened.size());
+        assertEquals(DIMENSION, opened.dimension());
+        assertEquals(42, opened.getFingerprint());
+        assertEquals(17, opened.nodeOf("game-17"));
+        assertEquals(-1, opened.nodeOf("missing"));
+        assertArrayEquals(vectors.get(5), opened.vectorOf(5));
+        for (float[] query : randomUnitVectors(20, 4)) {
+            assertArrayEquals(built.search(query, 5, 20).drainOrdinals(), opened.search(query, 5, 20).drainOrdinals());
+        }
+        // A vector's nearest neighbour is itself
+        assertEquals(5, opened.search(vectors.get(5), 1, 20).drainOrdinals()[0]);
+    }
+
+    @Test
+    void handlesEmptyAndInvalidInput() throws IOException {
+        HnswIndex empty = HnswIndex.build(List.of(), List.of(), 4, 10, 1, 0);
+        assertEquals(0, empty.search(new float[DIMENSION], 5, 10).size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> HnswIndex.build(ids(2), randomUnitVectors(1, 1), 4, 10, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> HnswIndex.build(ids(1), randomUnitVectors(1, 1), 1, 10, 1, 0));
+        Path garbage = tempDir.resolve("garbage.hnsw");
+        Files.write(garbage, new byte[64]);
+        assertThrows(IOException.class, () -> HnswIndex.open(garbage));
+    }
+}
@@ -0,0 +1,222 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+public class MappedUserStoreTest extends BaseServiceTest {
+    // Tiny chunks so records, lists and strings cross many mappings
+    private static final int CHUNK_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    private List<Game> games;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+    }
+
+    private User user(String id, int firstGame, int gameCount) {
+        Map<Game, Integer> played = new HashMap<>();
+        for (int g = firstGame; g < firstGame + gameCount; g++) {
+            played.put(games.get(g), g + 1);
+        }
+        return User.builder().id(id)
+                .favoriteGenres(Set.of("Action", "Role-Playing Game"))
+                .preferredPlatforms(Set.of("PC"))
+                .maxPrice(new BigDecimal("49.99"))
+                .ownedGames(Set.of(games.get(firstGame).getId(), games.get(40).getId()))
+                .playedGames(played)
+                .averagePlaytime(12.5)
+                .totalGamesPlayed(gameCount)
+                .lastActiveDate(LocalDate.of(2024, 3, 1))
+                .wishlist(Set.of(games.get(41).getId()))
+                .build();
+    }
+
+    private static void assertSameProfile(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getFavoriteGenres(), actual.getFavoriteGenres());
+        assertEquals(expected.getPreferredPlatforms(), actual.getPreferredPlatforms());
+        assertEquals(0, expected.getMaxPrice().compareTo(actual.getMaxPrice()));
+        assertEquals(expected.getOwnedGames(), actual.getOwnedGames());
+        assertEquals(expected.getPlayedGames(), actual.getPlayedGames());
+        assertEquals(expected.getAveragePlaytime(), actual.getAveragePlaytime());
+        assertEquals(expected.getTotalGamesPlayed(), actual.getTotalGamesPlayed());
+        assertEquals(expected.getLastActiveDate(), actual.getLastActiveDate());
+        assertEquals(expected.getWishlist(), actual.getWishlist());
+    }
+
+    @Test
+    void profilesSurviveReopening() throws IOException {
+        User alice = user("alice", 0, 5);
+        User bob = user("bob-with-a-long-id-that-straddles-chunks", 10, 20);
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            store.put(alice);
+            store.put(bob);
+        }
+
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            assertEquals(2, store.size());
+            assertSameProfile(alice, store.get("alice", gameDatabase));
+            assertSameProfile(bob, store.get(bob.getId(), gameDatabase));
+            assertTrue(store.has("alice", games.get(0).getId(),
+                    UserInteractionStore.PLAYED | UserInteractionStore.OWNED));
+            assertTrue(store.has("alice", games.get(41).getId(), UserInteractionStore.WISHLISTED));
+            assertFalse(store.has("alice", games.get(41).getId(), UserInteractionStore.PLAYED));
+            assertNull(store.get("carol", gameDatabase));
+        }
+    }
+
+    @Test
+    void updatesAndDeletesArePersisted() throws IOException {
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            store.put(user("alice", 0, 10));
+            store.put(user("bob", 0, 3));
+            // Shrinks in place, then grows into a new list
+            store.put(user("alice", 5, 2));
+            store.put(user("bob", 0, 30));
+            assertTrue(store.delete("alice"));
+            assertFalse(store.delete("alice"));
+            store.put(user("carol", 20, 4));
+        }
+
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            assertEquals(2, store.size());
+            assertFalse(store.contains("alice"));
+            assertSameProfile(user("bob", 0, 30), store.get("bob", gameDatabase));
+            assertSameProfile(user("carol", 20, 4), store.get("carol", gameDatabase));
+        }
+    }
+
+    @Test
+    void userDatabaseWritesThroughAndRestoresOnAttach() throws IOException {
+        try (UserDatabase users = new UserDatabase(gameDatabase)) {
+            users.attachStore(MappedUserStore.open(directory, CHUNK_SIZE));
+            User alice = user("alice", 0, 5);
+            users.addUser(alice);
+            users.addUser(user("bob", 10, 3));
+            users.deleteUser(alice);
+            users.addUser(user("alice", 20, 2));
+            users.deleteUser(users.findUserById("bob"));
+        }
+
+        try (UserDatabase users = new UserDatabase(gameDatabase)) {
+            users.attachStore(MappedUserStore.open(directory, CHUNK_SIZE));
+            assertEquals(List.of("alice"), users.getUserIds());
+            assertSameProfile(user("alice", 20, 2), users.findUserById("alice"));
+            assertTrue(users.getInteractionStore().has("alice", games.get(20).getId(),
+                    UserInteractionStore.PLAYED));
+            assertEquals(-1, users.getUserVersion("bob"));
+        }
+    }
+
+    @Test
+    void compactionReclaimsAbandonedLists() throws IOException {
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            for (int games = 1; games <= 20; games++) {
+                store.put(user("alice", 0, games));
+            }
+            store.put(user("bob", 30, 10));
+            store.recordPlay("carol", games.get(3).getId(), 2);
+            store.delete("bob");
+            assertTrue(store.wastedBytes() > 0);
+
+            store.compact();
+            assertEquals(0, store.wastedBytes());
+            assertSameProfile(user("alice", 0, 20), store.get("alice", gameDatabase));
+            assertTrue(store.has("carol", games.get(3).getId(), UserInteractionStore.PLAYED));
+
+            // Rewrites of the same size now land in the reclaimed space
+            long listsSize = Files.size(directory.resolve("lists.bin"));
+            store.put(user("bob", 30, 10));
+            store.delete("bob");
+            store.put(user("dave", 30, 10));
+            assertEquals(listsSize, Files.size(directory.resolve("lists.bin")));
+        }
+
+        try (MappedUserStore store = MappedUserStore.open(directory, CHUNK_SIZE)) {
+            // Dave took over the record bob left
+            assertEquals(List.of("alice", "dave", "carol"), store.userIds());
+            assertEquals(List.of("alice", "dave"), store.profileUserIds());
+            assertSameProfile(user("alice", 0, 20), store.get("alice", gameDatabase));
+            assertSameProfile(user("dave", 30, 10), store.get("dave", gameDatabase));
+            assertNull(store.get("carol", gameDatabase));
+        }
+    }
+
+    @Test
+    void storeBackedDatabaseReadsFromTheStore() throws IOException {
+        UserDatabase heap = new UserDatabase(gameDatabase);
+        try (UserDatabase mapped = new UserDatabase(gameDatabase)) {
+            mapped.attachStore(MappedUserStore.open(directory, CHUNK_SIZE));
+            for (UserDatabase users : List.of(heap, mapped)) {
+                users.addUser(user("alice", 0, 5));
+                users.getInteractionStore().recordPlay("alice", games.get(30).getId(), 4);
+                users.getInteractionStore().recordPlay("streamed", games.get(31).getId(), 1);
+            }
+            for (String userId : List.of("alice", "streamed")) {
+                assertArrayEquals(heap.getInteractionStore().gameKeysWithAny(userId, UserInteractionStore.PLAYED
+                        | UserInteractionStore.OWNED | UserInteractionStore.WISHLISTED),
+                        mapped.getInteractionStore().gameKeysWithAny(userId, UserInteractionStore.PLAYED
+                                | UserInteractionStore.OWNED | UserInteractionStore.WISHLISTED));
+            }
+            assertEquals(4, mapped.getInteractionStore().playtime("alice", games.get(30).getId()));
+            assertEquals(heap.getInteractionStore().userIds(), mapped.getInteractionStore().userIds());
+            assertEquals(List.of("alice"), mapped.getUserIds());
+            assertNull(mapped.findUserById("streamed"));
+            assertEquals(0, mapped.getInteractionStore().footprintBytes());
+        }
+    }
+
+    @Test
+    void duplicateIdsAreRejectedAndUpdatesStoreTheGivenUser() throws IOException {
+        try (UserDatabase mapped = new UserDatabase(gameDatabase)) {
+            mapped.attachStore(MappedUserStore.open(directory, CHUNK_SIZE));
+            for (UserDatabase users : List.of(new UserDatabase(gameDatabase), mapped)) {
+                users.addUser(user("alice", 0, 5));
+                assertThrows(IllegalArgumentException.class, () -> users.addUser(user("alice", 10, 2)));
+
+                User updated = user("alice", 10, 2);
+                users.updateUser(updated);
+                assertSameProfile(updated, users.findUserById("alice"));
+                assertTrue(users.getInteractionStore().hasPlayed("alice", games.get(11).getId()));
+                assertFalse(users.getInteractionStore().hasPlayed("alice", games.get(0).getId()));
+                assertEquals(1, users.getAllUsers().size());
+
+                users.deleteUser(user("alice", 0, 1));
+                assertNull(users.findUserById("alice"));
+                assertTrue(users.getUserIds().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Files.write(directory.resolve("profiles.bin"), new byte[128]);
+        assertThrows(IOException.class, () -> MappedUserStore.open(directory, CHUNK_SIZE));
+    }
+}
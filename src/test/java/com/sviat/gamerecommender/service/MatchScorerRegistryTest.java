@@ -0,0 +1,76 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class MatchScorerRegistryTest extends BaseServiceTest {
+    private final LinearMatchScorer linear = new LinearMatchScorer("linear", 100, 2.0, 1.0);
+    private MatchScorerRegistry registry;
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MatchScorerRegistry(WeightedMatchScorer.DEFAULT);
+        registry.register(linear);
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    @Test
+    void explicitScorerNameWinsOverExperiment() {
+        registry.configureExperiment("weighted:0,linear:100");
+        assertSame(WeightedMatchScorer.DEFAULT, registry.select("weighted", "user-1"));
+        assertSame(linear, registry.select(null, "user-1"));
+        assertSame(WeightedMatchScorer.DEFAULT, registry.select(null, null));
+    }
+
+    @Test
+    void experimentKeysStayInTheirBucket() {
+        registry.configureExperiment("weighted:50,linear:50");
+        long linearUsers = IntStream.range(0, 1000)
+                .mapToObj(i -> "user-" + i)
+                .filter(key -> registry.select(null, key) == linear)
+                .count();
+        assertTrue(linearUsers > 400 && linearUsers < 600, "Roughly half the users should get the linear scorer");
+        assertSame(registry.select(null, "user-7"), registry.select(null, "user-7"));
+    }
+
+    @Test
+    void invalidExperimentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry.configureExperiment("weighted:60,linear:30"));
+        assertThrows(IllegalArgumentException.class, () -> registry.configureExperiment("unknown:100"));
+        assertThrows(IllegalArgumentException.class, () -> registry.select("unknown", null));
+    }
+
+    @Test
+    void alternativeScorerRanksLikeAFullSort() {
+        Set<String> genres = Set.of("Action", "Adventure");
+        Set<String> tags = Set.of("Open World", "Story-Rich", "Exploration");
+        List<String> expected = gameDatabase.getAllGames().stream()
+                .filter(game -> recommendationEngine.calculateMatchScore(game, genres, tags, linear) > 0)
+                .sorted(Comparator.comparingInt(
+                        (Game game) -> recommendationEngine.calculateMatchScore(game, genres, tags, linear))
+                        .reversed()
+                        .thenComparing(Comparator.comparingInt(Game::getMetacriticScore).reversed()))
+                .limit(10)
+                .map(Game::getTitle)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, recommendationEngine.getMultiFilterRecommendations(genres, tags, linear, 10).stream()
+                .map(Game::getTitle)
+                .collect(Collectors.toList()));
+    }
+}
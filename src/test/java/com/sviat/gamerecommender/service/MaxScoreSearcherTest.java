@@ -0,0 +1,102 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Verifies that MaxScore pruning returns exactly what a full score-and-sort
+ * would return.
+ */
+public class MaxScoreSearcherTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    static Stream<Arguments> catalogQueries() {
+        return Stream.of(
+                Arguments.of(Set.of("Action"), Set.of(), 5),
+                Arguments.of(Set.of("Action", "RPG"), Set.of(), 10),
+                Arguments.of(Set.of(), Set.of("Open World", "Story-Rich"), 7),
+                Arguments.of(Set.of("Shooter"), Set.of("FPS", "Sci-Fi", "Atmospheric"), 15),
+                Arguments.of(Set.of("Horror", "NonExistentGenre"), Set.of("Atmospheric"), 4),
+                Arguments.of(Set.of("Adventure"), Set.of("Single-player"), 100));
+    }
+
+    @ParameterizedTest
+    @MethodSource("catalogQueries")
+    void prunedSearchMatchesFullSort(Set<String> genres, Set<String> tags, int limit) {
+        assertEquals(titles(fullSort(genres, tags, limit)),
+                titles(recommendationEngine.getMultiFilterRecommendations(genres, tags, limit)));
+    }
+
+    @Test
+    void prunedSearchMatchesFullSortOnRandomCatalog() {
+        gameDatabase.getAllGames().clear();
+        Random random = new Random(42);
+        List<String> genres = List.of("Action", "RPG", "Strategy", "Horror", "Shooter", "Indie");
+        List<String> tags = List.of("Open World", "Co-op", "Story-Rich", "Difficult", "Sci-Fi", "Fantasy", "Stealth");
+        for (int i = 0; i < 2000; i++) {
+            gameDatabase.addGame(Game.builder()
+                    .id("game-" + i)
+                    .title("Game " + i)
+                    .genres(pick(random, genres))
+                    .tags(pick(random, tags))
+                    .metacriticScore(50 + random.nextInt(50))
+                    .build());
+        }
+
+        for (int query = 0; query < 50; query++) {
+            Set<String> queryGenres = pick(random, genres);
+            Set<String> queryTags = pick(random, tags);
+            int limit = 1 + random.nextInt(30);
+            assertEquals(titles(fullSort(queryGenres, queryTags, limit)),
+                    titles(recommendationEngine.getMultiFilterRecommendations(queryGenres, queryTags, limit)),
+                    "Query " + queryGenres + " " + queryTags);
+        }
+    }
+
+    private List<Game> fullSort(Set<String> genres, Set<String> tags, int limit) {
+        Comparator<Game> byScore = Comparator
+                .comparingInt((Game game) -> recommendationEngine.calculateMatchScore(game, genres, tags))
+                .reversed()
+                .thenComparing(Comparator.comparingInt(Game::getMetacriticScore).reversed());
+        return gameDatabase.getAllGames().stream()
+                .filter(game -> recommendationEngine.calculateMatchScore(game, genres, tags) > 0)
+                .sorted(byScore)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> pick(Random random, List<String> values) {
+        List<String> picked = new ArrayList<>();
+        for (String value : values) {
+            if (random.nextInt(3) == 0) {
+                picked.add(value);
+            }
+        }
+        return Set.copyOf(picked);
+    }
+
+    private static List<String> titles(List<Game> games) {
+        return games.stream().map(Game::getTitle).collect(Collectors.toList());
+    }
+}
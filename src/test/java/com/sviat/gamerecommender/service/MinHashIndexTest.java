@@ -0,0 +1,65 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class MinHashIndexTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    @Test
+    void gamesWithIdenticalFeaturesAreAlwaysCandidates() {
+        Game original = gameDatabase.getAllGames().get(0);
+        gameDatabase.addGame(Game.builder().id("lsh-twin").title("LSH Twin")
+                .developer(original.getDeveloper())
+                .genres(original.getGenres())
+                .tags(original.getTags())
+                .build());
+
+        MinHashIndex lsh = recommendationEngine.getMinHashIndex();
+        CatalogIndex index = lsh.getCatalog();
+        int[] candidates = lsh.candidates(index.ordinalOf(original.getId()));
+
+        assertTrue(Arrays.binarySearch(candidates, index.ordinalOf("lsh-twin")) >= 0);
+        assertFalse(Arrays.stream(candidates).anyMatch(c -> c == index.ordinalOf(original.getId())));
+    }
+
+    @Test
+    void approximateResultsAreExactlyRanked() {
+        for (Game game : gameDatabase.getAllGames().subList(0, 50)) {
+            List<Game> approximate = recommendationEngine.getApproximateRelatedGames(game.getId(), 5);
+            int previous = Integer.MAX_VALUE;
+            for (Game related : approximate) {
+                int score = recommendationEngine.calculateMatchScore(related, game.getGenres(), game.getTags());
+                assertTrue(score > 0 && score <= previous, game.getTitle());
+                assertFalse(related.getId().equals(game.getId()));
+                previous = score;
+            }
+        }
+    }
+
+    @Test
+    void invalidLayoutIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MinHashIndex.build(gameDatabase.getCatalogIndex(), 0, 4));
+    }
+
+    @Test
+    void unknownGameHasNoApproximateMatches() {
+        assertTrue(recommendationEngine.getApproximateRelatedGames("missing", 5).isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.benchmark.SyntheticCatalog;
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Verifies that walking the pages of a query gives the same games as one
+ * big multi-filter query.
+ */
+public class PageCursorTest extends BaseServiceTest {
+    private static final Set<String> GENRES = Set.of("Genre 1", "Genre 3");
+    private static final Set<String> TAGS = Set.of("Tag 2", "Tag 5", "Tag 8");
+
+    @BeforeEach
+    void setUp() {
+        SyntheticCatalog.games(20_000, 13).forEach(gameDatabase::addGame);
+    }
+
+    private static List<Game> walkPages(RecommendationEngine engine, int pageSize, int pages) {
+        List<Game> games = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page < pages; page++) {
+            RecommendationEngine.RecommendationPage result = engine.getMultiFilterRecommendationsPage(GENRES, TAGS,
+                    engine.getDefaultScorer(), cursor, pageSize);
+            assertEquals(pageSize, result.games().size());
+            games.addAll(result.games());
+            cursor = result.nextCursor();
+        }
+        return games;
+    }
+
+    @Test
+    void pagesConcatenateToTheFullResult() {
+        RecommendationEngine engine = new RecommendationEngine(gameDatabase);
+        assertEquals(engine.getMultiFilterRecommendations(GENRES, TAGS, 7 * 30), walkPages(engine, 30, 7));
+    }
+
+    @Test
+    void parallelSearchKeepsThePageBound() {
+        RecommendationEngine parallel = new RecommendationEngine(gameDatabase);
+        parallel.setParallelThreshold(1);
+        RecommendationEngine sequential = new RecommendationEngine(gameDatabase);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        assertEquals(walkPages(sequential, 25, 5), walkPages(parallel, 25, 5));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        RecommendationEngine engine = new RecommendationEngine(gameDatabase);
+        Set<String> genres = Set.of("Puzzle");
+        int total = engine.getMultiFilterRecommendations(genres, Set.of(), RecommendationEngine.MAX_PAGE_SIZE).size();
+        assertTrue(total < RecommendationEngine.MAX_PAGE_SIZE);
+
+        RecommendationEngine.RecommendationPage page = engine.getMultiFilterRecommendationsPage(genres, Set.of(),
+                engine.getDefaultScorer(), null, RecommendationEngine.MAX_PAGE_SIZE);
+        assertEquals(total, page.games().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void cursorsRoundTripAndAreRejectedWhenMalformedOrStale() {
+        PageCursor cursor = new PageCursor(42, 180, 7);
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("AAAA"));
+
+        RecommendationEngine engine = new RecommendationEngine(gameDatabase);
+        String first = engine.getMultiFilterRecommendationsPage(GENRES, TAGS, engine.getDefaultScorer(), null, 10)
+                .nextCursor();
+        gameDatabase.addGame(Game.builder().id("page-new").title("Page New").genres(GENRES).tags(TAGS).build());
+        assertThrows(IllegalArgumentException.class, () -> engine.getMultiFilterRecommendationsPage(GENRES, TAGS,
+                engine.getDefaultScorer(), first, 10));
+    }
+}
@@ -0,0 +1,51 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.benchmark.SyntheticCatalog;
+
+public class ParallelSearcherTest extends BaseServiceTest {
+    private RecommendationEngine sequential;
+    private RecommendationEngine parallel;
+
+    @BeforeEach
+    void setUp() {
+        SyntheticCatalog.games(60_000, 13).forEach(gameDatabase::addGame);
+        sequential = new RecommendationEngine(gameDatabase);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel = new RecommendationEngine(gameDatabase);
+        parallel.setParallelThreshold(1);
+    }
+
+    @Test
+    void parallelSearchMatchesSequentialSearch() {
+        Random random = new Random(17);
+        for (int i = 0; i < 20; i++) {
+            Set<String> genres = SyntheticCatalog.terms(random, "Genre ", SyntheticCatalog.GENRES, 1 + random.nextInt(2));
+            Set<String> tags = SyntheticCatalog.terms(random, "Tag ", SyntheticCatalog.TAGS, random.nextInt(4));
+            int limit = 1 + random.nextInt(40);
+            assertEquals(sequential.getMultiFilterRecommendations(genres, tags, limit),
+                    parallel.getMultiFilterRecommendations(genres, tags, limit),
+                    "Query " + genres + " " + tags);
+        }
+    }
+
+    @Test
+    void smallQueriesStaySequential() {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        MatchQuery rare = MatchQuery.compile(index, Set.of("Genre 23"), Set.of(), WeightedMatchScorer.DEFAULT);
+        MatchQuery broad = MatchQuery.compile(index, Set.of("Genre 0", "Genre 1"), Set.of("Tag 0"),
+                WeightedMatchScorer.DEFAULT);
+
+        assertFalse(ParallelSearcher.shouldParallelize(index, rare, 5_000));
+        assertTrue(ParallelSearcher.shouldParallelize(index, broad, 5_000));
+    }
+}
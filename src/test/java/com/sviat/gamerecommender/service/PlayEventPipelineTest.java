@@ -0,0 +1,183 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sviat.gamerecommender.dto.PlayEvent;
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+/**
+ * Verifies that streamed plays leave the counters exactly where a
+ * recomputation from the final interactions would.
+ */
+public class PlayEventPipelineTest extends BaseServiceTest {
+    private List<Game> games;
+    private UserDatabase userDatabase;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        userDatabase = new UserDatabase(gameDatabase);
+        Map<Game, Integer> played = new HashMap<>();
+        played.put(games.get(0), 10);
+        played.put(games.get(1), 4);
+        userDatabase.addUser(User.builder().id("seeded").playedGames(played).build());
+    }
+
+    private void submitRandomPlays(PlayEventPipeline pipeline, int count) {
+        Random random = new Random(9);
+        for (int i = 0; i < count; i++) {
+            String userId = i % 5 == 0 ? "seeded" : "user-" + random.nextInt(30);
+            assertTrue(pipeline.submit(new PlayEvent(userId, games.get(random.nextInt(15)).getId(),
+                    1 + random.nextInt(5), 0)));
+        }
+    }
+
+    private void assertCountersMatchInteractions(PlayEventPipeline pipeline) {
+        UserInteractionStore store = userDatabase.getInteractionStore();
+        List<String> userIds = new ArrayList<>(List.of("seeded"));
+        for (int u = 0; u < 30; u++) {
+            userIds.add("user-" + u);
+        }
+        for (Game game : games.subList(0, 15)) {
+            int key = gameDatabase.findGameKey(game.getId());
+            int players = 0;
+            long hours = 0;
+            for (String userId : userIds) {
+                if (store.hasPlayed(userId, game.getId())) {
+                    players++;
+                    hours += store.playtime(userId, game.getId());
+                }
+            }
+            assertEquals(players, pipeline.getPopularity().playersOf(key), game.getTitle());
+            assertEquals(hours, pipeline.getPopularity().hoursOf(key), game.getTitle());
+        }
+    }
+
+    @Test
+    void streamedPlaysUpdateCountersIncrementally() throws Exception {
+        try (PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, 64, 16, null)) {
+            pipeline.start();
+            submitRandomPlays(pipeline, 50);
+            assertTrue(pipeline.awaitApplied(10_000));
+            submitRandomPlays(pipeline, 50);
+            assertTrue(pipeline.awaitApplied(10_000));
+
+            assertCountersMatchInteractions(pipeline);
+            assertTrue(userDatabase.getInteractionStore().playtime("seeded", games.get(0).getId()) >= 10);
+            int[] top = pipeline.getPopularity().topGames(3);
+            assertEquals(3, top.length);
+            assertEquals(gameDatabase.gameIdForKey(top[0]), pipeline.getPopularGames(1).get(0).getId());
+        }
+    }
+
+    @Test
+    void streamedPlaysReachModelsBuiltPerUserVersion() throws Exception {
+        CoOccurrenceRecommender alsoPlayed = new CoOccurrenceRecommender(gameDatabase, userDatabase);
+        int first = gameDatabase.findGameKey(games.get(0).getId());
+        assertEquals(1, alsoPlayed.getModel().playerCount(first));
+        long versionBefore = userDatabase.getVersion();
+        long seededBefore = userDatabase.getUserVersion("seeded");
+
+        try (PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, 64, 16, null)) {
+            pipeline.start();
+            assertTrue(pipeline.submit(new PlayEvent("streamed", games.get(0).getId(), 2, 0)));
+            assertTrue(pipeline.submit(new PlayEvent("streamed", games.get(2).getId(), 3, 0)));
+            assertTrue(pipeline.submit(new PlayEvent("seeded", games.get(2).getId(), 1, 0)));
+            assertTrue(pipeline.awaitApplied(10_000));
+        }
+
+        assertTrue(userDatabase.getVersion() > versionBefore);
+        assertTrue(userDatabase.getUserVersion("seeded") > seededBefore);
+        CoOccurrenceModel model = alsoPlayed.refreshModel();
+        assertEquals(2, model.playerCount(first));
+        assertEquals(2, model.playerCount(gameDatabase.findGameKey(games.get(2).getId())));
+        assertEquals(Set.of(games.get(1).getId(), games.get(2).getId()),
+                alsoPlayed.getAlsoPlayedGames(games.get(0).getId(), 3).stream()
+                        .map(game -> game.get("id")).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void replayingTheLogRestoresThePlays() throws Exception {
+        Path file = directory.resolve("plays.log");
+        try (PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, 64, 16,
+                new PlayEventLog(file))) {
+            pipeline.start();
+            submitRandomPlays(pipeline, 40);
+            assertTrue(pipeline.awaitApplied(10_000));
+        }
+        // A record cut short by a crash is dropped
+        Files.write(file, new byte[] { 0, 0, 0 }, StandardOpenOption.APPEND);
+        long sizeBefore = Files.size(file);
+
+        UserDatabase restarted = new UserDatabase(gameDatabase);
+        restarted.addUser(userDatabase.findUserById("seeded"));
+        try (PlayEventLog log = new PlayEventLog(file);
+                PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, restarted, 64, 16, log)) {
+            assertEquals(sizeBefore - 3, Files.size(file));
+            assertEquals(40, pipeline.replay(file));
+            for (int u = 0; u < 30; u++) {
+                String userId = "user-" + u;
+                UserInteractionStore expected = userDatabase.getInteractionStore();
+                UserInteractionStore actual = restarted.getInteractionStore();
+                int[] keys = expected.gameKeys(userId, UserInteractionStore.PLAYED);
+                assertEquals(Arrays.toString(keys),
+                        Arrays.toString(actual.gameKeys(userId, UserInteractionStore.PLAYED)));
+                assertEquals(Arrays.toString(expected.playtimes(userId, keys)),
+                        Arrays.toString(actual.playtimes(userId, keys)));
+            }
+        }
+    }
+
+    @Test
+    void fullQueueTurnsEventsAway() throws IOException {
+        try (PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, 2, 16, null)) {
+            // Not started, so nothing drains the queue
+            String gameId = games.get(0).getId();
+            assertTrue(pipeline.submit(new PlayEvent("a", gameId, 1, 0)));
+            assertTrue(pipeline.submit(new PlayEvent("b", gameId, 1, 0)));
+            assertFalse(pipeline.submit(new PlayEvent("c", gameId, 1, 0)));
+        }
+    }
+
+    @Test
+    void invalidEventsAreRejected() throws IOException {
+        try (PlayEventPipeline pipeline = new PlayEventPipeline(gameDatabase, userDatabase, 2, 16, null)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.submit(new PlayEvent("a", "no-such-game", 1, 0)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.submit(new PlayEvent(null, games.get(0).getId(), 1, 0)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.submit(new PlayEvent("a", games.get(0).getId(), -1, 0)));
+            assertThrows(IllegalArgumentException.class, () -> pipeline.submit(null));
+            // Three bytes per char in the log
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.submit(new PlayEvent("\u20ac".repeat(30_000), games.get(0).getId(), 1, 0)));
+            assertTrue(pipeline.submit(new PlayEvent("\u20ac".repeat(20_000), games.get(0).getId(), 1, 0)));
+        }
+    }
+}
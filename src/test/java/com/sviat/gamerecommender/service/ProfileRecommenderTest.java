@@ -0,0 +1,148 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+/**
+ * Verifies that compiled profiles return the same games as filtering and
+ * sorting the whole catalog, and that cached profiles follow user and catalog
+ * changes.
+ */
+public class ProfileRecommenderTest extends BaseServiceTest {
+    private UserDatabase userDatabase;
+    private ProfileRecommender recommender;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        userDatabase = new UserDatabase(gameDatabase);
+        recommender = new ProfileRecommender(gameDatabase, userDatabase, WeightedMatchScorer.DEFAULT, 2);
+    }
+
+    @Test
+    void recommendationsMatchFilteringTheWholeCatalog() {
+        List<Game> games = gameDatabase.getAllGames();
+        User user = User.builder().id("alice")
+                .favoriteGenres(Set.of("Action", "RPG"))
+                .preferredPlatforms(Set.of("PC", "PlayStation 4"))
+                .maxPrice(new BigDecimal("29.99"))
+                .ownedGames(Set.of(games.get(0).getId(), games.get(5).getId()))
+                .wishlist(Set.of(games.get(3).getId()))
+                .build();
+        userDatabase.addUser(user);
+
+        for (int limit : new int[] { 1, 5, 20 }) {
+            List<Game> recommendations = recommender.getRecommendationsForUser("alice", limit);
+            assertEquals(bruteForce(user, limit), recommendations);
+        }
+    }
+
+    @Test
+    void filtersArePrecise() {
+        User user = User.builder().id("bob")
+                .favoriteGenres(Set.of("Action"))
+                .preferredPlatforms(Set.of("PC"))
+                .maxPrice(new BigDecimal("20"))
+                .build();
+        userDatabase.addUser(user);
+
+        List<Game> recommendations = recommender.getRecommendationsForUser("bob", 50);
+        assertFalse(recommendations.isEmpty());
+        for (Game game : recommendations) {
+            assertTrue(game.getPlatforms().contains("PC"), game.getTitle());
+            assertTrue(game.getPrice() == null || game.getPrice().compareTo(new BigDecimal("20")) <= 0,
+                    game.getTitle());
+        }
+    }
+
+    @Test
+    void profileWithoutTermsFallsBackToBestRated() {
+        List<Game> games = gameDatabase.getAllGames();
+        User user = User.builder().id("carol").ownedGames(Set.of(games.get(0).getId())).build();
+        userDatabase.addUser(user);
+
+        assertEquals(bruteForce(user, 3), recommender.getRecommendationsForUser("carol", 3));
+    }
+
+    @Test
+    void cachedProfileIsReusedUntilUserOrCatalogChanges() {
+        User user = User.builder().id("dave").favoriteGenres(Set.of("Puzzle")).build();
+        userDatabase.addUser(user);
+
+        CompiledProfile first = recommender.getProfile("dave");
+        assertSame(first, recommender.getProfile("dave"));
+
+        User updated = User.builder().id("dave").favoriteGenres(Set.of("Racing")).build();
+        userDatabase.deleteUser(user);
+        userDatabase.addUser(updated);
+        CompiledProfile second = recommender.getProfile("dave");
+        assertNotSame(first, second);
+        assertEquals(bruteForce(updated, 5), recommender.getRecommendationsForUser("dave", 5));
+
+        gameDatabase.addGame(Game.builder().id("profile-new").title("Profile New")
+                .genres(Set.of("Racing")).tags(Set.of()).metacriticScore(100).build());
+        CompiledProfile third = recommender.getProfile("dave");
+        assertNotSame(second, third);
+        assertSame(gameDatabase.getCatalogIndex(), third.getIndex());
+        assertEquals("profile-new", recommender.getRecommendationsForUser("dave", 1).get(0).getId());
+    }
+
+    @Test
+    void cacheIsBoundedAndUnknownUsersGetNothing() {
+        for (String id : new String[] { "u1", "u2", "u3" }) {
+            userDatabase.addUser(User.builder().id(id).favoriteGenres(Set.of("Action")).build());
+            recommender.getProfile(id);
+        }
+        assertEquals(2, recommender.cachedProfiles());
+        assertTrue(recommender.getRecommendationsForUser("missing", 5).isEmpty());
+    }
+
+    private List<Game> bruteForce(User user, int limit) {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        CompiledProfile profile = CompiledProfile.compile(index, user, 0, WeightedMatchScorer.DEFAULT);
+        MatchQuery query = profile.getQuery();
+        Set<String> platforms = user.getPreferredPlatforms() != null ? user.getPreferredPlatforms() : Set.of();
+        Set<String> owned = user.getOwnedGames() != null ? user.getOwnedGames() : Set.of();
+
+        TopKHeap heap = new TopKHeap(limit);
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            Game game = index.gameAt(ordinal);
+            boolean platformOk = platforms.isEmpty()
+                    || (game.getPlatforms() != null && game.getPlatforms().stream().anyMatch(platforms::contains));
+            boolean priceOk = user.getMaxPrice() == null || game.getPrice() == null
+                    || game.getPrice().compareTo(user.getMaxPrice()) <= 0;
+            boolean allowed = platformOk && priceOk && !owned.contains(game.getId());
+            assertEquals(allowed, profile.allows(ordinal), game.getTitle());
+            if (!allowed) {
+                continue;
+            }
+            if (query.isEmpty()) {
+                heap.offer(ordinal, 0);
+            } else {
+                int score = query.score(index.genreMatches(ordinal, query), index.tagMatches(ordinal, query));
+                if (score > 0) {
+                    heap.offer(ordinal, score);
+                }
+            }
+        }
+        int[] ordinals = heap.drainOrdinals();
+        Game[] expected = new Game[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            expected[i] = index.gameAt(ordinals[i]);
+        }
+        return List.of(expected);
+    }
+}
@@ -0,0 +1,143 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+import com.sviat.gamerecommender.util.IntIntHashMap;
+
+public class RandomWalkRecommenderTest extends BaseServiceTest {
+    private UserDatabase userDatabase;
+    private RandomWalkRecommender recommender;
+
+    @BeforeEach
+    void setUp() {
+        userDatabase = new UserDatabase(gameDatabase);
+        recommender = new RandomWalkRecommender(gameDatabase, userDatabase, 4_000, 3, 0.3);
+    }
+
+    private static Game game(String id, String genre, String developer, String... tags) {
+        return Game.builder().id(id).title(id).genres(Set.of(genre)).tags(Set.of(tags))
+                .developer(developer).publisher(developer + " Publishing").build();
+    }
+
+    @Test
+    void graphLinksGamesToDevelopersPublishersTagsAndPlayers() {
+        gameDatabase.addGame(game("a", "RPG", "Studio A", "Story", "Open World"));
+        gameDatabase.addGame(game("b", "Racing", "Studio A", "Story"));
+        gameDatabase.addGame(game("c", "Puzzle", "Studio C"));
+        userDatabase.addUser(User.builder().id("u").ownedGames(Set.of("a", "c")).build());
+
+        GameGraph graph = recommender.getGraph();
+        CatalogIndex catalog = graph.getCatalog();
+        assertEquals(3, graph.gameCount());
+        // Studio A, its publisher, Story, Open World, Studio C, its publisher, u
+        assertEquals(3 + 7, graph.nodeCount());
+        // a: 2 + 2 tags + u, b: 2 + 1 tag, c: 2 + u
+        assertEquals(5 + 3 + 3, graph.edgeCount());
+        assertEquals(5, graph.degree(catalog.ordinalOf("a")));
+
+        // Every edge is stored in both directions and joins a game to another node
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int i = 0; i < graph.degree(node); i++) {
+                int other = graph.neighbour(node, i);
+                assertTrue(node < graph.gameCount() != other < graph.gameCount());
+                int back = 0;
+                for (int j = 0; j < graph.degree(other); j++) {
+                    back += graph.neighbour(other, j) == node ? 1 : 0;
+                }
+                assertEquals(1, back);
+            }
+        }
+        assertSame(graph, recommender.getGraph());
+    }
+
+    @Test
+    void walksCrossGenresThroughSharedPlayers() {
+        gameDatabase.addGame(game("shooter", "Shooter", "Studio S", "Fast"));
+        gameDatabase.addGame(game("farming", "Simulation", "Studio F", "Cozy"));
+        gameDatabase.addGame(game("other-shooter", "Shooter", "Studio O", "Slow"));
+        gameDatabase.addGame(game("unrelated", "Puzzle", "Studio U", "Calm"));
+        for (String userId : List.of("u1", "u2", "u3")) {
+            userDatabase.addUser(User.builder().id(userId).ownedGames(Set.of("shooter", "farming")).build());
+        }
+
+        List<Game> similar = recommender.getMoreLikeThis("shooter", 10, 42);
+        assertEquals(List.of("farming"), similar.stream().map(Game::getId).toList());
+        assertTrue(recommender.getMoreLikeThis("unrelated", 10, 42).isEmpty());
+        assertTrue(recommender.getMoreLikeThis("missing", 10, 42).isEmpty());
+    }
+
+    @Test
+    void graphFollowsUserChangesAndWalksAreReproducible() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        List<Game> games = gameDatabase.getAllGames();
+        GameGraph before = recommender.getGraph();
+        userDatabase.addUser(User.builder().id("u")
+                .ownedGames(Set.of(games.get(0).getId(), games.get(1).getId())).build());
+        GameGraph after = recommender.refreshGraph();
+        assertNotSame(before, after);
+        assertSame(after, recommender.getGraph());
+        assertEquals(before.edgeCount() + 2, after.edgeCount());
+
+        int query = after.getCatalog().ordinalOf(games.get(0).getId());
+        IntIntHashMap visits = recommender.visitCounts(after, query, 7);
+        assertArrayEquals(dense(visits, after.gameCount()), dense(recommender.visitCounts(after, query, 7),
+                after.gameCount()));
+        // The step budget is spent exactly: one visit per step
+        assertEquals(4_000, Arrays.stream(dense(visits, after.gameCount())).sum());
+
+        List<Game> similar = recommender.getMoreLikeThis(games.get(0).getId(), 5, 7);
+        assertEquals(5, similar.size());
+        assertFalse(similar.contains(games.get(0)));
+    }
+
+    private static int[] dense(IntIntHashMap visits, int gameCount) {
+        int[] counts = new int[gameCount];
+        visits.forEach((ordinal, count) -> counts[ordinal] = count);
+        return counts;
+    }
+
+    @Test
+    void changesAreServedFromThePreviousGraphUntilTheRebuildIsDone() throws InterruptedException {
+        gameDatabase.addGame(game("a", "RPG", "Studio A", "Story"));
+        gameDatabase.addGame(game("b", "RPG", "Studio A", "Story"));
+        GameGraph first = recommender.getGraph();
+
+        GameGraph served;
+        // Holding the monitor keeps the background rebuild from finishing
+        synchronized (recommender) {
+            gameDatabase.addGame(game("c", "RPG", "Studio C", "Story"));
+            served = recommender.getGraph();
+        }
+        assertSame(first, served);
+        for (int i = 0; i < 200 && recommender.getGraph() == first; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, recommender.getGraph().gameCount());
+        recommender.close();
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RandomWalkRecommender(gameDatabase, userDatabase, 0, 1, 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RandomWalkRecommender(gameDatabase, userDatabase, 10, 0, 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RandomWalkRecommender(gameDatabase, userDatabase, 10, 1, 0));
+    }
+}
@@ -0,0 +1,153 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+/**
+ * Verifies that the precomputed related-games lists match a full query, and
+ * that incremental rebuilds match a build from scratch.
+ */
+public class RelatedGamesIndexTest extends BaseServiceTest {
+    private static final int NEIGHBOURS = 5;
+
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        recommendationEngine.setRelatedNeighbours(NEIGHBOURS);
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+    }
+
+    @Test
+    void precomputedListsMatchFullQuery() {
+        for (Game game : gameDatabase.getAllGames()) {
+            for (int limit : new int[] { 1, 3, NEIGHBOURS }) {
+                assertEquals(queryRelatedIds(game, limit), relatedIds(game.getId(), limit), game.getTitle());
+            }
+        }
+    }
+
+    @Test
+    void largerLimitsFallBackToFullQuery() {
+        Game game = gameDatabase.getAllGames().get(0);
+        assertEquals(queryRelatedIds(game, NEIGHBOURS + 4), relatedIds(game.getId(), NEIGHBOURS + 4));
+    }
+
+    @Test
+    void indexIsReusedUntilCatalogChanges() {
+        RelatedGamesIndex first = recommendationEngine.getRelatedGamesIndex();
+        assertSame(first, recommendationEngine.getRelatedGamesIndex());
+
+        gameDatabase.addGame(Game.builder().id("related-new").title("Related New")
+                .genres(Set.of("Puzzle")).tags(Set.of()).metacriticScore(99).build());
+        RelatedGamesIndex second = recommendationEngine.getRelatedGamesIndex();
+        assertEquals(gameDatabase.getCatalogVersion(), second.getVersion());
+    }
+
+    @Test
+    void incrementalRebuildMatchesFullBuild() {
+        RelatedGamesIndex previous = recommendationEngine.getRelatedGamesIndex();
+        int size = previous.getCatalog().size();
+
+        Game removed = gameDatabase.getAllGames().get(3);
+        gameDatabase.deleteGame(removed);
+        gameDatabase.addGame(Game.builder().id("related-new").title("Related New")
+                .genres(Set.of("Puzzle")).tags(Set.of("Relaxing")).metacriticScore(95).build());
+
+        RelatedGamesIndex incremental = recommendationEngine.getRelatedGamesIndex();
+        RelatedGamesIndex full = RelatedGamesIndex.build(gameDatabase.getCatalogIndex(),
+                WeightedMatchScorer.DEFAULT, NEIGHBOURS, null);
+
+        assertTrue(incremental.getRecomputedGames() < size, "Only affected games should be recomputed");
+        assertEquals(neighbourIds(full), neighbourIds(incremental));
+    }
+
+    @Test
+    void multiSeedRankingMatchesMergedNeighbourLists() {
+        List<Game> games = gameDatabase.getAllGames();
+        RelatedGamesIndex related = recommendationEngine.getRelatedGamesIndex();
+        for (int seedCount : new int[] { 1, 3, 12 }) {
+            List<String> seedIds = new ArrayList<>();
+            for (int i = 0; i < seedCount; i++) {
+                seedIds.add(games.get(i * 7 % games.size()).getId());
+            }
+            seedIds.add("not-a-game");
+            List<String> expected = mergedNeighbourIds(related, seedIds, 8);
+            List<String> actual = recommendationEngine.getRelatedToSeeds(seedIds, 8).stream()
+                    .map(Game::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+            // The score array is left clean for the next query on this thread
+            assertEquals(expected, recommendationEngine.getRelatedToSeeds(seedIds, 8).stream()
+                    .map(Game::getId)
+                    .collect(Collectors.toList()));
+            assertTrue(actual.stream().noneMatch(seedIds::contains));
+        }
+        assertTrue(recommendationEngine.getRelatedToSeeds(List.of(), 8).isEmpty());
+    }
+
+    private static List<String> mergedNeighbourIds(RelatedGamesIndex related, List<String> seedIds, int limit) {
+        CatalogIndex catalog = related.getCatalog();
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (String seedId : new LinkedHashSet<>(seedIds)) {
+            int seed = catalog.ordinalOf(seedId);
+            for (int i = 0; seed >= 0 && i < related.neighbourCount(seed); i++) {
+                if (related.neighbourScoreAt(seed, i) > 0) {
+                    scores.merge(related.neighbourAt(seed, i), related.neighbourScoreAt(seed, i), Integer::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .filter(entry -> !seedIds.contains(catalog.gameAt(entry.getKey()).getId()))
+                .sorted(Comparator.comparing((Map.Entry<Integer, Integer> entry) -> -entry.getValue())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(entry -> catalog.gameAt(entry.getKey()).getId())
+                .collect(Collectors.toList());
+    }
+
+    private List<String> relatedIds(String gameId, int limit) {
+        return recommendationEngine.getRelatedGames(gameId, limit).stream()
+                .map(related -> related.get("id"))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> queryRelatedIds(Game game, int limit) {
+        return recommendationEngine.getMultiFilterRecommendations(game.getGenres(), game.getTags(), limit + 1)
+                .stream()
+                .filter(related -> !related.getId().equals(game.getId()))
+                .limit(limit)
+                .map(Game::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static List<List<String>> neighbourIds(RelatedGamesIndex related) {
+        CatalogIndex catalog = related.getCatalog();
+        List<List<String>> lists = new ArrayList<>();
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < related.neighbourCount(ordinal); i++) {
+                Map<String, String> summary = related.summaryAt(related.neighbourAt(ordinal, i));
+                ids.add(summary.get("id"));
+            }
+            lists.add(ids);
+        }
+        return lists;
+    }
+}
@@ -0,0 +1,168 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.service.SavedSearchPercolator.Match;
+import com.sviat.gamerecommender.service.SavedSearchPercolator.SavedSearch;
+
+public class SavedSearchPercolatorTest extends BaseServiceTest {
+    @TempDir
+    Path tempDir;
+
+    private Path outbox;
+    private SavedSearchPercolator percolator;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        outbox = tempDir.resolve("outbox/matches.jsonl");
+        percolator = new SavedSearchPercolator(gameDatabase, outbox, 2, () -> 1_700_000_000_000L);
+        gameDatabase.addListener(percolator::percolate);
+    }
+
+    private static Game game(String id, Set<String> genres, Set<String> tags) {
+        return Game.builder().id(id).title("Title " + id).genres(genres).tags(tags).build();
+    }
+
+    @Test
+    void newGamesMatchSearchesRequiringAllTheirTerms() {
+        SavedSearch rpg = percolator.save("alice", Set.of("RPG"), Set.of("Open World"));
+        percolator.save("bob", Set.of("Puzzle"), Set.of());
+
+        gameDatabase.addGame(game("rpg-only", Set.of("RPG"), Set.of("Turn-Based")));
+        assertTrue(percolator.getPending().isEmpty());
+
+        gameDatabase.addGame(game("open-rpg", Set.of("RPG", "Action"), Set.of("Open World", "Fantasy")));
+        assertEquals(List.of(new Match(rpg.id(), "alice", "open-rpg", "Title open-rpg", 1_700_000_000_000L)),
+                percolator.getPending());
+    }
+
+    @Test
+    void matchesAgreeWithScanningEverySearch() {
+        percolator = new SavedSearchPercolator(gameDatabase, outbox, 100);
+        List<SavedSearch> searches = List.of(
+                percolator.save("u1", Set.of("Action"), Set.of()),
+                percolator.save("u2", Set.of("Action", "RPG"), Set.of()),
+                percolator.save("u3", Set.of(), Set.of("Open World", "Story-Rich")),
+                percolator.save("u4", Set.of("Strategy"), Set.of("Never Seen Tag")),
+                percolator.save("u5", Set.of("Adventure"), Set.of("Atmospheric")));
+        Game added = gameDatabase.getAllGames().get(0);
+        Game copy = game("copy", added.getGenres(), added.getTags());
+        percolator.percolate(copy);
+        percolator.percolate(game("new-tag", Set.of("Strategy"), Set.of("Never Seen Tag")));
+
+        Set<String> expected = searches.stream()
+                .filter(search -> copy.getGenres().containsAll(search.genres())
+                        && copy.getTags().containsAll(search.tags()))
+                .map(search -> search.id() + "/copy")
+                .collect(Collectors.toSet());
+        expected.add(searches.get(3).id() + "/new-tag");
+        assertEquals(expected, percolator.getPending().stream()
+                .map(match -> match.searchId() + "/" + match.gameId())
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void fullBatchesAreWrittenToTheOutboxByTheFlushThread() throws Exception {
+        // Only full batches are flushed within the test
+        percolator.start(3600);
+        percolator.save("alice", Set.of("Puzzle"), Set.of());
+        Game first = game("p1", Set.of("Puzzle"), Set.of());
+        gameDatabase.addGame(first);
+        assertFalse(Files.exists(outbox));
+
+        // Updating a reported game does not report it again
+        gameDatabase.updateGame(first);
+        assertEquals(1, percolator.getPending().size());
+
+        gameDatabase.addGame(game("p2", Set.of("Puzzle"), Set.of()));
+        for (int i = 0; i < 200 && !(Files.exists(outbox) && Files.readAllLines(outbox).size() == 2); i++) {
+            Thread.sleep(10);
+        }
+        gameDatabase.addGame(game("p3", Set.of("Puzzle"), Set.of()));
+        List<String> lines = Files.readAllLines(outbox);
+        assertEquals(2, lines.size());
+        assertEquals("p1", new ObjectMapper().readTree(lines.get(0)).get("gameId").asText());
+        assertEquals(1, percolator.getPending().size());
+
+        percolator.close();
+        assertEquals(3, Files.readAllLines(outbox).size());
+        assertTrue(percolator.getPending().isEmpty());
+    }
+
+    @Test
+    void unwritableMatchesAreQueuedUpToTheLimit() throws Exception {
+        // The outbox's directory is a file, so every flush fails
+        Files.writeString(tempDir.resolve("outbox"), "");
+        percolator.setMaxPending(3);
+        percolator.save("alice", Set.of("Puzzle"), Set.of());
+        for (int g = 1; g <= 5; g++) {
+            gameDatabase.addGame(game("p" + g, Set.of("Puzzle"), Set.of()));
+        }
+        assertEquals(0, percolator.flush());
+        assertEquals(List.of("p1", "p2", "p3"),
+                percolator.getPending().stream().map(Match::gameId).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> percolator.setMaxPending(1));
+
+        // Dropped matches were not reported, so their games match again on update
+        Files.delete(tempDir.resolve("outbox"));
+        assertEquals(3, percolator.flush());
+        for (int g = 1; g <= 5; g++) {
+            percolator.percolate(game("p" + g, Set.of("Puzzle"), Set.of()));
+        }
+        assertEquals(List.of("p4", "p5"),
+                percolator.getPending().stream().map(Match::gameId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void searchesAndReportedGamesSurviveARestart() throws Exception {
+        Path store = tempDir.resolve("searches.json");
+        percolator.setStoreFile(store);
+        SavedSearch puzzle = percolator.save("alice", Set.of("Puzzle"), Set.of());
+        SavedSearch deleted = percolator.save("bob", Set.of("RPG"), Set.of());
+        assertTrue(percolator.delete(deleted.id()));
+        Game first = game("p1", Set.of("Puzzle"), Set.of());
+        gameDatabase.addGame(first);
+        percolator.flush();
+
+        SavedSearchPercolator restarted = new SavedSearchPercolator(gameDatabase, outbox, 2);
+        restarted.setStoreFile(store);
+        gameDatabase.addListener(restarted::percolate);
+        assertEquals(List.of(puzzle), restarted.getSearches("alice"));
+        assertTrue(restarted.getSearches("bob").isEmpty());
+
+        // p1 was already reported; new ids don't collide with old ones
+        gameDatabase.updateGame(first);
+        gameDatabase.addGame(game("p2", Set.of("Puzzle"), Set.of()));
+        assertEquals(List.of("p2"), restarted.getPending().stream().map(Match::gameId).collect(Collectors.toList()));
+        assertEquals("3", restarted.save("carol", Set.of("RPG"), Set.of()).id());
+    }
+
+    @Test
+    void deletedSearchesStopMatching() {
+        SavedSearch search = percolator.save("alice", Set.of("Puzzle"), Set.of(" "));
+        assertEquals(Set.of(), search.tags());
+        assertEquals(List.of(search), percolator.getSearches("alice"));
+        assertTrue(percolator.delete(search.id()));
+        assertFalse(percolator.delete(search.id()));
+
+        gameDatabase.addGame(game("p1", Set.of("Puzzle"), Set.of()));
+        assertTrue(percolator.getPending().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> percolator.save("alice", Set.of(""), null));
+    }
+}
@@ -0,0 +1,104 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.benchmark.SyntheticCatalog;
+
+/**
+ * Both kernels must reproduce calculateMatchScore exactly, including the
+ * partial vector at the end of a range.
+ */
+public class ScoringKernelTest extends BaseServiceTest {
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEngine = new RecommendationEngine(gameDatabase);
+        // Odd size so the SIMD kernel has a masked tail
+        SyntheticCatalog.games(1013, 3).forEach(gameDatabase::addGame);
+    }
+
+    @Test
+    void kernelsMatchCalculateMatchScore() {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            Set<String> genres = SyntheticCatalog.terms(random, "Genre ", SyntheticCatalog.GENRES, 1 + random.nextInt(3));
+            Set<String> tags = SyntheticCatalog.terms(random, "Tag ", SyntheticCatalog.TAGS, random.nextInt(5));
+            MatchQuery query = MatchQuery.compile(index, genres, tags, WeightedMatchScorer.DEFAULT);
+
+            int[] expected = new int[index.size()];
+            for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+                expected[ordinal] = recommendationEngine.calculateMatchScore(index.gameAt(ordinal), genres, tags);
+            }
+
+            int[] scalar = new int[index.size()];
+            ScalarScoringKernel.INSTANCE.score(index, query, 0, index.size(), scalar);
+            assertArrayEquals(expected, scalar);
+
+            int[] vector = new int[index.size() - 7];
+            new VectorScoringKernel().score(index, query, 7, index.size(), vector);
+            for (int ordinal = 7; ordinal < index.size(); ordinal++) {
+                assertEquals(expected[ordinal], vector[ordinal - 7], "Ordinal " + ordinal);
+            }
+
+            // A range shorter than a vector writes nothing past its end
+            int[] shortRange = new int[16];
+            Arrays.fill(shortRange, -1);
+            new VectorScoringKernel().score(index, query, 40, 43, shortRange);
+            for (int slot = 0; slot < shortRange.length; slot++) {
+                assertEquals(slot < 3 ? expected[40 + slot] : -1, shortRange[slot], "Slot " + slot);
+            }
+        }
+    }
+
+    @Test
+    void unknownTermsLowerScoresWithoutGrowingTheTable() {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        Set<String> genres = new HashSet<>(Set.of("Genre 0", "Genre 1"));
+        Set<String> tags = new HashSet<>(Set.of("Tag 0"));
+        for (int i = 0; i < 50_000; i++) {
+            genres.add("Invented genre " + i);
+            tags.add("Invented tag " + i);
+        }
+        MatchQuery query = MatchQuery.compile(index, genres, tags, WeightedMatchScorer.DEFAULT);
+        assertEquals(3 * 2, query.scoreTable().length);
+
+        int[] scores = new int[index.size()];
+        new VectorScoringKernel().score(index, query, 0, index.size(), scores);
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            assertEquals(recommendationEngine.calculateMatchScore(index.gameAt(ordinal), genres, tags),
+                    scores[ordinal], "Ordinal " + ordinal);
+        }
+    }
+
+    @Test
+    void vectorKernelIsPickedWhenTheModuleIsEnabled() {
+        // Surefire enables jdk.incubator.vector, so auto-detection should find it
+        assertEquals(ScoringKernels.isVectorApiAvailable(), ScoringKernels.best() instanceof VectorScoringKernel);
+    }
+
+    @Test
+    void denseScanMatchesMaxScore() {
+        CatalogIndex index = gameDatabase.getCatalogIndex();
+        Set<String> genres = Set.of("Genre 0", "Genre 1");
+        Set<String> tags = Set.of("Tag 0", "Tag 2", "Tag 5");
+        MatchQuery query = MatchQuery.compile(index, genres, tags, WeightedMatchScorer.DEFAULT);
+
+        TopKHeap dense = new TopKHeap(25);
+        DenseScanner.search(index, query, ScoringKernels.best(), 0, index.size(), dense);
+        TopKHeap pruned = new TopKHeap(25);
+        MaxScoreSearcher.search(index, query, 0, index.size(), pruned);
+
+        assertArrayEquals(pruned.drainOrdinals(), dense.drainOrdinals());
+    }
+}
@@ -0,0 +1,107 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class SessionTransitionModelTest extends BaseServiceTest {
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private List<Game> games;
+    private SessionTransitionModel model;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        // One-hour half-life, at most three next games per game
+        model = new SessionTransitionModel(gameDatabase, 60, 3, now::get);
+    }
+
+    private String id(int index) {
+        return games.get(index).getId();
+    }
+
+    @Test
+    void weightsCountTransitionsAndDecay() {
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(1), id(1));
+        assertEquals(2.0, model.weightOf(id(0), id(1)), 1e-9);
+        assertEquals(0.0, model.weightOf(id(1), id(0)));
+        assertEquals(0.0, model.weightOf(id(1), id(1)));
+
+        now.addAndGet(60 * MINUTE);
+        assertEquals(1.0, model.weightOf(id(0), id(1)), 1e-9);
+    }
+
+    @Test
+    void suggestsStrongestNextGamesFirst() {
+        for (int i = 0; i < 3; i++) {
+            model.recordTransition(id(0), id(2));
+        }
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(3));
+        model.recordTransition(id(0), id(3));
+
+        assertEquals(List.of(games.get(2), games.get(3), games.get(1)), model.suggestNext(List.of(id(0)), 10));
+        assertEquals(List.of(games.get(2)), model.suggestNext(List.of(id(0)), 1));
+        assertTrue(model.suggestNext(List.of(id(5)), 10).isEmpty());
+        assertTrue(model.suggestNext(List.of(), 10).isEmpty());
+    }
+
+    @Test
+    void recentViewsOutvoteOlderViewsAndViewedGamesAreSkipped() {
+        // A transition from the last view counts twice one from the view before
+        model.recordTransition(id(0), id(4));
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(1), id(5));
+        model.recordTransition(id(1), id(0));
+        model.recordTransition(id(1), id(0));
+        model.recordTransition(id(1), id(0));
+
+        List<Game> next = model.suggestNext(List.of(id(0), id(1)), 10);
+        assertEquals(List.of(games.get(5), games.get(4)), next);
+    }
+
+    @Test
+    void fullRowsEvictTheWeakestTransition() {
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(2));
+        model.recordTransition(id(0), id(2));
+        model.recordTransition(id(0), id(3));
+        model.recordTransition(id(0), id(4));
+
+        assertEquals(0.0, model.weightOf(id(0), id(3)));
+        assertEquals(1.0, model.weightOf(id(0), id(4)), 1e-9);
+        assertEquals(List.of(games.get(1), games.get(2), games.get(4)), model.suggestNext(List.of(id(0)), 10));
+    }
+
+    @Test
+    void rebasingKeepsRelativeWeights() {
+        model.recordTransition(id(0), id(1));
+        model.recordTransition(id(0), id(1));
+        // Far past the rebase threshold; older weights underflow towards zero
+        now.addAndGet(300 * 60 * MINUTE);
+        model.recordTransition(id(0), id(2));
+        assertEquals(1.0, model.weightOf(id(0), id(2)), 1e-9);
+        assertEquals(List.of(games.get(2), games.get(1)), model.suggestNext(List.of(id(0)), 10));
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionTransitionModel(gameDatabase, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTransitionModel(gameDatabase, 60, 0));
+    }
+}
@@ -0,0 +1,88 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+
+public class TrendingServiceTest extends BaseServiceTest {
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private List<Game> games;
+    private TrendingService trending;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        // One-hour half-life
+        trending = new TrendingService(gameDatabase, 60, 3, now::get);
+    }
+
+    @Test
+    void scoresHalveEveryHalfLife() {
+        String gameId = games.get(0).getId();
+        trending.recordView(gameId);
+        trending.recordView(gameId);
+        assertEquals(2.0, trending.scoreOf(gameId), 1e-9);
+
+        now.addAndGet(60 * MINUTE);
+        assertEquals(1.0, trending.scoreOf(gameId), 1e-9);
+        trending.recordPlay(gameId, now.get());
+        assertEquals(1.0 + TrendingService.PLAY_WEIGHT, trending.scoreOf(gameId), 1e-9);
+    }
+
+    @Test
+    void recentActivityOutranksOlderActivity() {
+        // Ten views two hours ago decay to 2.5, below three fresh views
+        for (int i = 0; i < 10; i++) {
+            trending.recordView(games.get(0).getId());
+        }
+        now.addAndGet(120 * MINUTE);
+        for (int i = 0; i < 3; i++) {
+            trending.recordView(games.get(1).getId());
+        }
+        trending.recordView(games.get(2).getId());
+        trending.recordView(games.get(3).getId());
+        assertTrue(trending.getTrending().isEmpty());
+
+        trending.refresh();
+        assertEquals(List.of(games.get(1), games.get(0), games.get(2)), trending.getTrending());
+    }
+
+    @Test
+    void rebasingKeepsScores() {
+        String gameId = games.get(0).getId();
+        trending.recordView(gameId);
+        // Long enough for the refresh to move the landmark
+        now.addAndGet(300 * 60 * MINUTE);
+        trending.recordView(gameId);
+        double before = trending.scoreOf(gameId);
+        trending.refresh();
+        assertEquals(before, trending.scoreOf(gameId), 1e-9);
+        trending.recordView(gameId);
+        assertEquals(before + 1, trending.scoreOf(gameId), 1e-9);
+    }
+
+    @Test
+    void concurrentViewsAreAllCounted() {
+        String gameId = games.get(0).getId();
+        IntStream.range(0, 100_000).parallel().forEach(i -> trending.recordView(gameId));
+        assertEquals(100_000, trending.scoreOf(gameId), 1e-6);
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TrendingService(gameDatabase, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new TrendingService(gameDatabase, 60, -1));
+    }
+}
@@ -0,0 +1,93 @@
+package com.sviat.gamerecommender.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sviat.gamerecommender.model.Game;
+import com.sviat.gamerecommender.model.User;
+
+public class UserInteractionStoreTest extends BaseServiceTest {
+    private List<Game> games;
+    private UserDatabase userDatabase;
+    private UserInteractionStore store;
+
+    @BeforeEach
+    void setUp() {
+        gameDatabase.loadGamesFromFile("src/main/resources/data/games.json");
+        games = gameDatabase.getAllGames();
+        userDatabase = new UserDatabase(gameDatabase);
+        store = userDatabase.getInteractionStore();
+    }
+
+    @Test
+    void mirrorsTheUsersGames() {
+        Map<Game, Integer> played = new HashMap<>();
+        played.put(games.get(0), 12);
+        played.put(games.get(1), 3);
+        userDatabase.addUser(User.builder().id("alice").playedGames(played)
+                .ownedGames(Set.of(games.get(0).getId(), games.get(2).getId()))
+                .wishlist(Set.of(games.get(3).getId()))
+                .build());
+
+        assertTrue(store.hasPlayed("alice", games.get(0).getId()));
+        assertTrue(store.owns("alice", games.get(0).getId()));
+        assertFalse(store.hasPlayed("alice", games.get(2).getId()));
+        assertTrue(store.owns("alice", games.get(2).getId()));
+        assertTrue(store.hasWishlisted("alice", games.get(3).getId()));
+        assertFalse(store.hasWishlisted("alice", games.get(4).getId()));
+        assertEquals(12, store.playtime("alice", games.get(0).getId()));
+        assertEquals(3, store.playtime("alice", games.get(1).getId()));
+
+        int[] playedKeys = store.gameKeys("alice", UserInteractionStore.PLAYED);
+        int first = gameDatabase.findGameKey(games.get(0).getId());
+        int second = gameDatabase.findGameKey(games.get(1).getId());
+        assertArrayEquals(new int[] { Math.min(first, second), Math.max(first, second) }, playedKeys);
+        assertArrayEquals(new int[] { first }, store.gameKeys("alice",
+                UserInteractionStore.PLAYED | UserInteractionStore.OWNED));
+        int third = gameDatabase.findGameKey(games.get(2).getId());
+        assertArrayEquals(IntStream.of(first, second, third).sorted().toArray(), store.gameKeysWithAny("alice",
+                UserInteractionStore.PLAYED | UserInteractionStore.OWNED));
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        User user = User.builder().id("bob").ownedGames(Set.of(games.get(0).getId())).build();
+        userDatabase.addUser(user);
+        store.recordPlay("bob", games.get(0).getId(), 5);
+        store.recordPlay("bob", games.get(0).getId(), 7);
+        assertEquals(12, store.playtime("bob", games.get(0).getId()));
+        assertTrue(store.owns("bob", games.get(0).getId()));
+
+        userDatabase.deleteUser(user);
+        assertFalse(store.owns("bob", games.get(0).getId()));
+        assertEquals(0, store.userCount());
+        assertEquals(0, store.footprintBytes("bob"));
+    }
+
+    @Test
+    void footprintIsReportedPerUser() {
+        Map<Game, Integer> played = new HashMap<>();
+        for (Game game : games.subList(0, 20)) {
+            played.put(game, 1);
+        }
+        userDatabase.addUser(User.builder().id("carol").playedGames(played).build());
+        userDatabase.addUser(User.builder().id("dave").build());
+
+        long carol = store.footprintBytes("carol");
+        long dave = store.footprintBytes("dave");
+        // 20 games need 32 slots of two ints
+        assertEquals(dave + 2 * 4 * (32 - 4), carol);
+        assertEquals(carol + dave, store.footprintBytes());
+    }
+}
@@ -0,0 +1,57 @@
+package com.sviat.gamerecommender.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntIntHashMapTest {
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        Random random = new Random(11);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // A small key range forces long probe clusters and many removals inside them
+            int key = random.nextInt(2_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(orDefault(expected.put(key, step)), map.put(key, step, -7));
+                case 1 -> assertEquals(orDefault(expected.remove(key)), map.remove(key, -7));
+                default -> assertEquals(orDefault(expected.get(key)), map.get(key, -7));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(),
+                map.sortedKeys());
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    private static int orDefault(Integer value) {
+        return value != null ? value : -7;
+    }
+
+    @Test
+    void negativeKeysAreRejected() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, 0, 0));
+        assertEquals(5, map.get(-1, 5));
+    }
+
+    @Test
+    void footprintGrowsWithCapacity() {
+        IntIntHashMap map = new IntIntHashMap();
+        long empty = map.footprintBytes();
+        for (int key = 0; key < 100; key++) {
+            map.put(key, key, 0);
+        }
+        // 100 entries at most three quarters full need 256 slots of two ints
+        assertEquals(empty + 2 * 4 * (256 - 4), map.footprintBytes());
+    }
+}